@@ -0,0 +1,130 @@
+package com.puphax.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP Digest (RFC 2617, MD5, qop=auth) session for PUPHAX.
+ *
+ * The last challenge (realm, nonce, opaque, qop) is kept so that following
+ * requests can be signed pre-emptively with an incrementing nonce count
+ * instead of first being sent unauthenticated to collect a fresh 401. A new
+ * challenge replaces the stored one and restarts the count; callers do that
+ * when the server answers 401, with or without {@code stale=true}.
+ *
+ * Thread-safe: the challenge is immutable and swapped atomically, the nonce
+ * count is shared by all requests signed with that nonce.
+ */
+public final class DigestAuthSession {
+
+    private static final Pattern REALM_PATTERN = Pattern.compile("realm=\"([^\"]+)\"");
+    private static final Pattern NONCE_PATTERN = Pattern.compile("nonce=\"([^\"]+)\"");
+    private static final Pattern OPAQUE_PATTERN = Pattern.compile("opaque=\"([^\"]+)\"");
+    private static final Pattern QOP_PATTERN = Pattern.compile("qop=\"([^\"]+)\"");
+    private static final Pattern STALE_PATTERN = Pattern.compile("stale=\"?true\"?", Pattern.CASE_INSENSITIVE);
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private volatile Challenge challenge;
+
+    /**
+     * Parsed challenge with the credentials hash and the nonce count of its nonce.
+     */
+    private record Challenge(String username, String realm, String nonce, String opaque, String qop,
+                             String ha1, AtomicLong nonceCount) {
+    }
+
+    /**
+     * Whether a {@code WWW-Authenticate} header is a Digest challenge.
+     */
+    public static boolean isDigest(String wwwAuthenticate) {
+        return wwwAuthenticate != null && wwwAuthenticate.startsWith("Digest");
+    }
+
+    /**
+     * Whether a challenge only reports an expired nonce ({@code stale=true}), not rejected credentials.
+     */
+    public static boolean isStale(String wwwAuthenticate) {
+        return wwwAuthenticate != null && STALE_PATTERN.matcher(wwwAuthenticate).find();
+    }
+
+    /**
+     * Stores a Digest challenge for signing subsequent requests.
+     */
+    public void challenge(String wwwAuthenticate, String username, String password) {
+        String realm = group(REALM_PATTERN, wwwAuthenticate, "");
+        String nonce = group(NONCE_PATTERN, wwwAuthenticate, "");
+        String opaque = group(OPAQUE_PATTERN, wwwAuthenticate, "");
+        String qop = group(QOP_PATTERN, wwwAuthenticate, "auth");
+        String ha1 = md5(username + ":" + realm + ":" + password);
+        challenge = new Challenge(username, realm, nonce, opaque, qop, ha1, new AtomicLong());
+    }
+
+    /**
+     * Whether a challenge is stored, so requests can be signed pre-emptively.
+     */
+    public boolean isEstablished() {
+        return challenge != null;
+    }
+
+    /**
+     * Forgets the stored challenge.
+     */
+    public void invalidate() {
+        challenge = null;
+    }
+
+    /**
+     * Builds the {@code Authorization} header for the next request, or null if no challenge is stored.
+     */
+    public String authorize(String method, String uri) {
+        return authorize(method, uri, UUID.randomUUID().toString().replace("-", ""));
+    }
+
+    String authorize(String method, String uri, String cnonce) {
+        Challenge current = challenge;
+        if (current == null) {
+            return null;
+        }
+        String nc = String.format("%08x", current.nonceCount().incrementAndGet());
+
+        // response = MD5(HA1:nonce:nc:cnonce:qop:HA2), HA2 = MD5(method:uri)
+        String ha2 = md5(method + ":" + uri);
+        String response = md5(current.ha1() + ":" + current.nonce() + ":" + nc + ":" + cnonce + ":"
+            + current.qop() + ":" + ha2);
+
+        StringBuilder header = new StringBuilder("Digest ");
+        header.append("username=\"").append(current.username()).append("\", ");
+        header.append("realm=\"").append(current.realm()).append("\", ");
+        header.append("nonce=\"").append(current.nonce()).append("\", ");
+        header.append("uri=\"").append(uri).append("\", ");
+        header.append("qop=").append(current.qop()).append(", ");
+        header.append("nc=").append(nc).append(", ");
+        header.append("cnonce=\"").append(cnonce).append("\", ");
+        header.append("response=\"").append(response).append("\"");
+        if (!current.opaque().isEmpty()) {
+            header.append(", opaque=\"").append(current.opaque()).append("\"");
+        }
+        return header.toString();
+    }
+
+    private static String group(Pattern pattern, String header, String defaultValue) {
+        Matcher matcher = pattern.matcher(header);
+        return matcher.find() ? matcher.group(1) : defaultValue;
+    }
+
+    private static String md5(String input) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            return HEX.formatHex(md.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
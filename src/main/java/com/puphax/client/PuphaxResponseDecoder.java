@@ -0,0 +1,254 @@
+package com.puphax.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass decoder for PUPHAX response bodies.
+ *
+ * The first bytes are inspected for the XML prolog. PUPHAX declares UTF-8 (or
+ * nothing) but sends ISO-8859-2, so those bodies are decoded as ISO-8859-2
+ * through a 256-entry lookup table directly from the source stream; a body
+ * that declares another charset, or starts with a UTF-8 byte order mark, is
+ * decoded with the JDK decoder for that charset instead. The declaration in the
+ * emitted prolog is rewritten to the charset actually used, so the text never
+ * has to be searched and replaced afterwards.
+ */
+public final class PuphaxResponseDecoder {
+
+    /** Charset PUPHAX actually sends, whatever the prolog says. */
+    public static final Charset PUPHAX_CHARSET = Charset.forName("ISO-8859-2");
+
+    private static final int PROLOG_LIMIT = 256;
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Pattern ENCODING_PATTERN = Pattern.compile("encoding\\s*=\\s*[\"']([A-Za-z0-9._:-]+)[\"']");
+
+    private static final char[] CHARS = new char[256];
+    private static final byte[][] UTF8 = new byte[256][];
+
+    static {
+        byte[] all = new byte[256];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = (byte) i;
+        }
+        String decoded = new String(all, PUPHAX_CHARSET);
+        for (int i = 0; i < CHARS.length; i++) {
+            CHARS[i] = decoded.charAt(i);
+            UTF8[i] = String.valueOf(CHARS[i]).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private PuphaxResponseDecoder() {
+    }
+
+    /**
+     * Opens a character stream over a response body; the caller closes it, which closes {@code body}.
+     */
+    public static Reader open(InputStream body) throws IOException {
+        Head head = Head.read(body);
+        if (head.charset() == PUPHAX_CHARSET) {
+            return new TableReader(head.prolog(PUPHAX_CHARSET.name()), head.bytes(), head.start(), head.length(), body);
+        }
+        return new PrologReader(head.prolog(head.charset().name()), new InputStreamReader(head.remainder(body), head.charset()));
+    }
+
+    /**
+     * Copies a response body to {@code out} as UTF-8 (prolog declaration included) in one pass.
+     */
+    public static void transcode(InputStream body, OutputStream out) throws IOException {
+        Head head = Head.read(body);
+        out.write(head.prolog("UTF-8").getBytes(StandardCharsets.US_ASCII));
+        if (head.charset() != PUPHAX_CHARSET) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            new InputStreamReader(head.remainder(body), head.charset()).transferTo(writer);
+            writer.flush();
+            return;
+        }
+
+        byte[] in = head.bytes();
+        int start = head.start();
+        int length = head.length();
+        byte[] encoded = new byte[BUFFER_SIZE * 3];
+        while (true) {
+            int position = 0;
+            for (int i = start; i < length; i++) {
+                int b = in[i] & 0xFF;
+                if (b < 0x80) {
+                    encoded[position++] = (byte) b;
+                } else {
+                    byte[] sequence = UTF8[b];
+                    System.arraycopy(sequence, 0, encoded, position, sequence.length);
+                    position += sequence.length;
+                }
+            }
+            out.write(encoded, 0, position);
+            if (in.length < BUFFER_SIZE) {
+                in = new byte[BUFFER_SIZE];
+            }
+            start = 0;
+            length = body.read(in, 0, BUFFER_SIZE);
+            if (length < 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The first bytes of a body, split into the (ASCII) prolog and the rest.
+     */
+    private record Head(byte[] bytes, int start, int length, String declaration, int nameStart, int nameEnd,
+                        Charset charset) {
+
+        static Head read(InputStream body) throws IOException {
+            byte[] bytes = new byte[PROLOG_LIMIT];
+            int length = body.readNBytes(bytes, 0, PROLOG_LIMIT);
+
+            if (length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF) {
+                // A byte order mark is real UTF-8, not a PUPHAX label
+                return new Head(bytes, 3, length, "", 0, 0, StandardCharsets.UTF_8);
+            }
+
+            int end = prologEnd(bytes, length);
+            if (end < 0) {
+                return new Head(bytes, 0, length, "", 0, 0, PUPHAX_CHARSET);
+            }
+            String declaration = new String(bytes, 0, end, StandardCharsets.ISO_8859_1);
+            Matcher matcher = ENCODING_PATTERN.matcher(declaration);
+            if (!matcher.find()) {
+                return new Head(bytes, end, length, declaration, end, end, PUPHAX_CHARSET);
+            }
+            return new Head(bytes, end, length, declaration, matcher.start(1), matcher.end(1),
+                charsetOf(matcher.group(1)));
+        }
+
+        String prolog(String charsetName) {
+            if (nameStart == nameEnd) {
+                return declaration;
+            }
+            return declaration.substring(0, nameStart) + charsetName + declaration.substring(nameEnd);
+        }
+
+        InputStream remainder(InputStream body) {
+            return new SequenceInputStream(new ByteArrayInputStream(bytes, start, length - start), body);
+        }
+
+        private static int prologEnd(byte[] bytes, int length) {
+            if (length < 5 || bytes[0] != '<' || bytes[1] != '?' || bytes[2] != 'x' || bytes[3] != 'm' || bytes[4] != 'l') {
+                return -1;
+            }
+            for (int i = 5; i + 1 < length; i++) {
+                if (bytes[i] == '?' && bytes[i + 1] == '>') {
+                    return i + 2;
+                }
+            }
+            return -1;
+        }
+
+        private static Charset charsetOf(String name) {
+            try {
+                Charset charset = Charset.forName(name);
+                // UTF-8 is what PUPHAX claims for its ISO-8859-2 output
+                return charset.equals(StandardCharsets.UTF_8) || charset.equals(PUPHAX_CHARSET) ? PUPHAX_CHARSET : charset;
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                return PUPHAX_CHARSET;
+            }
+        }
+    }
+
+    /**
+     * Emits the rewritten prolog, then everything else from the wrapped reader.
+     */
+    private static class PrologReader extends Reader {
+
+        private final String prolog;
+        private int prologPosition;
+        private final Reader rest;
+
+        PrologReader(String prolog, Reader rest) {
+            this.prolog = prolog;
+            this.rest = rest;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (prologPosition < prolog.length()) {
+                int n = Math.min(len, prolog.length() - prologPosition);
+                prolog.getChars(prologPosition, prologPosition + n, cbuf, off);
+                prologPosition += n;
+                return n;
+            }
+            return rest.read(cbuf, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            rest.close();
+        }
+    }
+
+    /**
+     * ISO-8859-2 decoding by table lookup straight from the source stream's bytes.
+     */
+    private static final class TableReader extends PrologReader {
+
+        private byte[] buffer;
+        private int position;
+        private int limit;
+        private final InputStream body;
+
+        TableReader(String prolog, byte[] head, int start, int length, InputStream body) {
+            super(prolog, Reader.nullReader());
+            this.buffer = head;
+            this.position = start;
+            this.limit = length;
+            this.body = body;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int n = super.read(cbuf, off, len);
+            if (n != -1) {
+                return n;
+            }
+            if (position == limit) {
+                if (buffer.length < BUFFER_SIZE) {
+                    buffer = new byte[BUFFER_SIZE];
+                }
+                limit = body.read(buffer, 0, Math.min(len, BUFFER_SIZE));
+                position = 0;
+                if (limit < 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            n = Math.min(len, limit - position);
+            for (int i = 0; i < n; i++) {
+                cbuf[off + i] = CHARS[buffer[position + i] & 0xFF];
+            }
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package com.puphax.client;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming decoder for PUPHAX TERMEKADAT, TAMOGATADAT, TAB* code table, KIHIRD and DISP_DIFF responses.
+ *
+ * A response is read in one StAX traversal straight from the HTTP body: the
+ * first occurrence of every field of interest is captured into a slot by
+ * element name and the typed record is built from the slots at the end. The
+ * reader stops as soon as every field has been seen. Missing fields are
+ * returned as empty strings, values are trimmed and entities decoded.
+ *
+ * SOAP faults are reported through the {@code fault} component (the
+ * {@code faultstring} text, or a placeholder if the fault has none) instead
+ * of an exception, so callers can decide how to degrade.
+ *
+ * Code tables (TABCEGEK, TABATC, ...) are read row by row: every OBJKODTABLA
+ * or OBJKODTABLA2 element becomes one {@link KodTablaSor}. KIHIRD publications
+ * and the products of a DISP_INF / DISP_DIFF page are read the same way.
+ */
+public final class PuphaxResponseReader {
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static final String[] TERMEK_FIELDS = {
+        "NEV", "ATC", "FORGALMAZO", "FORGALMAZONEV", "CEGNEV", "FORGALMAZ_ID", "FORGENGT_ID", "TTT",
+        "HATOANYAG", "KISZNEV", "TK", "RENDELHET", "GYSZERFORM", "GYFORMA", "HATAROSSAG", "KISZALLKVANT",
+        "TERMEKADAT_TIPUS", "ERV_KEZD", "ERV_VEGE"
+    };
+
+    private static final String[] TAMOGAT_FIELDS = {
+        "KGYKERET", "TERMEKNEV", "NEV", "ATC", "ATCKOD", "FORGALMNEV", "CEGNEV", "BRUNAKFOGY", "BRUNAGYFOGY",
+        "NETNAGYFOGY", "TERMELESAR", "BRUTTOFAB", "FAB", "TAMSZAZ", "TAMOSSZEG", "TERITESIDIJ", "KATEGORIA",
+        "NORMATIVITAS", "TAMTECHN", "TAMOGATAS_TIPUS", "HATOANYAG", "HATANYNEV"
+    };
+
+    private static final Map<String, Integer> TERMEK_SLOTS = slots(TERMEK_FIELDS);
+    private static final Map<String, Integer> TAMOGAT_SLOTS = slots(TAMOGAT_FIELDS);
+
+    private PuphaxResponseReader() {
+    }
+
+    /**
+     * Product master data from a TERMEKADAT response.
+     */
+    public record TermekAdat(
+        String name,                 // NEV
+        String atc,                  // ATC
+        String distributor,          // FORGALMAZO
+        String distributorName,      // FORGALMAZONEV
+        String companyName,          // CEGNEV
+        String distributorId,        // FORGALMAZ_ID
+        String authorizationHolderId, // FORGENGT_ID
+        String ttt,                  // TTT
+        String activeIngredient,     // HATOANYAG
+        String packaging,            // KISZNEV
+        String tk,                   // TK (registration number)
+        String rendelhet,            // RENDELHET (prescription status)
+        String productForm,          // GYSZERFORM
+        String gyForma,              // GYFORMA
+        String strength,             // HATAROSSAG
+        String packSize,             // KISZALLKVANT
+        String productType,          // TERMEKADAT_TIPUS
+        String validFrom,            // ERV_KEZD
+        String validTo,              // ERV_VEGE
+        String fault                 // SOAP fault text, null if none
+    ) {
+        public boolean isFault() {
+            return fault != null;
+        }
+    }
+
+    /**
+     * Prices and reimbursement from a TAMOGATADAT response.
+     *
+     * @param recognized whether the body contained an OBJTAMOGAT / TAMOGATADAT output element
+     */
+    public record TamogatAdat(
+        String kgykeret,             // KGYKERET (999999999.999999 means no support data)
+        String termekNev,            // TERMEKNEV
+        String nev,                  // NEV
+        String atc,                  // ATC
+        String atcKod,               // ATCKOD
+        String forgalmazoNev,        // FORGALMNEV
+        String cegNev,               // CEGNEV
+        String bruttoFogyasztoiAr,   // BRUNAKFOGY
+        String bruttoNagykerFogyAr,  // BRUNAGYFOGY
+        String nettoFogyasztoiAr,    // NETNAGYFOGY
+        String termeloiAr,           // TERMELESAR
+        String bruttoFab,            // BRUTTOFAB
+        String fab,                  // FAB
+        String tamogatasSzazalek,    // TAMSZAZ
+        String tamogatasOsszeg,      // TAMOSSZEG
+        String teritesiDij,          // TERITESIDIJ
+        String kategoria,            // KATEGORIA
+        String normativitas,         // NORMATIVITAS
+        String tamogatasTechnika,    // TAMTECHN
+        String tamogatasTipus,       // TAMOGATAS_TIPUS
+        String hatoanyag,            // HATOANYAG
+        String hatoanyagNev,         // HATANYNEV
+        boolean recognized,
+        String fault                 // SOAP fault text, null if none
+    ) {
+        public boolean isFault() {
+            return fault != null;
+        }
+    }
+
+    /**
+     * Rows of a TAB* code table response.
+     */
+    public record KodTabla(List<KodTablaSor> rows, String fault) {
+        public boolean isFault() {
+            return fault != null;
+        }
+    }
+
+    /**
+     * One code table row.
+     */
+    public record KodTablaSor(
+        String code,                 // KOD
+        String name,                 // ELNEVEZ
+        String note,                 // MEGJEGYZ
+        String extraInfo             // KIEGINFO (OBJKODTABLA2 only, empty otherwise)
+    ) {
+    }
+
+    /**
+     * Publication dates from a KIHIRD response.
+     */
+    public record KihirdLista(List<Kihirdetes> publications, String fault) {
+        public boolean isFault() {
+            return fault != null;
+        }
+    }
+
+    /**
+     * One publication of the product master data.
+     */
+    public record Kihirdetes(
+        String effectiveFrom,        // ELETBELEP (yyyy-MM-dd, the planned date for a working version)
+        String status,               // STATUS: E live, M working version, A being prepared
+        String version               // VER (empty for the first version of a date)
+    ) {
+        public boolean isLive() {
+            return "E".equals(status);
+        }
+    }
+
+    /**
+     * One page of a DISP_INF / DISP_DIFF response.
+     *
+     * @param recordCount REKORDSZAM, the size of the whole result (only filled for the page starting at 1)
+     * @param products TERMEKADAT of every OBJDISPINF, as element name to trimmed text in document order
+     */
+    public record DispLista(int recordCount, List<Map<String, String>> products, String fault) {
+        public boolean isFault() {
+            return fault != null;
+        }
+    }
+
+    /**
+     * The fault of an error response: {@code faultcode} (empty if absent) and {@code faultstring}.
+     */
+    public record SoapFault(String code, String message) {
+    }
+
+    /**
+     * Decodes a TERMEKADAT response body.
+     */
+    public static TermekAdat readTermekAdat(Reader body) throws XMLStreamException {
+        Scan scan = scan(body, TERMEK_SLOTS, TERMEK_FIELDS.length);
+        String[] v = scan.values;
+        return new TermekAdat(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8], v[9], v[10], v[11], v[12],
+            v[13], v[14], v[15], v[16], v[17], v[18], scan.fault);
+    }
+
+    /**
+     * Decodes a TAMOGATADAT response body.
+     */
+    public static TamogatAdat readTamogatAdat(Reader body) throws XMLStreamException {
+        Scan scan = scan(body, TAMOGAT_SLOTS, TAMOGAT_FIELDS.length);
+        String[] v = scan.values;
+        return new TamogatAdat(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8], v[9], v[10], v[11], v[12],
+            v[13], v[14], v[15], v[16], v[17], v[18], v[19], v[20], v[21],
+            scan.recognized || !v[0].isEmpty(), scan.fault);
+    }
+
+    /**
+     * Decodes a TAB* code table response body.
+     */
+    public static KodTabla readKodTabla(Reader body) throws XMLStreamException {
+        List<KodTablaSor> rows = new ArrayList<>();
+        String fault = null;
+        XMLStreamReader xml = INPUT_FACTORY.createXMLStreamReader(body);
+        try {
+            boolean inFault = false;
+            String[] row = null;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.END_ELEMENT && row != null && xml.getLocalName().startsWith("OBJKODTABLA")) {
+                    rows.add(new KodTablaSor(row[0], row[1], row[2], row[3]));
+                    row = null;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = xml.getLocalName();
+                switch (name) {
+                    case "Fault" -> {
+                        inFault = true;
+                        fault = "SOAP fault";
+                    }
+                    case "faultstring" -> {
+                        if (inFault) {
+                            fault = xml.getElementText().trim();
+                        }
+                    }
+                    case "OBJKODTABLA", "OBJKODTABLA2" -> row = new String[] {"", "", "", ""};
+                    case "KOD", "ELNEVEZ", "MEGJEGYZ", "KIEGINFO" -> {
+                        if (row != null) {
+                            int column = switch (name) {
+                                case "KOD" -> 0;
+                                case "ELNEVEZ" -> 1;
+                                case "MEGJEGYZ" -> 2;
+                                default -> 3;
+                            };
+                            row[column] = xml.getElementText().trim();
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+        return new KodTabla(List.copyOf(rows), fault);
+    }
+
+    /**
+     * Decodes a KIHIRD response body.
+     */
+    public static KihirdLista readKihird(Reader body) throws XMLStreamException {
+        List<Kihirdetes> publications = new ArrayList<>();
+        String fault = null;
+        XMLStreamReader xml = INPUT_FACTORY.createXMLStreamReader(body);
+        try {
+            boolean inFault = false;
+            String[] publication = null;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.END_ELEMENT && publication != null
+                        && xml.getLocalName().equals("OBJKIHIRDELEM")) {
+                    publications.add(new Kihirdetes(publication[0], publication[1], publication[2]));
+                    publication = null;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = xml.getLocalName();
+                switch (name) {
+                    case "Fault" -> {
+                        inFault = true;
+                        fault = "SOAP fault";
+                    }
+                    case "faultstring" -> {
+                        if (inFault) {
+                            fault = xml.getElementText().trim();
+                        }
+                    }
+                    case "OBJKIHIRDELEM" -> publication = new String[] {"", "", ""};
+                    case "ELETBELEP", "STATUS", "VER" -> {
+                        if (publication != null) {
+                            int column = switch (name) {
+                                case "ELETBELEP" -> 0;
+                                case "STATUS" -> 1;
+                                default -> 2;
+                            };
+                            publication[column] = xml.getElementText().trim();
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+        return new KihirdLista(List.copyOf(publications), fault);
+    }
+
+    /**
+     * Decodes the product part of a DISP_INF / DISP_DIFF response body; TAMADAT is skipped.
+     */
+    public static DispLista readDisp(Reader body) throws XMLStreamException {
+        List<Map<String, String>> products = new ArrayList<>();
+        int recordCount = 0;
+        String fault = null;
+        XMLStreamReader xml = INPUT_FACTORY.createXMLStreamReader(body);
+        try {
+            boolean inFault = false;
+            Map<String, String> product = null;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.END_ELEMENT && product != null
+                        && xml.getLocalName().equals("TERMEKADAT")) {
+                    products.add(product);
+                    product = null;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = xml.getLocalName();
+                if (product != null) {
+                    // TERMEKADAT fields are flat; getElementText consumes each one
+                    product.putIfAbsent(name, xml.getElementText().trim());
+                    continue;
+                }
+                switch (name) {
+                    case "Fault" -> {
+                        inFault = true;
+                        fault = "SOAP fault";
+                    }
+                    case "faultstring" -> {
+                        if (inFault) {
+                            fault = xml.getElementText().trim();
+                        }
+                    }
+                    case "REKORDSZAM" -> recordCount = parseCount(xml.getElementText());
+                    case "TERMEKADAT" -> product = new LinkedHashMap<>();
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+        return new DispLista(recordCount, List.copyOf(products), fault);
+    }
+
+    /**
+     * Decodes the SOAP fault of an error (HTTP 500) response body, or returns null if it holds none.
+     */
+    public static SoapFault readFault(Reader body) throws XMLStreamException {
+        String code = "";
+        String message = null;
+        XMLStreamReader xml = INPUT_FACTORY.createXMLStreamReader(body);
+        try {
+            boolean inFault = false;
+            while (xml.hasNext()) {
+                if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (xml.getLocalName()) {
+                    case "Fault" -> {
+                        inFault = true;
+                        message = "SOAP fault";
+                    }
+                    case "faultcode" -> {
+                        if (inFault) {
+                            code = xml.getElementText().trim();
+                        }
+                    }
+                    case "faultstring" -> {
+                        if (inFault) {
+                            message = xml.getElementText().trim();
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+        return message != null ? new SoapFault(code, message) : null;
+    }
+
+    private static int parseCount(String value) {
+        try {
+            return (int) Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Captured slots of one traversal.
+     */
+    private static final class Scan {
+        final String[] values;
+        boolean recognized;
+        String fault;
+
+        Scan(int slotCount) {
+            values = new String[slotCount];
+        }
+    }
+
+    private static Scan scan(Reader body, Map<String, Integer> slots, int slotCount) throws XMLStreamException {
+        Scan scan = new Scan(slotCount);
+        int remaining = slotCount;
+        boolean inFault = false;
+
+        XMLStreamReader xml = INPUT_FACTORY.createXMLStreamReader(body);
+        try {
+            // Text of the element being captured; nested elements contribute their text
+            StringBuilder text = new StringBuilder();
+            int capturing = -1;
+            int depth = 0;
+
+            while (xml.hasNext() && (remaining > 0 || inFault)) {
+                switch (xml.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        if (capturing >= 0) {
+                            depth++;
+                            continue;
+                        }
+                        String name = xml.getLocalName();
+                        if (name.equals("Fault")) {
+                            inFault = true;
+                            scan.fault = "SOAP fault";
+                        } else if (inFault && name.equals("faultstring")) {
+                            scan.fault = xml.getElementText().trim();
+                            inFault = false;
+                        } else if (name.contains("OBJTAMOGAT") || name.contains("TAMOGATADATOutput")) {
+                            scan.recognized = true;
+                        }
+                        Integer slot = slots.get(name);
+                        if (slot != null && scan.values[slot] == null) {
+                            capturing = slot;
+                            depth = 0;
+                            text.setLength(0);
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA,
+                         XMLStreamConstants.SPACE, XMLStreamConstants.ENTITY_REFERENCE -> {
+                        if (capturing >= 0) {
+                            text.append(xml.getText());
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        if (capturing >= 0) {
+                            if (depth > 0) {
+                                depth--;
+                            } else {
+                                scan.values[capturing] = text.toString().trim();
+                                capturing = -1;
+                                remaining--;
+                            }
+                        } else if (xml.getLocalName().equals("Fault")) {
+                            inFault = false;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+
+        for (int i = 0; i < slotCount; i++) {
+            if (scan.values[i] == null) {
+                scan.values[i] = "";
+            }
+        }
+        return scan;
+    }
+
+    private static Map<String, Integer> slots(String[] fields) {
+        Map<String, Integer> slots = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            slots.put(fields[i], i);
+        }
+        return Map.copyOf(slots);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
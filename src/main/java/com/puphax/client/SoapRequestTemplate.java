@@ -0,0 +1,131 @@
+package com.puphax.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pre-compiled SOAP request envelope.
+ *
+ * The template text is split once at its {@code %s} placeholders into constant
+ * UTF-8 byte segments. Rendering copies those segments and writes the
+ * parameters between them straight into a single exactly sized byte array:
+ * {@code String} parameters are XML-escaped and UTF-8 encoded on the way, and
+ * {@code byte[]} parameters (e.g. another rendered template) are inserted as
+ * they are. No format string is parsed and no intermediate String is built per
+ * request, and the result can be sent as the HTTP entity without re-encoding.
+ */
+public final class SoapRequestTemplate {
+
+    private static final String PLACEHOLDER = "%s";
+
+    private static final byte[] AMP = "&amp;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LT = "&lt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GT = "&gt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUOT = "&quot;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] APOS = "&apos;".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[][] segments;
+    private final int constantLength;
+
+    private SoapRequestTemplate(byte[][] segments) {
+        this.segments = segments;
+        int length = 0;
+        for (byte[] segment : segments) {
+            length += segment.length;
+        }
+        this.constantLength = length;
+    }
+
+    /**
+     * Compiles a template whose parameters are marked with {@code %s}.
+     */
+    public static SoapRequestTemplate compile(String template) {
+        List<byte[]> segments = new ArrayList<>();
+        int start = 0;
+        int placeholder;
+        while ((placeholder = template.indexOf(PLACEHOLDER, start)) >= 0) {
+            segments.add(template.substring(start, placeholder).getBytes(StandardCharsets.UTF_8));
+            start = placeholder + PLACEHOLDER.length();
+        }
+        segments.add(template.substring(start).getBytes(StandardCharsets.UTF_8));
+        return new SoapRequestTemplate(segments.toArray(byte[][]::new));
+    }
+
+    /** Number of {@code %s} parameters the template expects. */
+    public int parameterCount() {
+        return segments.length - 1;
+    }
+
+    /**
+     * Renders the request as UTF-8 bytes.
+     *
+     * @param parameters one per placeholder: a {@code String} (escaped; null renders empty)
+     *                   or a {@code byte[]} inserted verbatim
+     */
+    public byte[] render(Object... parameters) {
+        if (parameters.length != parameterCount()) {
+            throw new IllegalArgumentException("Expected " + parameterCount() + " parameters, got " + parameters.length);
+        }
+        byte[][] encoded = new byte[parameters.length][];
+        int length = constantLength;
+        for (int i = 0; i < parameters.length; i++) {
+            encoded[i] = parameters[i] instanceof byte[] raw ? raw : escape((String) parameters[i]);
+            length += encoded[i].length;
+        }
+
+        byte[] request = new byte[length];
+        int position = 0;
+        for (int i = 0; i < segments.length; i++) {
+            System.arraycopy(segments[i], 0, request, position, segments[i].length);
+            position += segments[i].length;
+            if (i < encoded.length) {
+                System.arraycopy(encoded[i], 0, request, position, encoded[i].length);
+                position += encoded[i].length;
+            }
+        }
+        return request;
+    }
+
+    /**
+     * XML-escapes and UTF-8 encodes a parameter in one pass; plain ASCII is copied byte for byte.
+     */
+    static byte[] escape(String text) {
+        if (text == null || text.isEmpty()) {
+            return new byte[0];
+        }
+        byte[] out = new byte[text.length() + 16];
+        int position = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            byte[] entity = switch (c) {
+                case '&' -> AMP;
+                case '<' -> LT;
+                case '>' -> GT;
+                case '"' -> QUOT;
+                case '\'' -> APOS;
+                default -> null;
+            };
+            if (entity == null && c < 0x80) {
+                if (position == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                out[position++] = (byte) c;
+                continue;
+            }
+            if (entity == null) {
+                // Non-ASCII: encode the code point (surrogate pairs together)
+                int end = Character.isHighSurrogate(c) && i + 1 < text.length() ? i + 2 : i + 1;
+                entity = text.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                i = end - 1;
+            }
+            if (position + entity.length > out.length) {
+                out = Arrays.copyOf(out, Math.max(out.length * 2, position + entity.length));
+            }
+            System.arraycopy(entity, 0, out, position, entity.length);
+            position += entity.length;
+        }
+        return position == out.length ? out : Arrays.copyOf(out, position);
+    }
+}
@@ -1,91 +1,159 @@
 package com.puphax.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration for caching SOAP responses to improve performance.
  * 
- * This configuration sets up Caffeine cache with appropriate TTL
- * settings to cache PUPHAX service responses for 5-15 minutes,
- * reducing load on the external SOAP service.
+ * Each cache gets its own size and TTLs from {@code puphax.cache.policies}
+ * (see {@link CachePolicy}): sizes are estimated bytes, so a large search
+ * payload counts for more than a company name, and all caches together stay
+ * within {@code puphax.cache.memory-budget}. The caches listed under
+ * {@code puphax.cache.persistent.caches} are backed by a persistent L2 on
+ * disk, so a restart does not start them cold. Caches with a
+ * {@code refresh-after-write} serve stale entries while refreshing them in
+ * the background (see {@link RefreshAheadCaches}).
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
     
+    // Pre-configure cache names to match @Cacheable annotations
+    private static final List<String> CACHE_NAMES = List.of(
+        "drug-search-results",
+        "product-details",
+        "support-data",
+        "company-names",
+        "puphax-drugs",
+        "puphax-drug-details",
+        "drugSearchCache",
+        "gyogyszer-kereses-cache",
+        "negative-results"
+    );
+    
+    /**
+     * Per-cache policies, scaled down if they exceed the memory budget.
+     */
+    @Bean
+    public CachePolicies cachePolicies(Environment environment,
+            @Value("${puphax.cache.memory-budget:256MB}") DataSize memoryBudget) {
+        return CachePolicies.of(environment, CACHE_NAMES, memoryBudget);
+    }
+    
     /**
      * Primary cache manager using Caffeine for in-memory caching.
      * 
      * Cache settings:
-     * - Maximum 1000 entries per cache
-     * - 10 minute expiration after write
+     * - Bounded by estimated bytes ({@link CacheWeigher}), per cache policy
+     * - Expiration after write, per cache policy
      * - Automatic eviction of least recently used entries
+     * - Persistent caches kept on disk for {@code puphax.cache.persistent.max-age}
+     * - Refresh-ahead caches reloaded after the soft TTL, expired after the hard TTL
      */
     @Bean
     @Primary
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(
+            CachePolicies cachePolicies,
+            @Value("${puphax.cache.persistent.enabled:true}") boolean persistentEnabled,
+            @Value("${puphax.cache.persistent.path:data/cache}") String persistentPath,
+            @Value("${puphax.cache.persistent.max-age:24h}") Duration persistentMaxAge,
+            @Value("${puphax.cache.persistent.caches:drug-search-results,product-details,support-data,company-names}")
+            List<String> persistentCaches,
+            RefreshAheadCaches refreshAheadCaches) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-            .maximumSize(1000)
-            .expireAfterWrite(Duration.ofMinutes(10))
-            .recordStats()
-        );
+        // Only the caches below exist; unknown names are not created on the fly
+        cacheManager.setCacheNames(List.of());
         
-        // Pre-configure cache names to match @Cacheable annotations
-        cacheManager.setCacheNames(java.util.List.of(
-            "drug-search-results",
-            "product-details",
-            "support-data",
-            "company-names",
-            "puphax-drugs",
-            "puphax-drug-details",
-            "drugSearchCache",
-            "gyogyszer-kereses-cache"
-        ));
+        for (Map.Entry<String, CachePolicy> entry : cachePolicies.policies().entrySet()) {
+            CachePolicy policy = entry.getValue();
+            Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumWeight(policy.maxWeight().toBytes())
+                .weigher(new CacheWeigher())
+                .expireAfterWrite(policy.expireAfterWrite())
+                .recordStats();
+            if (policy.refreshAfterWrite() != null) {
+                builder.refreshAfterWrite(policy.refreshAfterWrite());
+                cacheManager.registerCustomCache(entry.getKey(), refreshAheadCaches.build(entry.getKey(), builder));
+            } else {
+                cacheManager.registerCustomCache(entry.getKey(), builder.build());
+            }
+        }
         
-        return cacheManager;
+        if (!persistentEnabled) {
+            return cacheManager;
+        }
+        return new TieredCacheManager(cacheManager, Path.of(persistentPath), persistentMaxAge, persistentCaches);
     }
     
     /**
-     * Specialized cache for drug search results with shorter TTL.
-     * Search results change more frequently and should have shorter cache time.
+     * Background reloads of the caches with a {@code refresh-after-write}, whose entries
+     * {@link com.puphax.service.ProductCacheRefresher} knows how to reload.
      */
-    @Bean("searchCacheManager")
-    public CacheManager searchCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("puphax-search");
-        
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-            .maximumSize(500)
-            .expireAfterWrite(Duration.ofMinutes(5))
-            .recordStats()
-        );
-        
-        return cacheManager;
+    @Bean
+    public RefreshAheadCaches refreshAheadCaches(
+            @Value("${puphax.cache.refresh.max-concurrent:2}") int maxConcurrent) {
+        return new RefreshAheadCaches(maxConcurrent);
     }
     
     /**
-     * Long-term cache for drug details that rarely change.
-     * Drug details are more stable and can be cached longer.
+     * Cache metrics for the persistent caches, which the Caffeine binder does not recognize.
      */
-    @Bean("detailsCacheManager")
-    public CacheManager detailsCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("puphax-details");
-        
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-            .maximumSize(2000)
-            .expireAfterWrite(Duration.ofMinutes(15))
-            .recordStats()
-        );
-        
-        return cacheManager;
+    @Bean
+    public TieredCacheMeterBinderProvider tieredCacheMeterBinderProvider() {
+        return new TieredCacheMeterBinderProvider();
+    }
+    
+    /**
+     * Weighted size, weight limit and hit ratio of every cache, next to the
+     * gets, evictions and eviction weight the Caffeine binder already exports.
+     */
+    @Bean
+    public MeterBinder cacheWeightMetrics(CacheManager cacheManager, CachePolicies cachePolicies) {
+        return registry -> {
+            Gauge.builder("cache.memory.budget", cachePolicies, p -> p.memoryBudget().toBytes())
+                .description("Estimated bytes all caches together may hold")
+                .baseUnit("bytes")
+                .register(registry);
+            for (Map.Entry<String, CachePolicy> entry : cachePolicies.policies().entrySet()) {
+                Cache cache = cacheManager.getCache(entry.getKey());
+                if (cache == null
+                        || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+                    continue;
+                }
+                Gauge.builder("cache.weighted.size", nativeCache, c -> c.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                    .description("Estimated bytes held by the cache")
+                    .tag("cache", entry.getKey())
+                    .baseUnit("bytes")
+                    .register(registry);
+                Gauge.builder("cache.max.weight", entry.getValue(), p -> p.maxWeight().toBytes())
+                    .description("Estimated bytes the cache may hold")
+                    .tag("cache", entry.getKey())
+                    .baseUnit("bytes")
+                    .register(registry);
+                Gauge.builder("cache.hit.ratio", nativeCache, c -> c.stats().hitRate())
+                    .description("Share of lookups answered from memory since start-up")
+                    .tag("cache", entry.getKey())
+                    .register(registry);
+            }
+        };
     }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.puphax.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@link CachePolicy} of every cache, fitted into one memory budget.
+ *
+ * If the configured maximum weights add up to more than the budget, each is
+ * scaled down by the same factor, so the caches together never hold more
+ * than the budget (by {@link CacheWeigher}'s estimate).
+ */
+public final class CachePolicies {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachePolicies.class);
+
+    private final Map<String, CachePolicy> policies;
+    private final DataSize memoryBudget;
+
+    public CachePolicies(Map<String, CachePolicy> configured, DataSize memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        long total = 0;
+        for (CachePolicy policy : configured.values()) {
+            total += policy.maxWeight().toBytes();
+        }
+        Map<String, CachePolicy> fitted = new LinkedHashMap<>(configured);
+        if (total > memoryBudget.toBytes()) {
+            double factor = (double) memoryBudget.toBytes() / total;
+            fitted.replaceAll((name, policy) -> policy.scaled(factor));
+            logger.warn("Cache max-weights add up to {} MB, over the {} MB budget; scaling each by {}",
+                DataSize.ofBytes(total).toMegabytes(), memoryBudget.toMegabytes(), String.format("%.2f", factor));
+        }
+        this.policies = Collections.unmodifiableMap(fitted);
+    }
+
+    /**
+     * Reads the policy of each named cache from {@code puphax.cache.policies.<name>.*}.
+     */
+    public static CachePolicies of(Environment environment, Collection<String> cacheNames, DataSize memoryBudget) {
+        Map<String, CachePolicy> configured = new LinkedHashMap<>();
+        for (String name : cacheNames) {
+            configured.put(name, CachePolicy.of(environment, name));
+        }
+        return new CachePolicies(configured, memoryBudget);
+    }
+
+    /** Policies by cache name, in configuration order. */
+    public Map<String, CachePolicy> policies() {
+        return policies;
+    }
+
+    public CachePolicy policy(String cacheName) {
+        return policies.get(cacheName);
+    }
+
+    public DataSize memoryBudget() {
+        return memoryBudget;
+    }
+}
@@ -0,0 +1,41 @@
+package com.puphax.config;
+
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Size and expiry of one cache, read from {@code puphax.cache.policies.<name>.*}.
+ *
+ * @param maxWeight         estimated bytes the cache may hold (see {@link CacheWeigher})
+ * @param expireAfterWrite  age at which an entry is dropped
+ * @param refreshAfterWrite age after which an entry is served stale and reloaded in the
+ *                          background (see {@link RefreshAheadCaches}), or null for none
+ */
+public record CachePolicy(DataSize maxWeight, Duration expireAfterWrite, Duration refreshAfterWrite) {
+
+    /** Used for any setting a cache does not configure. */
+    public static final CachePolicy DEFAULT = new CachePolicy(DataSize.ofMegabytes(8), Duration.ofMinutes(10), null);
+
+    private static final String PREFIX = "puphax.cache.policies.";
+
+    /**
+     * The configured policy of the cache, falling back to {@link #DEFAULT} per setting.
+     */
+    public static CachePolicy of(Environment environment, String cacheName) {
+        String prefix = PREFIX + cacheName + ".";
+        return new CachePolicy(
+            environment.getProperty(prefix + "max-weight", DataSize.class, DEFAULT.maxWeight()),
+            environment.getProperty(prefix + "expire-after-write", Duration.class, DEFAULT.expireAfterWrite()),
+            environment.getProperty(prefix + "refresh-after-write", Duration.class, DEFAULT.refreshAfterWrite()));
+    }
+
+    /**
+     * The same policy with its maximum weight scaled by {@code factor}.
+     */
+    public CachePolicy scaled(double factor) {
+        return new CachePolicy(DataSize.ofBytes((long) (maxWeight.toBytes() * factor)), expireAfterWrite,
+            refreshAfterWrite);
+    }
+}
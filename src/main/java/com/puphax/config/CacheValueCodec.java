@@ -0,0 +1,197 @@
+package com.puphax.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressed binary form of the values kept in the persistent cache tier.
+ *
+ * Supports what the PUPHAX caches hold: strings (raw SOAP payloads, names)
+ * and the parsed response records, whose components are strings, booleans,
+ * ints or longs. Records are rebuilt through their canonical constructor and
+ * only {@code com.puphax} records are accepted, so no Java serialization is
+ * involved. A record whose components changed since it was written decodes
+ * as a miss.
+ */
+final class CacheValueCodec {
+
+    private static final byte STRING = 'S';
+    private static final byte RECORD = 'R';
+
+    private static final byte NULL = 'n';
+    private static final byte TEXT = 's';
+    private static final byte BOOLEAN = 'z';
+    private static final byte INT = 'i';
+    private static final byte LONG = 'j';
+
+    private static final String ALLOWED_PACKAGE = "com.puphax.";
+
+    private CacheValueCodec() {
+    }
+
+    /**
+     * Compressed bytes of the value, or null if it cannot be stored.
+     */
+    static byte[] encode(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof String) && !isSupportedRecord(value.getClass())) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 1024))) {
+            if (value instanceof String text) {
+                out.writeByte(STRING);
+                writeText(out, text);
+            } else {
+                out.writeByte(RECORD);
+                writeText(out, value.getClass().getName());
+                RecordComponent[] components = value.getClass().getRecordComponents();
+                out.writeShort(components.length);
+                for (RecordComponent component : components) {
+                    writeComponent(out, component.getType(), component.getAccessor().invoke(value));
+                }
+            }
+        } catch (IOException | ReflectiveOperationException e) {
+            return null;
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The decoded value, or null if the bytes are unreadable or describe a type that no longer matches.
+     */
+    static Object decode(byte[] data) {
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(data), inflater, 1024))) {
+            byte tag = in.readByte();
+            if (tag == STRING) {
+                return readText(in);
+            }
+            if (tag != RECORD) {
+                return null;
+            }
+            String className = readText(in);
+            if (!className.startsWith(ALLOWED_PACKAGE)) {
+                return null;
+            }
+            Class<?> type = Class.forName(className, false, CacheValueCodec.class.getClassLoader());
+            if (!isSupportedRecord(type)) {
+                return null;
+            }
+            RecordComponent[] components = type.getRecordComponents();
+            if (in.readShort() != components.length) {
+                return null;
+            }
+            Class<?>[] parameterTypes = new Class<?>[components.length];
+            Object[] arguments = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                parameterTypes[i] = components[i].getType();
+                byte componentTag = in.readByte();
+                if (componentTag != NULL && componentTag != tagOf(parameterTypes[i])) {
+                    return null;
+                }
+                arguments[i] = readComponent(in, componentTag);
+                if (arguments[i] == null && parameterTypes[i].isPrimitive()) {
+                    return null;
+                }
+            }
+            Constructor<?> constructor = type.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return constructor.newInstance(arguments);
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static boolean isSupportedRecord(Class<?> type) {
+        if (!type.isRecord() || !type.getName().startsWith(ALLOWED_PACKAGE)) {
+            return false;
+        }
+        for (RecordComponent component : type.getRecordComponents()) {
+            if (tagOf(component.getType()) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte tagOf(Class<?> type) {
+        if (type == String.class) {
+            return TEXT;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return BOOLEAN;
+        }
+        if (type == int.class || type == Integer.class) {
+            return INT;
+        }
+        if (type == long.class || type == Long.class) {
+            return LONG;
+        }
+        return 0;
+    }
+
+    private static void writeComponent(DataOutputStream out, Class<?> type, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        byte tag = tagOf(type);
+        out.writeByte(tag);
+        switch (tag) {
+            case TEXT -> writeText(out, (String) value);
+            case BOOLEAN -> out.writeBoolean((Boolean) value);
+            case INT -> out.writeInt((Integer) value);
+            case LONG -> out.writeLong((Long) value);
+            default -> throw new IOException("Unsupported component type " + type);
+        }
+    }
+
+    private static Object readComponent(DataInputStream in, byte tag) throws IOException {
+        return switch (tag) {
+            case NULL -> null;
+            case TEXT -> readText(in);
+            case BOOLEAN -> in.readBoolean();
+            case INT -> in.readInt();
+            case LONG -> in.readLong();
+            default -> throw new IOException("Unknown component tag " + tag);
+        };
+    }
+
+    // Length-prefixed UTF-8; writeUTF is capped at 64 KB and SOAP payloads are not
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative string length " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("String cut short");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.puphax.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.Collection;
+
+/**
+ * Estimated heap footprint of a cache entry in bytes, so that a
+ * {@code maximumWeight} bounds memory rather than entry count: a 100 KB
+ * TERMEKLISTA payload weighs about five thousand times a company name.
+ *
+ * Strings count their header plus two bytes per character (the UTF-16
+ * worst case; Hungarian names are not Latin-1), records and collections
+ * the sum of their components. Anything else gets a flat estimate.
+ */
+public final class CacheWeigher implements Weigher<Object, Object> {
+
+    private static final int OBJECT_BYTES = 16;
+    private static final int STRING_BYTES = 40;
+    private static final int REFERENCE_BYTES = 8;
+    private static final int OTHER_BYTES = 64;
+
+    private static final ClassValue<Method[]> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            RecordComponent[] components = type.getRecordComponents();
+            Method[] accessors = new Method[components.length];
+            for (int i = 0; i < components.length; i++) {
+                accessors[i] = components[i].getAccessor();
+                accessors[i].setAccessible(true);
+            }
+            return accessors;
+        }
+    };
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long bytes = estimate(key) + estimate(value);
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String text) {
+            return STRING_BYTES + 2L * text.length();
+        }
+        if (value instanceof Boolean || value instanceof Number) {
+            return OBJECT_BYTES;
+        }
+        if (value.getClass().isRecord()) {
+            long bytes = OBJECT_BYTES;
+            for (Method accessor : ACCESSORS.get(value.getClass())) {
+                bytes += REFERENCE_BYTES;
+                if (!accessor.getReturnType().isPrimitive()) {
+                    try {
+                        bytes += estimate(accessor.invoke(value));
+                    } catch (ReflectiveOperationException e) {
+                        bytes += OTHER_BYTES;
+                    }
+                }
+            }
+            return bytes;
+        }
+        if (value instanceof Collection<?> items) {
+            long bytes = OBJECT_BYTES;
+            for (Object item : items) {
+                bytes += REFERENCE_BYTES + estimate(item);
+            }
+            return bytes;
+        }
+        return OTHER_BYTES;
+    }
+}
@@ -1,16 +1,25 @@
 package com.puphax.config;
 
+import com.puphax.util.AdaptiveConcurrencyLimiter;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -37,6 +46,24 @@ public class HttpClientConfig {
     @Value("${puphax.soap.max-connections-per-route:3}")
     private int maxConnectionsPerRoute;
     
+    @Value("${puphax.soap.limiter.initial-limit:3}")
+    private int limiterInitialLimit;
+    
+    @Value("${puphax.soap.limiter.min-limit:1}")
+    private int limiterMinLimit;
+    
+    @Value("${puphax.soap.limiter.max-limit:3}")
+    private int limiterMaxLimit;
+    
+    @Value("${puphax.soap.limiter.queue-size:50}")
+    private int limiterQueueSize;
+    
+    @Value("${puphax.soap.limiter.max-wait:10000}")
+    private long limiterMaxWait;
+    
+    @Value("${puphax.soap.limiter.latency-threshold:5000}")
+    private long limiterLatencyThreshold;
+    
     /**
      * Creates a connection manager optimized for PUPHAX service.
      * 
@@ -100,6 +127,52 @@ public class HttpClientConfig {
         return httpClient;
     }
     
+    /**
+     * Creates the non-blocking HTTP client used when {@code puphax.soap.transport} is {@code async}.
+     * 
+     * Requests are multiplexed over a few I/O reactor threads, so a call waiting for
+     * PUPHAX does not hold a platform thread. Pool limits, timeouts and retries match
+     * the classic client.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "puphax.soap.transport", havingValue = "async")
+    public CloseableHttpAsyncClient httpAsyncClient(RequestConfig requestConfig) {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .build();
+        
+        CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMinutes(2))
+                .setRetryStrategy(new DefaultHttpRequestRetryStrategy(3, TimeValue.ofSeconds(1)))
+                .build();
+        httpAsyncClient.start();
+        
+        logger.info("Async HTTP Client started - maxTotal: {}, maxPerRoute: {}", maxConnections, maxConnectionsPerRoute);
+        
+        return httpAsyncClient;
+    }
+    
+    /**
+     * Adaptive limit on concurrent PUPHAX calls.
+     * 
+     * Starts at NEAK's 3-connection allowance and adjusts between the configured
+     * bounds from observed latency, timeouts and 5xx responses. The maximum is
+     * that allowance too, so the limit only shrinks below it and recovers up to
+     * it, never exceeding what NEAK accepts from one client.
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter puphaxConcurrencyLimiter() {
+        logger.info("PUPHAX concurrency limiter configured - initial: {}, range: {}..{}, queue: {}, max wait: {}ms",
+                   limiterInitialLimit, limiterMinLimit, limiterMaxLimit, limiterQueueSize, limiterMaxWait);
+        
+        return new AdaptiveConcurrencyLimiter(limiterInitialLimit, limiterMinLimit, limiterMaxLimit, limiterQueueSize,
+                Duration.ofMillis(limiterMaxWait), Duration.ofMillis(limiterLatencyThreshold));
+    }
+    
     /**
      * Connection manager bean cleanup.
      */
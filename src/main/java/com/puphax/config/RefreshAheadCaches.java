@@ -0,0 +1,141 @@
+package com.puphax.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stale-while-revalidate for caches whose entries can be re-fetched by key.
+ *
+ * An entry older than the cache's {@link CachePolicy#refreshAfterWrite} (soft
+ * TTL) is still returned at once, and the read starts one background reload
+ * of it (reads while it runs get the old value too). A successful reload
+ * replaces the entry and restarts both TTLs, so {@link CachePolicy#expireAfterWrite}
+ * (hard TTL) only expires entries whose reloads keep failing, i.e. while NEAK
+ * is unreachable. Reloads run on a small pool of their own; the registered
+ * reloaders are expected to call PUPHAX at background priority so they never
+ * delay interactive calls.
+ */
+public class RefreshAheadCaches implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshAheadCaches.class);
+
+    /**
+     * Fetches the current value for a cache key, bypassing the cache.
+     */
+    @FunctionalInterface
+    public interface Reloader {
+        Object reload(String key) throws Exception;
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Reloader> reloaders = new ConcurrentHashMap<>();
+    private final LongAdder refreshed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public RefreshAheadCaches(int maxConcurrent) {
+        // Caffeine runs at most one reload per key, so the queue stays within the number of cached keys
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Sets how entries of the cache are reloaded; until then its stale entries are just served.
+     */
+    public void register(String cacheName, Reloader reloader) {
+        reloaders.put(cacheName, reloader);
+    }
+
+    /**
+     * Builds the native cache for {@code cacheName}; the builder carries its size and both TTLs.
+     */
+    public Cache<Object, Object> build(String cacheName, Caffeine<Object, Object> builder) {
+        return builder
+            .executor(executor)
+            .build(loader(cacheName));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.refreshes", refreshed, LongAdder::sum)
+            .description("Stale cache entries replaced by a background reload")
+            .tag("result", "success")
+            .register(registry);
+        FunctionCounter.builder("cache.refreshes", failed, LongAdder::sum)
+            .description("Background reloads that failed, leaving the stale entry in place")
+            .tag("result", "failure")
+            .register(registry);
+        Gauge.builder("cache.refresh.queue", executor, e -> e.getQueue().size())
+            .description("Stale cache entries waiting for a background reload")
+            .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private CacheLoader<Object, Object> loader(String cacheName) {
+        return new CacheLoader<>() {
+            @Override
+            public Object load(Object key) {
+                // Misses are plain misses: the cached methods fetch and put the value themselves
+                return null;
+            }
+
+            @Override
+            public CompletableFuture<Object> asyncReload(Object key, Object oldValue, Executor refreshExecutor) {
+                CompletableFuture<Object> reload = new CompletableFuture<>();
+                Reloader reloader = reloaders.get(cacheName);
+                if (reloader == null || !(key instanceof String stringKey)) {
+                    reload.cancel(false);
+                    return reload;
+                }
+                try {
+                    refreshExecutor.execute(() -> {
+                        try {
+                            Object value = reloader.reload(stringKey);
+                            if (value == null) {
+                                throw new IllegalStateException("no value");
+                            }
+                            refreshed.increment();
+                            reload.complete(value);
+                        } catch (Exception e) {
+                            failed.increment();
+                            logger.debug("Refresh of cache '{}' entry {} failed, serving the stale value: {}",
+                                cacheName, key, e.getMessage());
+                            // Caffeine keeps the old value either way, but logs every failure other than a cancellation
+                            reload.cancel(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    reload.cancel(false);
+                }
+                return reload;
+            }
+        };
+    }
+}
@@ -0,0 +1,253 @@
+package com.puphax.config;
+
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.puphax.store.CacheLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier cache: the Caffeine cache as L1 and a persistent {@link CacheLog} as L2.
+ *
+ * An L1 miss is looked up in L2 before the value is loaded, and an L2 hit is
+ * promoted into L1, so after a restart the entries fetched before it are
+ * served without calling PUPHAX. Writes go to both tiers, keeping the time
+ * the value was fetched. Only string keys and values {@link CacheValueCodec}
+ * can encode are persisted; anything else stays in L1 only. L2 failures are
+ * logged and treated as misses. An L2 entry fetched longer ago than the L1
+ * expire-after-write is a miss, so the persistent tier never extends a
+ * cache's TTL. If L1 refreshes entries after a while, an L2 entry older than
+ * that is promoted and refreshed in the background.
+ */
+public class TieredCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredCache.class);
+
+    private final CaffeineCache l1;
+    private final CacheLog l2;
+    private final Duration expireAfterWrite;
+
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+
+    // A decoded L2 value and when it was fetched from PUPHAX
+    private record Stored(Object value, Instant fetchedAt) {
+    }
+
+    public TieredCache(CaffeineCache l1, CacheLog l2) {
+        this.l1 = l1;
+        this.l2 = l2;
+        this.expireAfterWrite = expireAfterWrite(l1);
+    }
+
+    /**
+     * The expire-after-write of the Caffeine cache, or null if it has none.
+     */
+    static Duration expireAfterWrite(CaffeineCache cache) {
+        return cache.getNativeCache().policy().expireAfterWrite()
+            .map(expiration -> expiration.getExpiresAfter())
+            .orElse(null);
+    }
+
+    @Override
+    public String getName() {
+        return l1.getName();
+    }
+
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNativeCache() {
+        return l1.getNativeCache();
+    }
+
+    /** The in-memory tier. */
+    public CaffeineCache getL1() {
+        return l1;
+    }
+
+    /** Entries currently held by the persistent tier. */
+    public int getL2Size() {
+        return l2.size();
+    }
+
+    /** Size of the persistent tier's file in bytes. */
+    public long getL2Bytes() {
+        return l2.fileBytes();
+    }
+
+    public long getL2Hits() {
+        return l2Hits.sum();
+    }
+
+    public long getL2Misses() {
+        return l2Misses.sum();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper cached = l1.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Stored stored = readL2(key);
+        if (stored == null) {
+            return null;
+        }
+        l1.put(key, stored.value());
+        refreshIfStale(key, stored);
+        return new SimpleValueWrapper(stored.value());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Stored[] promoted = new Stored[1];
+        T value = l1.get(key, () -> {
+            Stored stored = readL2(key);
+            if (stored != null) {
+                promoted[0] = stored;
+                return (T) stored.value();
+            }
+            T loaded = valueLoader.call();
+            writeL2(key, loaded);
+            return loaded;
+        });
+        if (promoted[0] != null) {
+            refreshIfStale(key, promoted[0]);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l1.put(key, value);
+        writeL2(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l1.putIfAbsent(key, value);
+        if (existing == null) {
+            writeL2(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l1.evict(key);
+        removeL2(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = l1.evictIfPresent(key);
+        removeL2(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        l1.clear();
+        clearL2();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean hadEntries = l1.invalidate();
+        clearL2();
+        return hadEntries;
+    }
+
+    private Stored readL2(Object key) {
+        if (!(key instanceof String stringKey)) {
+            return null;
+        }
+        try {
+            CacheLog.Entry entry = l2.read(stringKey);
+            Object value = entry != null && !expired(entry) ? CacheValueCodec.decode(entry.value()) : null;
+            if (value == null) {
+                l2Misses.increment();
+                return null;
+            }
+            l2Hits.increment();
+            return new Stored(value, entry.fetchedAt());
+        } catch (IOException e) {
+            logger.warn("Could not read cache '{}' entry {} from disk: {}", getName(), key, e.getMessage());
+            l2Misses.increment();
+            return null;
+        }
+    }
+
+    private boolean expired(CacheLog.Entry entry) {
+        return expireAfterWrite != null
+            && Duration.between(entry.fetchedAt(), Instant.now()).compareTo(expireAfterWrite) > 0;
+    }
+
+    // Promotion restarts the L1 clock, so the age the entry had on disk is checked here
+    private void refreshIfStale(Object key, Stored stored) {
+        if (!(l1.getNativeCache() instanceof LoadingCache<Object, Object> loading)) {
+            return;
+        }
+        loading.policy().refreshAfterWrite().ifPresent(refresh -> {
+            Duration age = Duration.between(stored.fetchedAt(), Instant.now());
+            if (age.compareTo(refresh.getRefreshesAfter()) > 0) {
+                loading.refresh(key);
+            }
+        });
+    }
+
+    private void writeL2(Object key, Object value) {
+        if (!(key instanceof String stringKey)) {
+            return;
+        }
+        byte[] encoded = CacheValueCodec.encode(value);
+        if (encoded == null) {
+            return;
+        }
+        try {
+            l2.append(stringKey, encoded, Instant.now());
+            l2.compactIfNeeded();
+        } catch (IOException e) {
+            logger.warn("Could not write cache '{}' entry {} to disk: {}", getName(), key, e.getMessage());
+        }
+    }
+
+    private void removeL2(Object key) {
+        if (!(key instanceof String stringKey)) {
+            return;
+        }
+        try {
+            l2.remove(stringKey);
+        } catch (IOException e) {
+            logger.warn("Could not remove cache '{}' entry {} from disk: {}", getName(), key, e.getMessage());
+        }
+    }
+
+    private void clearL2() {
+        try {
+            l2.clear();
+        } catch (IOException e) {
+            logger.warn("Could not clear cache '{}' on disk: {}", getName(), e.getMessage());
+        }
+    }
+}
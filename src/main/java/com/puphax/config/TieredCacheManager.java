@@ -0,0 +1,93 @@
+package com.puphax.config;
+
+import com.puphax.store.CacheLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager putting a persistent L2 behind selected Caffeine caches.
+ *
+ * Each persistent cache keeps its log in {@code <directory>/<name>.cachelog};
+ * the other caches are returned from the Caffeine manager unchanged. A log
+ * keeps entries for the cache's own expire-after-write if that is shorter
+ * than the configured maximum age. A cache whose log cannot be opened stays
+ * in-memory only.
+ */
+public class TieredCacheManager implements CacheManager, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredCacheManager.class);
+
+    private final CaffeineCacheManager delegate;
+    private final Path directory;
+    private final Duration maxAge;
+    private final Set<String> persistentCaches;
+
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final Map<String, CacheLog> logs = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(CaffeineCacheManager delegate, Path directory, Duration maxAge,
+                              Collection<String> persistentCaches) {
+        this.delegate = delegate;
+        this.directory = directory;
+        this.maxAge = maxAge;
+        this.persistentCaches = Set.copyOf(persistentCaches);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cached = caches.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        Cache l1 = delegate.getCache(name);
+        if (l1 == null || !persistentCaches.contains(name) || !(l1 instanceof CaffeineCache caffeineCache)) {
+            return l1;
+        }
+        return caches.computeIfAbsent(name, key -> tiered(caffeineCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    @Override
+    public void destroy() {
+        for (Map.Entry<String, CacheLog> log : logs.entrySet()) {
+            try {
+                log.getValue().close();
+            } catch (IOException e) {
+                logger.warn("Could not close cache log of '{}': {}", log.getKey(), e.getMessage());
+            }
+        }
+        logs.clear();
+    }
+
+    private Cache tiered(CaffeineCache l1) {
+        Path path = directory.resolve(l1.getName() + ".cachelog");
+        try {
+            Duration ttl = TieredCache.expireAfterWrite(l1);
+            CacheLog log = CacheLog.open(path, ttl != null && ttl.compareTo(maxAge) < 0 ? ttl : maxAge);
+            logs.put(l1.getName(), log);
+            logger.info("Opened persistent cache '{}' at {} with {} entries", l1.getName(), path, log.size());
+            return new TieredCache(l1, log);
+        } catch (IOException e) {
+            logger.warn("Could not open persistent cache '{}' at {}, keeping it in memory only: {}",
+                l1.getName(), path, e.getMessage());
+            return l1;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.puphax.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+
+/**
+ * Cache metrics of a {@link TieredCache}: the usual Caffeine {@code cache.*}
+ * meters of its L1 plus {@code cache.l2.*} meters of the persistent tier.
+ */
+public class TieredCacheMeterBinderProvider implements CacheMeterBinderProvider<TieredCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(TieredCache cache, Iterable<Tag> tags) {
+        Tags cacheTags = Tags.concat(tags, "cache", cache.getName());
+        MeterBinder l1 = new CaffeineCacheMetrics<>(cache.getNativeCache(), cache.getName(), tags);
+        return registry -> {
+            l1.bindTo(registry);
+            FunctionCounter.builder("cache.l2.gets", cache, TieredCache::getL2Hits)
+                .tags(cacheTags).tag("result", "hit")
+                .description("L1 misses answered from the persistent tier")
+                .register(registry);
+            FunctionCounter.builder("cache.l2.gets", cache, TieredCache::getL2Misses)
+                .tags(cacheTags).tag("result", "miss")
+                .description("L1 misses the persistent tier could not answer")
+                .register(registry);
+            Gauge.builder("cache.l2.size", cache, TieredCache::getL2Size)
+                .tags(cacheTags)
+                .description("Entries in the persistent tier")
+                .register(registry);
+            Gauge.builder("cache.l2.file.size", cache, TieredCache::getL2Bytes)
+                .tags(cacheTags).baseUnit("bytes")
+                .description("Size of the persistent tier's log file")
+                .register(registry);
+        };
+    }
+}
@@ -0,0 +1,186 @@
+package com.puphax.controller;
+
+import com.puphax.model.dto.DatasetReloadStatus;
+import com.puphax.model.dto.ProductSyncStatus;
+import com.puphax.model.dto.ReferenceTableStatus;
+import com.puphax.service.ProductSyncService;
+import com.puphax.service.PuphaxCsvFallbackService;
+import com.puphax.service.ReferenceDataService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for operational tasks on the local NEAK dataset and the mirrored code tables.
+ */
+@RestController
+@RequestMapping("/api/v1/admin")
+@Tag(name = "Administration", description = "Operational endpoints for the local CSV dataset")
+public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+    private final PuphaxCsvFallbackService csvFallbackService;
+    private final ReferenceDataService referenceDataService;
+    private final ProductSyncService productSyncService;
+
+    @Autowired
+    public AdminController(PuphaxCsvFallbackService csvFallbackService, ReferenceDataService referenceDataService,
+                           ProductSyncService productSyncService) {
+        this.csvFallbackService = csvFallbackService;
+        this.referenceDataService = referenceDataService;
+        this.productSyncService = productSyncService;
+    }
+
+    /**
+     * Starts a background reload of the CSV dataset.
+     *
+     * @return 202 with the reload status; a reload already in progress is reported, not restarted
+     */
+    @PostMapping("/dataset/reload")
+    @Operation(
+        summary = "Reload the CSV dataset",
+        description = "Rebuilds the local NEAK dataset (snapshot or CSV parse plus search indexes) in the background " +
+                      "and swaps it in atomically. Requests keep being served from the current dataset meanwhile."
+    )
+    @ApiResponse(
+        responseCode = "202",
+        description = "Reload started or already running",
+        content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = DatasetReloadStatus.class)
+        )
+    )
+    public ResponseEntity<DatasetReloadStatus> reloadDataset() {
+        DatasetReloadStatus status = csvFallbackService.triggerReload();
+        logger.info("Dataset reload triggered: state={}, phase={}", status.state(), status.phase());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+
+    /**
+     * Progress of the current or last dataset reload.
+     */
+    @GetMapping("/dataset/reload")
+    @Operation(
+        summary = "Dataset reload progress",
+        description = "State and phase of the current or last reload, plus the generation, product count and load " +
+                      "time of the dataset being served."
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Reload status retrieved",
+        content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = DatasetReloadStatus.class)
+        )
+    )
+    public ResponseEntity<DatasetReloadStatus> getReloadStatus() {
+        return ResponseEntity.ok(csvFallbackService.getReloadStatus());
+    }
+
+    /**
+     * Starts a background sync of the mirrored PUPHAX code tables.
+     *
+     * @return 202 with the mirror state before the sync
+     */
+    @PostMapping("/reference-tables/sync")
+    @Operation(
+        summary = "Sync the PUPHAX code tables",
+        description = "Pulls every mirrored code table (TABATC, TABCEGEK, ...) from PUPHAX in the background. " +
+                      "Tables that fail to sync keep their current rows."
+    )
+    @ApiResponse(
+        responseCode = "202",
+        description = "Sync queued",
+        content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = ReferenceTableStatus.class))
+        )
+    )
+    public ResponseEntity<List<ReferenceTableStatus>> syncReferenceTables() {
+        referenceDataService.triggerSync();
+        logger.info("Reference table sync triggered");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(referenceDataService.getStatus());
+    }
+
+    /**
+     * Row counts and last sync times of the mirrored code tables.
+     */
+    @GetMapping("/reference-tables")
+    @Operation(
+        summary = "Mirrored code tables",
+        description = "Row count and last sync time of every PUPHAX code table served from the local mirror."
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Mirror state retrieved",
+        content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = ReferenceTableStatus.class))
+        )
+    )
+    public ResponseEntity<List<ReferenceTableStatus>> getReferenceTables() {
+        return ResponseEntity.ok(referenceDataService.getStatus());
+    }
+
+    /**
+     * Checks PUPHAX for a new publication and applies its product changes in the background.
+     *
+     * @return 202 with the sync state before the check
+     */
+    @PostMapping("/products/sync")
+    @Operation(
+        summary = "Sync products from PUPHAX publications",
+        description = "Asks KIHIRD for a live publication newer than the served dataset and, if there is one, " +
+                      "upserts the products DISP_DIFF reports as new, changed or deleted."
+    )
+    @ApiResponse(
+        responseCode = "202",
+        description = "Check queued",
+        content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = ProductSyncStatus.class)
+        )
+    )
+    public ResponseEntity<ProductSyncStatus> syncProducts() {
+        productSyncService.triggerSync();
+        logger.info("Product sync triggered");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(productSyncService.getStatus());
+    }
+
+    /**
+     * Publication the served products are current to and the outcome of the last check.
+     */
+    @GetMapping("/products/sync")
+    @Operation(
+        summary = "Product sync state",
+        description = "Publication date the served dataset is current to, time of the last check and the number " +
+                      "of products it applied."
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Sync state retrieved",
+        content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = ProductSyncStatus.class)
+        )
+    )
+    public ResponseEntity<ProductSyncStatus> getProductSyncStatus() {
+        return ResponseEntity.ok(productSyncService.getStatus());
+    }
+}
@@ -1,6 +1,7 @@
 package com.puphax.controller;
 
 import com.puphax.model.dto.DrugSearchResponse;
+import com.puphax.model.dto.DrugSuggestion;
 import com.puphax.model.dto.FilterOptions;
 import com.puphax.model.dto.HealthStatus;
 import com.puphax.service.DrugService;
@@ -25,6 +26,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
 
 /**
  * REST controller for drug search operations.
@@ -284,6 +286,42 @@ public class DrugController {
         }
     }
 
+    /**
+     * Type-ahead suggestions for the search box.
+     *
+     * @param prefix Typed prefix (case and accents are ignored)
+     * @param limit Maximum number of suggestions (1-10, default: 10)
+     * @return Suggestions ordered by the number of products they cover
+     */
+    @GetMapping("/suggest")
+    @Operation(
+        summary = "Autocomplete drug names",
+        description = "Returns product names, brand names and active ingredients starting with the given prefix, " +
+                      "most common first. Served from an in-memory prefix trie with precomputed top-k lists."
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Suggestions retrieved successfully",
+        content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+    )
+    public ResponseEntity<List<DrugSuggestion>> suggest(
+            @Parameter(description = "Typed prefix", required = true, example = "algo")
+            @RequestParam("prefix")
+            @NotBlank(message = "Prefix cannot be blank")
+            @Size(max = 100, message = "Prefix cannot exceed 100 characters")
+            String prefix,
+
+            @Parameter(description = "Maximum number of suggestions (1-10)", required = false, example = "10")
+            @RequestParam(value = "limit", defaultValue = "10")
+            @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 10, message = "Limit cannot exceed 10")
+            int limit) {
+
+        List<DrugSuggestion> suggestions = csvFallbackService.suggest(prefix, limit);
+        logger.debug("Suggest '{}': {} suggestions", prefix, suggestions.size());
+        return ResponseEntity.ok(suggestions);
+    }
+
     /**
      * Advanced drug search with comprehensive filtering.
      *
@@ -294,7 +332,11 @@ public class DrugController {
     @PostMapping("/search/advanced")
     @Operation(
         summary = "Advanced drug search with comprehensive filtering",
-        description = "Search for drugs using comprehensive filters including manufacturers, ATC codes, product forms, prescription types, etc."
+        description = "Search for drugs using comprehensive filters including manufacturers, ATC codes, product forms, prescription types, etc. " +
+                      "Set fuzzy=true for accent-insensitive, typo-tolerant name matching; results then carry a relevanceScore " +
+                      "and can be ordered with sortBy=relevance. " +
+                      "Set includeFacets=true to also receive counts per ATC main group, form, administration method, " +
+                      "TTT code, manufacturer and stock status over the whole result set."
     )
     @ApiResponses(value = {
         @ApiResponse(
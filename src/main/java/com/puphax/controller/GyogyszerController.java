@@ -56,14 +56,16 @@ public class GyogyszerController {
      * @param atcKod Opcionális ATC kód szűrő (formátum: A10AB01)
      * @param oldal Oldal szám, 0-tól kezdődik (alapértelmezett: 0)
      * @param meret Oldal méret, maximum 100 (alapértelmezett: 20)
-     * @param rendezes Rendezési mező: nev, gyarto, vagy atcKod (alapértelmezett: nev)
+     * @param rendezes Rendezési mező: nev, gyarto, atcKod vagy relevancia (alapértelmezett: nev)
      * @param irany Rendezési irány: ASC vagy DESC (alapértelmezett: ASC)
+     * @param kozelito Ékezet- és elírás-toleráns keresés relevancia pontszámmal (alapértelmezett: false)
      * @return GyogyszerKeresesiValasz lapozott eredményekkel
      */
     @GetMapping("/kereses")
     @Operation(
         summary = "Gyógyszerek keresése",
-        description = "Gyógyszerek keresése név alapján, opcionális szűrési lehetőségekkel gyártó és ATC kód szerint. Támogatja a lapozást és rendezést."
+        description = "Gyógyszerek keresése név alapján, opcionális szűrési lehetőségekkel gyártó és ATC kód szerint. Támogatja a lapozást és rendezést. " +
+                      "A kozelito=true paraméterrel a keresés ékezet- és elírás-toleráns, a találatok relevancia pontszámot kapnak."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -149,8 +151,8 @@ public class GyogyszerController {
         )
         @RequestParam(value = "rendezes", defaultValue = "nev")
         @Pattern(
-            regexp = "^(nev|gyarto|atcKod)$",
-            message = "A rendezési mezőnek a következők egyikének kell lennie: nev, gyarto, atcKod"
+            regexp = "^(nev|gyarto|atcKod|relevancia)$",
+            message = "A rendezési mezőnek a következők egyikének kell lennie: nev, gyarto, atcKod, relevancia"
         )
         String rendezes,
         
@@ -165,6 +167,14 @@ public class GyogyszerController {
             message = "A rendezési iránynak ASC vagy DESC-nek kell lennie"
         )
         String irany,
+        
+        @Parameter(
+            description = "Közelítő keresés: ékezet nélküli és elgépelt kifejezéseket is megtalál (pl. algopirin)",
+            required = false,
+            example = "false"
+        )
+        @RequestParam(value = "kozelito", defaultValue = "false")
+        boolean kozelito,
         HttpServletRequest request
     ) {
         
@@ -176,16 +186,16 @@ public class GyogyszerController {
             LoggingUtils.setupSearchContext(korrelaciosId, keresettkifejezés, gyarto, atcKod, oldal, meret);
             LoggingUtils.setClientIp(getClientIpAddress(request));
             
-            logger.info("Gyógyszer keresési kérés indítva: kifejezés='{}', gyártó='{}', atcKód='{}', oldal={}, méret={}, rendezés={}, irány={}",
-                       keresettkifejezés, gyarto, atcKod, oldal, meret, rendezes, irany);
+            logger.info("Gyógyszer keresési kérés indítva: kifejezés='{}', gyártó='{}', atcKód='{}', oldal={}, méret={}, rendezés={}, irány={}, közelítő={}",
+                       keresettkifejezés, gyarto, atcKod, oldal, meret, rendezes, irany, kozelito);
             
             // Bemeneti paraméterek validálása
             validaljaKeresesiParametereket(keresettkifejezés, gyarto, atcKod, oldal, meret, rendezes, irany);
             
             // Keresés végrehajtása
-            GyogyszerKeresesiValasz valasz = gyogyszerService.keresesGyogyszerek(
-                keresettkifejezés, gyarto, atcKod, oldal, meret, rendezes, irany
-            );
+            GyogyszerKeresesiValasz valasz = kozelito
+                ? gyogyszerService.kozelitoKeresesGyogyszerek(keresettkifejezés, gyarto, atcKod, oldal, meret, rendezes, irany)
+                : gyogyszerService.keresesGyogyszerek(keresettkifejezés, gyarto, atcKod, oldal, meret, rendezes, irany);
             
             // Sikeres metrikák naplózása
             long valaszIdo = System.currentTimeMillis() - kezdesIdeje;
@@ -248,8 +258,8 @@ public class GyogyszerController {
         }
         
         // Rendezés validáció
-        if (!"nev".equals(rendezes) && !"gyarto".equals(rendezes) && !"atcKod".equals(rendezes)) {
-            throw new PuphaxValidationException("rendezes", rendezes, "A rendezési mezőnek a következők egyikének kell lennie: nev, gyarto, atcKod");
+        if (!"nev".equals(rendezes) && !"gyarto".equals(rendezes) && !"atcKod".equals(rendezes) && !"relevancia".equals(rendezes)) {
+            throw new PuphaxValidationException("rendezes", rendezes, "A rendezési mezőnek a következők egyikének kell lennie: nev, gyarto, atcKod, relevancia");
         }
         
         if (!"ASC".equals(irany) && !"DESC".equals(irany)) {
@@ -30,4 +30,17 @@ public class PuphaxSoapFaultException extends PuphaxServiceException {
     public String getFaultString() {
         return faultString;
     }
+    
+    /**
+     * Whether the fault blames the request ({@code Client} in SOAP 1.1, {@code Sender} in SOAP 1.2),
+     * so repeating the same request gets the same fault. Server faults, e.g. database timeouts or
+     * locks, are transient.
+     */
+    public boolean isClientFault() {
+        if (faultCode == null) {
+            return false;
+        }
+        String code = faultCode.substring(faultCode.indexOf(':') + 1);
+        return code.equals("Client") || code.startsWith("Client.") || code.equals("Sender");
+    }
 }
\ No newline at end of file
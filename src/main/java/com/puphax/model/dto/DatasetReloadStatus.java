@@ -0,0 +1,62 @@
+package com.puphax.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * Progress of the background CSV dataset reload and the generation currently served.
+ *
+ * @param state Reload state
+ * @param phase Current or last reached phase of the reload (null before the first reload)
+ * @param startedAt Start of the current or last reload
+ * @param finishedAt End of the last reload (null while running)
+ * @param message Failure reason or short result summary
+ * @param generation Number of datasets published since start-up (1 after the initial load)
+ * @param productCount Products in the dataset currently served
+ * @param datasetLoadedAt When the dataset currently served was published
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DatasetReloadStatus(
+    State state,
+    Phase phase,
+    Instant startedAt,
+    Instant finishedAt,
+    String message,
+    long generation,
+    int productCount,
+    Instant datasetLoadedAt
+) {
+
+    public enum State {
+        IDLE, RUNNING, SUCCEEDED, FAILED
+    }
+
+    public enum Phase {
+        VERIFYING_SOURCES, READING_SNAPSHOT, PARSING_CSV, WRITING_SNAPSHOT, BUILDING_INDEXES, PUBLISHING
+    }
+
+    public static DatasetReloadStatus idle() {
+        return new DatasetReloadStatus(State.IDLE, null, null, null, null, 0, 0, null);
+    }
+
+    public static DatasetReloadStatus running(Phase phase, Instant startedAt) {
+        return new DatasetReloadStatus(State.RUNNING, phase, startedAt, null, null, 0, 0, null);
+    }
+
+    public DatasetReloadStatus finished(State result, String message) {
+        return new DatasetReloadStatus(result, phase, startedAt, Instant.now(), message, 0, 0, null);
+    }
+
+    /**
+     * Copy with the figures of the dataset currently served.
+     */
+    public DatasetReloadStatus withDataset(long generation, int productCount, Instant datasetLoadedAt) {
+        return new DatasetReloadStatus(state, phase, startedAt, finishedAt, message, generation, productCount,
+            datasetLoadedAt);
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+}
@@ -21,6 +21,8 @@ public record DrugSearchFilter(
     @Size(min = 2, max = 100, message = "Search term must be between 2 and 100 characters")
     String searchTerm,                   // Free text search (name, active ingredient)
 
+    Boolean fuzzy,                       // Accent-insensitive, typo-tolerant text search with relevance score
+
     // ===== CLASSIFICATION FILTERS =====
 
     List<String> atcCodes,               // Filter by ATC codes (can be multiple)
@@ -76,9 +78,13 @@ public record DrugSearchFilter(
     @Max(value = 100, message = "Page size must not exceed 100")
     Integer size,                        // Page size (max 100)
 
-    String sortBy,                       // Sort field (name, atcCode, manufacturer, strength, etc.)
+    String sortBy,                       // Sort field (name, atcCode, manufacturer, relevance, etc.)
+
+    String sortDirection,                // Sort direction (ASC/DESC)
+
+    // ===== RESPONSE OPTIONS =====
 
-    String sortDirection                 // Sort direction (ASC/DESC)
+    Boolean includeFacets                // Return facet counts for the result set alongside the page
 ) {
 
     /**
@@ -86,14 +92,15 @@ public record DrugSearchFilter(
      */
     public static DrugSearchFilter basic(String searchTerm) {
         return new DrugSearchFilter(
-            searchTerm,
+            searchTerm, false,
             null, null, null, null,      // Classification filters
             null, null, null, null, null, // Regulatory filters
             null, null, null,            // Strength filters
             null, null, null,            // Special filters
             true, null, null,            // Validity (only current)
             0, 20,                       // Pagination (first page, 20 items)
-            "name", "ASC"                // Sort by name ascending
+            "name", "ASC",               // Sort by name ascending
+            false                        // No facet counts
         );
     }
 
@@ -102,14 +109,15 @@ public record DrugSearchFilter(
      */
     public static DrugSearchFilter empty() {
         return new DrugSearchFilter(
-            null,
+            null, false,
             null, null, null, null,
             null, null, null, null, null,
             null, null, null,
             null, null, null,
             null, null, null,
             0, 20,
-            "name", "ASC"
+            "name", "ASC",
+            false
         );
     }
 
@@ -122,6 +130,7 @@ public record DrugSearchFilter(
 
     public static class Builder {
         private String searchTerm;
+        private Boolean fuzzy = false;
         private List<String> atcCodes;
         private List<String> manufacturers;
         private List<String> productForms;
@@ -144,8 +153,10 @@ public record DrugSearchFilter(
         private Integer size = 20;
         private String sortBy = "name";
         private String sortDirection = "ASC";
+        private Boolean includeFacets = false;
 
         public Builder searchTerm(String val) { this.searchTerm = val; return this; }
+        public Builder fuzzy(Boolean val) { this.fuzzy = val; return this; }
         public Builder atcCodes(List<String> val) { this.atcCodes = val; return this; }
         public Builder manufacturers(List<String> val) { this.manufacturers = val; return this; }
         public Builder productForms(List<String> val) { this.productForms = val; return this; }
@@ -168,16 +179,18 @@ public record DrugSearchFilter(
         public Builder size(Integer val) { this.size = val; return this; }
         public Builder sortBy(String val) { this.sortBy = val; return this; }
         public Builder sortDirection(String val) { this.sortDirection = val; return this; }
+        public Builder includeFacets(Boolean val) { this.includeFacets = val; return this; }
 
         public DrugSearchFilter build() {
             return new DrugSearchFilter(
-                searchTerm,
+                searchTerm, fuzzy,
                 atcCodes, manufacturers, productForms, administrationMethods,
                 tttCodes, prescriptionRequired, reimbursable, inStock, prescriptionTypes,
                 minStrength, maxStrength, strengthUnits,
                 brands, specialMarker, laterality,
                 currentlyValid, validFromDate, validToDate,
-                page, size, sortBy, sortDirection
+                page, size, sortBy, sortDirection,
+                includeFacets
             );
         }
     }
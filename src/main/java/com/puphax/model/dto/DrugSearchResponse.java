@@ -1,5 +1,6 @@
 package com.puphax.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -27,8 +28,19 @@ public record DrugSearchResponse(
     @JsonProperty("searchInfo")
     @NotNull
     @Valid
-    SearchInfo searchInfo
+    SearchInfo searchInfo,
+
+    @JsonProperty("facets")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    SearchFacets facets
 ) {
+
+    /**
+     * Creates a response without facet counts.
+     */
+    public DrugSearchResponse(List<DrugSummary> drugs, PaginationInfo pagination, SearchInfo searchInfo) {
+        this(drugs, pagination, searchInfo, null);
+    }
     
     /**
      * Creates an empty search response for when no results are found.
@@ -0,0 +1,36 @@
+package com.puphax.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One type-ahead suggestion for the drug search box.
+ *
+ * Served from the in-memory suggestion trie; no product records are
+ * materialized to build it.
+ */
+public record DrugSuggestion(
+
+    @JsonProperty("text")
+    String text,                         // Text to complete the search box with
+
+    @JsonProperty("type")
+    SuggestionType type,                 // What the text is (product name, brand, active ingredient)
+
+    @JsonProperty("productCount")
+    int productCount                     // Number of products carrying this text (ranking weight)
+) {
+
+    /**
+     * Source of a suggestion.
+     */
+    public enum SuggestionType {
+        @JsonProperty("NAME")
+        NAME,
+
+        @JsonProperty("BRAND")
+        BRAND,
+
+        @JsonProperty("ACTIVE_INGREDIENT")
+        ACTIVE_INGREDIENT
+    }
+}
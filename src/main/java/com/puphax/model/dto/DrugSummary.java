@@ -1,5 +1,6 @@
 package com.puphax.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -213,7 +214,13 @@ public record DrugSummary(
     String source,                      // Data source (SOAP/CSV)
 
     @JsonProperty("prescriptionStatus")
-    String prescriptionStatus           // Detailed prescription requirements
+    String prescriptionStatus,          // Detailed prescription requirements
+
+    // ===== SEARCH METADATA =====
+
+    @JsonProperty("relevanceScore")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Double relevanceScore               // Fuzzy search match score in (0, 1], null otherwise
 ) {
     
     /**
@@ -269,7 +276,9 @@ public record DrugSummary(
             // Reimbursement
             false, null, null,
             // Status and source
-            DrugStatus.ACTIVE, null, null
+            DrugStatus.ACTIVE, null, null,
+            // Search metadata
+            null
         );
     }
 
@@ -367,6 +376,9 @@ public record DrugSummary(
         private String source;
         private String prescriptionStatus;
 
+        // Search metadata
+        private Double relevanceScore;
+
         private Builder(String id, String name) {
             this.id = id;
             this.name = name;
@@ -426,6 +438,7 @@ public record DrugSummary(
         public Builder status(DrugStatus val) { this.status = val != null ? val : DrugStatus.ACTIVE; return this; }
         public Builder source(String val) { this.source = val; return this; }
         public Builder prescriptionStatus(String val) { this.prescriptionStatus = val; return this; }
+        public Builder relevanceScore(Double val) { this.relevanceScore = val; return this; }
 
         public DrugSummary build() {
             return new DrugSummary(
@@ -448,7 +461,9 @@ public record DrugSummary(
                 // Reimbursement
                 reimbursable, supportPercent, price,
                 // Status and source
-                status, source, prescriptionStatus
+                status, source, prescriptionStatus,
+                // Search metadata
+                relevanceScore
             );
         }
     }
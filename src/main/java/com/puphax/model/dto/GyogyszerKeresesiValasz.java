@@ -1,5 +1,6 @@
 package com.puphax.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -176,6 +177,10 @@ public class GyogyszerKeresesiValasz {
         @Schema(description = "Térítési díj", example = "250 Ft")
         private String teritesiDij;
         
+        @Schema(description = "Közelítő keresés találati pontszáma (0-1], csak közelítő keresésnél", example = "0.89")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Double relevancia;
+        
         // Constructors
         public Gyogyszer() {}
         
@@ -279,6 +284,9 @@ public class GyogyszerKeresesiValasz {
         
         public String getTeritesiDij() { return teritesiDij; }
         public void setTeritesiDij(String teritesiDij) { this.teritesiDij = teritesiDij; }
+        
+        public Double getRelevancia() { return relevancia; }
+        public void setRelevancia(Double relevancia) { this.relevancia = relevancia; }
     }
     
     /**
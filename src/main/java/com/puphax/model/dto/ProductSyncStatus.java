@@ -0,0 +1,27 @@
+package com.puphax.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * State of the incremental product sync from PUPHAX publications.
+ *
+ * @param syncedThrough Publication date the served dataset is current to (null before the first check)
+ * @param lastCheckAt When PUPHAX was last asked for new publications
+ * @param lastChangeCount Products applied by the last check that found a new publication
+ * @param message Failure reason of the last check, or null
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProductSyncStatus(
+    LocalDate syncedThrough,
+    Instant lastCheckAt,
+    int lastChangeCount,
+    String message
+) {
+
+    public static ProductSyncStatus idle() {
+        return new ProductSyncStatus(null, null, 0, null);
+    }
+}
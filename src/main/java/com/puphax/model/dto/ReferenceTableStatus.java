@@ -0,0 +1,20 @@
+package com.puphax.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * Mirror state of one PUPHAX code table.
+ *
+ * @param table SOAP operation of the table, e.g. TABCEGEK
+ * @param rows Rows currently served from the mirror
+ * @param syncedAt When the table was last pulled (null if it never was)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReferenceTableStatus(
+    String table,
+    int rows,
+    Instant syncedAt
+) {
+}
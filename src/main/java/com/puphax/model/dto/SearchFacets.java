@@ -0,0 +1,44 @@
+package com.puphax.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Facet counts for the complete result set of an advanced search.
+ *
+ * Counts cover every matching product (not only the returned page), so the
+ * filter panel can show how many results each option would leave. Value maps
+ * are ordered by descending count; empty values are not counted.
+ */
+public record SearchFacets(
+
+    @JsonProperty("atcGroups")
+    Map<String, Long> atcGroups,              // ATC level 1 (anatomical main group, A-V)
+
+    @JsonProperty("productForms")
+    Map<String, Long> productForms,           // Pharmaceutical forms (GYFORMA)
+
+    @JsonProperty("administrationMethods")
+    Map<String, Long> administrationMethods,  // Administration routes (ADAGMOD)
+
+    @JsonProperty("tttCodes")
+    Map<String, Long> tttCodes,               // TTT classification codes
+
+    @JsonProperty("manufacturers")
+    Map<String, Long> manufacturers,          // Marketing authorization holders (FORG_ENGT_ID)
+
+    @JsonProperty("inStock")
+    long inStock,                             // Matching products currently in stock
+
+    @JsonProperty("outOfStock")
+    long outOfStock                           // Matching products not in stock
+) {
+
+    /**
+     * Facets of an empty result set.
+     */
+    public static SearchFacets empty() {
+        return new SearchFacets(Map.of(), Map.of(), Map.of(), Map.of(), Map.of(), 0, 0);
+    }
+}
@@ -0,0 +1,142 @@
+package com.puphax.service;
+
+import com.puphax.model.dto.DrugSuggestion;
+import com.puphax.store.FuzzyNameIndex;
+import com.puphax.store.ProductBitmapIndex;
+import com.puphax.store.ProductColumn;
+import com.puphax.store.ProductColumnStore;
+import com.puphax.store.StringDictionary;
+import com.puphax.store.SuggestionTrie;
+import com.puphax.store.TermekCsvLoader;
+import com.puphax.store.TrigramIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One complete, immutable generation of the CSV fallback data: the product
+ * store, the lookup tables and every index derived from them.
+ *
+ * A dataset is fully built before it is published through an atomic
+ * reference and is never modified afterwards, so a request that reads the
+ * reference once sees one consistent generation even while a reload builds
+ * and swaps in the next one.
+ */
+final class CsvDataset {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvDataset.class);
+
+    final ProductColumnStore products;
+    final Map<String, String> brandNames;
+    final Map<String, String> atcCodes;
+    final Map<String, String> companies;
+
+    // Substring index for product names and active ingredients
+    final TrigramIndex nameSearchIndex;
+
+    // Accent-insensitive, typo-tolerant index for the same texts (fuzzy search mode)
+    final FuzzyNameIndex fuzzyNameIndex;
+
+    // Type-ahead suggestions over names, brand names and active ingredients
+    final SuggestionTrie suggestionTrie;
+
+    // Bitmap index over categorical columns for advanced filtering
+    final ProductBitmapIndex bitmapIndex;
+
+    // Statistics of the TERMEK parse (null when the data came from a snapshot)
+    final TermekCsvLoader.Report loadReport;
+
+    final Instant loadedAt;
+
+    private CsvDataset(ProductColumnStore products, Map<String, String> brandNames, Map<String, String> atcCodes,
+                       Map<String, String> companies, TermekCsvLoader.Report loadReport) {
+        this.products = products;
+        this.brandNames = Collections.unmodifiableMap(brandNames);
+        this.atcCodes = Collections.unmodifiableMap(atcCodes);
+        this.companies = Collections.unmodifiableMap(companies);
+        this.loadReport = loadReport;
+
+        logger.debug("Building search index for {} products", products.size());
+
+        // Index by product name and by active ingredient (hatóanyag)
+        nameSearchIndex = TrigramIndex.build(products, ProductColumn.NAME, ProductColumn.ACTIVE_INGREDIENT);
+        logger.debug("Search index built with {} texts and {} trigrams (includes names and active ingredients)",
+                    nameSearchIndex.documentCount(), nameSearchIndex.gramCount());
+
+        fuzzyNameIndex = FuzzyNameIndex.build(products, ProductColumn.NAME, ProductColumn.ACTIVE_INGREDIENT);
+        logger.debug("Fuzzy search index built with {} words and {} deletion variants",
+                    fuzzyNameIndex.wordCount(), fuzzyNameIndex.deletionCount());
+
+        suggestionTrie = buildSuggestionTrie();
+        logger.debug("Suggestion trie built with {} entries in {} nodes", suggestionTrie.size(), suggestionTrie.nodeCount());
+
+        bitmapIndex = ProductBitmapIndex.build(products);
+        logger.debug("Bitmap filter index built (~{} KB)", bitmapIndex.sizeInBytes() / 1024);
+
+        loadedAt = Instant.now();
+    }
+
+    /**
+     * Builds the derived indexes over freshly loaded data. The store and maps
+     * are owned by the dataset afterwards and must not be modified.
+     */
+    static CsvDataset build(ProductColumnStore products, Map<String, String> brandNames,
+                            Map<String, String> atcCodes, Map<String, String> companies,
+                            TermekCsvLoader.Report loadReport) {
+        return new CsvDataset(products, brandNames, atcCodes, companies, loadReport);
+    }
+
+    /**
+     * The next generation after an incremental product update: the same
+     * lookup tables over the updated store, with the derived indexes rebuilt.
+     */
+    CsvDataset withProducts(ProductColumnStore updated) {
+        return new CsvDataset(updated, brandNames, atcCodes, companies, loadReport);
+    }
+
+    /**
+     * Suggestion entries weighted by how many products carry them. Brand weights
+     * sum the products of every brand ID with that name.
+     */
+    private SuggestionTrie buildSuggestionTrie() {
+        SuggestionTrie.Builder builder = SuggestionTrie.builder();
+        addSuggestions(builder, ProductColumn.NAME, DrugSuggestion.SuggestionType.NAME);
+        addSuggestions(builder, ProductColumn.ACTIVE_INGREDIENT, DrugSuggestion.SuggestionType.ACTIVE_INGREDIENT);
+
+        StringDictionary brandIds = products.column(ProductColumn.BRAND_ID).dictionary();
+        int[] brandCounts = countByCode(ProductColumn.BRAND_ID);
+        Map<String, Integer> productsByBrand = new HashMap<>();
+        for (int code = 1; code < brandCounts.length; code++) {
+            String brandName = brandNames.get(brandIds.decode(code));
+            if (brandName != null && brandCounts[code] > 0) {
+                productsByBrand.merge(brandName, brandCounts[code], Integer::sum);
+            }
+        }
+        productsByBrand.forEach((brand, count) ->
+            builder.add(brand, DrugSuggestion.SuggestionType.BRAND.ordinal(), count));
+
+        return builder.build();
+    }
+
+    private void addSuggestions(SuggestionTrie.Builder builder, ProductColumn column, DrugSuggestion.SuggestionType type) {
+        StringDictionary dictionary = products.column(column).dictionary();
+        int[] counts = countByCode(column);
+        for (int code = 1; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                builder.add(dictionary.decode(code), type.ordinal(), counts[code]);
+            }
+        }
+    }
+
+    private int[] countByCode(ProductColumn column) {
+        int[] counts = new int[products.column(column).dictionary().size()];
+        for (int row = 0; row < products.size(); row++) {
+            counts[products.code(column, row)]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,39 @@
+package com.puphax.service;
+
+import com.puphax.store.HungarianFolding;
+
+import java.util.Locale;
+
+/**
+ * Canonical form of a drug search, used as the key of its cached result set.
+ *
+ * The term is trimmed, its inner whitespace collapsed and accents folded
+ * (see {@link HungarianFolding}), so "Algopyrin", " algopyrin " and
+ * "ALGOPYRÍN" share one entry. The key is never sent to PUPHAX: its name
+ * filter is accent-sensitive, so the search goes out as the user typed it
+ * (see {@link #queryTerm}). Page and sort are not part of the key: they are
+ * views over the cached result.
+ */
+record DrugSearchKey(String term, String manufacturer, String atcCode) {
+
+    static DrugSearchKey of(String searchTerm, String manufacturer, String atcCode) {
+        return new DrugSearchKey(
+            canonicalTerm(searchTerm),
+            canonicalTerm(manufacturer),
+            atcCode != null ? atcCode.trim().toUpperCase(Locale.ROOT) : "");
+    }
+
+    /**
+     * The text trimmed and its inner whitespace collapsed, as it is sent to PUPHAX; empty for null.
+     */
+    static String queryTerm(String text) {
+        return text != null ? text.trim().replaceAll("\\s+", " ") : "";
+    }
+
+    /**
+     * The {@link #queryTerm query term} lower-cased and accent-folded.
+     */
+    static String canonicalTerm(String text) {
+        return HungarianFolding.fold(queryTerm(text));
+    }
+}
@@ -2,10 +2,15 @@ package com.puphax.service;
 
 import com.puphax.model.dto.*;
 import com.puphax.exception.PuphaxServiceException;
+import com.puphax.util.PageSelector;
+import com.puphax.util.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.stereotype.Service;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -17,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,18 +42,30 @@ public class DrugService {
     private final PuphaxSoapClient soapClient;
     private final PuphaxRealDataService realDataService;
     private final PuphaxCsvFallbackService csvFallbackService;
+    private final Cache searchResults;
+    private final SingleFlight<DrugSearchKey, List<DrugSummary>> searchFlight = new SingleFlight<>();
 
     @Autowired
     public DrugService(PuphaxSoapClient soapClient, PuphaxRealDataService realDataService,
-                      PuphaxCsvFallbackService csvFallbackService) {
+                      PuphaxCsvFallbackService csvFallbackService, CacheManager cacheManager) {
         this.soapClient = soapClient;
         this.realDataService = realDataService;
         this.csvFallbackService = csvFallbackService;
+        Cache cache = cacheManager.getCache("drugSearchCache");
+        this.searchResults = cache != null ? cache : new NoOpCacheManager().getCache("drugSearchCache");
+    }
+
+    public DrugService(PuphaxSoapClient soapClient, PuphaxRealDataService realDataService,
+                      PuphaxCsvFallbackService csvFallbackService) {
+        this(soapClient, realDataService, csvFallbackService, new NoOpCacheManager());
     }
     
     /**
      * Searches for drugs based on the provided criteria.
      * 
+     * The full result set is cached once per {@link DrugSearchKey canonical query};
+     * every page and sort order of the same search is served from it.
+     * 
      * @param searchTerm Drug name or partial name to search for
      * @param manufacturer Optional manufacturer filter
      * @param atcCode Optional ATC code filter
@@ -57,7 +75,6 @@ public class DrugService {
      * @param sortDirection Sort direction (ASC, DESC)
      * @return DrugSearchResponse with paginated results
      */
-    // @Cacheable(value = "drugSearchCache", key = "#searchTerm + '_' + #manufacturer + '_' + #atcCode + '_' + #page + '_' + #size + '_' + #sortBy + '_' + #sortDirection")
     public DrugSearchResponse searchDrugs(String searchTerm, String manufacturer, String atcCode,
                                          int page, int size, String sortBy, String sortDirection) {
         
@@ -67,38 +84,22 @@ public class DrugService {
         long startTime = System.currentTimeMillis();
         
         try {
-            // First try the real data service with proper encoding handling
-            String xmlResponse;
-            try {
-                logger.info("Attempting to fetch real PUPHAX data for search term: {}", searchTerm);
-                xmlResponse = realDataService.searchDrugsReal(searchTerm);
-                logger.info("Successfully retrieved real PUPHAX data");
-            } catch (Exception e) {
-                logger.warn("Real data service failed, falling back to SOAP client: {}", e.getMessage());
-                // Fall back to SOAP client if real data service fails
-                CompletableFuture<String> soapResponseFuture = soapClient.searchDrugsAsync(searchTerm, manufacturer, atcCode);
-                xmlResponse = soapResponseFuture.get();
-            }
+            List<DrugSummary> allDrugs = cachedSearch(searchTerm, manufacturer, atcCode);
             
-            logger.debug("Received response: {} characters", xmlResponse.length());
-            
-            // Parse XML response
-            List<DrugSummary> allDrugs = parseSearchResponse(xmlResponse);
-            
-            // Apply sorting
-            List<DrugSummary> sortedDrugs = applySorting(allDrugs, sortBy, sortDirection);
-            
-            // Apply pagination
-            List<DrugSummary> paginatedDrugs = applyPagination(sortedDrugs, page, size);
+            // Select the requested page in sort order without sorting the whole list
+            Comparator<DrugSummary> order = sortOrder(sortBy, sortDirection);
+            List<DrugSummary> paginatedDrugs = order != null
+                ? PageSelector.page(allDrugs, order, page * size, size)
+                : applyPagination(allDrugs, page, size);
             
             // Create pagination info - use total count before pagination
-            PaginationInfo pagination = PaginationInfo.of(page, size, sortedDrugs.size());
+            PaginationInfo pagination = PaginationInfo.of(page, size, allDrugs.size());
             
             // Create search info
             long responseTime = System.currentTimeMillis() - startTime;
             SearchInfo searchInfo = SearchInfo.withFilters(searchTerm, manufacturer, atcCode, responseTime, false);
             
-            logger.debug("Search completed: {} results found in {}ms", sortedDrugs.size(), responseTime);
+            logger.debug("Search completed: {} results found in {}ms", allDrugs.size(), responseTime);
             
             return new DrugSearchResponse(paginatedDrugs, pagination, searchInfo);
             
@@ -113,6 +114,57 @@ public class DrugService {
         }
     }
 
+    /**
+     * The full, unpaginated result of a search, loaded once per canonical query: concurrent searches for the
+     * same key join one load. PUPHAX is sent the term as typed. Only complete PUPHAX answers are cached;
+     * fallback and partial results are served once.
+     */
+    private List<DrugSummary> cachedSearch(String searchTerm, String manufacturer, String atcCode) throws Exception {
+        DrugSearchKey key = DrugSearchKey.of(searchTerm, manufacturer, atcCode);
+        List<DrugSummary> cached = cachedResult(key);
+        if (cached != null) {
+            return cached;
+        }
+        return searchFlight.execute(key, () -> {
+            // A load for this key may have completed between the lookup above and joining the flight
+            List<DrugSummary> loaded = cachedResult(key);
+            return loaded != null ? loaded : loadSearch(key, DrugSearchKey.queryTerm(searchTerm), manufacturer, atcCode);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DrugSummary> cachedResult(DrugSearchKey key) {
+        ValueWrapper cached = searchResults.get(key);
+        return cached != null ? (List<DrugSummary>) cached.get() : null;
+    }
+
+    private List<DrugSummary> loadSearch(DrugSearchKey key, String term, String manufacturer, String atcCode)
+            throws Exception {
+        // First try the real data service with proper encoding handling
+        String xmlResponse;
+        try {
+            logger.info("Attempting to fetch real PUPHAX data for search term: {}", term);
+            xmlResponse = realDataService.searchDrugsReal(term);
+            logger.info("Successfully retrieved real PUPHAX data");
+        } catch (Exception e) {
+            logger.warn("Real data service failed, falling back to SOAP client: {}", e.getMessage());
+            // Fall back to SOAP client if real data service fails
+            CompletableFuture<String> soapResponseFuture = soapClient.searchDrugsAsync(term, manufacturer, atcCode);
+            xmlResponse = soapResponseFuture.get();
+        }
+        
+        logger.debug("Received response: {} characters", xmlResponse.length());
+        
+        // Parse XML response; the cached list is shared by every page and sort of the search
+        List<DrugSummary> drugs = List.copyOf(parseSearchResponse(xmlResponse));
+        if (PuphaxRealDataService.isCompleteRealResponse(xmlResponse)) {
+            searchResults.put(key, drugs);
+        } else {
+            logger.debug("Not caching degraded search result for '{}'", term);
+        }
+        return drugs;
+    }
+
     /**
      * Advanced drug search using comprehensive DrugSearchFilter.
      *
@@ -120,7 +172,8 @@ public class DrugService {
      * to search across 43,930 products with support for 20+ filter criteria.
      *
      * @param filter Comprehensive filter criteria
-     * @return DrugSearchResponse with paginated results and enhanced DrugSummary (55 fields)
+     * @return DrugSearchResponse with paginated results and enhanced DrugSummary (55 fields),
+     *         plus facet counts over all matches when {@code filter.includeFacets()} is set
      */
     public DrugSearchResponse searchDrugsAdvanced(DrugSearchFilter filter) {
         logger.debug("Advanced drug search with {} active filters", filter.getActiveFilterCount());
@@ -128,22 +181,18 @@ public class DrugService {
         long startTime = System.currentTimeMillis();
 
         try {
-            // Use CSV fallback service for advanced filtering
-            List<PuphaxCsvFallbackService.ProductRecord> products =
-                csvFallbackService.searchWithAdvancedFilters(filter);
+            // Use CSV fallback service for advanced filtering (facets only when requested)
+            PuphaxCsvFallbackService.AdvancedSearchResult result = csvFallbackService.searchAdvanced(filter);
 
-            // Convert ProductRecord to enhanced DrugSummary (with all 55 fields)
-            List<DrugSummary> allDrugs = products.stream()
+            // Convert only the requested page (sorting and paging already done in CSV service)
+            List<DrugSummary> paginatedDrugs = result.products().stream()
                 .map(p -> convertProductRecordToDrugSummary(p))
                 .collect(java.util.stream.Collectors.toList());
 
-            // Apply pagination (sorting already done in CSV service)
+            // Create pagination info from the total match count
             int page = filter.page() != null ? filter.page() : 0;
             int size = filter.size() != null ? filter.size() : 20;
-            List<DrugSummary> paginatedDrugs = applyPagination(allDrugs, page, size);
-
-            // Create pagination info
-            PaginationInfo pagination = PaginationInfo.of(page, size, allDrugs.size());
+            PaginationInfo pagination = PaginationInfo.of(page, size, result.totalCount());
 
             // Create search info with filter details
             long responseTime = System.currentTimeMillis() - startTime;
@@ -157,9 +206,9 @@ public class DrugService {
             );
 
             logger.info("Advanced search completed: {} results (from {} total) in {}ms with {} filters",
-                       paginatedDrugs.size(), allDrugs.size(), responseTime, filter.getActiveFilterCount());
+                       paginatedDrugs.size(), result.totalCount(), responseTime, filter.getActiveFilterCount());
 
-            return new DrugSearchResponse(paginatedDrugs, pagination, searchInfo);
+            return new DrugSearchResponse(paginatedDrugs, pagination, searchInfo, result.facets());
 
         } catch (Exception e) {
             logger.error("Error during advanced drug search: {}", e.getMessage(), e);
@@ -171,8 +220,9 @@ public class DrugService {
      * Convert ProductRecord to enhanced DrugSummary with all 55 fields.
      */
     private DrugSummary convertProductRecordToDrugSummary(PuphaxCsvFallbackService.ProductRecord p) {
-        // Look up manufacturer name from forgEngtId (marketing authorization holder, not distributor)
-        String manufacturerName = csvFallbackService.getCompanyName(p.forgEngtId);
+        // Manufacturer name from forgEngtId (marketing authorization holder, not distributor),
+        // resolved by the CSV service against the same dataset as the record
+        String manufacturerName = p.manufacturerName;
 
         return DrugSummary.builder(p.id, p.name)
             // Core identification
@@ -231,6 +281,8 @@ public class DrugService {
             // Derived fields
             .prescriptionRequired(isPrescriptionRequired(p.rendelhet))
             .reimbursable(p.tk != null && !p.tk.trim().isEmpty())
+            // Search metadata
+            .relevanceScore(p.relevanceScore)
             .build();
     }
 
@@ -251,6 +303,8 @@ public class DrugService {
             filters.put("reimbursable", filter.reimbursable().toString());
         if (filter.inStock() != null)
             filters.put("inStock", filter.inStock().toString());
+        if (Boolean.TRUE.equals(filter.fuzzy()))
+            filters.put("fuzzy", "true");
         // Add more as needed
         return filters;
     }
@@ -492,53 +546,45 @@ public class DrugService {
     }
     
     /**
-     * Applies sorting to the drug list.
+     * Sort order for the drug list.
      * 
-     * @param drugs List of drugs to sort
      * @param sortBy Sort field
      * @param sortDirection Sort direction
-     * @return Sorted list of drugs
+     * @return Comparator for the field, or null to keep the original order
      */
-    private List<DrugSummary> applySorting(List<DrugSummary> drugs, String sortBy, String sortDirection) {
-        if (drugs.isEmpty() || sortBy == null) {
-            return drugs;
+    private Comparator<DrugSummary> sortOrder(String sortBy, String sortDirection) {
+        if (sortBy == null) {
+            return null;
         }
         
-        boolean ascending = "ASC".equalsIgnoreCase(sortDirection);
-        
-        List<DrugSummary> sortedDrugs = new ArrayList<>(drugs);
-        
+        Comparator<DrugSummary> order;
         switch (sortBy.toLowerCase()) {
             case "name":
-                sortedDrugs.sort((a, b) -> {
-                    int result = a.name().compareToIgnoreCase(b.name());
-                    return ascending ? result : -result;
-                });
+                order = (a, b) -> a.name().compareToIgnoreCase(b.name());
                 break;
                 
             case "manufacturer":
-                sortedDrugs.sort((a, b) -> {
+                order = (a, b) -> {
                     String mfgA = a.manufacturer() != null ? a.manufacturer() : "";
                     String mfgB = b.manufacturer() != null ? b.manufacturer() : "";
-                    int result = mfgA.compareToIgnoreCase(mfgB);
-                    return ascending ? result : -result;
-                });
+                    return mfgA.compareToIgnoreCase(mfgB);
+                };
                 break;
                 
             case "atccode":
-                sortedDrugs.sort((a, b) -> {
+                order = (a, b) -> {
                     String atcA = a.atcCode() != null ? a.atcCode() : "";
                     String atcB = b.atcCode() != null ? b.atcCode() : "";
-                    int result = atcA.compareToIgnoreCase(atcB);
-                    return ascending ? result : -result;
-                });
+                    return atcA.compareToIgnoreCase(atcB);
+                };
                 break;
                 
             default:
                 logger.warn("Unknown sort field '{}', keeping original order", sortBy);
+                return null;
         }
         
-        return sortedDrugs;
+        return "ASC".equalsIgnoreCase(sortDirection) ? order : order.reversed();
     }
     
     /**
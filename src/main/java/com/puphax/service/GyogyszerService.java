@@ -29,4 +29,27 @@ public interface GyogyszerService {
         String rendezes,
         String irany
     );
+    
+    /**
+     * Ékezet- és elírás-toleráns (közelítő) gyógyszer keresés a helyi adatbázisban.
+     * Minden találat relevancia pontszámot kap; a "relevancia" rendezés a legjobb találatokat adja előre.
+     * 
+     * @param keresettkifejezés Gyógyszer neve vagy hatóanyaga, ékezettel vagy anélkül
+     * @param gyarto Opcionális gyártó szűrő
+     * @param atcKod Opcionális ATC kód szűrő
+     * @param oldal Oldal szám (0-tól kezdődik)
+     * @param meret Oldal méret
+     * @param rendezes Rendezési mező (nev, gyarto, atcKod, relevancia)
+     * @param irany Rendezési irány (ASC, DESC)
+     * @return GyogyszerKeresesiValasz a keresési eredményekkel
+     */
+    GyogyszerKeresesiValasz kozelitoKeresesGyogyszerek(
+        String keresettkifejezés,
+        String gyarto,
+        String atcKod,
+        int oldal,
+        int meret,
+        String rendezes,
+        String irany
+    );
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.puphax.service;
+
+import com.puphax.exception.PuphaxSoapFaultException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Locale;
+
+/**
+ * Remembers PUPHAX calls that came back empty or with a client SOAP fault, so that
+ * repeating them within the {@code negative-results} cache TTL is answered
+ * locally instead of taking a NEAK connection slot.
+ *
+ * Only deterministic answers are kept: an empty result, or a fault that
+ * blames the request ({@link PuphaxSoapFaultException#isClientFault}).
+ * Transient failures (I/O errors, timeouts, HTTP errors without a fault,
+ * server-side faults such as database locks) are never remembered. Every answered call counts
+ * in {@code puphax.soap.negative-cache.hits}, i.e. the upstream calls saved.
+ */
+class NegativeResultCache {
+
+    static final String CACHE_NAME = "negative-results";
+
+    enum Kind { EMPTY, FAULT }
+
+    /**
+     * A remembered answer: the empty result, or the client fault NEAK raised.
+     */
+    record Entry(Kind kind, Object result, String faultCode, String faultString) {
+
+        /**
+         * The remembered result, or the remembered fault thrown again.
+         */
+        @SuppressWarnings("unchecked")
+        <T> T replay() {
+            if (result == null) {
+                throw new PuphaxSoapFaultException(faultCode, faultString);
+            }
+            return (T) result;
+        }
+    }
+
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+
+    NegativeResultCache(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * The remembered answer to the call, or null.
+     */
+    Entry get(String operation, String key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        Entry entry = cache != null ? cache.get(operation + ":" + key, Entry.class) : null;
+        if (entry != null) {
+            counter("puphax.soap.negative-cache.hits", "PUPHAX calls answered from a remembered empty or fault result",
+                operation, entry.kind()).increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Remembers an empty result.
+     */
+    void putEmpty(String operation, String key, Object result) {
+        put(operation, key, new Entry(Kind.EMPTY, result, null, null));
+    }
+
+    /**
+     * Remembers a client fault NEAK raised for the call.
+     */
+    void putFault(String operation, String key, PuphaxSoapFaultException fault) {
+        put(operation, key, new Entry(Kind.FAULT, null, fault.getFaultCode(), fault.getFaultString()));
+    }
+
+    private void put(String operation, String key, Entry entry) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.put(operation + ":" + key, entry);
+            counter("puphax.soap.negative-cache.stores", "Empty or fault PUPHAX results remembered",
+                operation, entry.kind()).increment();
+        }
+    }
+
+    private Counter counter(String name, String description, String operation, Kind kind) {
+        return Counter.builder(name)
+            .description(description)
+            .tag("operation", operation)
+            .tag("kind", kind.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,69 @@
+package com.puphax.service;
+
+import com.puphax.client.PuphaxResponseReader.TamogatAdat;
+import com.puphax.client.PuphaxResponseReader.TermekAdat;
+import com.puphax.config.RefreshAheadCaches;
+import com.puphax.util.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Reloads stale {@code product-details} and {@code support-data} entries for {@link RefreshAheadCaches}.
+ *
+ * Both caches are keyed {@code <productId>_<searchDate>}. Reloads call
+ * PUPHAX at background priority and write through the cache manager, so a
+ * persistent tier gets the fresh value too. A fault answer counts as a
+ * failed reload and leaves the cached value in place.
+ */
+@Component
+public class ProductCacheRefresher {
+
+    private final SimplePuphaxClient simplePuphaxClient;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public ProductCacheRefresher(SimplePuphaxClient simplePuphaxClient, CacheManager cacheManager,
+                                 RefreshAheadCaches refreshAheadCaches) {
+        this.simplePuphaxClient = simplePuphaxClient;
+        this.cacheManager = cacheManager;
+        refreshAheadCaches.register("product-details", this::reloadProductDetails);
+        refreshAheadCaches.register("support-data", this::reloadProductSupport);
+    }
+
+    TermekAdat reloadProductDetails(String key) throws Exception {
+        int separator = key.lastIndexOf('_');
+        String productId = key.substring(0, separator);
+        LocalDate searchDate = LocalDate.parse(key.substring(separator + 1));
+        TermekAdat product = AdaptiveConcurrencyLimiter.background(
+            () -> simplePuphaxClient.fetchProductDetails(productId, searchDate));
+        if (product == null || product.isFault()) {
+            throw new IllegalStateException("TERMEKADAT fault: " + (product != null ? product.fault() : "no data"));
+        }
+        store("product-details", key, product);
+        return product;
+    }
+
+    TamogatAdat reloadProductSupport(String key) throws Exception {
+        int separator = key.lastIndexOf('_');
+        String productId = key.substring(0, separator);
+        LocalDate searchDate = LocalDate.parse(key.substring(separator + 1));
+        TamogatAdat support = AdaptiveConcurrencyLimiter.background(
+            () -> simplePuphaxClient.fetchProductSupport(productId, searchDate));
+        if (support == null || support.isFault()) {
+            throw new IllegalStateException("TAMOGATADAT fault: " + (support != null ? support.fault() : "no data"));
+        }
+        store("support-data", key, support);
+        return support;
+    }
+
+    private void store(String cacheName, String key, Object value) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.puphax.service;
+
+import com.puphax.client.PuphaxResponseReader.DispLista;
+import com.puphax.client.PuphaxResponseReader.Kihirdetes;
+import com.puphax.model.dto.ProductSyncStatus;
+import com.puphax.store.ProductColumnStore;
+import com.puphax.store.ProductUpdate;
+import com.puphax.util.AdaptiveConcurrencyLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the local product dataset current from PUPHAX publications.
+ *
+ * KIHIRD is polled for a live publication newer than the one the served
+ * dataset reflects (initially the latest ERV_KEZD of the CSV dump). When one
+ * appears, DISP_DIFF lists the products that are new, changed or deleted
+ * between the two dates, page by page, and they are upserted into a copy of
+ * the dataset that is then published. Working versions (STATUS M) are not
+ * applied. After a full reload the sync starts again from the reloaded data;
+ * changes fetched for the previous data are dropped if a reload is published
+ * while they are being applied.
+ */
+@Service
+public class ProductSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSyncService.class);
+
+    // DISP_INF / DISP_DIFF accept at most 100 products per LAPOZAS page
+    static final int PAGE_SIZE = 100;
+
+    // VALTTIP filters: new, changed, deleted
+    private static final String[] CHANGE_TYPES = {"U", "M", "T"};
+
+    @Value("${puphax.product-sync.enabled:true}")
+    private boolean syncEnabled;
+
+    @Value("${puphax.product-sync.interval:3600000}")
+    private long pollIntervalMs;
+
+    private final SimplePuphaxClient simplePuphaxClient;
+    private final PuphaxCsvFallbackService csvFallbackService;
+
+    // Publication the served dataset is current to, and the dataset generation that holds for
+    private volatile LocalDate syncedThrough;
+    private volatile long syncedGeneration = -1;
+
+    private final AtomicReference<ProductSyncStatus> status = new AtomicReference<>(ProductSyncStatus.idle());
+
+    private final ScheduledExecutorService syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ProductSyncService(SimplePuphaxClient simplePuphaxClient, PuphaxCsvFallbackService csvFallbackService) {
+        this.simplePuphaxClient = simplePuphaxClient;
+        this.csvFallbackService = csvFallbackService;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (syncEnabled) {
+            syncExecutor.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+            logger.info("Product sync from PUPHAX publications scheduled every {} min",
+                TimeUnit.MILLISECONDS.toMinutes(pollIntervalMs));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        syncExecutor.shutdownNow();
+    }
+
+    /**
+     * Checks for a new publication on the sync thread, after any check already running.
+     */
+    public void triggerSync() {
+        syncExecutor.execute(this::poll);
+    }
+
+    public ProductSyncStatus getStatus() {
+        return status.get();
+    }
+
+    private void poll() {
+        Instant checkedAt = Instant.now();
+        try {
+            Integer applied = AdaptiveConcurrencyLimiter.background(() -> sync(LocalDate.now()));
+            ProductSyncStatus previous = status.get();
+            status.set(new ProductSyncStatus(syncedThrough, checkedAt,
+                applied > 0 ? applied : previous.lastChangeCount(), null));
+        } catch (Exception e) {
+            logger.warn("Product sync from PUPHAX failed, keeping the current dataset: {}", e.getMessage());
+            ProductSyncStatus previous = status.get();
+            status.set(new ProductSyncStatus(syncedThrough, checkedAt, previous.lastChangeCount(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Applies the changes up to the latest live publication, if there is a new one.
+     *
+     * @return the number of products applied
+     */
+    int sync(LocalDate today) throws Exception {
+        long generation = csvFallbackService.getGeneration();
+        LocalDate from = generation == syncedGeneration ? syncedThrough : csvFallbackService.getLatestValidFrom();
+        if (from == null) {
+            return 0;
+        }
+
+        LocalDate target = latestLivePublication(simplePuphaxClient.getPublications(from), from, today);
+        if (target == null) {
+            syncedThrough = from;
+            syncedGeneration = generation;
+            return 0;
+        }
+
+        long startTime = System.currentTimeMillis();
+        List<ProductUpdate> changes = fetchChanges(from, target);
+        long published = changes.isEmpty() ? generation : csvFallbackService.applyProductUpdates(changes, generation);
+        if (published < 0) {
+            // The next check starts again from the latest ERV_KEZD of the data now served
+            logger.info("Dataset changed while syncing to the {} publication; dropped {} changes since {}",
+                target, changes.size(), from);
+            return 0;
+        }
+        syncedThrough = target;
+        syncedGeneration = published;
+        logger.info("Synced products to the {} publication: {} changes since {} in {}ms",
+            target, changes.size(), from, System.currentTimeMillis() - startTime);
+        return changes.size();
+    }
+
+    /**
+     * Every product new, changed or deleted between the two dates, one row per ID: the state
+     * valid on {@code to} where DISP_DIFF lists both, deleted products withdrawn as of {@code to}.
+     */
+    List<ProductUpdate> fetchChanges(LocalDate from, LocalDate to) throws Exception {
+        int targetDay = ProductColumnStore.toEpochDay(to);
+        Map<String, ProductUpdate> changes = new LinkedHashMap<>();
+        for (String changeType : CHANGE_TYPES) {
+            int recordCount = 0;
+            for (int first = 1; ; first += PAGE_SIZE) {
+                DispLista page = simplePuphaxClient.getProductChanges(from, to, changeType, first, PAGE_SIZE);
+                if (first == 1) {
+                    recordCount = page.recordCount();
+                }
+                for (Map<String, String> fields : page.products()) {
+                    ProductUpdate update = ProductUpdate.fromTermekAdat(fields);
+                    if (update.id().isEmpty()) {
+                        continue;
+                    }
+                    if (changeType.equals("T")) {
+                        update = update.withdrawnOn(targetDay);
+                    }
+                    ProductUpdate existing = changes.get(update.id());
+                    if (existing == null || !existing.isValidOn(targetDay) || update.isValidOn(targetDay)) {
+                        changes.put(update.id(), update);
+                    }
+                }
+                if (page.products().size() < PAGE_SIZE || (recordCount > 0 && first - 1 + PAGE_SIZE >= recordCount)) {
+                    break;
+                }
+            }
+        }
+        return new ArrayList<>(changes.values());
+    }
+
+    /**
+     * Effective date of the latest live publication after {@code from} that is not in the future, or null.
+     */
+    static LocalDate latestLivePublication(List<Kihirdetes> publications, LocalDate from, LocalDate today) {
+        LocalDate latest = null;
+        for (Kihirdetes publication : publications) {
+            if (!publication.isLive()) {
+                continue;
+            }
+            try {
+                LocalDate effective = LocalDate.parse(publication.effectiveFrom());
+                if (effective.isAfter(from) && !effective.isAfter(today)
+                        && (latest == null || effective.isAfter(latest))) {
+                    latest = effective;
+                }
+            } catch (DateTimeParseException e) {
+                logger.debug("Ignoring publication with unreadable date '{}'", publication.effectiveFrom());
+            }
+        }
+        return latest;
+    }
+}
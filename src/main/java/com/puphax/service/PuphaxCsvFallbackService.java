@@ -1,17 +1,49 @@
 package com.puphax.service;
 
+import com.puphax.model.dto.DatasetReloadStatus;
+import com.puphax.model.dto.DrugSuggestion;
+import com.puphax.model.dto.SearchFacets;
+import com.puphax.store.DictionaryColumn;
+import com.puphax.store.ProductBitmapIndex;
+import com.puphax.store.ProductColumn;
+import com.puphax.store.ProductColumnStore;
+import com.puphax.store.ProductUpdate;
+import com.puphax.store.ReferenceTable;
+import com.puphax.store.SnapshotFile;
+import com.puphax.store.StringDictionary;
+import com.puphax.store.SuggestionTrie;
+import com.puphax.store.TermekCsvLoader;
+import com.puphax.util.PageSelector;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
 
 /**
  * CSV-based fallback service using NEAK's historical data dump (2007-2023).
@@ -28,16 +60,35 @@ public class PuphaxCsvFallbackService {
     
     private static final Logger logger = LoggerFactory.getLogger(PuphaxCsvFallbackService.class);
     
-    // In-memory caches for quick lookup
-    private final Map<String, ProductRecord> productsById = new HashMap<>();
-    private final Map<String, String> brandNames = new HashMap<>();
-    private final Map<String, String> atcCodes = new HashMap<>();
-    private final Map<String, String> companies = new HashMap<>();
-    
-    // Search index for product names
-    private final Map<String, List<ProductRecord>> nameSearchIndex = new HashMap<>();
-    
-    private boolean initialized = false;
+    // Source tables whose content keys the binary dataset snapshot
+    private static final String[] SOURCE_FILES = {"TERMEK.csv", "BRAND.csv", "ATCKONYV.csv", "CEGEK.csv"};
+
+    @Value("${puphax.csv.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${puphax.csv.snapshot.path:data/puphax-dataset.snapshot}")
+    private String snapshotPath;
+
+    // Directory with a newer NEAK dump; empty means the CSV files bundled on the classpath
+    @Value("${puphax.csv.data-dir:}")
+    private String dataDir;
+
+    // Mirrored PUPHAX code tables; their names take precedence over the CSV dump's
+    @Autowired(required = false)
+    private ReferenceDataService referenceDataService;
+
+    // Current dataset generation; every request reads it once and works on that snapshot
+    private final AtomicReference<CsvDataset> dataset = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    // Publishing swaps the dataset and bumps the generation together
+    private final Object publishLock = new Object();
+
+    private final AtomicReference<DatasetReloadStatus> reloadStatus = new AtomicReference<>(DatasetReloadStatus.idle());
+    private final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "csv-dataset-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     @PostConstruct
     public void initialize() {
@@ -45,28 +96,273 @@ public class PuphaxCsvFallbackService {
             logger.info("Initializing PUPHAX CSV fallback service with historical data (2007-2023)");
             long startTime = System.currentTimeMillis();
             
-            loadBrands();
-            loadAtcCodes();
-            loadCompanies();
-            loadProducts();
-            buildSearchIndex();
+            CsvDataset loaded = loadDataset(phase -> { });
+            publish(loaded);
             
-            initialized = true;
             long duration = System.currentTimeMillis() - startTime;
-            logger.info("CSV fallback service initialized successfully: {} products, {} brands, {} ATC codes in {}ms",
-                       productsById.size(), brandNames.size(), atcCodes.size(), duration);
+            logger.info("CSV fallback service initialized successfully: {} products, {} brands, {} ATC codes in {}ms (product store ~{} KB)",
+                       loaded.products.size(), loaded.brandNames.size(), loaded.atcCodes.size(), duration,
+                       loaded.products.estimatedHeapBytes() / 1024);
         } catch (Exception e) {
             logger.error("Failed to initialize CSV fallback service: {}", e.getMessage(), e);
-            initialized = false;
         }
     }
+
+    @PreDestroy
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
     
+    /**
+     * Initialize from already opened readers instead of the classpath resources.
+     */
+    void initialize(BufferedReader brands, BufferedReader companies, BufferedReader termek) throws IOException {
+        Map<String, String> brandNames = new HashMap<>();
+        Map<String, String> companyNames = new HashMap<>();
+        loadBrands(brands, brandNames);
+        loadCompanies(companies, companyNames);
+        ProductColumnStore products = new ProductColumnStore();
+        TermekCsvLoader.Report report = loadProducts(termek, products);
+        publish(CsvDataset.build(products, brandNames, new HashMap<>(), companyNames, report));
+    }
+
+    /**
+     * Starts a background reload of the CSV data unless one is already running.
+     * The current dataset keeps serving requests until the new one is complete
+     * and swapped in; a failed reload leaves it in place.
+     *
+     * @return the reload status right after the request
+     */
+    public DatasetReloadStatus triggerReload() {
+        DatasetReloadStatus current = reloadStatus.get();
+        if (!current.isRunning()) {
+            DatasetReloadStatus started = DatasetReloadStatus.running(
+                DatasetReloadStatus.Phase.VERIFYING_SOURCES, Instant.now());
+            if (reloadStatus.compareAndSet(current, started)) {
+                logger.info("CSV dataset reload requested");
+                reloadExecutor.execute(() -> reload(started.startedAt()));
+            }
+        }
+        return getReloadStatus();
+    }
+
+    /**
+     * Progress of the current or last reload, with the figures of the dataset being served.
+     */
+    public DatasetReloadStatus getReloadStatus() {
+        CsvDataset data = dataset.get();
+        return reloadStatus.get().withDataset(generation.get(),
+            data != null ? data.products.size() : 0, data != null ? data.loadedAt : null);
+    }
+
+    private void reload(Instant startedAt) {
+        try {
+            CsvDataset next = loadDataset(phase -> reloadStatus.set(DatasetReloadStatus.running(phase, startedAt)));
+            reloadStatus.set(DatasetReloadStatus.running(DatasetReloadStatus.Phase.PUBLISHING, startedAt));
+            publish(next);
+            String summary = String.format("Loaded %d products, %d brands, %d ATC codes",
+                next.products.size(), next.brandNames.size(), next.atcCodes.size());
+            reloadStatus.set(reloadStatus.get().finished(DatasetReloadStatus.State.SUCCEEDED, summary));
+            logger.info("CSV dataset reload finished: {}", summary);
+        } catch (Exception e) {
+            logger.error("CSV dataset reload failed, keeping the current dataset: {}", e.getMessage(), e);
+            reloadStatus.set(reloadStatus.get().finished(DatasetReloadStatus.State.FAILED, e.getMessage()));
+        } finally {
+            if (reloadStatus.get().isRunning()) {
+                // An Error escaped the catch above
+                reloadStatus.set(reloadStatus.get().finished(DatasetReloadStatus.State.FAILED, "Reload aborted"));
+            }
+        }
+    }
+
+    private void publish(CsvDataset next) {
+        synchronized (publishLock) {
+            dataset.set(next);
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * Upserts product rows received from PUPHAX into a copy of the served
+     * dataset and publishes the copy with its indexes rebuilt. Readers keep
+     * the previous generation meanwhile. The rows are a delta against
+     * {@code expectedGeneration}; if another generation (a reload) is
+     * published first, they are not applied, since the reloaded data may
+     * need changes from an earlier date than the delta covers.
+     *
+     * @return the generation now served, or -1 if no dataset is loaded or
+     *         the served generation is no longer {@code expectedGeneration}
+     */
+    public long applyProductUpdates(List<ProductUpdate> updates, long expectedGeneration) {
+        CsvDataset current = dataset.get();
+        if (current == null || generation.get() != expectedGeneration) {
+            return -1;
+        }
+        long startTime = System.currentTimeMillis();
+        ProductColumnStore products = current.products.copy(updates.size());
+        for (ProductUpdate update : updates) {
+            update.applyTo(products);
+        }
+        products.trimToSize();
+        CsvDataset next = current.withProducts(products);
+        long published;
+        synchronized (publishLock) {
+            if (generation.get() != expectedGeneration || dataset.get() != current) {
+                return -1;
+            }
+            dataset.set(next);
+            published = generation.incrementAndGet();
+        }
+        logger.info("Applied {} product updates: {} -> {} products in {}ms", updates.size(),
+                   current.products.size(), products.size(), System.currentTimeMillis() - startTime);
+        return published;
+    }
+
+    /**
+     * Generation of the dataset being served; changes on every reload or applied update.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Latest ERV_KEZD up to today in the served dataset: the nearest the data comes to
+     * a publication date, and where incremental updates have to start from.
+     */
+    public LocalDate getLatestValidFrom() {
+        CsvDataset data = dataset.get();
+        if (data == null) {
+            return null;
+        }
+        int today = ProductColumnStore.toEpochDay(LocalDate.now());
+        int latest = ProductColumnStore.NO_DATE;
+        for (int row = 0; row < data.products.size(); row++) {
+            int validFrom = data.products.validFromDay(row);
+            if (validFrom <= today && validFrom > latest) {
+                latest = validFrom;
+            }
+        }
+        return ProductColumnStore.toDate(latest);
+    }
+
+    /**
+     * Loads a complete dataset from the snapshot or the CSV files without touching the published one.
+     */
+    private CsvDataset loadDataset(Consumer<DatasetReloadStatus.Phase> progress) throws IOException {
+        progress.accept(DatasetReloadStatus.Phase.VERIFYING_SOURCES);
+        long sourceChecksum = sourceChecksum();
+
+        progress.accept(DatasetReloadStatus.Phase.READING_SNAPSHOT);
+        Optional<SnapshotFile.Contents> snapshot = loadSnapshot(sourceChecksum);
+        if (snapshot.isPresent()) {
+            SnapshotFile.Contents contents = snapshot.get();
+            progress.accept(DatasetReloadStatus.Phase.BUILDING_INDEXES);
+            return CsvDataset.build(contents.products(), contents.brandNames(), contents.atcCodes(),
+                contents.companies(), null);
+        }
+
+        progress.accept(DatasetReloadStatus.Phase.PARSING_CSV);
+        Map<String, String> brandNames = new HashMap<>();
+        Map<String, String> atcCodes = new HashMap<>();
+        Map<String, String> companies = new HashMap<>();
+        loadBrands(brandNames);
+        loadAtcCodes(atcCodes);
+        loadCompanies(companies);
+        ProductColumnStore products = new ProductColumnStore();
+        TermekCsvLoader.Report report = loadProducts(products);
+
+        progress.accept(DatasetReloadStatus.Phase.WRITING_SNAPSHOT);
+        writeSnapshot(sourceChecksum, new SnapshotFile.Contents(products, brandNames, atcCodes, companies));
+
+        progress.accept(DatasetReloadStatus.Phase.BUILDING_INDEXES);
+        return CsvDataset.build(products, brandNames, atcCodes, companies, report);
+    }
+
+    /**
+     * Checksum of the source CSV files plus the rolling expiry cut-off applied
+     * while loading, so a snapshot is rebuilt when either the data or the
+     * filtered product set changes. Hashing the raw bytes is a sequential read
+     * without tokenizing, much cheaper than parsing the files.
+     */
+    long sourceChecksum() throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[1 << 16];
+        for (String file : SOURCE_FILES) {
+            crc.update(file.getBytes(StandardCharsets.US_ASCII));
+            try (InputStream is = openSource(file)) {
+                if (is == null) {
+                    crc.update(0);  // missing file
+                    continue;
+                }
+                int read;
+                while ((read = is.read(buffer)) > 0) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+        }
+        long checksum = crc.getValue();
+        return (checksum << 32) ^ expiryCutoff().toEpochDay();
+    }
+
+    /**
+     * A matching snapshot, if there is one.
+     */
+    Optional<SnapshotFile.Contents> loadSnapshot(long sourceChecksum) {
+        if (!snapshotEnabled) {
+            return Optional.empty();
+        }
+        Path path = Path.of(snapshotPath);
+        try {
+            long start = System.currentTimeMillis();
+            Optional<SnapshotFile.Contents> snapshot = SnapshotFile.read(path, sourceChecksum);
+            if (snapshot.isEmpty()) {
+                logger.info("No up-to-date dataset snapshot at {}, parsing CSV files", path);
+                return snapshot;
+            }
+            logger.info("Loaded {} products from dataset snapshot {} in {}ms",
+                       snapshot.get().products().size(), path, System.currentTimeMillis() - start);
+            return snapshot;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable dataset snapshot {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Persist the freshly parsed data for the next start; failures only cost the next start time.
+     */
+    void writeSnapshot(long sourceChecksum, SnapshotFile.Contents contents) {
+        if (!snapshotEnabled) {
+            return;
+        }
+        Path path = Path.of(snapshotPath);
+        try {
+            long start = System.currentTimeMillis();
+            SnapshotFile.write(path, sourceChecksum, contents);
+            logger.info("Wrote dataset snapshot {} in {}ms", path, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            logger.warn("Could not write dataset snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Opens a source CSV from the configured data directory or the classpath, or null if absent.
+     */
+    private InputStream openSource(String file) throws IOException {
+        if (dataDir != null && !dataDir.isBlank()) {
+            Path path = Path.of(dataDir, file);
+            return Files.isRegularFile(path) ? Files.newInputStream(path) : null;
+        }
+        return getClass().getClassLoader().getResourceAsStream("puphax-data/" + file);
+    }
+
     /**
      * Search for drugs using local CSV data.
      * Returns results in PUPHAX XML format for compatibility.
      */
     public String searchDrugs(String searchTerm) {
-        if (!initialized) {
+        CsvDataset data = dataset.get();
+        if (data == null) {
             logger.warn("CSV service not initialized, returning error response");
             return createErrorResponse("CSV fallback service not initialized");
         }
@@ -78,65 +374,59 @@ public class PuphaxCsvFallbackService {
         logger.info("Searching local CSV data for: {}", searchTerm);
         String normalizedTerm = searchTerm.trim().toLowerCase();
         
-        // Search in name index with deduplication
-        List<ProductRecord> results = nameSearchIndex.entrySet().stream()
-            .filter(entry -> entry.getKey().contains(normalizedTerm))
-            .flatMap(entry -> entry.getValue().stream())
-            .distinct()
-            // Deduplicate by name+strength, keeping most recent (highest valid-from date)
-            .collect(Collectors.groupingBy(
-                p -> (p.name != null ? p.name : "") + "|" + (p.potencia != null ? p.potencia : ""),
-                Collectors.maxBy((p1, p2) -> {
-                    if (p1.validFrom == null) return p2.validFrom == null ? 0 : -1;
-                    if (p2.validFrom == null) return 1;
-                    return p1.validFrom.compareTo(p2.validFrom);
-                })
-            ))
-            .values().stream()
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .limit(50)  // Limit results to prevent overwhelming the UI
-            .collect(Collectors.toList());
-        
+        // Search in name index with deduplication by name+strength (most recent kept)
+        RoaringBitmap matches = data.nameSearchIndex.find(normalizedTerm);
+        List<ProductRecord> results = new ArrayList<>();
+        for (int row : deduplicateLatest(data, matches).values()) {
+            if (results.size() >= 50) {
+                break;  // Limit results to prevent overwhelming the UI
+            }
+            results.add(toRecord(data, row));
+        }
+
         logger.info("Found {} matching products in local data", results.size());
         
-        return formatSearchResults(results, searchTerm);
+        return formatSearchResults(data, results, searchTerm);
     }
     
     /**
      * Load BRAND table (brand names).
      */
-    private void loadBrands() throws IOException {
-        InputStream is = getClass().getClassLoader().getResourceAsStream("puphax-data/BRAND.csv");
+    private void loadBrands(Map<String, String> brandNames) throws IOException {
+        InputStream is = openSource("BRAND.csv");
         if (is == null) {
-            logger.warn("BRAND.csv not found in classpath, brand names will not be available");
+            logger.warn("BRAND.csv not found, brand names will not be available");
             return;
         }
         
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, java.nio.charset.Charset.forName("ISO-8859-2")))) {
-            reader.readLine(); // Skip header
-            String line;
-            int count = 0;
-            while ((line = reader.readLine()) != null) {
-                String[] fields = line.split("\t");
-                if (fields.length >= 2) {
-                    String id = fields[0].trim();
-                    String name = unquote(fields[1]);
-                    brandNames.put(id, name);
-                    count++;
-                }
+            loadBrands(reader, brandNames);
+        }
+    }
+
+    void loadBrands(BufferedReader reader, Map<String, String> brandNames) throws IOException {
+        reader.readLine(); // Skip header
+        String line;
+        int count = 0;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.split("\t");
+            if (fields.length >= 2) {
+                String id = fields[0].trim();
+                String name = unquote(fields[1]);
+                brandNames.put(id, name);
+                count++;
             }
-            logger.debug("Loaded {} brand names", count);
         }
+        logger.debug("Loaded {} brand names", count);
     }
     
     /**
      * Load ATCKONYV table (ATC classification codes).
      */
-    private void loadAtcCodes() throws IOException {
-        InputStream is = getClass().getClassLoader().getResourceAsStream("puphax-data/ATCKONYV.csv");
+    private void loadAtcCodes(Map<String, String> atcCodes) throws IOException {
+        InputStream is = openSource("ATCKONYV.csv");
         if (is == null) {
-            logger.warn("ATCKONYV.csv not found in classpath");
+            logger.warn("ATCKONYV.csv not found");
             return;
         }
         
@@ -160,208 +450,217 @@ public class PuphaxCsvFallbackService {
     /**
      * Load CEGEK table (companies/manufacturers).
      */
-    private void loadCompanies() throws IOException {
-        InputStream is = getClass().getClassLoader().getResourceAsStream("puphax-data/CEGEK.csv");
+    private void loadCompanies(Map<String, String> companies) throws IOException {
+        InputStream is = openSource("CEGEK.csv");
         if (is == null) {
-            logger.warn("CEGEK.csv not found in classpath");
+            logger.warn("CEGEK.csv not found");
             return;
         }
         
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, java.nio.charset.Charset.forName("ISO-8859-2")))) {
-            reader.readLine(); // Skip header
-            String line;
-            int count = 0;
-            while ((line = reader.readLine()) != null) {
-                String[] fields = line.split("\t");
-                if (fields.length >= 2) {
-                    String id = fields[0].trim();
-                    String name = unquote(fields[1]);
-                    companies.put(id, name);
-                    count++;
-                }
+            loadCompanies(reader, companies);
+        }
+    }
+
+    void loadCompanies(BufferedReader reader, Map<String, String> companies) throws IOException {
+        reader.readLine(); // Skip header
+        String line;
+        int count = 0;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.split("\t");
+            if (fields.length >= 2) {
+                String id = fields[0].trim();
+                String name = unquote(fields[1]);
+                companies.put(id, name);
+                count++;
             }
-            logger.debug("Loaded {} companies", count);
         }
+        logger.debug("Loaded {} companies", count);
     }
     
     /**
      * Load TERMEK table (products) - the main table with 890K+ products.
      * Only loads currently valid products to save memory.
      */
-    private void loadProducts() throws IOException {
-        InputStream is = getClass().getClassLoader().getResourceAsStream("puphax-data/TERMEK.csv");
-        if (is == null) {
-            throw new IOException("TERMEK.csv not found in classpath - this is a critical file");
+    private TermekCsvLoader.Report loadProducts(ProductColumnStore products) throws IOException {
+        if (dataDir != null && !dataDir.isBlank()) {
+            Path path = Path.of(dataDir, "TERMEK.csv");
+            if (!Files.isRegularFile(path)) {
+                throw new IOException("TERMEK.csv not found in " + dataDir + " - this is a critical file");
+            }
+            return loadProducts(path, products);
         }
-        
-        LocalDate today = LocalDate.now();
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy.MM.dd");
-        LocalDate minValidFrom = LocalDate.of(2022, 1, 1); // Only load products from 2022 onwards
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {  // TERMEK.csv is UTF-8
-            String headerLine = reader.readLine();
-            logger.debug("TERMEK header: {}", headerLine);
 
-            String line;
-            int totalCount = 0;
-            int validCount = 0;
-            int skippedOldProducts = 0;
+        URL resource = getClass().getClassLoader().getResource("puphax-data/TERMEK.csv");
+        if (resource == null) {
+            throw new IOException("TERMEK.csv not found in classpath - this is a critical file");
+        }
 
-            while ((line = reader.readLine()) != null) {
-                totalCount++;
-                try {
-                    String[] fields = line.split("\t", -1); // -1 to keep empty trailing fields
-
-                    if (fields.length < 20) {
-                        continue; // Skip malformed lines
-                    }
-
-                    // Parse validity dates (fields 2 and 3)
-                    LocalDate validFrom = parseDate(unquote(fields[2]), dateFormatter);
-                    LocalDate validTo = parseDate(unquote(fields[3]), dateFormatter);
-
-                    // Only load products added from 2022 onwards (optimize for recent data)
-                    if (validFrom != null && validFrom.isBefore(minValidFrom)) {
-                        skippedOldProducts++;
-                        continue; // Skip old products (pre-2022)
-                    }
-
-                    // Also skip products that expired more than 2 years ago
-                    if (validTo != null && validTo.isBefore(today.minusYears(2))) {
-                        continue; // Skip old expired products
-                    }
-                    
-                    ProductRecord product = new ProductRecord();
-                    // Core identification
-                    product.id = fields[0].trim();
-                    product.parentId = fields[1].trim();
-                    product.validFrom = validFrom;
-                    product.validTo = validTo;
-                    product.termekKod = unquote(fields[4]);
-                    product.kozHid = unquote(fields[5]);
-                    product.ttt = unquote(fields[6]);
-                    product.tk = unquote(fields[7]);
-                    product.tkTorles = unquote(fields[8]);
-                    product.tkTorlesDate = parseDate(unquote(fields[9]), dateFormatter);
-                    product.eanKod = unquote(fields[10]);
-                    product.brandId = fields[11].trim();
-
-                    // Names
-                    product.name = unquote(fields[12]);
-                    product.shortName = unquote(fields[13]);
-
-                    // Classification
-                    product.atc = unquote(fields[14]);
-                    product.iso = unquote(fields[15]);
-                    product.activeIngredient = unquote(fields[16]);
-
-                    // Administration and form
-                    product.adagMod = unquote(fields[17]);
-                    product.gyForma = unquote(fields[18]);
-                    product.rendelhet = unquote(fields[19]);
-                    product.egyenId = unquote(fields[20]);
-                    product.helyettesith = unquote(fields[21]);
-
-                    // Strength and dosage
-                    product.potencia = unquote(fields[22]);
-                    product.oHatoMenny = unquote(fields[23]);
-                    product.hatoMenny = unquote(fields[24]);
-                    product.hatoEgys = unquote(fields[25]);
-                    product.kiszMenny = unquote(fields[26]);
-                    product.kiszEgys = unquote(fields[27]);
-                    product.dddMenny = unquote(fields[28]);
-                    product.dddEgys = unquote(fields[29]);
-                    product.dddFaktor = unquote(fields[30]);
-                    product.dot = unquote(fields[31]);
-                    product.adagMenny = unquote(fields[32]);
-                    product.adagEgys = unquote(fields[33]);
-
-                    // Special attributes
-                    product.egyedi = unquote(fields[34]);
-                    product.oldalIsag = unquote(fields[35]);
-                    product.tobblGar = unquote(fields[36]);
-                    product.patika = unquote(fields[37]);
-                    product.dobAzon = unquote(fields[38]);
-                    product.keresztJelzes = unquote(fields[39]);
-
-                    // Distribution
-                    product.forgEngtId = unquote(fields[40]);
-                    product.forgazId = unquote(fields[41]);
-                    product.inStock = "1".equals(fields[42]);
-                    product.kihirdetesId = unquote(fields[43]);
-                    
-                    productsById.put(product.id, product);
-                    validCount++;
-                    
-                    if (totalCount % 100000 == 0) {
-                        logger.debug("Processed {} products, loaded {} valid products", totalCount, validCount);
-                    }
-                    
-                } catch (Exception e) {
-                    logger.debug("Error parsing product line {}: {}", totalCount, e.getMessage());
-                }
+        if ("file".equals(resource.getProtocol())) {
+            // Exploded classpath: map the file instead of copying it onto the heap
+            try {
+                return loadProducts(Path.of(resource.toURI()), products);
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid TERMEK.csv location " + resource, e);
             }
+        }
+        try (InputStream is = resource.openStream()) {
+            return loadProducts(ByteBuffer.wrap(is.readAllBytes()), products);
+        }
+    }
 
-            logger.info("Loaded {} valid products out of {} total products (skipped {} pre-2022 products)",
-                       validCount, totalCount, skippedOldProducts);
+    private TermekCsvLoader.Report loadProducts(Path path, ProductColumnStore products) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return loadProducts(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), products);
         }
     }
-    
+
     /**
-     * Build search index for fast name-based and active ingredient searches.
+     * Parse TERMEK rows from a reader (tests and other non-file sources).
      */
-    private void buildSearchIndex() {
-        logger.debug("Building search index for {} products", productsById.size());
-
-        for (ProductRecord product : productsById.values()) {
-            // Index by product name
-            if (product.name != null && !product.name.isEmpty()) {
-                String normalizedName = product.name.toLowerCase();
+    TermekCsvLoader.Report loadProducts(BufferedReader reader, ProductColumnStore products) throws IOException {
+        StringWriter text = new StringWriter();
+        reader.transferTo(text);
+        // TERMEK.csv is UTF-8
+        return loadProducts(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8)), products);
+    }
 
-                // Index by words in the name
-                String[] words = normalizedName.split("\\s+");
-                for (String word : words) {
-                    if (word.length() >= 3) { // Only index words with 3+ characters
-                        nameSearchIndex
-                            .computeIfAbsent(word, k -> new ArrayList<>())
-                            .add(product);
-                    }
-                }
+    /**
+     * Parse TERMEK rows into the columnar product store, in parallel chunks.
+     */
+    private TermekCsvLoader.Report loadProducts(ByteBuffer termek, ProductColumnStore products) {
+        LocalDate minValidFrom = LocalDate.of(2022, 1, 1); // Only load products from 2022 onwards
+        // Also skip products that expired more than 2 years ago
+        TermekCsvLoader loader = new TermekCsvLoader(
+            ProductColumnStore.toEpochDay(minValidFrom), ProductColumnStore.toEpochDay(expiryCutoff()));
+
+        TermekCsvLoader.Report report = loader.load(termek, products, Runtime.getRuntime().availableProcessors());
+        products.trimToSize();
+        logger.info("Loaded {} valid products out of {} total products in {}ms ({} rows/s, {} chunks on {} threads); "
+                   + "skipped {} pre-2022 and {} expired products, rejected {} malformed lines",
+                   report.loaded(), report.lines(), report.elapsedMillis(), report.rowsPerSecond(),
+                   report.chunks(), report.threads(), report.skippedOld(), report.skippedExpired(), report.rejected());
+        return report;
+    }
 
-                // Also index the full name
-                nameSearchIndex
-                    .computeIfAbsent(normalizedName, k -> new ArrayList<>())
-                    .add(product);
-            }
+    private static LocalDate expiryCutoff() {
+        return LocalDate.now().minusYears(2);
+    }
 
-            // Index by active ingredient (hatóanyag)
-            if (product.activeIngredient != null && !product.activeIngredient.isEmpty()) {
-                String normalizedIngredient = product.activeIngredient.toLowerCase();
-
-                // Index by words in the active ingredient
-                String[] words = normalizedIngredient.split("\\s+");
-                for (String word : words) {
-                    if (word.length() >= 3) {
-                        nameSearchIndex
-                            .computeIfAbsent(word, k -> new ArrayList<>())
-                            .add(product);
-                    }
-                }
+    /**
+     * Type-ahead suggestions for a search box prefix, best first. Answered from the
+     * suggestion trie alone, without touching product rows.
+     *
+     * @param prefix Typed prefix (accents and case are ignored)
+     * @param limit Maximum number of suggestions (capped at {@link SuggestionTrie#TOP_K})
+     */
+    public List<DrugSuggestion> suggest(String prefix, int limit) {
+        CsvDataset data = dataset.get();
+        if (data == null || prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        SuggestionTrie suggestionTrie = data.suggestionTrie;
+        DrugSuggestion.SuggestionType[] types = DrugSuggestion.SuggestionType.values();
+        int[] entries = suggestionTrie.complete(prefix, limit);
+        List<DrugSuggestion> suggestions = new ArrayList<>(entries.length);
+        for (int entry : entries) {
+            suggestions.add(new DrugSuggestion(suggestionTrie.text(entry),
+                types[suggestionTrie.kind(entry)], suggestionTrie.weight(entry)));
+        }
+        return suggestions;
+    }
 
-                // Also index the full active ingredient
-                nameSearchIndex
-                    .computeIfAbsent(normalizedIngredient, k -> new ArrayList<>())
-                    .add(product);
+    /**
+     * Deduplicate by name+strength, keeping the most recent row (highest valid-from date).
+     *
+     * @return map of (name code, strength code) key to the winning row id
+     */
+    private Map<Long, Integer> deduplicateLatest(CsvDataset data, RoaringBitmap rows) {
+        Map<Long, Integer> latest = new HashMap<>();
+        for (IntIterator it = rows.getIntIterator(); it.hasNext(); ) {
+            int row = it.next();
+            long key = ((long) data.products.code(ProductColumn.NAME, row) << 32)
+                | (data.products.code(ProductColumn.POTENCIA, row) & 0xFFFFFFFFL);
+            Integer current = latest.get(key);
+            if (current == null || data.products.validFromDay(row) > data.products.validFromDay(current)) {
+                latest.put(key, row);
             }
         }
+        return latest;
+    }
+
+    /**
+     * Materialize a product row into a ProductRecord view.
+     */
+    ProductRecord toRecord(CsvDataset data, int row) {
+        ProductRecord product = new ProductRecord();
+        // Core identification
+        product.id = data.products.get(ProductColumn.ID, row);
+        product.parentId = data.products.get(ProductColumn.PARENT_ID, row);
+        product.validFrom = data.products.validFrom(row);
+        product.validTo = data.products.validTo(row);
+        product.termekKod = data.products.get(ProductColumn.TERMEK_KOD, row);
+        product.kozHid = data.products.get(ProductColumn.KOZ_HID, row);
+        product.ttt = data.products.get(ProductColumn.TTT, row);
+        product.tk = data.products.get(ProductColumn.TK, row);
+        product.tkTorles = data.products.get(ProductColumn.TK_TORLES, row);
+        product.tkTorlesDate = data.products.tkTorlesDate(row);
+        product.eanKod = data.products.get(ProductColumn.EAN_KOD, row);
+        product.brandId = data.products.get(ProductColumn.BRAND_ID, row);
+
+        // Names
+        product.name = data.products.get(ProductColumn.NAME, row);
+        product.shortName = data.products.get(ProductColumn.SHORT_NAME, row);
+
+        // Classification
+        product.atc = data.products.get(ProductColumn.ATC, row);
+        product.iso = data.products.get(ProductColumn.ISO, row);
+        product.activeIngredient = data.products.get(ProductColumn.ACTIVE_INGREDIENT, row);
+
+        // Administration and form
+        product.adagMod = data.products.get(ProductColumn.ADAG_MOD, row);
+        product.gyForma = data.products.get(ProductColumn.GY_FORMA, row);
+        product.rendelhet = data.products.get(ProductColumn.RENDELHET, row);
+        product.egyenId = data.products.get(ProductColumn.EGYEN_ID, row);
+        product.helyettesith = data.products.get(ProductColumn.HELYETTESITH, row);
+
+        // Strength and dosage
+        product.potencia = data.products.get(ProductColumn.POTENCIA, row);
+        product.oHatoMenny = data.products.get(ProductColumn.O_HATO_MENNY, row);
+        product.hatoMenny = data.products.get(ProductColumn.HATO_MENNY, row);
+        product.hatoEgys = data.products.get(ProductColumn.HATO_EGYS, row);
+        product.kiszMenny = data.products.get(ProductColumn.KISZ_MENNY, row);
+        product.kiszEgys = data.products.get(ProductColumn.KISZ_EGYS, row);
+        product.dddMenny = data.products.get(ProductColumn.DDD_MENNY, row);
+        product.dddEgys = data.products.get(ProductColumn.DDD_EGYS, row);
+        product.dddFaktor = data.products.get(ProductColumn.DDD_FAKTOR, row);
+        product.dot = data.products.get(ProductColumn.DOT, row);
+        product.adagMenny = data.products.get(ProductColumn.ADAG_MENNY, row);
+        product.adagEgys = data.products.get(ProductColumn.ADAG_EGYS, row);
 
-        logger.debug("Search index built with {} keys (includes names and active ingredients)", nameSearchIndex.size());
+        // Special attributes
+        product.egyedi = data.products.get(ProductColumn.EGYEDI, row);
+        product.oldalIsag = data.products.get(ProductColumn.OLDAL_ISAG, row);
+        product.tobblGar = data.products.get(ProductColumn.TOBBL_GAR, row);
+        product.patika = data.products.get(ProductColumn.PATIKA, row);
+        product.dobAzon = data.products.get(ProductColumn.DOB_AZON, row);
+        product.keresztJelzes = data.products.get(ProductColumn.KERESZT_JELZES, row);
+
+        // Distribution
+        product.forgEngtId = data.products.get(ProductColumn.FORG_ENGT_ID, row);
+        product.forgazId = data.products.get(ProductColumn.FORGAZ_ID, row);
+        product.inStock = data.products.inStock(row);
+        product.kihirdetesId = data.products.get(ProductColumn.KIHIRDETES_ID, row);
+
+        // Resolved from the mirrored TABCEGEK, else from the same dataset generation as the row itself
+        product.manufacturerName = referenceName(ReferenceTable.CEGEK, product.forgEngtId, data.companies);
+        return product;
     }
     
     /**
      * Format search results as comprehensive PUPHAX-compatible XML with all available fields.
      */
-    private String formatSearchResults(List<ProductRecord> products, String searchTerm) {
+    private String formatSearchResults(CsvDataset data, List<ProductRecord> products, String searchTerm) {
         StringBuilder xml = new StringBuilder();
         xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
         xml.append("<drugSearchResponse>\n");
@@ -389,15 +688,18 @@ public class PuphaxCsvFallbackService {
             }
 
             // Manufacturer (use forgEngtId for marketing authorization holder, not brandId)
-            String manufacturer = companies.getOrDefault(product.forgEngtId, "Unknown");
-            String brand = brandNames.getOrDefault(product.brandId, manufacturer);
+            String manufacturer = Objects.requireNonNullElse(
+                referenceName(ReferenceTable.CEGEK, product.forgEngtId, data.companies), "Unknown");
+            String brand = Objects.requireNonNullElse(
+                referenceName(ReferenceTable.BRAND, product.brandId, data.brandNames), manufacturer);
             xml.append("      <manufacturer>").append(escapeXml(manufacturer)).append("</manufacturer>\n");
             xml.append("      <brand>").append(escapeXml(brand)).append("</brand>\n");
 
             // Classification
             if (product.atc != null && !product.atc.isEmpty()) {
                 xml.append("      <atcCode>").append(escapeXml(product.atc)).append("</atcCode>\n");
-                String atcDescription = atcCodes.getOrDefault(product.atc, "");
+                String atcDescription = Objects.requireNonNullElse(
+                    referenceName(ReferenceTable.ATC, product.atc, data.atcCodes), "");
                 if (!atcDescription.isEmpty()) {
                     xml.append("      <atcDescription>").append(escapeXml(atcDescription)).append("</atcDescription>\n");
                 }
@@ -538,17 +840,6 @@ public class PuphaxCsvFallbackService {
         return value;
     }
     
-    private LocalDate parseDate(String dateStr, DateTimeFormatter formatter) {
-        if (dateStr == null || dateStr.isEmpty() || dateStr.equals("99")) {
-            return null;
-        }
-        try {
-            return LocalDate.parse(dateStr, formatter);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-    
     private String escapeXml(String text) {
         if (text == null) return "";
         return text.replace("&", "&amp;")
@@ -559,17 +850,34 @@ public class PuphaxCsvFallbackService {
     }
     
     public boolean isInitialized() {
-        return initialized;
+        return dataset.get() != null;
+    }
+
+    /**
+     * Statistics of the last TERMEK.csv parse, or null if it was loaded from a snapshot.
+     */
+    public TermekCsvLoader.Report getLastLoadReport() {
+        CsvDataset data = dataset.get();
+        return data != null ? data.loadReport : null;
     }
 
     /**
      * Get company name by company ID.
      */
     public String getCompanyName(String companyId) {
-        if (companyId == null || companyId.isEmpty()) {
+        CsvDataset data = dataset.get();
+        if (data == null || companyId == null || companyId.isEmpty()) {
             return null;
         }
-        return companies.get(companyId);
+        return referenceName(ReferenceTable.CEGEK, companyId, data.companies);
+    }
+
+    /**
+     * Name from the mirrored PUPHAX code table when it has the code, else from the CSV dump.
+     */
+    private String referenceName(ReferenceTable table, String code, Map<String, String> csvNames) {
+        String name = referenceDataService != null ? referenceDataService.getName(table, code) : null;
+        return name != null ? name : csvNames.get(code);
     }
 
     /**
@@ -639,6 +947,7 @@ public class PuphaxCsvFallbackService {
 
     /**
      * Product record from TERMEK table with all 44 CSV fields.
+     * Materialized on demand from the columnar product store for result rows only.
      */
     public static class ProductRecord {
         // Core identification fields
@@ -698,6 +1007,12 @@ public class PuphaxCsvFallbackService {
         String forgazId;                // FORGALMAZ_ID (column 41)
         boolean inStock;                // FORGALOMBAN (column 42)
         String kihirdetesId;            // KIHIRDETES_ID (column 43)
+
+        // Resolved lookups
+        String manufacturerName;        // CEGEK name for forgEngtId (null if unknown)
+
+        // Search metadata
+        Double relevanceScore;          // Fuzzy search score (null for exact searches)
     }
 
     /**
@@ -707,21 +1022,22 @@ public class PuphaxCsvFallbackService {
      * @return FilterOptions with all available values for dropdowns/checkboxes
      */
     public com.puphax.model.dto.FilterOptions getFilterOptions() {
-        if (!initialized) {
+        CsvDataset data = dataset.get();
+        if (data == null) {
             logger.warn("CSV fallback service not initialized, returning empty filter options");
             return com.puphax.model.dto.FilterOptions.empty();
         }
 
         try {
             // Extract unique manufacturers (from companies map) with validation
-            List<String> manufacturers = companies.values().stream()
+            List<String> manufacturers = data.companies.values().stream()
                 .filter(this::isValidManufacturer)
                 .distinct()
                 .sorted()  // Sort alphabetically for better UX
                 .toList();  // Show all valid manufacturers (~2,300)
 
             // Extract only WHO main ATC categories (level 1: A-V)
-            List<com.puphax.model.dto.FilterOptions.AtcOption> atcOptions = atcCodes.entrySet().stream()
+            List<com.puphax.model.dto.FilterOptions.AtcOption> atcOptions = data.atcCodes.entrySet().stream()
                 .filter(entry -> entry.getKey() != null && entry.getKey().length() == 1 &&
                                entry.getKey().matches("[A-V]"))  // Only single letter A-V
                 .map(entry -> new com.puphax.model.dto.FilterOptions.AtcOption(
@@ -733,20 +1049,10 @@ public class PuphaxCsvFallbackService {
                 .toList();
 
             // Extract unique product forms (GYFORMA)
-            List<String> productForms = productsById.values().stream()
-                .map(p -> p.gyForma)
-                .filter(form -> form != null && !form.isEmpty())
-                .distinct()
-                .sorted()
-                .toList();
+            List<String> productForms = distinctValues(data, ProductColumn.GY_FORMA);
 
             // Extract unique administration methods (ADAGMOD)
-            List<String> administrationMethods = productsById.values().stream()
-                .map(p -> p.adagMod)
-                .filter(method -> method != null && !method.isEmpty())
-                .distinct()
-                .sorted()
-                .toList();
+            List<String> administrationMethods = distinctValues(data, ProductColumn.ADAG_MOD);
 
             // Brands filter removed (redundant with manufacturers)
             List<String> brands = List.of();  // Empty list - brand filter removed
@@ -760,8 +1066,8 @@ public class PuphaxCsvFallbackService {
                 );
 
             // Count statistics
-            long totalProducts = productsById.size();
-            long inStockCount = productsById.values().stream().filter(p -> p.inStock).count();
+            long totalProducts = data.products.size();
+            long inStockCount = data.products.inStockCount();
 
             return new com.puphax.model.dto.FilterOptions(
                 manufacturers,
@@ -783,6 +1089,25 @@ public class PuphaxCsvFallbackService {
         }
     }
 
+    /**
+     * Sorted non-empty values of a column that occur in at least one loaded row.
+     */
+    private List<String> distinctValues(CsvDataset data, ProductColumn column) {
+        DictionaryColumn values = data.products.column(column);
+        BitSet usedCodes = new BitSet(values.dictionary().size());
+        for (int row = 0; row < data.products.size(); row++) {
+            usedCodes.set(values.code(row));
+        }
+        usedCodes.clear(StringDictionary.EMPTY);
+
+        List<String> result = new ArrayList<>(usedCodes.cardinality());
+        for (int code = usedCodes.nextSetBit(0); code >= 0; code = usedCodes.nextSetBit(code + 1)) {
+            result.add(values.dictionary().decode(code));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
     /**
      * Search products with advanced filtering using DrugSearchFilter.
      *
@@ -795,162 +1120,171 @@ public class PuphaxCsvFallbackService {
      * - Validity date ranges
      * - Pagination and sorting
      *
+     * Categorical filters are answered from the precomputed bitmap index;
+     * only the remaining value masks and range predicates are checked per row.
+     * With {@code fuzzy} set the text search is accent-insensitive and tolerates
+     * typos, and {@code sortBy = "relevance"} orders by the match score.
+     *
      * @param filter Comprehensive filter criteria
      * @return List of matching ProductRecord objects (before pagination)
      */
     public List<ProductRecord> searchWithAdvancedFilters(com.puphax.model.dto.DrugSearchFilter filter) {
-        if (!initialized) {
+        return search(filter, 0, Integer.MAX_VALUE).products();
+    }
+
+    /**
+     * One page of an advanced search, plus facet counts over all matches
+     * when the filter asks for {@code includeFacets}.
+     *
+     * @param products Products of the requested page, sorted
+     * @param totalCount Number of matching products across all pages
+     * @param facets Facet counts for the whole result set, or null if not requested
+     */
+    public record AdvancedSearchResult(List<ProductRecord> products, int totalCount, SearchFacets facets) {
+    }
+
+    /**
+     * Same search as {@link #searchWithAdvancedFilters}, but only the page selected by
+     * {@code filter.page()} and {@code filter.size()} is ordered and materialized:
+     * the page window is picked from the matching row ids with a bounded heap and
+     * the total comes from the number of matches. Facets are counted in the same
+     * pass that deduplicates the matches, so they describe the whole result set.
+     */
+    public AdvancedSearchResult searchAdvanced(com.puphax.model.dto.DrugSearchFilter filter) {
+        int page = filter.page() != null ? filter.page() : 0;
+        int size = filter.size() != null ? filter.size() : 20;
+        return search(filter, (int) Math.min(Integer.MAX_VALUE, (long) page * size), size);
+    }
+
+    private AdvancedSearchResult search(com.puphax.model.dto.DrugSearchFilter filter, int offset, int limit) {
+        boolean includeFacets = Boolean.TRUE.equals(filter.includeFacets());
+        CsvDataset data = dataset.get();
+        if (data == null) {
             logger.warn("CSV service not initialized, returning empty results");
-            return List.of();
+            return new AdvancedSearchResult(List.of(), 0, includeFacets ? SearchFacets.empty() : null);
         }
+        ProductColumnStore products = data.products;
+        ProductBitmapIndex bitmapIndex = data.bitmapIndex;
+        Map<String, String> companies = data.companies;
 
         long startTime = System.currentTimeMillis();
 
         // Start with all products or search index results
-        Stream<ProductRecord> stream;
-
+        RoaringBitmap candidates;
+        Map<Integer, Double> relevance = null;
         if (filter.searchTerm() != null && !filter.searchTerm().trim().isEmpty()) {
-            // Use search index for text search
-            String normalizedTerm = filter.searchTerm().trim().toLowerCase();
-            stream = nameSearchIndex.entrySet().stream()
-                .filter(entry -> entry.getKey().contains(normalizedTerm))
-                .flatMap(entry -> entry.getValue().stream())
-                .distinct();
+            if (Boolean.TRUE.equals(filter.fuzzy())) {
+                // Accent-insensitive and typo-tolerant matching with a relevance score per row
+                relevance = data.fuzzyNameIndex.search(filter.searchTerm().trim());
+                candidates = new RoaringBitmap();
+                for (int row : relevance.keySet()) {
+                    candidates.add(row);
+                }
+            } else {
+                // Use search index for text search
+                candidates = data.nameSearchIndex.find(filter.searchTerm().trim().toLowerCase());
+            }
         } else {
             // Start with all products
-            stream = productsById.values().stream();
+            candidates = bitmapIndex.all();
         }
 
-        // Apply filters sequentially (AND logic)
+        // Indexed categorical filters become bitmap AND/OR operations (AND logic between filters)
+        List<RoaringBitmap> required = new ArrayList<>();
 
         // Classification filters (ATC supports partial matching by first letter(s))
         if (filter.atcCodes() != null && !filter.atcCodes().isEmpty()) {
-            stream = stream.filter(p -> {
-                if (p.atc == null) return false;
-                // Match if product ATC starts with any of the filter ATC codes (e.g., "A" matches "A10AB01")
-                return filter.atcCodes().stream().anyMatch(filterAtc -> p.atc.startsWith(filterAtc));
-            });
+            // Match if product ATC starts with any of the filter ATC codes (e.g., "A" matches "A10AB01")
+            required.add(bitmapIndex.atcPrefixes(filter.atcCodes()));
         }
 
         if (filter.manufacturers() != null && !filter.manufacturers().isEmpty()) {
-            stream = stream.filter(p -> {
-                if (p.forgEngtId == null) return false;  // Use forgEngtId (marketing authorization holder)
-                String manufacturer = companies.get(p.forgEngtId);
+            // Use forgEngtId (marketing authorization holder)
+            required.add(bitmapIndex.matching(ProductColumn.FORG_ENGT_ID, forgEngtId -> {
+                String manufacturer = companies.get(forgEngtId);
                 return manufacturer != null && filter.manufacturers().contains(manufacturer);
-            });
+            }));
         }
 
         if (filter.productForms() != null && !filter.productForms().isEmpty()) {
-            stream = stream.filter(p ->
-                p.gyForma != null && filter.productForms().contains(p.gyForma)
-            );
+            required.add(bitmapIndex.anyOf(ProductColumn.GY_FORMA, filter.productForms()));
         }
 
         if (filter.administrationMethods() != null && !filter.administrationMethods().isEmpty()) {
-            stream = stream.filter(p ->
-                p.adagMod != null && filter.administrationMethods().contains(p.adagMod)
-            );
+            required.add(bitmapIndex.anyOf(ProductColumn.ADAG_MOD, filter.administrationMethods()));
         }
 
         // Regulatory filters
         if (filter.tttCodes() != null && !filter.tttCodes().isEmpty()) {
-            stream = stream.filter(p ->
-                p.ttt != null && filter.tttCodes().contains(p.ttt)
-            );
+            required.add(bitmapIndex.anyOf(ProductColumn.TTT, filter.tttCodes()));
         }
 
         if (filter.prescriptionRequired() != null) {
-            stream = stream.filter(p -> {
-                boolean isPrescriptionRequired = p.rendelhet != null &&
-                    (p.rendelhet.equals("VN") || p.rendelhet.equals("V5") ||
-                     p.rendelhet.equals("V1") || p.rendelhet.equals("J"));
+            required.add(bitmapIndex.matching(ProductColumn.RENDELHET, rendelhet -> {
+                boolean isPrescriptionRequired = rendelhet.equals("VN") || rendelhet.equals("V5") ||
+                                                 rendelhet.equals("V1") || rendelhet.equals("J");
                 return isPrescriptionRequired == filter.prescriptionRequired();
-            });
+            }));
         }
 
-        if (filter.reimbursable() != null) {
-            stream = stream.filter(p -> {
-                // Reimbursable if tk (forgalmi kategória) is set and not empty
-                boolean isReimbursable = p.tk != null && !p.tk.trim().isEmpty();
-                return isReimbursable == filter.reimbursable();
-            });
+        if (filter.prescriptionTypes() != null && !filter.prescriptionTypes().isEmpty()) {
+            required.add(bitmapIndex.anyOf(ProductColumn.RENDELHET, filter.prescriptionTypes()));
         }
 
-        if (filter.inStock() != null) {
-            stream = stream.filter(p -> p.inStock == filter.inStock());
+        // Special filters
+        if (filter.specialMarker() != null) {
+            // EGYEDI field values: "0" (normal) or "1" (special authorization/compassionate use)
+            required.add(bitmapIndex.matching(ProductColumn.EGYEDI, egyedi -> "1".equals(egyedi) == filter.specialMarker()));
         }
 
-        if (filter.prescriptionTypes() != null && !filter.prescriptionTypes().isEmpty()) {
-            stream = stream.filter(p ->
-                p.rendelhet != null && filter.prescriptionTypes().contains(p.rendelhet)
-            );
+        if (filter.laterality() != null && !filter.laterality().isEmpty()) {
+            required.add(bitmapIndex.anyOf(ProductColumn.OLDAL_ISAG, filter.laterality()));
         }
 
-        // Strength/dosage filters
-        if (filter.minStrength() != null || filter.maxStrength() != null) {
-            stream = stream.filter(p -> {
-                if (p.potencia == null || p.potencia.trim().isEmpty()) return false;
-                try {
-                    // Extract numeric value from potencia (e.g., "100mg" -> 100.0)
-                    String numericPart = p.potencia.replaceAll("[^0-9.]", "");
-                    if (numericPart.isEmpty()) return false;
-                    double strength = Double.parseDouble(numericPart);
-
-                    if (filter.minStrength() != null && strength < filter.minStrength()) return false;
-                    if (filter.maxStrength() != null && strength > filter.maxStrength()) return false;
-                    return true;
-                } catch (NumberFormatException e) {
-                    return false;
-                }
-            });
+        // Intersect smallest bitmaps first so intermediate results shrink quickly
+        required.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+        for (RoaringBitmap bitmap : required) {
+            candidates = RoaringBitmap.and(candidates, bitmap);
         }
 
-        if (filter.strengthUnits() != null && !filter.strengthUnits().isEmpty()) {
-            stream = stream.filter(p -> {
-                if (p.hatoEgys == null) return false;
-                return filter.strengthUnits().contains(p.hatoEgys);
-            });
+        if (filter.inStock() != null) {
+            candidates = filter.inStock()
+                ? RoaringBitmap.and(candidates, bitmapIndex.inStock())
+                : RoaringBitmap.andNot(candidates, bitmapIndex.inStock());
         }
 
-        // Special filters
-        if (filter.brands() != null && !filter.brands().isEmpty()) {
-            stream = stream.filter(p -> {
-                if (p.brandId == null) return false;
-                String brandName = brandNames.get(p.brandId);
-                return brandName != null && filter.brands().contains(brandName);
-            });
-        }
+        // Remaining (non-indexed) categorical filters are resolved once per query against
+        // the column dictionaries, so the row scan below only indexes into boolean masks.
+        Map<ProductColumn, boolean[]> masks = new EnumMap<>(ProductColumn.class);
 
-        if (filter.specialMarker() != null) {
-            stream = stream.filter(p -> {
-                // EGYEDI field values: "0" (normal) or "1" (special authorization/compassionate use)
-                boolean isSpecial = "1".equals(p.egyedi);
-                return isSpecial == filter.specialMarker();
-            });
+        if (filter.reimbursable() != null) {
+            // Reimbursable if tk (forgalmi kategória) is set and not empty
+            addMask(products, masks, ProductColumn.TK, tk -> !tk.trim().isEmpty() == filter.reimbursable());
         }
 
-        if (filter.laterality() != null && !filter.laterality().isEmpty()) {
-            stream = stream.filter(p ->
-                p.oldalIsag != null && filter.laterality().contains(p.oldalIsag)
-            );
+        if (filter.strengthUnits() != null && !filter.strengthUnits().isEmpty()) {
+            addMask(products, masks, ProductColumn.HATO_EGYS, filter.strengthUnits()::contains);
         }
 
-        // Validity filters
-        if (filter.currentlyValid() != null && filter.currentlyValid()) {
-            LocalDate today = LocalDate.now();
-            stream = stream.filter(p -> {
-                if (p.validFrom != null && p.validFrom.isAfter(today)) return false;
-                if (p.validTo != null && p.validTo.isBefore(today)) return false;
-                return true;
+        if (filter.brands() != null && !filter.brands().isEmpty()) {
+            addMask(products, masks, ProductColumn.BRAND_ID, brandId -> {
+                String brandName = data.brandNames.get(brandId);
+                return brandName != null && filter.brands().contains(brandName);
             });
         }
 
+        // Validity filters (epoch days; NO_DATE never satisfies a bound)
+        int validFromMin = Integer.MIN_VALUE;
+        int validToMax = Integer.MAX_VALUE;
+        boolean requireValidFrom = false;
+        boolean requireValidTo = false;
+        int today = (int) LocalDate.now().toEpochDay();
+        boolean currentlyValid = filter.currentlyValid() != null && filter.currentlyValid();
+
         if (filter.validFromDate() != null) {
             try {
-                LocalDate filterDate = LocalDate.parse(filter.validFromDate());
-                stream = stream.filter(p ->
-                    p.validFrom != null && !p.validFrom.isBefore(filterDate)
-                );
+                validFromMin = (int) LocalDate.parse(filter.validFromDate()).toEpochDay();
+                requireValidFrom = true;
             } catch (Exception e) {
                 logger.warn("Invalid validFromDate format: {}", filter.validFromDate());
             }
@@ -958,53 +1292,173 @@ public class PuphaxCsvFallbackService {
 
         if (filter.validToDate() != null) {
             try {
-                LocalDate filterDate = LocalDate.parse(filter.validToDate());
-                stream = stream.filter(p ->
-                    p.validTo != null && !p.validTo.isAfter(filterDate)
-                );
+                validToMax = (int) LocalDate.parse(filter.validToDate()).toEpochDay();
+                requireValidTo = true;
             } catch (Exception e) {
                 logger.warn("Invalid validToDate format: {}", filter.validToDate());
             }
         }
 
+        boolean strengthFilter = filter.minStrength() != null || filter.maxStrength() != null;
+        double minStrength = filter.minStrength() != null ? filter.minStrength() : Double.NEGATIVE_INFINITY;
+        double maxStrength = filter.maxStrength() != null ? filter.maxStrength() : Double.POSITIVE_INFINITY;
+
+        ProductColumn[] maskColumns = masks.keySet().toArray(new ProductColumn[0]);
+        boolean[][] maskValues = masks.values().toArray(new boolean[0][]);
+
+        // Apply remaining mask and range filters row by row, only over the bitmap survivors
+        RoaringBitmap matches = new RoaringBitmap();
+        rows:
+        for (IntIterator it = candidates.getIntIterator(); it.hasNext(); ) {
+            int row = it.next();
+            for (int i = 0; i < maskColumns.length; i++) {
+                if (!maskValues[i][products.code(maskColumns[i], row)]) {
+                    continue rows;
+                }
+            }
+
+            // Strength/dosage filters (numeric POTENCIA, e.g. "100mg" -> 100.0)
+            if (strengthFilter) {
+                double strength = products.strength(row);
+                if (Double.isNaN(strength) || strength < minStrength || strength > maxStrength) {
+                    continue;
+                }
+            }
+
+            int validFrom = products.validFromDay(row);
+            int validTo = products.validToDay(row);
+            if (currentlyValid) {
+                if (validFrom != ProductColumnStore.NO_DATE && validFrom > today) continue;
+                if (validTo != ProductColumnStore.NO_DATE && validTo < today) continue;
+            }
+            if (requireValidFrom && (validFrom == ProductColumnStore.NO_DATE || validFrom < validFromMin)) {
+                continue;
+            }
+            if (requireValidTo && (validTo == ProductColumnStore.NO_DATE || validTo > validToMax)) {
+                continue;
+            }
+
+            matches.add(row);
+        }
+
         // Deduplicate by name+strength, keeping most recent
-        List<ProductRecord> results = stream
-            .collect(Collectors.groupingBy(
-                (ProductRecord p) -> (p.name != null ? p.name : "") + "|" + (p.potencia != null ? p.potencia : ""),
-                Collectors.maxBy((ProductRecord p1, ProductRecord p2) -> {
-                    if (p1.validFrom == null) return p2.validFrom == null ? 0 : -1;
-                    if (p2.validFrom == null) return 1;
-                    return p1.validFrom.compareTo(p2.validFrom);
-                })
-            ))
-            .values().stream()
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .collect(Collectors.toList());
+        List<Integer> rows = new ArrayList<>(deduplicateLatest(data, matches).values());
+        SearchFacets facets = includeFacets ? countFacets(data, rows) : null;
 
         // Apply sorting
         String sortBy = filter.sortBy() != null ? filter.sortBy() : "name";
         String sortDirection = filter.sortDirection() != null ? filter.sortDirection() : "ASC";
 
-        Comparator<ProductRecord> comparator = switch (sortBy) {
-            case "manufacturer" -> Comparator.comparing(p -> {
-                String mfr = p.brandId != null ? companies.get(p.brandId) : "";
+        Comparator<Integer> comparator = switch (sortBy) {
+            case "manufacturer" -> Comparator.comparing(row -> {
+                String mfr = companies.get(products.get(ProductColumn.BRAND_ID, row));
                 return mfr != null ? mfr : "";
             });
-            case "atcCode" -> Comparator.comparing(p -> p.atc != null ? p.atc : "");
-            default -> Comparator.comparing(p -> p.name != null ? p.name : "");
+            case "atcCode" -> Comparator.comparing(row -> products.get(ProductColumn.ATC, row));
+            default -> Comparator.comparing(row -> products.get(ProductColumn.NAME, row));
         };
 
         if ("DESC".equals(sortDirection)) {
             comparator = comparator.reversed();
         }
 
-        results.sort(comparator);
+        // Relevance ordering (fuzzy mode only): best score first, then the requested order
+        if ("relevance".equals(sortBy) && relevance != null) {
+            Map<Integer, Double> scores = relevance;
+            comparator = Comparator.<Integer>comparingDouble(scores::get).reversed().thenComparing(comparator);
+        }
+
+        // Order only as far as the requested window reaches; rows outside it are never materialized
+        List<Integer> window = PageSelector.page(rows, comparator, offset, limit);
+
+        List<ProductRecord> results = new ArrayList<>(window.size());
+        for (int row : window) {
+            ProductRecord record = toRecord(data, row);
+            if (relevance != null) {
+                record.relevanceScore = relevance.get(row);
+            }
+            results.add(record);
+        }
 
         long duration = System.currentTimeMillis() - startTime;
         logger.info("Advanced filter search completed: {} results found in {}ms (filters: {})",
-                   results.size(), duration, filter.getActiveFilterCount());
+                   rows.size(), duration, filter.getActiveFilterCount());
+
+        return new AdvancedSearchResult(results, rows.size(), facets);
+    }
+
+    /**
+     * Facet counts over the given rows in one pass: each facet column is tallied
+     * by dictionary code and only the codes that occurred are decoded afterwards.
+     */
+    private SearchFacets countFacets(CsvDataset data, List<Integer> rows) {
+        ProductColumnStore products = data.products;
+        int[] atcCounts = new int[products.column(ProductColumn.ATC).dictionary().size()];
+        int[] formCounts = new int[products.column(ProductColumn.GY_FORMA).dictionary().size()];
+        int[] methodCounts = new int[products.column(ProductColumn.ADAG_MOD).dictionary().size()];
+        int[] tttCounts = new int[products.column(ProductColumn.TTT).dictionary().size()];
+        int[] holderCounts = new int[products.column(ProductColumn.FORG_ENGT_ID).dictionary().size()];
+        long inStock = 0;
+
+        for (int row : rows) {
+            atcCounts[products.code(ProductColumn.ATC, row)]++;
+            formCounts[products.code(ProductColumn.GY_FORMA, row)]++;
+            methodCounts[products.code(ProductColumn.ADAG_MOD, row)]++;
+            tttCounts[products.code(ProductColumn.TTT, row)]++;
+            holderCounts[products.code(ProductColumn.FORG_ENGT_ID, row)]++;
+            if (products.inStock(row)) {
+                inStock++;
+            }
+        }
 
-        return results;
+        return new SearchFacets(
+            facetCounts(products, ProductColumn.ATC, atcCounts, atc -> atc.substring(0, 1).toUpperCase()),
+            facetCounts(products, ProductColumn.GY_FORMA, formCounts, Function.identity()),
+            facetCounts(products, ProductColumn.ADAG_MOD, methodCounts, Function.identity()),
+            facetCounts(products, ProductColumn.TTT, tttCounts, Function.identity()),
+            // Holders sharing a company name are merged under that name
+            facetCounts(products, ProductColumn.FORG_ENGT_ID, holderCounts, data.companies::get),
+            inStock,
+            rows.size() - inStock
+        );
+    }
+
+    /**
+     * Decodes per-code counts into labelled counts, ordered by descending count.
+     * Codes whose label is null or empty are left out.
+     */
+    private Map<String, Long> facetCounts(ProductColumnStore products, ProductColumn column, int[] counts,
+                                          Function<String, String> label) {
+        StringDictionary dictionary = products.column(column).dictionary();
+        Map<String, Long> byLabel = new HashMap<>();
+        for (int code = StringDictionary.EMPTY + 1; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                String value = label.apply(dictionary.decode(code));
+                if (value != null && !value.isEmpty()) {
+                    byLabel.merge(value, (long) counts[code], Long::sum);
+                }
+            }
+        }
+
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        byLabel.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .forEachOrdered(entry -> ordered.put(entry.getKey(), entry.getValue()));
+        return ordered;
+    }
+
+    /**
+     * Evaluate a value predicate once per dictionary entry of the column and AND it
+     * into any mask already registered for that column.
+     */
+    private void addMask(ProductColumnStore products, Map<ProductColumn, boolean[]> masks, ProductColumn column,
+                         Predicate<String> predicate) {
+        StringDictionary dictionary = products.column(column).dictionary();
+        boolean[] existing = masks.get(column);
+        boolean[] mask = new boolean[dictionary.size()];
+        for (int code = 0; code < mask.length; code++) {
+            mask[code] = (existing == null || existing[code]) && predicate.test(dictionary.decode(code));
+        }
+        masks.put(column, mask);
     }
 }
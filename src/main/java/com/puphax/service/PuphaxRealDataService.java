@@ -1,17 +1,28 @@
 package com.puphax.service;
 
+import com.puphax.client.PuphaxResponseReader.TamogatAdat;
+import com.puphax.client.PuphaxResponseReader.TermekAdat;
+import com.puphax.store.ReferenceTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Service that connects to real PUPHAX and properly handles the mixed character encoding.
@@ -21,6 +32,10 @@ import java.util.ArrayList;
 public class PuphaxRealDataService {
     
     private static final Logger logger = LoggerFactory.getLogger(PuphaxRealDataService.class);
+
+    // Product IDs in the IDLIST of a TERMEKLISTA response
+    private static final Pattern PRODUCT_ID_PATTERN =
+        Pattern.compile("<SZOVEG>([0-9]+)</SZOVEG>", Pattern.CASE_INSENSITIVE);
     
     @Autowired
     private SimplePuphaxClient simplePuphaxClient;
@@ -28,9 +43,32 @@ public class PuphaxRealDataService {
     @Autowired
     private PuphaxCsvFallbackService csvFallbackService;
 
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    // Products whose details are being fetched at the same time within one search
+    @Value("${puphax.query.detail-fetch-window:5}")
+    private int detailFetchWindow;
+
+    // Time budget for fetching product details; products not done by then are left out
+    @Value("${puphax.query.detail-fetch-deadline:20000}")
+    private long detailFetchDeadlineMs;
+
     // Thread pool for concurrent PUPHAX calls
     private final ExecutorService executorService = Executors.newFixedThreadPool(10);
     
+    /**
+     * Whether a {@link #searchDrugsReal} response is a complete answer from PUPHAX: not the CSV or
+     * error fallback, not cut short by the detail deadline, and without products whose details failed.
+     * Only such answers may be cached.
+     */
+    public static boolean isCompleteRealResponse(String response) {
+        return response != null
+            && response.contains("<dataType>REAL</dataType>")
+            && !response.contains("<partial>true</partial>")
+            && !response.contains("<status>ERROR</status>");
+    }
+    
     /**
      * Search drugs in real PUPHAX with proper encoding handling.
      */
@@ -90,12 +128,7 @@ public class PuphaxRealDataService {
             
             // Look for the IDLIST element which contains OBJSTRING256 elements
             if (puphaxResponse.contains("IDLIST") || puphaxResponse.contains("ID_LIST")) {
-                java.util.regex.Pattern idPattern = java.util.regex.Pattern.compile(
-                    "<SZOVEG>([0-9]+)</SZOVEG>",
-                    java.util.regex.Pattern.CASE_INSENSITIVE
-                );
-                
-                java.util.regex.Matcher matcher = idPattern.matcher(puphaxResponse);
+                Matcher matcher = PRODUCT_ID_PATTERN.matcher(puphaxResponse);
                 while (matcher.find() && productIds.size() < 100) {
                     productIds.add(matcher.group(1));
                 }
@@ -116,79 +149,16 @@ public class PuphaxRealDataService {
             xmlBuilder.append("    <drugs>\n");
             
             // Get detailed data for each product
-            int count = 0;
             LocalDate searchDate = LocalDate.now();
             
             logger.info("Fetching detailed product data for {} products", productIds.size());
             
-            // Process products in batches for better performance
-            int batchSize = 5; // Process 5 products concurrently
-            List<CompletableFuture<String>> futures = new ArrayList<>();
-            
-            for (int i = 0; i < productIds.size(); i += batchSize) {
-                int endIndex = Math.min(i + batchSize, productIds.size());
-                List<String> batch = productIds.subList(i, endIndex);
-                
-                // Process batch concurrently
-                for (String productId : batch) {
-                    CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
-                        try {
-                            logger.info("Getting detailed data for product ID: {}", productId);
-                            
-                            // First get product basic data (name, ATC, manufacturer)
-                            String termekadatResponse = simplePuphaxClient.getProductData(productId, searchDate);
-                            logger.debug("TERMEKADAT response length for product {}: {} chars", productId, termekadatResponse.length());
-                            
-                            // Then get support data (prices, reimbursement)
-                            String tamogatadatResponse = null;
-                            try {
-                                tamogatadatResponse = simplePuphaxClient.getProductSupportData(productId, searchDate);
-                                logger.debug("TAMOGATADAT response length for product {}: {} chars", productId, tamogatadatResponse.length());
-                            } catch (Exception e) {
-                                logger.warn("TAMOGATADAT failed for product {}, will use only TERMEKADAT data: {}", productId, e.getMessage());
-                            }
-                            
-                            // Parse both responses to create complete product info
-                            return parseProductData(productId, termekadatResponse, tamogatadatResponse);
-                            
-                        } catch (Exception e) {
-                            logger.error("Failed to get details for product {}: {}", productId, e.getMessage(), e);
-                            // Return error info if detailed call fails
-                            return String.format("""
-                                    <drug>
-                                        <id>%s</id>
-                                        <name>PUPHAX Product %s (details unavailable)</name>
-                                        <manufacturer>NEAK PUPHAX</manufacturer>
-                                        <atcCode>ERROR</atcCode>
-                                        <activeIngredients>
-                                            <ingredient>
-                                                <name>Error: %s</name>
-                                            </ingredient>
-                                        </activeIngredients>
-                                        <prescriptionRequired>true</prescriptionRequired>
-                                        <reimbursable>false</reimbursable>
-                                        <status>ERROR</status>
-                                        <source>REAL PUPHAX</source>
-                                    </drug>
-                                """, productId, productId, e.getMessage());
-                        }
-                    }, executorService);
-                    futures.add(future);
-                }
-                
-                // Wait for batch to complete before starting next batch
-                for (CompletableFuture<String> future : futures) {
-                    try {
-                        String productXml = future.get();
-                        xmlBuilder.append(productXml);
-                    } catch (Exception e) {
-                        logger.error("Failed to get product data: {}", e.getMessage());
-                    }
-                }
-                futures.clear();
-            }
+            boolean complete = appendProductDetails(xmlBuilder, productIds, searchDate);
             
             xmlBuilder.append("    </drugs>\n");
+            if (!complete) {
+                xmlBuilder.append("    <partial>true</partial>\n");
+            }
             xmlBuilder.append("    <source>PUPHAX WebService via Spring WS</source>\n");
             xmlBuilder.append("    <dataType>REAL</dataType>\n");
             xmlBuilder.append("</drugSearchResponse>");
@@ -201,6 +171,98 @@ public class PuphaxRealDataService {
         }
     }
     
+    /**
+     * Fetch product details through a sliding window and append each product as soon as it completes.
+     * 
+     * At most {@code detailFetchWindow} products are in flight; TERMEKADAT and TAMOGATADAT
+     * of a product run concurrently and a finished product immediately makes room for the
+     * next one. Once the search deadline passes the products received so far are kept and
+     * the rest are abandoned (their calls still complete and populate the caches).
+     * 
+     * @return true if every product was appended, false if the deadline cut the list short
+     */
+    private boolean appendProductDetails(StringBuilder xmlBuilder, List<String> productIds, LocalDate searchDate)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(detailFetchDeadlineMs);
+        BlockingQueue<String> completed = new LinkedBlockingQueue<>();
+        Semaphore window = new Semaphore(Math.max(1, detailFetchWindow));
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+        int submitted = 0;
+        
+        for (int appended = 0; appended < productIds.size(); appended++) {
+            // Keep the window full
+            while (submitted < productIds.size() && window.tryAcquire()) {
+                CompletableFuture<String> product = fetchProduct(productIds.get(submitted++), searchDate);
+                product.whenComplete((productXml, e) -> {
+                    window.release();
+                    if (productXml != null) {
+                        completed.add(productXml);
+                    }
+                });
+                pending.add(product);
+            }
+            
+            long remaining = deadline - System.nanoTime();
+            String productXml = remaining > 0 ? completed.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (productXml == null) {
+                logger.warn("Search deadline of {}ms reached, returning {} of {} products",
+                    detailFetchDeadlineMs, appended, productIds.size());
+                pending.forEach(product -> product.cancel(false));
+                return false;
+            }
+            xmlBuilder.append(productXml);
+        }
+        return true;
+    }
+    
+    /**
+     * Fetch TERMEKADAT and TAMOGATADAT for one product concurrently and render it.
+     * A failed TAMOGATADAT degrades to product data without prices; a failed TERMEKADAT
+     * renders an error entry.
+     */
+    private CompletableFuture<String> fetchProduct(String productId, LocalDate searchDate) {
+        logger.info("Getting detailed data for product ID: {}", productId);
+        
+        // The async transport completes on its I/O threads; the blocking one needs a pool thread per call
+        boolean async = simplePuphaxClient.isAsyncTransport();
+        CompletableFuture<TermekAdat> termekadat = async
+            ? simplePuphaxClient.getProductDetailsAsync(productId, searchDate)
+            : CompletableFuture.supplyAsync(() -> simplePuphaxClient.getProductDetails(productId, searchDate), executorService);
+        CompletableFuture<TamogatAdat> tamogatadat = (async
+            ? simplePuphaxClient.getProductSupportAsync(productId, searchDate)
+            : CompletableFuture.supplyAsync(() -> simplePuphaxClient.getProductSupport(productId, searchDate), executorService))
+            .exceptionally(e -> {
+                logger.warn("TAMOGATADAT failed for product {}, will use only TERMEKADAT data: {}", productId, e.getMessage());
+                return null;
+            });
+        
+        // Rendering may look up the company name, which must not block an I/O reactor thread
+        return termekadat.thenCombineAsync(tamogatadat,
+                (termek, tamogat) -> parseProductData(productId, termek, tamogat), executorService)
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                logger.error("Failed to get details for product {}: {}", productId, cause.getMessage(), cause);
+                // Return error info if detailed call fails
+                return String.format("""
+                        <drug>
+                            <id>%s</id>
+                            <name>PUPHAX Product %s (details unavailable)</name>
+                            <manufacturer>NEAK PUPHAX</manufacturer>
+                            <atcCode>ERROR</atcCode>
+                            <activeIngredients>
+                                <ingredient>
+                                    <name>Error: %s</name>
+                                </ingredient>
+                            </activeIngredients>
+                            <prescriptionRequired>true</prescriptionRequired>
+                            <reimbursable>false</reimbursable>
+                            <status>ERROR</status>
+                            <source>REAL PUPHAX</source>
+                        </drug>
+                    """, productId, productId, cause.getMessage());
+            });
+    }
+    
     /**
      * Create fallback response.
      */
@@ -233,47 +295,40 @@ public class PuphaxRealDataService {
     /**
      * Parse product data from TERMEKADAT and optionally TAMOGATADAT responses.
      */
-    private String parseProductData(String productId, String termekadatResponse, String tamogatadatResponse) {
+    private String parseProductData(String productId, TermekAdat termekadat, TamogatAdat tamogatadat) {
         try {
             logger.debug("Parsing product data for product {}", productId);
             
-            // Log the first part of response to debug parsing
-            logger.debug("TERMEKADAT response preview for {}: {}", productId,
-                termekadatResponse.length() > 500 ? termekadatResponse.substring(0, 500) + "..." : termekadatResponse);
-            
-            // Log full response for debugging field names
-            if (productId.equals("55845963")) {  // First aspirin product
-                logger.info("FULL TERMEKADAT RESPONSE for debugging:\n{}", termekadatResponse);
-            }
-            
             // Check if we have a SOAP fault or error response
-            if (termekadatResponse.contains("faultstring") || termekadatResponse.contains("soap:Fault")) {
-                logger.error("SOAP Fault in TERMEKADAT response for product {}: {}", productId, termekadatResponse);
+            if (termekadat.isFault()) {
+                logger.error("SOAP Fault in TERMEKADAT response for product {}: {}", productId, termekadat.fault());
                 throw new Exception("SOAP fault in response");
             }
             
-            // Parse TERMEKADAT response for all available product info
-            String productName = extractValue(termekadatResponse, "<NEV>", "</NEV>");
-            String atcCode = extractValue(termekadatResponse, "<ATC>", "</ATC>");
+            // TERMEKADAT fields, decoded in one pass by the client
+            String productName = termekadat.name();
+            String atcCode = termekadat.atc();
             
             // Extract manufacturer - try to get company name from ID
-            String manufacturer = extractValue(termekadatResponse, "<FORGALMAZO>", "</FORGALMAZO>");
+            String manufacturer = termekadat.distributor();
             if (manufacturer.isEmpty()) {
-                manufacturer = extractValue(termekadatResponse, "<FORGALMAZONEV>", "</FORGALMAZONEV>");
+                manufacturer = termekadat.distributorName();
             }
             if (manufacturer.isEmpty()) {
-                manufacturer = extractValue(termekadatResponse, "<CEGNEV>", "</CEGNEV>");
+                manufacturer = termekadat.companyName();
             }
             
             // If still no name, try to look up by ID
             if (manufacturer.isEmpty()) {
-                String forgalmazId = extractValue(termekadatResponse, "<FORGALMAZ_ID>", "</FORGALMAZ_ID>");
-                String forgengtId = extractValue(termekadatResponse, "<FORGENGT_ID>", "</FORGENGT_ID>");
+                String forgalmazId = termekadat.distributorId();
+                String forgengtId = termekadat.authorizationHolderId();
                 String companyId = forgalmazId.isEmpty() ? forgengtId : forgalmazId;
                 
                 if (!companyId.isEmpty()) {
-                    // Look up company name from ID
-                    String companyName = simplePuphaxClient.getCompanyName(companyId);
+                    // Look up company name from ID in the mirrored TABCEGEK; NEAK is only asked before its first sync
+                    String companyName = referenceDataService.isMirrored(ReferenceTable.CEGEK)
+                        ? referenceDataService.getCompanyName(companyId)
+                        : simplePuphaxClient.getCompanyName(companyId);
                     if (companyName != null && !companyName.isEmpty()) {
                         manufacturer = companyName;
                     } else {
@@ -283,19 +338,19 @@ public class PuphaxRealDataService {
             }
             
             // Extract all other available fields
-            String tttCode = extractValue(termekadatResponse, "<TTT>", "</TTT>");
-            String activeIngredient = extractValue(termekadatResponse, "<HATOANYAG>", "</HATOANYAG>");
-            String packaging = extractValue(termekadatResponse, "<KISZNEV>", "</KISZNEV>");
-            String registrationNumber = extractValue(termekadatResponse, "<TK>", "</TK>");
-            String prescriptionStatus = extractValue(termekadatResponse, "<RENDELHET>", "</RENDELHET>");
-            String productForm = extractValue(termekadatResponse, "<GYSZERFORM>", "</GYSZERFORM>");
-            String strength = extractValue(termekadatResponse, "<HATAROSSAG>", "</HATAROSSAG>");
-            String packSize = extractValue(termekadatResponse, "<KISZALLKVANT>", "</KISZALLKVANT>");
-            String productType = extractValue(termekadatResponse, "<TERMEKADAT_TIPUS>", "</TERMEKADAT_TIPUS>");
+            String tttCode = termekadat.ttt();
+            String activeIngredient = termekadat.activeIngredient();
+            String packaging = termekadat.packaging();
+            String registrationNumber = termekadat.tk();
+            String prescriptionStatus = termekadat.rendelhet();
+            String productForm = termekadat.productForm();
+            String strength = termekadat.strength();
+            String packSize = termekadat.packSize();
+            String productType = termekadat.productType();
             
             // Extract validity dates
-            String validFrom = extractValue(termekadatResponse, "<ERV_KEZD>", "</ERV_KEZD>");
-            String validTo = extractValue(termekadatResponse, "<ERV_VEGE>", "</ERV_VEGE>");
+            String validFrom = termekadat.validFrom();
+            String validTo = termekadat.validTo();
             
             // Default values
             boolean reimbursable = false;
@@ -312,31 +367,31 @@ public class PuphaxRealDataService {
             String tamogatottAr = "";
             String teritesiDij = "";
             
-            if (tamogatadatResponse != null && !tamogatadatResponse.isEmpty()) {
+            if (tamogatadat != null) {
                 // Extract various price types
-                fogyasztarBrutto = extractValue(tamogatadatResponse, "<BRUNAKFOGY>", "</BRUNAKFOGY>");
-                fogyasztarNetto = extractValue(tamogatadatResponse, "<NETNAGYFOGY>", "</NETNAGYFOGY>");
-                termelesar = extractValue(tamogatadatResponse, "<TERMELESAR>", "</TERMELESAR>");
-                nagykerAr = extractValue(tamogatadatResponse, "<BRUTTOFAB>", "</BRUTTOFAB>");
+                fogyasztarBrutto = tamogatadat.bruttoFogyasztoiAr();
+                fogyasztarNetto = tamogatadat.nettoFogyasztoiAr();
+                termelesar = tamogatadat.termeloiAr();
+                nagykerAr = tamogatadat.bruttoFab();
                 
                 // Primary price (fogyasztói ár)
                 price = fogyasztarBrutto;
                 if (price.isEmpty()) {
-                    price = extractValue(tamogatadatResponse, "<FAB>", "</FAB>");
+                    price = tamogatadat.fab();
                 }
                 
                 // Support information
-                supportPercent = extractValue(tamogatadatResponse, "<TAMSZAZ>", "</TAMSZAZ>");
-                tamogatottAr = extractValue(tamogatadatResponse, "<TAMOSSZEG>", "</TAMOSSZEG>");
-                teritesiDij = extractValue(tamogatadatResponse, "<TERITESIDIJ>", "</TERITESIDIJ>");
+                supportPercent = tamogatadat.tamogatasSzazalek();
+                tamogatottAr = tamogatadat.tamogatasOsszeg();
+                teritesiDij = tamogatadat.teritesiDij();
                 
                 reimbursable = !supportPercent.isEmpty() && !supportPercent.equals("0");
                 
                 // Extract kategoria (normatív/emelt/kiemelt)
-                String kategoria = extractValue(tamogatadatResponse, "<KATEGORIA>", "</KATEGORIA>");
+                String kategoria = tamogatadat.kategoria();
                 
                 // Extract normative/free pricing info
-                normativity = extractValue(tamogatadatResponse, "<NORMATIVITAS>", "</NORMATIVITAS>");
+                normativity = tamogatadat.normativitas();
                 if (normativity.isEmpty() && kategoria.equals("1")) {
                     normativity = "normatív";
                 } else if (normativity.isEmpty() && kategoria.equals("2")) {
@@ -346,14 +401,9 @@ public class PuphaxRealDataService {
                 }
                 
                 // Extract support type
-                supportType = extractValue(tamogatadatResponse, "<TAMTECHN>", "</TAMTECHN>");
+                supportType = tamogatadat.tamogatasTechnika();
                 if (supportType.isEmpty()) {
-                    supportType = extractValue(tamogatadatResponse, "<TAMOGATAS_TIPUS>", "</TAMOGATAS_TIPUS>");
-                }
-                
-                // Log TAMOGATADAT response for one product to see available fields
-                if (productId.equals("55845963")) {
-                    logger.info("FULL TAMOGATADAT RESPONSE for debugging:\n{}", tamogatadatResponse);
+                    supportType = tamogatadat.tamogatasTipus();
                 }
             }
             
@@ -454,36 +504,24 @@ public class PuphaxRealDataService {
      * @deprecated Use parseProductData instead which combines TERMEKADAT and TAMOGATADAT
      */
     @Deprecated
-    private String parseTamogatadatResponse(String productId, String tamogatadatResponse) {
+    private String parseTamogatadatResponse(String productId, TamogatAdat tamogatadat) {
         try {
-            logger.debug("Parsing TAMOGATADAT for product {}, response length: {}", productId, tamogatadatResponse.length());
-            
-            // Log what we're looking for
-            boolean hasObjTamogat = tamogatadatResponse.contains("OBJTAMOGAT");
-            boolean hasTamogatadatOutput = tamogatadatResponse.contains("TAMOGATADATOutput");
-            boolean hasKgykeret = tamogatadatResponse.contains("KGYKERET");
-            
-            logger.info("TAMOGATADAT response analysis for product {}: hasOBJTAMOGAT={}, hasTAMOGATADATOutput={}, hasKGYKERET={}", 
-                productId, hasObjTamogat, hasTamogatadatOutput, hasKgykeret);
-            
-            // Log the first 200 chars to see what's actually in the response
-            logger.info("TAMOGATADAT response preview for {}: {}", productId,
-                tamogatadatResponse.length() > 200 ? tamogatadatResponse.substring(0, 200) + "..." : tamogatadatResponse);
+            logger.debug("Parsing TAMOGATADAT for product {}", productId);
             
             // Check if we have a valid response - might be different format
-            if (!hasObjTamogat && !hasTamogatadatOutput && !hasKgykeret) {
+            if (!tamogatadat.recognized()) {
                 logger.warn("Invalid TAMOGATADAT response for product {}", productId);
                 
                 // Check for SOAP fault
-                if (tamogatadatResponse.contains("faultstring") || tamogatadatResponse.contains("soap:Fault")) {
-                    logger.error("SOAP Fault in TAMOGATADAT response: {}", tamogatadatResponse);
+                if (tamogatadat.isFault()) {
+                    logger.error("SOAP Fault in TAMOGATADAT response: {}", tamogatadat.fault());
                 }
                 
                 throw new Exception("Invalid response format");
             }
             
             // Check if this is an empty/default response (KGYKERET with max value indicates no data)
-            String kgykeretValue = extractValue(tamogatadatResponse, "<KGYKERET>", "</KGYKERET>");
+            String kgykeretValue = tamogatadat.kgykeret();
             if ("999999999.999999".equals(kgykeretValue)) {
                 logger.info("Product {} has no support data (KGYKERET=999999999.999999)", productId);
                 // Return a response indicating this product has no current support data
@@ -507,45 +545,45 @@ public class PuphaxRealDataService {
             }
             
             // Extract product name
-            String productName = extractValue(tamogatadatResponse, "<TERMEKNEV>", "</TERMEKNEV>");
+            String productName = tamogatadat.termekNev();
             if (productName.isEmpty()) {
-                productName = extractValue(tamogatadatResponse, "<NEV>", "</NEV>");
+                productName = tamogatadat.nev();
             }
             if (productName.isEmpty()) {
                 productName = "PUPHAX Termék " + productId;
             }
             
             // Extract ATC code
-            String atcCode = extractValue(tamogatadatResponse, "<ATC>", "</ATC>");
+            String atcCode = tamogatadat.atc();
             if (atcCode.isEmpty()) {
-                atcCode = extractValue(tamogatadatResponse, "<ATCKOD>", "</ATCKOD>");
+                atcCode = tamogatadat.atcKod();
             }
             
             // Extract manufacturer/company name
-            String manufacturer = extractValue(tamogatadatResponse, "<FORGALMNEV>", "</FORGALMNEV>");
+            String manufacturer = tamogatadat.forgalmazoNev();
             if (manufacturer.isEmpty()) {
-                manufacturer = extractValue(tamogatadatResponse, "<CEGNEV>", "</CEGNEV>");
+                manufacturer = tamogatadat.cegNev();
             }
             if (manufacturer.isEmpty()) {
                 manufacturer = "NEAK PUPHAX";
             }
             
             // Extract price info - looking at the actual fields in OBJTAMOGAT
-            String price = extractValue(tamogatadatResponse, "<BRUNAKFOGY>", "</BRUNAKFOGY>");
+            String price = tamogatadat.bruttoFogyasztoiAr();
             if (price.isEmpty()) {
-                price = extractValue(tamogatadatResponse, "<BRUNAGYFOGY>", "</BRUNAGYFOGY>");
+                price = tamogatadat.bruttoNagykerFogyAr();
             }
             
             // Extract support percentage from TAMOGATASOK section
-            String supportPercent = extractValue(tamogatadatResponse, "<TAMSZAZ>", "</TAMSZAZ>");
+            String supportPercent = tamogatadat.tamogatasSzazalek();
             
             // Check if reimbursable
             boolean reimbursable = !supportPercent.isEmpty() && !supportPercent.equals("0");
             
             // Extract active ingredient
-            String activeIngredient = extractValue(tamogatadatResponse, "<HATOANYAG>", "</HATOANYAG>");
+            String activeIngredient = tamogatadat.hatoanyag();
             if (activeIngredient.isEmpty()) {
-                activeIngredient = extractValue(tamogatadatResponse, "<HATANYNEV>", "</HATANYNEV>");
+                activeIngredient = tamogatadat.hatoanyagNev();
             }
             if (activeIngredient.isEmpty()) {
                 activeIngredient = "N/A";
@@ -595,17 +633,6 @@ public class PuphaxRealDataService {
         }
     }
     
-    private String extractValue(String xml, String startTag, String endTag) {
-        int startIndex = xml.indexOf(startTag);
-        if (startIndex == -1) return "";
-        
-        startIndex += startTag.length();
-        int endIndex = xml.indexOf(endTag, startIndex);
-        if (endIndex == -1) return "";
-        
-        return xml.substring(startIndex, endIndex).trim();
-    }
-    
     private String escapeXml(String text) {
         if (text == null) return "";
         return text.replace("&", "&amp;")
@@ -40,6 +40,26 @@ import java.util.concurrent.CompletableFuture;
 public class PuphaxSoapClient {
     
     private static final Logger logger = LoggerFactory.getLogger(PuphaxSoapClient.class);
+
+    // Drug entries (ID and name) in a raw TERMEKLISTA response
+    private static final java.util.regex.Pattern DRUG_ENTRY_PATTERN = java.util.regex.Pattern.compile(
+        "<(?:ITEM|TERMEK)[^>]*>.*?<(?:ID|AZONOSITO)[^>]*>([^<]+)</(?:ID|AZONOSITO)>.*?<(?:NEV|NAME)[^>]*>([^<]+)</(?:NEV|NAME)>.*?</(?:ITEM|TERMEK)>",
+        java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.DOTALL);
+
+    // Loose fallback: a numeric ID followed by a product name with a form suffix
+    private static final java.util.regex.Pattern SIMPLE_DRUG_PATTERN = java.util.regex.Pattern.compile(
+        "([0-9]{6,8}).*?([A-Za-zÁÉÍÓÚáéíóúÜüÖöŰűŐő\\s]+(?:tabletta|kapszula|szirup|injekció|krém|kenőcs|spray))",
+        java.util.regex.Pattern.CASE_INSENSITIVE);
+
+    // Product IDs in a TERMEKLISTA response
+    private static final java.util.regex.Pattern PRODUCT_ID_PATTERN = java.util.regex.Pattern.compile(
+        "<SZOVEG>([0-9]+)</SZOVEG>",
+        java.util.regex.Pattern.CASE_INSENSITIVE);
+
+    // Product IDs inside the IDLIST of a raw HTTP TERMEKLISTA response
+    private static final java.util.regex.Pattern ID_LIST_PATTERN = java.util.regex.Pattern.compile(
+        "<(?:ID-LIST|IDLIST|OBJ-STRING256)>.*?<(?:SZOVEG|TEXT|VALUE)>([^<]+)</(?:SZOVEG|TEXT|VALUE)>.*?</(?:ID-LIST|IDLIST|OBJ-STRING256)>",
+        java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.DOTALL);
     
     private PUPHAXWSPortType puphaxPort;
     private final PuphaxHttpClient httpClient;
@@ -967,12 +987,7 @@ public class PuphaxSoapClient {
             java.util.List<String> drugNames = new java.util.ArrayList<>();
             
             // Pattern to find drug entries in PUPHAX response
-            java.util.regex.Pattern drugPattern = java.util.regex.Pattern.compile(
-                "<(?:ITEM|TERMEK)[^>]*>.*?<(?:ID|AZONOSITO)[^>]*>([^<]+)</(?:ID|AZONOSITO)>.*?<(?:NEV|NAME)[^>]*>([^<]+)</(?:NEV|NAME)>.*?</(?:ITEM|TERMEK)>",
-                java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.DOTALL
-            );
-            
-            java.util.regex.Matcher matcher = drugPattern.matcher(rawXml);
+            java.util.regex.Matcher matcher = DRUG_ENTRY_PATTERN.matcher(rawXml);
             while (matcher.find() && drugIds.size() < 10) { // Limit to 10 results
                 String drugId = matcher.group(1).trim();
                 String drugName = matcher.group(2).trim();
@@ -990,12 +1005,7 @@ public class PuphaxSoapClient {
             // If no structured data found, try simpler patterns
             if (drugIds.isEmpty()) {
                 // Look for any numeric IDs and associated text
-                java.util.regex.Pattern simplePattern = java.util.regex.Pattern.compile(
-                    "([0-9]{6,8}).*?([A-Za-zÁÉÍÓÚáéíóúÜüÖöŰűŐő\\s]+(?:tabletta|kapszula|szirup|injekció|krém|kenőcs|spray))",
-                    java.util.regex.Pattern.CASE_INSENSITIVE
-                );
-                
-                java.util.regex.Matcher simpleMatcher = simplePattern.matcher(rawXml);
+                java.util.regex.Matcher simpleMatcher = SIMPLE_DRUG_PATTERN.matcher(rawXml);
                 while (simpleMatcher.find() && drugIds.size() < 5) {
                     String drugId = simpleMatcher.group(1).trim();
                     String drugName = simpleMatcher.group(2).trim();
@@ -1225,12 +1235,7 @@ public class PuphaxSoapClient {
         
         try {
             // Look for ID patterns in the response
-            java.util.regex.Pattern idPattern = java.util.regex.Pattern.compile(
-                "<SZOVEG>([0-9]+)</SZOVEG>",
-                java.util.regex.Pattern.CASE_INSENSITIVE
-            );
-            
-            java.util.regex.Matcher matcher = idPattern.matcher(xmlResponse);
+            java.util.regex.Matcher matcher = PRODUCT_ID_PATTERN.matcher(xmlResponse);
             while (matcher.find()) {
                 String id = matcher.group(1);
                 if (!id.isEmpty()) {
@@ -1252,34 +1257,17 @@ public class PuphaxSoapClient {
         DrugInfo drugInfo = new DrugInfo(productId);
         
         try {
-            // Extract product name
-            java.util.regex.Pattern namePattern = java.util.regex.Pattern.compile(
-                "<NEV>([^<]+)</NEV>",
-                java.util.regex.Pattern.CASE_INSENSITIVE
-            );
-            java.util.regex.Matcher nameMatcher = namePattern.matcher(xmlResponse);
-            if (nameMatcher.find()) {
-                drugInfo.name = nameMatcher.group(1).trim();
+            // Product name, ATC code and active ingredient in one pass over the response
+            PuphaxResponseReader.TermekAdat termekadat =
+                PuphaxResponseReader.readTermekAdat(new java.io.StringReader(xmlResponse));
+            if (!termekadat.name().isEmpty()) {
+                drugInfo.name = termekadat.name();
             }
-            
-            // Extract ATC code
-            java.util.regex.Pattern atcPattern = java.util.regex.Pattern.compile(
-                "<ATC>([^<]+)</ATC>",
-                java.util.regex.Pattern.CASE_INSENSITIVE
-            );
-            java.util.regex.Matcher atcMatcher = atcPattern.matcher(xmlResponse);
-            if (atcMatcher.find()) {
-                drugInfo.atcCode = atcMatcher.group(1).trim();
+            if (!termekadat.atc().isEmpty()) {
+                drugInfo.atcCode = termekadat.atc();
             }
-            
-            // Extract active ingredient
-            java.util.regex.Pattern ingredientPattern = java.util.regex.Pattern.compile(
-                "<HATOANYAG>([^<]+)</HATOANYAG>",
-                java.util.regex.Pattern.CASE_INSENSITIVE
-            );
-            java.util.regex.Matcher ingredientMatcher = ingredientPattern.matcher(xmlResponse);
-            if (ingredientMatcher.find()) {
-                drugInfo.activeIngredient = ingredientMatcher.group(1).trim();
+            if (!termekadat.activeIngredient().isEmpty()) {
+                drugInfo.activeIngredient = termekadat.activeIngredient();
             }
             
             // Set defaults
@@ -1336,12 +1324,7 @@ public class PuphaxSoapClient {
         java.util.List<String> drugNames = new java.util.ArrayList<>();
         
         // Look for TERMEKLISTA response structure
-        java.util.regex.Pattern idPattern = java.util.regex.Pattern.compile(
-            "<(?:ID-LIST|IDLIST|OBJ-STRING256)>.*?<(?:SZOVEG|TEXT|VALUE)>([^<]+)</(?:SZOVEG|TEXT|VALUE)>.*?</(?:ID-LIST|IDLIST|OBJ-STRING256)>",
-            java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.DOTALL
-        );
-        
-        java.util.regex.Matcher matcher = idPattern.matcher(rawSoapXml);
+        java.util.regex.Matcher matcher = ID_LIST_PATTERN.matcher(rawSoapXml);
         while (matcher.find() && drugIds.size() < 20) {
             String drugId = matcher.group(1).trim();
             if (!drugId.isEmpty() && drugId.matches("\\d+")) {
@@ -1408,46 +1391,18 @@ public class PuphaxSoapClient {
         DrugInfo drugInfo = new DrugInfo(drugId);
         
         try {
-            // Extract drug name
-            java.util.regex.Pattern namePattern = java.util.regex.Pattern.compile(
-                "<(?:NEV|NAME)>([^<]+)</(?:NEV|NAME)>", 
-                java.util.regex.Pattern.CASE_INSENSITIVE
-            );
-            java.util.regex.Matcher nameMatcher = namePattern.matcher(soapResponse);
-            if (nameMatcher.find()) {
-                drugInfo.name = nameMatcher.group(1).trim();
-            } else {
-                drugInfo.name = "PUPHAX Drug " + drugId;
-            }
-            
-            // Extract ATC code
-            java.util.regex.Pattern atcPattern = java.util.regex.Pattern.compile(
-                "<(?:ATC)>([^<]+)</(?:ATC)>",
-                java.util.regex.Pattern.CASE_INSENSITIVE
-            );
-            java.util.regex.Matcher atcMatcher = atcPattern.matcher(soapResponse);
-            if (atcMatcher.find()) {
-                drugInfo.atcCode = atcMatcher.group(1).trim();
+            // Name, ATC code, active ingredient and dosage form in one pass over the response
+            PuphaxResponseReader.TermekAdat termekadat =
+                PuphaxResponseReader.readTermekAdat(new java.io.StringReader(soapResponse));
+            drugInfo.name = !termekadat.name().isEmpty() ? termekadat.name() : "PUPHAX Drug " + drugId;
+            if (!termekadat.atc().isEmpty()) {
+                drugInfo.atcCode = termekadat.atc();
             }
-            
-            // Extract active ingredient
-            java.util.regex.Pattern ingredientPattern = java.util.regex.Pattern.compile(
-                "<(?:HATOANYAG|ACTIVE-INGREDIENT)>([^<]+)</(?:HATOANYAG|ACTIVE-INGREDIENT)>",
-                java.util.regex.Pattern.CASE_INSENSITIVE
-            );
-            java.util.regex.Matcher ingredientMatcher = ingredientPattern.matcher(soapResponse);
-            if (ingredientMatcher.find()) {
-                drugInfo.activeIngredient = ingredientMatcher.group(1).trim();
+            if (!termekadat.activeIngredient().isEmpty()) {
+                drugInfo.activeIngredient = termekadat.activeIngredient();
             }
-            
-            // Extract dosage form
-            java.util.regex.Pattern formPattern = java.util.regex.Pattern.compile(
-                "<(?:GYFORMA|DOSAGE-FORM)>([^<]+)</(?:GYFORMA|DOSAGE-FORM)>",
-                java.util.regex.Pattern.CASE_INSENSITIVE
-            );
-            java.util.regex.Matcher formMatcher = formPattern.matcher(soapResponse);
-            if (formMatcher.find()) {
-                drugInfo.dosageForm = formMatcher.group(1).trim();
+            if (!termekadat.gyForma().isEmpty()) {
+                drugInfo.dosageForm = termekadat.gyForma();
             }
             
             drugInfo.manufacturer = "NEAK PUPHAX";
@@ -1457,6 +1412,9 @@ public class PuphaxSoapClient {
             
         } catch (Exception e) {
             logger.warn("Error parsing drug details for ID {}: {}", drugId, e.getMessage());
+            if (drugInfo.name == null) {
+                drugInfo.name = "PUPHAX Drug " + drugId;
+            }
         }
         
         return drugInfo;
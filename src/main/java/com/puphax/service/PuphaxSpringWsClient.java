@@ -1,16 +1,19 @@
 package com.puphax.service;
 
+import com.puphax.client.SoapRequestTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.ws.client.core.WebServiceTemplate;
 import org.springframework.ws.soap.client.core.SoapActionCallback;
-import org.springframework.xml.transform.StringSource;
 import org.springframework.xml.transform.StringResult;
 
+import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
@@ -24,6 +27,51 @@ public class PuphaxSpringWsClient {
     
     private static final Logger logger = LoggerFactory.getLogger(PuphaxSpringWsClient.class);
     
+    private static final SoapRequestTemplate TERMEKLISTA_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/"
+                          xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:C_OBJ_ID_LISTA_TERMEKLISTA-INPUT>
+                 <pup:DSP-DATE-IN>%s</pup:DSP-DATE-IN>
+                 <pup:SX-FILTER-VARCHAR2-IN>
+                    <![CDATA[%s]]>
+                 </pup:SX-FILTER-VARCHAR2-IN>
+              </pup:C_OBJ_ID_LISTA_TERMEKLISTA-INPUT>
+           </soapenv:Body>
+        </soapenv:Envelope>
+        """);
+    
+    private static final SoapRequestTemplate TERMEKLISTA_FILTER = SoapRequestTemplate.compile(
+        "<alapfilter><TNEV>%s</TNEV></alapfilter>");
+    
+    private static final byte[] NO_FILTER = new byte[0];
+    
+    private static final SoapRequestTemplate TAMOGATADAT_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/"
+                          xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:C_OBJ_TAMOGAT_TAMOGATADAT-INPUT>
+                 <pup:DSP-DATE-IN>%s</pup:DSP-DATE-IN>
+                 <pup:N_ID-NUMBER-IN>%s</pup:N_ID-NUMBER-IN>
+              </pup:C_OBJ_TAMOGAT_TAMOGATADAT-INPUT>
+           </soapenv:Body>
+        </soapenv:Envelope>
+        """);
+    
+    private static final SoapRequestTemplate TERMEKADAT_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/"
+                          xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:C_OBJ_TERMEKADAT_TERMEKADAT-INPUT>
+                 <pup:N_ID-NUMBER-IN>%s</pup:N_ID-NUMBER-IN>
+              </pup:C_OBJ_TERMEKADAT_TERMEKADAT-INPUT>
+           </soapenv:Body>
+        </soapenv:Envelope>
+        """);
+    
     @Autowired
     private WebServiceTemplate webServiceTemplate;
     
@@ -36,7 +84,7 @@ public class PuphaxSpringWsClient {
      */
     public String searchDrugs(String searchTerm, LocalDate searchDate) {
         try {
-            String soapRequest = buildTermeklistaRequest(searchTerm, searchDate);
+            byte[] soapRequest = buildTermeklistaRequest(searchTerm, searchDate);
             logger.info("Calling PUPHAX TERMEKLISTA with search term: {}, date: {}", searchTerm, searchDate);
             
             // Use marshalSendAndReceive which handles the request/response properly
@@ -49,7 +97,7 @@ public class PuphaxSpringWsClient {
                         
                         // Write the SOAP body
                         javax.xml.transform.Transformer transformer = javax.xml.transform.TransformerFactory.newInstance().newTransformer();
-                        transformer.transform(new StringSource(soapRequest), soapMessage.getPayloadResult());
+                        transformer.transform(source(soapRequest), soapMessage.getPayloadResult());
                     }
                 }
             );
@@ -79,14 +127,13 @@ public class PuphaxSpringWsClient {
      */
     public String getDrugSupportData(String productId, LocalDate searchDate) {
         try {
-            String soapRequest = buildTamogatadatRequest(productId, searchDate);
+            byte[] soapRequest = buildTamogatadatRequest(productId, searchDate);
             logger.info("Calling PUPHAX TAMOGATADAT for product ID: {}, date: {}", productId, searchDate);
             
-            StringSource requestSource = new StringSource(soapRequest);
             StringResult responseResult = new StringResult();
             
             webServiceTemplate.sendSourceAndReceiveToResult(
-                requestSource,
+                source(soapRequest),
                 new SoapActionCallback("TAMOGATADAT"),
                 responseResult
             );
@@ -110,14 +157,13 @@ public class PuphaxSpringWsClient {
      */
     public String getProductDetails(String productId) {
         try {
-            String soapRequest = buildTermekadatRequest(productId);
+            byte[] soapRequest = buildTermekadatRequest(productId);
             logger.info("Calling PUPHAX TERMEKADAT for product ID: {}", productId);
             
-            StringSource requestSource = new StringSource(soapRequest);
             StringResult responseResult = new StringResult();
             
             webServiceTemplate.sendSourceAndReceiveToResult(
-                requestSource,
+                source(soapRequest),
                 new SoapActionCallback("TERMEKADAT"),
                 responseResult
             );
@@ -136,79 +182,33 @@ public class PuphaxSpringWsClient {
     /**
      * Build SOAP request for TERMEKLISTA operation.
      */
-    private String buildTermeklistaRequest(String searchTerm, LocalDate searchDate) {
+    private byte[] buildTermeklistaRequest(String searchTerm, LocalDate searchDate) {
         String dateStr = searchDate.format(DateTimeFormatter.ISO_LOCAL_DATE);
         
         // Build the filter XML
-        String filterXml = "";
+        byte[] filterXml = NO_FILTER;
         if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-            filterXml = String.format("<alapfilter><TNEV>%s</TNEV></alapfilter>", escapeXml(searchTerm));
+            filterXml = TERMEKLISTA_FILTER.render(searchTerm);
         }
         
-        return String.format("""
-            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" 
-                              xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
-               <soapenv:Header/>
-               <soapenv:Body>
-                  <pup:C_OBJ_ID_LISTA_TERMEKLISTA-INPUT>
-                     <pup:DSP-DATE-IN>%s</pup:DSP-DATE-IN>
-                     <pup:SX-FILTER-VARCHAR2-IN>
-                        <![CDATA[%s]]>
-                     </pup:SX-FILTER-VARCHAR2-IN>
-                  </pup:C_OBJ_ID_LISTA_TERMEKLISTA-INPUT>
-               </soapenv:Body>
-            </soapenv:Envelope>
-            """, escapeXml(dateStr), filterXml);
+        return TERMEKLISTA_REQUEST.render(dateStr, filterXml);
     }
     
     /**
      * Build SOAP request for TAMOGATADAT operation.
      */
-    private String buildTamogatadatRequest(String productId, LocalDate searchDate) {
-        String dateStr = searchDate.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        
-        return String.format("""
-            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" 
-                              xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
-               <soapenv:Header/>
-               <soapenv:Body>
-                  <pup:C_OBJ_TAMOGAT_TAMOGATADAT-INPUT>
-                     <pup:DSP-DATE-IN>%s</pup:DSP-DATE-IN>
-                     <pup:N_ID-NUMBER-IN>%s</pup:N_ID-NUMBER-IN>
-                  </pup:C_OBJ_TAMOGAT_TAMOGATADAT-INPUT>
-               </soapenv:Body>
-            </soapenv:Envelope>
-            """, escapeXml(dateStr), escapeXml(productId));
+    private byte[] buildTamogatadatRequest(String productId, LocalDate searchDate) {
+        return TAMOGATADAT_REQUEST.render(searchDate.format(DateTimeFormatter.ISO_LOCAL_DATE), productId);
     }
     
     /**
      * Build SOAP request for TERMEKADAT operation.
      */
-    private String buildTermekadatRequest(String productId) {
-        return String.format("""
-            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" 
-                              xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
-               <soapenv:Header/>
-               <soapenv:Body>
-                  <pup:C_OBJ_TERMEKADAT_TERMEKADAT-INPUT>
-                     <pup:N_ID-NUMBER-IN>%s</pup:N_ID-NUMBER-IN>
-                  </pup:C_OBJ_TERMEKADAT_TERMEKADAT-INPUT>
-               </soapenv:Body>
-            </soapenv:Envelope>
-            """, escapeXml(productId));
+    private byte[] buildTermekadatRequest(String productId) {
+        return TERMEKADAT_REQUEST.render(productId);
     }
     
-    /**
-     * Escape XML special characters.
-     */
-    private String escapeXml(String text) {
-        if (text == null) {
-            return "";
-        }
-        return text.replace("&", "&amp;")
-                  .replace("<", "&lt;")
-                  .replace(">", "&gt;")
-                  .replace("\"", "&quot;")
-                  .replace("'", "&apos;");
+    private static Source source(byte[] soapRequest) {
+        return new StreamSource(new ByteArrayInputStream(soapRequest));
     }
 }
\ No newline at end of file
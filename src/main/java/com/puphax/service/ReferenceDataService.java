@@ -0,0 +1,212 @@
+package com.puphax.service;
+
+import com.puphax.client.PuphaxResponseReader.KodTablaSor;
+import com.puphax.model.dto.ReferenceTableStatus;
+import com.puphax.store.ReferenceTable;
+import com.puphax.store.ReferenceTableFile;
+import com.puphax.store.ReferenceTables;
+import com.puphax.util.AdaptiveConcurrencyLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Local mirror of the PUPHAX code tables (TABATC, TABCEGEK, TABBRAND, ...).
+ *
+ * Each table is pulled whole on a schedule at background priority, written to
+ * a local file and served from memory, so looking up a company, ATC or brand
+ * name never calls NEAK. The file is loaded at start-up; the first sync runs
+ * once the oldest table is due. A table whose sync fails, or comes back empty
+ * while a mirrored copy exists, keeps its previous rows.
+ */
+@Service
+public class ReferenceDataService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataService.class);
+
+    @Value("${puphax.reference.sync.enabled:true}")
+    private boolean syncEnabled;
+
+    @Value("${puphax.reference.sync.interval:86400000}")
+    private long syncIntervalMs;
+
+    @Value("${puphax.reference.path:data/puphax-reference.tables}")
+    private String path;
+
+    private final SimplePuphaxClient simplePuphaxClient;
+
+    // Current generation; lookups read it once and never lock
+    private final AtomicReference<ReferenceTables> tables = new AtomicReference<>(ReferenceTables.empty());
+
+    private final ScheduledExecutorService syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reference-table-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ReferenceDataService(SimplePuphaxClient simplePuphaxClient) {
+        this.simplePuphaxClient = simplePuphaxClient;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        try {
+            ReferenceTableFile.read(Path.of(path)).ifPresent(loaded -> {
+                tables.set(loaded);
+                logger.info("Loaded mirrored PUPHAX reference tables from {}: {}", path, describe(loaded));
+            });
+        } catch (IOException e) {
+            logger.warn("Could not read reference tables from {}, waiting for the next sync: {}", path, e.getMessage());
+        }
+
+        if (syncEnabled) {
+            long initialDelay = untilNextSync(tables.get(), Instant.now()).toMillis();
+            syncExecutor.scheduleWithFixedDelay(this::syncAll, initialDelay, syncIntervalMs, TimeUnit.MILLISECONDS);
+            logger.info("Reference table sync scheduled every {} min, next in {} s",
+                TimeUnit.MILLISECONDS.toMinutes(syncIntervalMs), TimeUnit.MILLISECONDS.toSeconds(initialDelay));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        syncExecutor.shutdownNow();
+    }
+
+    /**
+     * Name (ELNEVEZ) of a code table row, or null if the table is not mirrored or has no such row.
+     */
+    public String getName(ReferenceTable table, String code) {
+        return tables.get().name(table, code);
+    }
+
+    /**
+     * Company name from the mirrored TABCEGEK, or null.
+     */
+    public String getCompanyName(String companyId) {
+        return getName(ReferenceTable.CEGEK, companyId);
+    }
+
+    /**
+     * Whether lookups in the table are answered from the mirror.
+     */
+    public boolean isMirrored(ReferenceTable table) {
+        return tables.get().contains(table);
+    }
+
+    /**
+     * The generation currently served.
+     */
+    public ReferenceTables getTables() {
+        return tables.get();
+    }
+
+    /**
+     * Row count and last sync time of every table, in declaration order.
+     */
+    public List<ReferenceTableStatus> getStatus() {
+        ReferenceTables current = tables.get();
+        List<ReferenceTableStatus> status = new ArrayList<>(ReferenceTable.values().length);
+        for (ReferenceTable table : ReferenceTable.values()) {
+            status.add(new ReferenceTableStatus(table.operation(), current.size(table), current.syncedAt(table)));
+        }
+        return status;
+    }
+
+    /**
+     * Starts a sync of all tables on the sync thread, after any sync already running.
+     */
+    public void triggerSync() {
+        syncExecutor.execute(this::syncAll);
+    }
+
+    /**
+     * Pulls every table, publishes the result and writes it to the local file.
+     */
+    void syncAll() {
+        long startTime = System.currentTimeMillis();
+        ReferenceTables next = tables.get();
+        int synced = 0;
+        for (ReferenceTable table : ReferenceTable.values()) {
+            try {
+                List<KodTablaSor> rows = AdaptiveConcurrencyLimiter.background(
+                    () -> simplePuphaxClient.getReferenceTable(table));
+                if (rows.isEmpty() && next.size(table) > 0) {
+                    logger.warn("PUPHAX {} returned no rows, keeping the {} mirrored ones", table.operation(), next.size(table));
+                    continue;
+                }
+                next = next.with(table, toEntries(rows), Instant.now());
+                synced++;
+            } catch (Exception e) {
+                logger.warn("Sync of PUPHAX {} failed, keeping the mirrored copy: {}", table.operation(), e.getMessage());
+            }
+        }
+        if (synced == 0) {
+            return;
+        }
+
+        tables.set(next);
+        logger.info("Synced {} of {} PUPHAX reference tables in {}ms: {}", synced, ReferenceTable.values().length,
+            System.currentTimeMillis() - startTime, describe(next));
+        try {
+            ReferenceTableFile.write(Path.of(path), next);
+        } catch (IOException e) {
+            logger.warn("Could not write reference tables to {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Time until the least recently synced table is due; zero if any table was never synced.
+     */
+    Duration untilNextSync(ReferenceTables current, Instant now) {
+        Instant oldest = null;
+        for (ReferenceTable table : ReferenceTable.values()) {
+            Instant syncedAt = current.syncedAt(table);
+            if (syncedAt == null) {
+                return Duration.ZERO;
+            }
+            if (oldest == null || syncedAt.isBefore(oldest)) {
+                oldest = syncedAt;
+            }
+        }
+        Duration remaining = Duration.between(now, oldest.plusMillis(syncIntervalMs));
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private static Map<String, ReferenceTables.Entry> toEntries(List<KodTablaSor> rows) {
+        Map<String, ReferenceTables.Entry> entries = new HashMap<>(Math.max(16, rows.size() * 4 / 3 + 1));
+        for (KodTablaSor row : rows) {
+            if (!row.code().isEmpty()) {
+                entries.put(row.code(), new ReferenceTables.Entry(row.name(), row.note(), row.extraInfo()));
+            }
+        }
+        return entries;
+    }
+
+    private static String describe(ReferenceTables current) {
+        StringBuilder summary = new StringBuilder();
+        for (ReferenceTable table : ReferenceTable.values()) {
+            if (current.contains(table)) {
+                summary.append(summary.isEmpty() ? "" : ", ").append(table.operation()).append('=').append(current.size(table));
+            }
+        }
+        return summary.toString();
+    }
+}
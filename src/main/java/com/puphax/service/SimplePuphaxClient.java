@@ -1,28 +1,68 @@
 package com.puphax.service;
 
+import com.puphax.client.DigestAuthSession;
+import com.puphax.client.PuphaxResponseDecoder;
+import com.puphax.client.PuphaxResponseReader;
+import com.puphax.client.SoapRequestTemplate;
+import com.puphax.client.PuphaxResponseReader.DispLista;
+import com.puphax.client.PuphaxResponseReader.KihirdLista;
+import com.puphax.client.PuphaxResponseReader.Kihirdetes;
+import com.puphax.client.PuphaxResponseReader.KodTabla;
+import com.puphax.client.PuphaxResponseReader.KodTablaSor;
+import com.puphax.client.PuphaxResponseReader.SoapFault;
+import com.puphax.client.PuphaxResponseReader.TamogatAdat;
+import com.puphax.client.PuphaxResponseReader.TermekAdat;
+import com.puphax.exception.PuphaxConnectionException;
+import com.puphax.exception.PuphaxServiceException;
+import com.puphax.exception.PuphaxSoapFaultException;
+import com.puphax.store.ReferenceTable;
+import com.puphax.util.AdaptiveConcurrencyLimiter;
+import com.puphax.util.AdaptiveConcurrencyLimiter.Priority;
+import com.puphax.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.net.URI;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Base64;
-import java.security.MessageDigest;
-import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.nio.charset.StandardCharsets;
-import java.nio.charset.Charset;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 
@@ -34,6 +74,122 @@ import org.springframework.cache.annotation.CacheEvict;
 public class SimplePuphaxClient {
     
     private static final Logger logger = LoggerFactory.getLogger(SimplePuphaxClient.class);
+
+    // Request URI covered by the digest signature
+    private static final String DIGEST_URI = "/PUPHAXWS";
+
+    private static final Pattern COMPANY_NAME_PATTERN = Pattern.compile("<ELNEVEZ>([^<]+)</ELNEVEZ>");
+    
+    // Product IDs in the IDLIST of a TERMEKLISTA response
+    private static final Pattern PRODUCT_ID_PATTERN = Pattern.compile("<SZOVEG>[0-9]+</SZOVEG>", Pattern.CASE_INSENSITIVE);
+    
+    // Product lookups have no empty answer; an unknown product comes back as a fault
+    private static final Predicate<Object> NO_EMPTY_ANSWER = result -> false;
+    
+    // SOAP envelopes, split once into constant byte segments; %s marks a parameter
+    private static final SoapRequestTemplate TERMEKLISTA_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:COBJIDLISTA-TERMEKLISTAInput>
+                 <pup:DSP-DATE-IN>%s</pup:DSP-DATE-IN>
+                 <pup:SXFILTER-VARCHAR2-IN>
+                    <![CDATA[
+        %s
+                    ]]>
+                 </pup:SXFILTER-VARCHAR2-IN>
+              </pup:COBJIDLISTA-TERMEKLISTAInput>
+           </soapenv:Body>
+        </soapenv:Envelope>""");
+
+    // Format the filter XML with proper indentation like in the documentation
+    private static final SoapRequestTemplate TERMEKLISTA_FILTER = SoapRequestTemplate.compile("""
+        <alapfilter>
+            <TNEV>%s</TNEV>
+        </alapfilter>""");
+
+    private static final byte[] NO_FILTER = new byte[0];
+
+    private static final SoapRequestTemplate TERMEKADAT_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:COBJTERMEKADAT-TERMEKADATInput>
+                 <pup:NID-NUMBER-IN>%s</pup:NID-NUMBER-IN>
+              </pup:COBJTERMEKADAT-TERMEKADATInput>
+           </soapenv:Body>
+        </soapenv:Envelope>""");
+
+    private static final SoapRequestTemplate TAMOGATADAT_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:COBJTAMOGAT-TAMOGATADATInput>
+                 <pup:DSP-DATE-IN>%s</pup:DSP-DATE-IN>
+                 <pup:NID-NUMBER-IN>%s</pup:NID-NUMBER-IN>
+              </pup:COBJTAMOGAT-TAMOGATADATInput>
+           </soapenv:Body>
+        </soapenv:Envelope>""");
+
+    private static final SoapRequestTemplate CEGEK_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:COBJALAP-TABCEGEKInput>
+                 <pup:SXFILTER-VARCHAR2-IN>
+                   <![CDATA[
+                        <alapfilter>
+                            <CEGID>%s</CEGID>
+                        </alapfilter>
+                   ]]>
+                 </pup:SXFILTER-VARCHAR2-IN>
+              </pup:COBJALAP-TABCEGEKInput>
+           </soapenv:Body>
+        </soapenv:Envelope>""");
+
+    // Whole code table: the input element is the only difference between the TAB* operations
+    private static final SoapRequestTemplate CODE_TABLE_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:%s>
+                 <pup:SXFILTER-VARCHAR2-IN>
+                   <![CDATA[]]>
+                 </pup:SXFILTER-VARCHAR2-IN>
+              </pup:%s>
+           </soapenv:Body>
+        </soapenv:Envelope>""");
+
+    private static final SoapRequestTemplate KIHIRD_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:COBJKIHIRD-KIHIRDInput>
+                 <pup:DSTART-DATE-IN>%s</pup:DSTART-DATE-IN>
+              </pup:COBJKIHIRD-KIHIRDInput>
+           </soapenv:Body>
+        </soapenv:Envelope>""");
+
+    private static final SoapRequestTemplate DISP_DIFF_REQUEST = SoapRequestTemplate.compile("""
+        <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+           <soapenv:Header/>
+           <soapenv:Body>
+              <pup:COBJDISP-DISP_DIFFInput>
+                 <pup:DSP1-DATE-IN>%s</pup:DSP1-DATE-IN>
+                 <pup:DSP2-DATE-IN>%s</pup:DSP2-DATE-IN>
+                 <pup:SXFILTER-VARCHAR2-IN>
+                   <![CDATA[
+                        <alapfilter>
+                            <VALTTIP>%s</VALTTIP>
+                            <LAPOZAS>%s:%s</LAPOZAS>
+                        </alapfilter>
+                   ]]>
+                 </pup:SXFILTER-VARCHAR2-IN>
+              </pup:COBJDISP-DISP_DIFFInput>
+           </soapenv:Body>
+        </soapenv:Envelope>""");
+
+    private static final ContentType SOAP_CONTENT_TYPE = ContentType.create("text/xml", StandardCharsets.UTF_8);
     
     @Value("${puphax.soap.endpoint-url:https://puphax.neak.gov.hu/PUPHAXWS}")
     private String puphaxEndpoint;
@@ -52,32 +208,99 @@ public class SimplePuphaxClient {
 
     private final CloseableHttpClient httpClient;
     
+    // Last digest challenge, reused to sign requests without an unauthenticated round trip
+    private final DigestAuthSession digestSession = new DigestAuthSession();
+    
+    // Non-blocking client, present only when puphax.soap.transport=async
+    private final CloseableHttpAsyncClient asyncClient;
+    
+    private final CacheManager cacheManager;
+    
+    // Every SOAP call holds a permit, so the number of concurrent calls follows NEAK's response times
+    private final AdaptiveConcurrencyLimiter limiter;
+    
     // Cache for company names to avoid repeated lookups
     private final Map<String, String> companyNameCache = new ConcurrentHashMap<>();
     
+    // Concurrent cache misses for the same operation and parameters share one SOAP call,
+    // keeping us within NEAK's per-client connection limit
+    private final SingleFlight<String, String> searchFlight = new SingleFlight<>();
+    private final SingleFlight<String, TermekAdat> termekadatFlight = new SingleFlight<>();
+    private final SingleFlight<String, TamogatAdat> tamogatadatFlight = new SingleFlight<>();
+    
+    // Empty answers and client faults, repeated locally for a short while instead of asking NEAK again
+    private final NegativeResultCache negativeResults;
+    
     @Autowired
-    public SimplePuphaxClient(CloseableHttpClient httpClient) {
+    public SimplePuphaxClient(CloseableHttpClient httpClient, ObjectProvider<CloseableHttpAsyncClient> asyncClient,
+                              AdaptiveConcurrencyLimiter limiter, CacheManager cacheManager, MeterRegistry meterRegistry) {
         this.httpClient = httpClient;
-        logger.info("SimplePuphaxClient initialized with connection pooling HTTP client");
+        this.asyncClient = asyncClient.getIfAvailable();
+        this.limiter = limiter;
+        this.cacheManager = cacheManager;
+        this.negativeResults = new NegativeResultCache(cacheManager, meterRegistry);
+        registerFlightMetrics(meterRegistry, "TERMEKLISTA", searchFlight);
+        registerFlightMetrics(meterRegistry, "TERMEKADAT", termekadatFlight);
+        registerFlightMetrics(meterRegistry, "TAMOGATADAT", tamogatadatFlight);
+        registerLimiterMetrics(meterRegistry, limiter);
+        logger.info("SimplePuphaxClient initialized with {} transport", isAsyncTransport() ? "async" : "blocking");
+    }
+    
+    private static void registerFlightMetrics(MeterRegistry registry, String operation, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("puphax.soap.calls", flight, f -> f.executedCount())
+            .description("PUPHAX SOAP calls executed after request coalescing")
+            .tag("operation", operation)
+            .register(registry);
+        FunctionCounter.builder("puphax.soap.coalesced", flight, f -> f.coalescedCount())
+            .description("Callers served by an identical PUPHAX call already in flight")
+            .tag("operation", operation)
+            .register(registry);
+        Gauge.builder("puphax.soap.in-flight", flight, f -> f.inFlightCount())
+            .description("Distinct PUPHAX calls currently in flight")
+            .tag("operation", operation)
+            .register(registry);
+    }
+    
+    private static void registerLimiterMetrics(MeterRegistry registry, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("puphax.soap.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Current adaptive limit on concurrent PUPHAX calls")
+            .register(registry);
+        Gauge.builder("puphax.soap.limiter.active", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+            .description("PUPHAX calls currently holding a limiter permit")
+            .register(registry);
+        for (Priority priority : Priority.values()) {
+            Gauge.builder("puphax.soap.limiter.queue-depth", limiter, l -> l.getQueueDepth(priority))
+                .description("Callers waiting for a PUPHAX call slot")
+                .tag("priority", priority.name().toLowerCase())
+                .register(registry);
+        }
+        FunctionCounter.builder("puphax.soap.limiter.rejected", limiter, AdaptiveConcurrencyLimiter::rejectedCount)
+            .description("PUPHAX calls rejected because the limiter queue was full or the wait timed out")
+            .register(registry);
     }
     
     /**
-     * Search drugs using direct HTTP call.
+     * Search drugs using direct HTTP call. Differently spelled searches share one cache entry and one
+     * PUPHAX call through their {@link #searchKey canonical key}; PUPHAX itself is sent the trimmed term
+     * as typed, because its name filter is case- and accent-sensitive.
      */
-    @Cacheable(value = "drug-search-results", key = "#searchTerm", unless = "#result == null")
+    @Cacheable(value = "drug-search-results", key = "T(com.puphax.service.SimplePuphaxClient).searchKey(#searchTerm)",
+        unless = "#result == null || T(com.puphax.service.SimplePuphaxClient).isEmptyTermeklista(#result)")
     public String searchDrugsSimple(String searchTerm) {
+        String key = searchKey(searchTerm);
+        String term = DrugSearchKey.queryTerm(searchTerm);
         try {
             // Calculate snapshot date to reduce server load (don't query full 15-year history)
             LocalDate snapshotDate = useCurrentSnapshot
                 ? LocalDate.now().minusMonths(snapshotDateOffsetMonths)
                 : LocalDate.now();
 
-            logger.info("Making direct HTTP call to PUPHAX for search term: {} (snapshot date: {})", searchTerm, snapshotDate);
-
-            String soapRequest = buildTermeklistaRequest(searchTerm, snapshotDate);
-            logger.debug("SOAP Request: {}", soapRequest);
+            logger.info("Making direct HTTP call to PUPHAX for search term: {} (snapshot date: {})", term, snapshotDate);
 
-            return executeSoapCall(soapRequest, "TERMEKLISTA");
+            return rememberNegative("TERMEKLISTA", key, SimplePuphaxClient::isEmptyTermeklista,
+                () -> searchFlight.execute("TERMEKLISTA:" + key + ":" + snapshotDate, () -> {
+                    return executeSoapCall(buildTermeklistaRequest(term, snapshotDate), "TERMEKLISTA");
+                }));
             
         } catch (Exception e) {
             logger.error("Direct PUPHAX call failed: {}", e.getMessage(), e);
@@ -85,147 +308,61 @@ public class SimplePuphaxClient {
         }
     }
     
+    /**
+     * Canonical form of a search term: trimmed, whitespace collapsed, case- and accent-folded.
+     */
+    public static String searchKey(String searchTerm) {
+        return DrugSearchKey.canonicalTerm(searchTerm);
+    }
+    
+    /**
+     * Whether a TERMEKLISTA response is a SOAP envelope listing no product.
+     */
+    public static boolean isEmptyTermeklista(String response) {
+        return response.contains("Envelope") && !PRODUCT_ID_PATTERN.matcher(response).find();
+    }
+    
     private String getBasicAuth() {
         String auth = username + ":" + password;
         return "Basic " + Base64.getEncoder().encodeToString(auth.getBytes());
     }
     
-    private String retryWithBasicAuth(String soapRequest, String soapAction) throws Exception {
-        HttpPost request = new HttpPost(puphaxEndpoint);
-        request.setHeader("Content-Type", "text/xml; charset=UTF-8");
-        request.setHeader("SOAPAction", soapAction);
-        request.setHeader("Authorization", getBasicAuth());
-        request.setEntity(new StringEntity(soapRequest, StandardCharsets.UTF_8));
+    private <T> T retryWithBasicAuth(byte[] soapRequest, String soapAction, ResponseReader<T> reader) throws Exception {
+        HttpPost request = buildPost(soapRequest, soapAction, getBasicAuth());
         
         try (ClassicHttpResponse response = httpClient.execute(request)) {
             int statusCode = response.getCode();
-            HttpEntity entity = response.getEntity();
-            String responseBody = EntityUtils.toString(entity, Charset.forName("ISO-8859-2"));
             
             if (statusCode == 200) {
-                return fixCharacterEncoding(responseBody);
+                return readBody(response, reader);
             } else {
+                EntityUtils.consume(response.getEntity());
                 throw new RuntimeException("Basic auth also failed: " + statusCode);
             }
         }
     }
     
-    private String createDigestAuthHeader(String wwwAuthenticate, String method, String uri, String requestBody) {
-        try {
-            // Parse the challenge
-            Pattern realmPattern = Pattern.compile("realm=\"([^\"]+)\"");
-            Pattern noncePattern = Pattern.compile("nonce=\"([^\"]+)\"");
-            Pattern opaquePattern = Pattern.compile("opaque=\"([^\"]+)\"");
-            Pattern qopPattern = Pattern.compile("qop=\"([^\"]+)\"");
-            
-            Matcher realmMatcher = realmPattern.matcher(wwwAuthenticate);
-            Matcher nonceMatcher = noncePattern.matcher(wwwAuthenticate);
-            Matcher opaqueMatcher = opaquePattern.matcher(wwwAuthenticate);
-            Matcher qopMatcher = qopPattern.matcher(wwwAuthenticate);
-            
-            String realm = realmMatcher.find() ? realmMatcher.group(1) : "";
-            String nonce = nonceMatcher.find() ? nonceMatcher.group(1) : "";
-            String opaque = opaqueMatcher.find() ? opaqueMatcher.group(1) : "";
-            String qop = qopMatcher.find() ? qopMatcher.group(1) : "auth";
-            
-            // Generate client nonce
-            String cnonce = UUID.randomUUID().toString().replace("-", "");
-            String nc = "00000001";
-            
-            // Calculate response
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            
-            // HA1 = MD5(username:realm:password)
-            String ha1Input = username + ":" + realm + ":" + password;
-            byte[] ha1Bytes = md.digest(ha1Input.getBytes("UTF-8"));
-            String ha1 = bytesToHex(ha1Bytes);
-            
-            // HA2 = MD5(method:uri)
-            String ha2Input = method + ":" + uri;
-            md.reset();
-            byte[] ha2Bytes = md.digest(ha2Input.getBytes("UTF-8"));
-            String ha2 = bytesToHex(ha2Bytes);
-            
-            // response = MD5(HA1:nonce:nc:cnonce:qop:HA2)
-            String responseInput = ha1 + ":" + nonce + ":" + nc + ":" + cnonce + ":" + qop + ":" + ha2;
-            md.reset();
-            byte[] responseBytes = md.digest(responseInput.getBytes("UTF-8"));
-            String response = bytesToHex(responseBytes);
-            
-            // Build Authorization header
-            StringBuilder authHeader = new StringBuilder("Digest ");
-            authHeader.append("username=\"").append(username).append("\", ");
-            authHeader.append("realm=\"").append(realm).append("\", ");
-            authHeader.append("nonce=\"").append(nonce).append("\", ");
-            authHeader.append("uri=\"").append(uri).append("\", ");
-            authHeader.append("qop=").append(qop).append(", ");
-            authHeader.append("nc=").append(nc).append(", ");
-            authHeader.append("cnonce=\"").append(cnonce).append("\", ");
-            authHeader.append("response=\"").append(response).append("\"");
-            
-            if (!opaque.isEmpty()) {
-                authHeader.append(", opaque=\"").append(opaque).append("\"");
-            }
-            
-            return authHeader.toString();
-            
-        } catch (Exception e) {
-            logger.error("Failed to create digest auth header", e);
-            throw new RuntimeException("Digest auth creation failed", e);
-        }
-    }
-    
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
-        }
-        return result.toString();
-    }
-    
-    private String buildTermeklistaRequest(String searchTerm, LocalDate searchDate) {
+    private byte[] buildTermeklistaRequest(String searchTerm, LocalDate searchDate) {
         String dateStr = searchDate.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        String filterXml = "";
+        byte[] filterXml = NO_FILTER;
         
         if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-            // Format the filter XML with proper indentation like in the documentation
             // Add wildcard % for partial matches
-            String termWithWildcard = searchTerm.toUpperCase() + "%";
-            filterXml = String.format("""
-                <alapfilter>
-                    <TNEV>%s</TNEV>
-                </alapfilter>""", escapeXml(termWithWildcard));
+            filterXml = TERMEKLISTA_FILTER.render(searchTerm.toUpperCase() + "%");
         }
         
-        return String.format("""
-            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
-               <soapenv:Header/>
-               <soapenv:Body>
-                  <pup:COBJIDLISTA-TERMEKLISTAInput>
-                     <pup:DSP-DATE-IN>%s</pup:DSP-DATE-IN>
-                     <pup:SXFILTER-VARCHAR2-IN>
-                        <![CDATA[
-%s
-                        ]]>
-                     </pup:SXFILTER-VARCHAR2-IN>
-                  </pup:COBJIDLISTA-TERMEKLISTAInput>
-               </soapenv:Body>
-            </soapenv:Envelope>""", dateStr, filterXml);
-    }
-    
-    /**
-     * Get product basic data using TERMEKADAT operation.
+        return TERMEKLISTA_REQUEST.render(dateStr, filterXml);
+    }
+    
+    /**
+     * Get the raw TERMEKADAT response (uncached; searches use {@link #getProductDetails}).
      * This returns product name, ATC code, manufacturer etc.
      */
-    @Cacheable(value = "product-details", key = "#productId + '_' + #searchDate", unless = "#result == null")
     public String getProductData(String productId, LocalDate searchDate) {
         try {
-            String soapRequest = buildTermekadatRequest(productId, searchDate);
-            
             logger.info("Making direct HTTP call to PUPHAX TERMEKADAT for product ID: {}", productId);
-            logger.debug("TERMEKADAT SOAP Request: {}", soapRequest);
             
-            return executeSoapCall(soapRequest, "TERMEKADAT");
+            return executeSoapCall(buildTermekadatRequest(productId, searchDate), "TERMEKADAT");
             
         } catch (Exception e) {
             logger.error("TERMEKADAT call failed for product {}: {}", productId, e.getMessage());
@@ -234,17 +371,13 @@ public class SimplePuphaxClient {
     }
     
     /**
-     * Get product support data using TAMOGATADAT operation.
+     * Get the raw TAMOGATADAT response (uncached; searches use {@link #getProductSupport}).
      */
-    @Cacheable(value = "support-data", key = "#productId + '_' + #searchDate", unless = "#result == null")
     public String getProductSupportData(String productId, LocalDate searchDate) {
         try {
-            String soapRequest = buildTamogatadatRequest(productId, searchDate);
-            
             logger.info("Making direct HTTP call to PUPHAX TAMOGATADAT for product ID: {}", productId);
-            logger.debug("TAMOGATADAT SOAP Request: {}", soapRequest);
             
-            return executeSoapCall(soapRequest, "TAMOGATADAT");
+            return executeSoapCall(buildTamogatadatRequest(productId, searchDate), "TAMOGATADAT");
             
         } catch (Exception e) {
             logger.error("TAMOGATADAT call failed for product {}: {}", productId, e.getMessage());
@@ -252,119 +385,470 @@ public class SimplePuphaxClient {
         }
     }
     
-    private String buildTermekadatRequest(String productId, LocalDate searchDate) {
-        // Based on the sample document, TERMEKADAT only needs the product ID
-        return String.format("""
-            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
-               <soapenv:Header/>
-               <soapenv:Body>
-                  <pup:COBJTERMEKADAT-TERMEKADATInput>
-                     <pup:NID-NUMBER-IN>%s</pup:NID-NUMBER-IN>
-                  </pup:COBJTERMEKADAT-TERMEKADATInput>
-               </soapenv:Body>
-            </soapenv:Envelope>""", escapeXml(productId));
-    }
-    
-    private String buildTamogatadatRequest(String productId, LocalDate searchDate) {
-        String dateStr = searchDate.format(DateTimeFormatter.ISO_LOCAL_DATE);
-        
-        return String.format("""
-            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
-               <soapenv:Header/>
-               <soapenv:Body>
-                  <pup:COBJTAMOGAT-TAMOGATADATInput>
-                     <pup:DSP-DATE-IN>%s</pup:DSP-DATE-IN>
-                     <pup:NID-NUMBER-IN>%s</pup:NID-NUMBER-IN>
-                  </pup:COBJTAMOGAT-TAMOGATADATInput>
-               </soapenv:Body>
-            </soapenv:Envelope>""", escapeXml(dateStr), escapeXml(productId));
+    /**
+     * Get product basic data using TERMEKADAT, decoded while the response streams in.
+     */
+    @Cacheable(value = "product-details", key = "#productId + '_' + #searchDate",
+        unless = "#result == null || #result.isFault()")
+    public TermekAdat getProductDetails(String productId, LocalDate searchDate) {
+        return fetchProductDetails(productId, searchDate);
     }
     
-    private String escapeXml(String text) {
-        if (text == null) {
-            return "";
+    /**
+     * Uncached {@link #getProductDetails}, still coalesced with identical calls in flight; used to refresh the cache.
+     */
+    public TermekAdat fetchProductDetails(String productId, LocalDate searchDate) {
+        try {
+            return rememberNegative("TERMEKADAT", productId + "_" + searchDate, NO_EMPTY_ANSWER,
+                () -> termekadatFlight.execute(productId + ":" + searchDate, () -> {
+                    logger.info("Making direct HTTP call to PUPHAX TERMEKADAT for product ID: {}", productId);
+                    return executeSoapCall(buildTermekadatRequest(productId, searchDate), "TERMEKADAT",
+                        PuphaxResponseReader::readTermekAdat);
+                }));
+            
+        } catch (Exception e) {
+            logger.error("TERMEKADAT call failed for product {}: {}", productId, e.getMessage());
+            throw new RuntimeException("Failed to get product data", e);
         }
-        return text.replace("&", "&amp;")
-                  .replace("<", "&lt;")
-                  .replace(">", "&gt;")
-                  .replace("\"", "&quot;")
-                  .replace("'", "&apos;");
+    }
+    
+    /**
+     * Get product support data using TAMOGATADAT, decoded while the response streams in.
+     */
+    @Cacheable(value = "support-data", key = "#productId + '_' + #searchDate",
+        unless = "#result == null || #result.isFault()")
+    public TamogatAdat getProductSupport(String productId, LocalDate searchDate) {
+        return fetchProductSupport(productId, searchDate);
+    }
+    
+    /**
+     * Uncached {@link #getProductSupport}; used to refresh the cache.
+     */
+    public TamogatAdat fetchProductSupport(String productId, LocalDate searchDate) {
+        try {
+            return rememberNegative("TAMOGATADAT", productId + "_" + searchDate, NO_EMPTY_ANSWER,
+                () -> tamogatadatFlight.execute(productId + ":" + searchDate, () -> {
+                    logger.info("Making direct HTTP call to PUPHAX TAMOGATADAT for product ID: {}", productId);
+                    return executeSoapCall(buildTamogatadatRequest(productId, searchDate), "TAMOGATADAT",
+                        PuphaxResponseReader::readTamogatAdat);
+                }));
+            
+        } catch (Exception e) {
+            logger.error("TAMOGATADAT call failed for product {}: {}", productId, e.getMessage());
+            throw new RuntimeException("Failed to get product support data", e);
+        }
+    }
+    
+    /**
+     * Whether SOAP calls use the non-blocking transport, so the {@code *Async} lookups are available.
+     */
+    public boolean isAsyncTransport() {
+        return asyncClient != null;
+    }
+    
+    /**
+     * Asynchronous {@link #getProductDetails}: served from the same cache, coalesced with
+     * identical calls in flight, and completed on the I/O reactor.
+     * <p>
+     * A call that goes to PUPHAX first takes a slot of the concurrency limiter, and
+     * <b>blocks the calling thread</b> while it queues for one (up to the limiter's maximum
+     * wait). Only the exchange itself runs without holding a thread.
+     */
+    public CompletableFuture<TermekAdat> getProductDetailsAsync(String productId, LocalDate searchDate) {
+        String key = productId + ":" + searchDate;
+        return cachedAsync("product-details", productId + "_" + searchDate, TermekAdat.class, TermekAdat::isFault,
+            () -> rememberNegativeAsync("TERMEKADAT", productId + "_" + searchDate, NO_EMPTY_ANSWER,
+                () -> termekadatFlight.executeAsync(key, () -> {
+                    logger.info("Making async HTTP call to PUPHAX TERMEKADAT for product ID: {}", productId);
+                    return executeSoapCallAsync(buildTermekadatRequest(productId, searchDate), "TERMEKADAT",
+                        PuphaxResponseReader::readTermekAdat);
+                })));
+    }
+    
+    /**
+     * Asynchronous {@link #getProductSupport}; blocks the calling thread while queuing for a
+     * limiter slot, like {@link #getProductDetailsAsync}.
+     */
+    public CompletableFuture<TamogatAdat> getProductSupportAsync(String productId, LocalDate searchDate) {
+        String key = productId + ":" + searchDate;
+        return cachedAsync("support-data", productId + "_" + searchDate, TamogatAdat.class, TamogatAdat::isFault,
+            () -> rememberNegativeAsync("TAMOGATADAT", productId + "_" + searchDate, NO_EMPTY_ANSWER,
+                () -> tamogatadatFlight.executeAsync(key, () -> {
+                    logger.info("Making async HTTP call to PUPHAX TAMOGATADAT for product ID: {}", productId);
+                    return executeSoapCallAsync(buildTamogatadatRequest(productId, searchDate), "TAMOGATADAT",
+                        PuphaxResponseReader::readTamogatAdat);
+                })));
+    }
+    
+    /**
+     * Looks the key up in the cache the synchronous {@code @Cacheable} method uses and stores a loaded value there,
+     * unless it is a fault.
+     */
+    private <T> CompletableFuture<T> cachedAsync(String cacheName, String key, Class<T> type, Predicate<T> isFault,
+                                                 Supplier<CompletableFuture<T>> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        T cached = cache != null ? cache.get(key, type) : null;
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return loader.get().thenApply(value -> {
+            if (cache != null && value != null && !isFault.test(value)) {
+                cache.put(key, value);
+            }
+            return value;
+        });
+    }
+    
+    /**
+     * Repeats a recent empty answer or client fault to the same call, or makes the call and remembers such an
+     * answer. Transient failures, including server-side faults, are rethrown without being remembered; so are
+     * fault records in a 200 response, which carry no fault code to tell a bad request from a server problem.
+     */
+    private <T> T rememberNegative(String operation, String key, Predicate<? super T> isEmpty, Callable<T> call)
+            throws Exception {
+        NegativeResultCache.Entry known = negativeResults.get(operation, key);
+        if (known != null) {
+            return known.replay();
+        }
+        try {
+            T result = call.call();
+            rememberResult(operation, key, isEmpty, result);
+            return result;
+        } catch (PuphaxSoapFaultException e) {
+            rememberFault(operation, key, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Non-blocking {@link #rememberNegative}.
+     */
+    private <T> CompletableFuture<T> rememberNegativeAsync(String operation, String key, Predicate<? super T> isEmpty,
+                                                          Supplier<CompletableFuture<T>> call) {
+        NegativeResultCache.Entry known = negativeResults.get(operation, key);
+        if (known != null) {
+            try {
+                return CompletableFuture.completedFuture(known.replay());
+            } catch (PuphaxSoapFaultException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return call.get().whenComplete((result, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof PuphaxSoapFaultException fault) {
+                rememberFault(operation, key, fault);
+            } else if (cause == null) {
+                rememberResult(operation, key, isEmpty, result);
+            }
+        });
+    }
+    
+    private <T> void rememberResult(String operation, String key, Predicate<? super T> isEmpty, T result) {
+        if (result != null && isEmpty.test(result)) {
+            negativeResults.putEmpty(operation, key, result);
+        }
+    }
+    
+    private void rememberFault(String operation, String key, PuphaxSoapFaultException fault) {
+        if (fault.isClientFault()) {
+            negativeResults.putFault(operation, key, fault);
+        }
+    }
+    
+    private byte[] buildTermekadatRequest(String productId, LocalDate searchDate) {
+        // Based on the sample document, TERMEKADAT only needs the product ID
+        return TERMEKADAT_REQUEST.render(productId);
+    }
+    
+    private byte[] buildTamogatadatRequest(String productId, LocalDate searchDate) {
+        return TAMOGATADAT_REQUEST.render(searchDate.format(DateTimeFormatter.ISO_LOCAL_DATE), productId);
+    }
+    
+    /**
+     * Decodes a successful response body.
+     */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(Reader body) throws Exception;
     }
     
     /**
      * Execute a SOAP call to PUPHAX service with digest authentication.
      * This is a generic method for making SOAP calls to any PUPHAX endpoint.
      */
-    private String executeSoapCall(String soapRequest, String soapAction) throws Exception {
-        // Create HTTP POST request using Apache HttpClient
-        HttpPost initialRequest = new HttpPost(puphaxEndpoint);
-        initialRequest.setHeader("Content-Type", "text/xml; charset=UTF-8");
-        initialRequest.setHeader("SOAPAction", soapAction);
-        initialRequest.setEntity(new StringEntity(soapRequest, StandardCharsets.UTF_8));
+    private String executeSoapCall(byte[] soapRequest, String soapAction) throws Exception {
+        return executeSoapCall(soapRequest, soapAction, body -> {
+            StringWriter responseBody = new StringWriter();
+            body.transferTo(responseBody);
+            return responseBody.toString();
+        });
+    }
+    
+    /**
+     * Execute a SOAP call within the concurrency limit and hand the successful response body to the reader.
+     * Timeouts, I/O failures and 5xx responses shrink the limit; other failures leave it unchanged.
+     */
+    private <T> T executeSoapCall(byte[] soapRequest, String soapAction, ResponseReader<T> reader) throws Exception {
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} SOAP Request: {}", soapAction, new String(soapRequest, StandardCharsets.UTF_8));
+        }
+        if (asyncClient != null) {
+            return await(executeSoapCallAsync(soapRequest, soapAction, reader));
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        try {
+            T result = sendSoapCall(soapRequest, soapAction, reader);
+            permit.onSuccess();
+            return result;
+        } catch (Exception e) {
+            if (isOverload(e)) {
+                permit.onDropped();
+            }
+            throw e;
+        } finally {
+            permit.release();
+        }
+    }
+    
+    /**
+     * Whether a failed call says PUPHAX is struggling: I/O errors, timeouts, 5xx responses and server-side
+     * SOAP faults. Client faults and other failures say nothing about its load.
+     */
+    private static boolean isOverload(Throwable failure) {
+        return failure instanceof IOException || failure instanceof PuphaxConnectionException
+            || failure instanceof PuphaxSoapFaultException fault && !fault.isClientFault();
+    }
+    
+    private <T> T sendSoapCall(byte[] soapRequest, String soapAction, ResponseReader<T> reader) throws Exception {
+        // Sign pre-emptively with the last digest challenge; only a 401 costs the extra round trip
+        String authorization = digestSession.authorize("POST", DIGEST_URI);
         
-        try (ClassicHttpResponse initialResponse = httpClient.execute(initialRequest)) {
-            int statusCode = initialResponse.getCode();
-            HttpEntity entity = initialResponse.getEntity();
-            String responseBody = EntityUtils.toString(entity, Charset.forName("ISO-8859-2"));
+        try (ClassicHttpResponse response = httpClient.execute(buildPost(soapRequest, soapAction, authorization))) {
+            int statusCode = response.getCode();
             
             if (statusCode == 200) {
-                // If we get 200 immediately, PUPHAX might not require auth for this call
-                String fixedResponseBody = fixCharacterEncoding(responseBody);
-                logger.debug("PUPHAX response without auth (first 1000 chars): {}", 
-                    fixedResponseBody.length() > 1000 ? fixedResponseBody.substring(0, 1000) : fixedResponseBody);
-                return fixedResponseBody;
-            } else if (statusCode == 401) {
-                // Extract WWW-Authenticate header for digest challenge
-                String authHeader = initialResponse.getFirstHeader("WWW-Authenticate") != null 
-                    ? initialResponse.getFirstHeader("WWW-Authenticate").getValue() : "";
-                logger.debug("Received digest challenge: {}", authHeader);
-                
-                if (authHeader.startsWith("Digest")) {
-                    // Parse digest challenge and create response
-                    String digestAuth = createDigestAuthHeader(authHeader, "POST", "/PUPHAXWS", soapRequest);
-                    
-                    // Retry with digest auth
-                    HttpPost authRequest = new HttpPost(puphaxEndpoint);
-                    authRequest.setHeader("Content-Type", "text/xml; charset=UTF-8");
-                    authRequest.setHeader("SOAPAction", soapAction);
-                    authRequest.setHeader("Authorization", digestAuth);
-                    authRequest.setEntity(new StringEntity(soapRequest, StandardCharsets.UTF_8));
-                    
-                    try (ClassicHttpResponse authResponse = httpClient.execute(authRequest)) {
-                        int authStatusCode = authResponse.getCode();
-                        HttpEntity authEntity = authResponse.getEntity();
-                        String authResponseBody = EntityUtils.toString(authEntity, Charset.forName("ISO-8859-2"));
-                        
-                        if (authStatusCode == 200) {
-                            String fixedAuthResponseBody = fixCharacterEncoding(authResponseBody);
-                            logger.debug("PUPHAX authenticated response (first 1000 chars): {}", 
-                                fixedAuthResponseBody.length() > 1000 ? fixedAuthResponseBody.substring(0, 1000) : fixedAuthResponseBody);
-                            return fixedAuthResponseBody;
-                        } else {
-                            throw new RuntimeException("PUPHAX authentication failed. Status: " + authStatusCode);
-                        }
-                    }
-                } else {
-                    // Fallback to basic auth
-                    return retryWithBasicAuth(soapRequest, soapAction);
+                logger.debug("PUPHAX {} response ({})", soapAction, authorization != null ? "pre-authenticated" : "without auth");
+                return readBody(response, reader);
+            }
+            if (statusCode != 401) {
+                throw unexpectedStatus(statusCode, readBody(response, SimplePuphaxClient::readFaultQuietly));
+            }
+            EntityUtils.consume(response.getEntity());
+            
+            String authHeader = response.getFirstHeader("WWW-Authenticate") != null 
+                ? response.getFirstHeader("WWW-Authenticate").getValue() : "";
+            if (!DigestAuthSession.isDigest(authHeader)) {
+                // Fallback to basic auth
+                return retryWithBasicAuth(soapRequest, soapAction, reader);
+            }
+            logDigestChallenge(authHeader, authorization);
+            digestSession.challenge(authHeader, username, password);
+        }
+        
+        // Retry once with the fresh challenge
+        try (ClassicHttpResponse authResponse = httpClient.execute(
+                buildPost(soapRequest, soapAction, digestSession.authorize("POST", DIGEST_URI)))) {
+            int authStatusCode = authResponse.getCode();
+            
+            if (authStatusCode == 200) {
+                logger.debug("PUPHAX {} authenticated response", soapAction);
+                return readBody(authResponse, reader);
+            }
+            EntityUtils.consume(authResponse.getEntity());
+            digestSession.invalidate();
+            throw new RuntimeException("PUPHAX authentication failed. Status: " + authStatusCode);
+        }
+    }
+    
+    private HttpPost buildPost(byte[] soapRequest, String soapAction, String authorization) {
+        HttpPost request = new HttpPost(puphaxEndpoint);
+        request.setHeader("SOAPAction", soapAction);
+        if (authorization != null) {
+            request.setHeader("Authorization", authorization);
+        }
+        request.setEntity(new ByteArrayEntity(soapRequest, SOAP_CONTENT_TYPE));
+        return request;
+    }
+    
+    /**
+     * The exception for a non-200, non-401 response. A SOAP fault in the body is NEAK's answer to the request
+     * (SOAP 1.1 sends faults as HTTP 500), unless a gateway in front of it failed (502, 503, 504). Whether the
+     * fault is the request's fault or a transient server one is up to {@link PuphaxSoapFaultException#isClientFault}.
+     */
+    private RuntimeException unexpectedStatus(int statusCode, SoapFault fault) {
+        if (fault != null && statusCode != 502 && statusCode != 503 && statusCode != 504) {
+            logger.debug("PUPHAX SOAP fault {} (HTTP {}): {}", fault.code(), statusCode, fault.message());
+            return new PuphaxSoapFaultException(fault.code(), fault.message());
+        }
+        if (statusCode >= 500) {
+            return new PuphaxConnectionException("PUPHAX unavailable. Status: " + statusCode);
+        }
+        return new RuntimeException("Unexpected response from PUPHAX. Status: " + statusCode);
+    }
+    
+    private void logDigestChallenge(String authHeader, String rejectedAuthorization) {
+        if (rejectedAuthorization == null) {
+            logger.debug("Received digest challenge: {}", authHeader);
+        } else if (DigestAuthSession.isStale(authHeader)) {
+            logger.debug("Digest nonce expired, re-signing with new challenge");
+        } else {
+            logger.info("Pre-emptive digest authorization rejected, re-challenging");
+        }
+    }
+    
+    /**
+     * Execute a SOAP call on the non-blocking transport within the concurrency limit.
+     * The calling thread blocks while it waits for a limiter slot; the exchange, including
+     * the authentication round trip, then completes on the I/O reactor.
+     */
+    private <T> CompletableFuture<T> executeSoapCallAsync(byte[] soapRequest, String soapAction, ResponseReader<T> reader) {
+        AdaptiveConcurrencyLimiter.Permit permit;
+        try {
+            permit = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        CompletableFuture<T> exchange;
+        try {
+            exchange = sendSoapCallAsync(soapRequest, soapAction, reader);
+        } catch (RuntimeException e) {
+            // Failed before anything was sent, e.g. while signing the request
+            permit.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return exchange.whenComplete((result, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause == null) {
+                permit.onSuccess();
+            } else if (isOverload(cause)) {
+                permit.onDropped();
+            }
+            permit.release();
+        });
+    }
+    
+    private <T> CompletableFuture<T> sendSoapCallAsync(byte[] soapRequest, String soapAction, ResponseReader<T> reader) {
+        String authorization = digestSession.authorize("POST", DIGEST_URI);
+        
+        return exchangeAsync(soapRequest, soapAction, authorization).thenCompose(response -> {
+            int statusCode = response.getCode();
+            
+            if (statusCode == 200) {
+                logger.debug("PUPHAX {} response ({})", soapAction, authorization != null ? "pre-authenticated" : "without auth");
+                return CompletableFuture.completedFuture(readBody(response, reader));
+            }
+            if (statusCode != 401) {
+                throw unexpectedStatus(statusCode, readBody(response, SimplePuphaxClient::readFaultQuietly));
+            }
+            Header challenge = response.getFirstHeader("WWW-Authenticate");
+            String authHeader = challenge != null ? challenge.getValue() : "";
+            boolean digest = DigestAuthSession.isDigest(authHeader);
+            if (digest) {
+                logDigestChallenge(authHeader, authorization);
+                digestSession.challenge(authHeader, username, password);
+            }
+            String retryAuthorization = digest ? digestSession.authorize("POST", DIGEST_URI) : getBasicAuth();
+            
+            return exchangeAsync(soapRequest, soapAction, retryAuthorization).thenApply(authResponse -> {
+                if (authResponse.getCode() == 200) {
+                    logger.debug("PUPHAX {} authenticated response", soapAction);
+                    return readBody(authResponse, reader);
                 }
-            } else {
-                throw new RuntimeException("Unexpected response from PUPHAX. Status: " + statusCode);
+                if (digest) {
+                    digestSession.invalidate();
+                }
+                throw new RuntimeException((digest ? "PUPHAX authentication failed. Status: " : "Basic auth also failed: ")
+                    + authResponse.getCode());
+            });
+        });
+    }
+    
+    private CompletableFuture<SimpleHttpResponse> exchangeAsync(byte[] soapRequest, String soapAction, String authorization) {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.post(puphaxEndpoint)
+            .setHeader("SOAPAction", soapAction)
+            .setBody(soapRequest, SOAP_CONTENT_TYPE);
+        if (authorization != null) {
+            builder.setHeader("Authorization", authorization);
+        }
+        SimpleHttpRequest request = builder.build();
+        
+        CompletableFuture<SimpleHttpResponse> future = new CompletableFuture<>();
+        asyncClient.execute(request, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                future.complete(response);
+            }
+            
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(e);
+            }
+            
+            @Override
+            public void cancelled() {
+                future.cancel(false);
             }
+        });
+        return future;
+    }
+    
+    /**
+     * Decodes a buffered async response.
+     */
+    private <T> T readBody(SimpleHttpResponse response, ResponseReader<T> reader) {
+        byte[] body = response.getBodyBytes();
+        try (Reader bodyReader = PuphaxResponseDecoder.open(new ByteArrayInputStream(body != null ? body : new byte[0]))) {
+            return reader.read(bodyReader);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
         }
     }
-
+    
+    /**
+     * Waits for an async call on behalf of a synchronous operation, rethrowing its original failure.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        } catch (CancellationException e) {
+            throw new PuphaxConnectionException("PUPHAX call cancelled", e);
+        }
+    }
+    
     /**
-     * Fix character encoding issues in PUPHAX responses.
-     * Since we're now reading responses as ISO-8859-2, this method just ensures
-     * the XML declaration matches the actual encoding.
+     * The SOAP fault in an error response body, or null if the body is not one.
      */
-    private String fixCharacterEncoding(String response) {
-        // Since we're now correctly reading as ISO-8859-2, just fix the XML declaration
-        if (response.contains("<?xml") && response.contains("UTF-8")) {
-            response = response.replace("UTF-8", "ISO-8859-2");
+    private static SoapFault readFaultQuietly(Reader body) {
+        try {
+            return PuphaxResponseReader.readFault(body);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Decodes the response entity in a single pass from the connection stream.
+     */
+    private <T> T readBody(ClassicHttpResponse response, ResponseReader<T> reader) throws Exception {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return reader.read(Reader.nullReader());
+        }
+        try (Reader body = PuphaxResponseDecoder.open(entity.getContent())) {
+            return reader.read(body);
         }
-        return response;
     }
     
     /**
@@ -383,8 +867,7 @@ public class SimplePuphaxClient {
         }
         
         try {
-            String soapRequest = buildCegekRequest(companyId);
-            String response = executeSoapCall(soapRequest, "COBJALAP.TABCEGEK");
+            String response = executeSoapCall(buildCegekRequest(companyId), "COBJALAP.TABCEGEK");
             
             // Extract company name from response
             String companyName = extractCompanyName(response);
@@ -402,25 +885,56 @@ public class SimplePuphaxClient {
         }
     }
     
+    /**
+     * Pull a whole PUPHAX code table (TABCEGEK, TABATC, ...) in one call.
+     * Used by the reference table sync, not per request.
+     */
+    public List<KodTablaSor> getReferenceTable(ReferenceTable table) throws Exception {
+        byte[] request = CODE_TABLE_REQUEST.render(table.inputElement(), table.inputElement());
+        KodTabla result = executeSoapCall(request, table.soapAction(), PuphaxResponseReader::readKodTabla);
+        if (result.isFault()) {
+            throw new PuphaxServiceException("REFERENCE_TABLE_FAULT", table.operation() + " failed: " + result.fault());
+        }
+        logger.info("Fetched {} rows of PUPHAX {}", result.rows().size(), table.operation());
+        return result.rows();
+    }
+    
+    /**
+     * Publications (KIHIRD) of the product master data from the given date on,
+     * including that date if it is a publication day.
+     */
+    public List<Kihirdetes> getPublications(LocalDate since) throws Exception {
+        byte[] request = KIHIRD_REQUEST.render(since.toString());
+        KihirdLista result = executeSoapCall(request, "KIHIRD", PuphaxResponseReader::readKihird);
+        if (result.isFault()) {
+            throw new PuphaxServiceException("PUBLICATION_LIST_FAULT", "KIHIRD failed: " + result.fault());
+        }
+        return result.publications();
+    }
+
+    /**
+     * One page of products that changed between two dates (DISP_DIFF).
+     *
+     * @param changeType VALTTIP filter: U new, M changed (listed in both states), T deleted
+     * @param first 1-based position of the first product of the page
+     * @param count page size (at most 100 for the DISP methods)
+     */
+    public DispLista getProductChanges(LocalDate from, LocalDate to, String changeType, int first, int count)
+            throws Exception {
+        byte[] request = DISP_DIFF_REQUEST.render(from.toString(), to.toString(), changeType,
+            String.valueOf(first), String.valueOf(count));
+        DispLista result = executeSoapCall(request, "DISP_DIFF", PuphaxResponseReader::readDisp);
+        if (result.isFault()) {
+            throw new PuphaxServiceException("PRODUCT_CHANGES_FAULT", "DISP_DIFF failed: " + result.fault());
+        }
+        return result;
+    }
+
     /**
      * Build SOAP request for CEGEK (companies) query.
      */
-    private String buildCegekRequest(String companyId) {
-        return String.format("""
-            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/" xmlns:pup="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
-               <soapenv:Header/>
-               <soapenv:Body>
-                  <pup:COBJALAP-TABCEGEKInput>
-                     <pup:SXFILTER-VARCHAR2-IN>
-                       <![CDATA[
-                            <alapfilter>
-                                <CEGID>%s</CEGID>
-                            </alapfilter>
-                       ]]>
-                     </pup:SXFILTER-VARCHAR2-IN>
-                  </pup:COBJALAP-TABCEGEKInput>
-               </soapenv:Body>
-            </soapenv:Envelope>""", escapeXml(companyId));
+    private byte[] buildCegekRequest(String companyId) {
+        return CEGEK_REQUEST.render(companyId);
     }
     
     /**
@@ -432,8 +946,7 @@ public class SimplePuphaxClient {
         }
         
         // Look for ELNEVEZ tag which contains the company name
-        Pattern pattern = Pattern.compile("<ELNEVEZ>([^<]+)</ELNEVEZ>");
-        Matcher matcher = pattern.matcher(response);
+        Matcher matcher = COMPANY_NAME_PATTERN.matcher(response);
         
         if (matcher.find()) {
             return matcher.group(1).trim();
@@ -449,7 +962,7 @@ public class SimplePuphaxClient {
     /**
      * Evict search results from cache for a specific search term.
      */
-    @CacheEvict(value = "drug-search-results", key = "#searchTerm")
+    @CacheEvict(value = "drug-search-results", key = "T(com.puphax.service.SimplePuphaxClient).searchKey(#searchTerm)")
     public void evictSearchCache(String searchTerm) {
         logger.info("Evicted search cache for term: {}", searchTerm);
     }
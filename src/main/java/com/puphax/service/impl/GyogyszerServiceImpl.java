@@ -1,6 +1,7 @@
 package com.puphax.service.impl;
 
 import com.puphax.model.dto.GyogyszerKeresesiValasz;
+import com.puphax.model.dto.DrugSearchFilter;
 import com.puphax.model.dto.DrugSearchResponse;
 import com.puphax.model.dto.DrugSummary;
 import com.puphax.model.dto.PaginationInfo;
@@ -57,6 +58,36 @@ public class GyogyszerServiceImpl implements GyogyszerService {
         return konvertalMagyarValaszra(angolValasz, keresettkifejezés);
     }
     
+    @Override
+    public GyogyszerKeresesiValasz kozelitoKeresesGyogyszerek(
+            String keresettkifejezés,
+            String gyarto,
+            String atcKod,
+            int oldal,
+            int meret,
+            String rendezes,
+            String irany) {
+        
+        logger.debug("Magyar közelítő gyógyszer keresés: kifejezés='{}', gyártó='{}', atcKód='{}', oldal={}, méret={}",
+                    keresettkifejezés, gyarto, atcKod, oldal, meret);
+        
+        // Közelítő keresés a helyi indexen, a szűrők a részletes keresés szűrőire fordítva
+        DrugSearchFilter szuro = DrugSearchFilter.builder()
+            .searchTerm(keresettkifejezés)
+            .fuzzy(true)
+            .manufacturers(gyarto != null && !gyarto.isBlank() ? List.of(gyarto) : null)
+            .atcCodes(atcKod != null && !atcKod.isBlank() ? List.of(atcKod) : null)
+            .page(oldal)
+            .size(meret)
+            .sortBy(forditRendezesiMezot(rendezes))
+            .sortDirection(irany)
+            .build();
+        
+        DrugSearchResponse angolValasz = drugService.searchDrugsAdvanced(szuro);
+        
+        return konvertalMagyarValaszra(angolValasz, keresettkifejezés);
+    }
+    
     /**
      * Magyar rendezési mező angol megfelelőjére fordítása.
      */
@@ -69,6 +100,7 @@ public class GyogyszerServiceImpl implements GyogyszerService {
             case "nev" -> "name";
             case "gyarto" -> "manufacturer";
             case "atcKod" -> "atcCode";
+            case "relevancia" -> "relevance";
             default -> "name";
         };
     }
@@ -111,6 +143,7 @@ public class GyogyszerServiceImpl implements GyogyszerService {
         magyarGyogyszer.setVenykoeteles(angolGyogyszer.prescriptionRequired());
         magyarGyogyszer.setTamogatott(angolGyogyszer.reimbursable());
         magyarGyogyszer.setAllapot(forditAllapotot(angolGyogyszer.status()));
+        magyarGyogyszer.setRelevancia(angolGyogyszer.relevanceScore());
         
         // Forrás beállítása
         magyarGyogyszer.setForras("NEAK PUPHAX Adatbázis");
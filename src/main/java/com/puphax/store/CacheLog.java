@@ -0,0 +1,381 @@
+package com.puphax.store;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only key-value log backing one persistent cache tier.
+ *
+ * Every write appends a record and an eviction appends a tombstone; an
+ * in-memory index maps each key to its latest record, so a lookup is one
+ * positional read. Opening the log scans it once (memory-mapped) to rebuild
+ * the index, drops entries older than the maximum age and cuts off a record
+ * torn by a crash mid-append. Once superseded records make up most of the
+ * file it is compacted into a fresh one holding only the live entries.
+ *
+ * Layout (big-endian): magic number and {@link #FORMAT_VERSION}, then records
+ * of [int length of the rest][int CRC32C of the rest][long fetch time in epoch
+ * millis][int key length][key UTF-8][value]. An empty value is a tombstone.
+ * Values are opaque bytes; callers compress them.
+ *
+ * Reads may run concurrently with each other; appends, compaction and
+ * clearing are exclusive.
+ */
+public final class CacheLog implements Closeable {
+
+    /** Bump whenever the layout changes; logs of another version are discarded. */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x5058434C;  // "PXCL"
+    private static final int HEADER_BYTES = 8;
+    // CRC, fetch time and key length, after the length field
+    private static final int RECORD_FIELDS_BYTES = 4 + 8 + 4;
+
+    // Compact once superseded records make up half of a log at least this large
+    private static final long MIN_COMPACTION_BYTES = 4L << 20;
+
+    /**
+     * A stored value with the time it was originally fetched.
+     */
+    public record Entry(byte[] value, Instant fetchedAt) {
+    }
+
+    // Record start and total size (length field included)
+    private record Location(long offset, int size, long fetchedAt) {
+    }
+
+    private final Path path;
+    private final long maxAgeMillis;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel channel;
+    private long end;
+    private long liveBytes;
+
+    private CacheLog(Path path, Duration maxAge) {
+        this.path = path;
+        this.maxAgeMillis = maxAge.toMillis();
+    }
+
+    /**
+     * Opens or creates the log and rebuilds its index.
+     *
+     * @param maxAge entries fetched longer ago are ignored and dropped on compaction
+     */
+    public static CacheLog open(Path path, Duration maxAge) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        CacheLog log = new CacheLog(path, maxAge);
+        log.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            log.load();
+        } catch (IOException | RuntimeException e) {
+            log.channel.close();
+            throw e;
+        }
+        return log;
+    }
+
+    /**
+     * The live entry for the key, or null if there is none or it is older than the maximum age.
+     */
+    public Entry read(String key) throws IOException {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            if (location == null || isExpired(location, System.currentTimeMillis())) {
+                return null;
+            }
+            ByteBuffer record = ByteBuffer.allocate(location.size());
+            readFully(channel, record, location.offset());
+            record.flip();
+            record.getInt();
+            int crc = record.getInt();
+            if (crc != crc(record, record.position(), record.limit())) {
+                return null;
+            }
+            long fetchedAt = record.getLong();
+            int keyLength = record.getInt();
+            record.position(record.position() + keyLength);
+            byte[] value = new byte[record.remaining()];
+            record.get(value);
+            return new Entry(value, Instant.ofEpochMilli(fetchedAt));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a value, superseding any earlier one for the key.
+     */
+    public void append(String key, byte[] value, Instant fetchedAt) throws IOException {
+        if (value.length == 0) {
+            throw new IllegalArgumentException("Empty values are reserved for tombstones");
+        }
+        lock.writeLock().lock();
+        try {
+            Location location = write(key, value, fetchedAt.toEpochMilli());
+            Location previous = index.put(key, location);
+            liveBytes += location.size() - (previous != null ? previous.size() : 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the key, appending a tombstone so it stays removed after a restart.
+     */
+    public void remove(String key) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Location previous = index.remove(key);
+            if (previous != null) {
+                liveBytes -= previous.size();
+                write(key, new byte[0], System.currentTimeMillis());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() throws IOException {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            channel.truncate(HEADER_BYTES);
+            end = HEADER_BYTES;
+            liveBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log with only its live, unexpired entries if superseded records make up most of it.
+     *
+     * @return whether the log was compacted
+     */
+    public boolean compactIfNeeded() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (end < MIN_COMPACTION_BYTES || end < 2 * liveBytes) {
+                return false;
+            }
+            compact();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Number of live keys (some may have expired since the last compaction). */
+    public int size() {
+        return index.size();
+    }
+
+    /** Current file size in bytes. */
+    public long fileBytes() {
+        lock.readLock().lock();
+        try {
+            return end;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES || size > Integer.MAX_VALUE || !hasCurrentHeader()) {
+            resetFile();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int position = HEADER_BYTES;
+        while (position + 4 + RECORD_FIELDS_BYTES <= size) {
+            int length = data.getInt(position);
+            if (length < RECORD_FIELDS_BYTES || position + 4L + length > size) {
+                break;
+            }
+            int bodyStart = position + 8;
+            int bodyEnd = position + 4 + length;
+            if (data.getInt(position + 4) != crc(data, bodyStart, bodyEnd)) {
+                break;
+            }
+            long fetchedAt = data.getLong(bodyStart);
+            int keyLength = data.getInt(bodyStart + 8);
+            int keyStart = bodyStart + 12;
+            if (keyLength < 0 || keyStart + keyLength > bodyEnd) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            data.get(keyStart, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            if (keyStart + keyLength == bodyEnd) {
+                index.remove(key);
+            } else {
+                index.put(key, new Location(position, 4 + length, fetchedAt));
+            }
+            position = bodyEnd;
+        }
+        if (position < size) {
+            // Torn or corrupt tail: keep everything before it
+            channel.truncate(position);
+        }
+        end = position;
+
+        index.values().removeIf(location -> isExpired(location, now));
+        liveBytes = 0;
+        for (Location location : index.values()) {
+            liveBytes += location.size();
+        }
+    }
+
+    private boolean hasCurrentHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == FORMAT_VERSION;
+    }
+
+    private void resetFile() throws IOException {
+        channel.truncate(0);
+        writeHeader(channel);
+        end = HEADER_BYTES;
+        liveBytes = 0;
+        index.clear();
+    }
+
+    private Location write(String key, byte[] value, long fetchedAt) throws IOException {
+        ByteBuffer record = encode(key, value, fetchedAt);
+        int size = record.remaining();
+        long offset = end;
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+        end += size;
+        return new Location(offset, size, fetchedAt);
+    }
+
+    private static ByteBuffer encode(String key, byte[] value, long fetchedAt) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = RECORD_FIELDS_BYTES + keyBytes.length + value.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + length);
+        record.putInt(length);
+        record.putInt(0);  // CRC, filled in below
+        record.putLong(fetchedAt);
+        record.putInt(keyBytes.length);
+        record.put(keyBytes);
+        record.put(value);
+        record.putInt(4, crc(record, 8, record.capacity()));
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Copies the live, unexpired records into a new file and swaps it in. Caller holds the write lock.
+     */
+    private void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        Map<String, Location> compacted = new HashMap<>(index.size() * 4 / 3 + 1);
+        long position = HEADER_BYTES;
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                writeHeader(out);
+                out.position(HEADER_BYTES);
+                for (Map.Entry<String, Location> entry : index.entrySet()) {
+                    Location location = entry.getValue();
+                    if (isExpired(location, now)) {
+                        continue;
+                    }
+                    long copied = 0;
+                    while (copied < location.size()) {
+                        copied += channel.transferTo(location.offset() + copied, location.size() - copied, out);
+                    }
+                    compacted.put(entry.getKey(), new Location(position, location.size(), location.fetchedAt()));
+                    position += location.size();
+                }
+                out.force(true);
+            }
+            channel.close();
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            // On failure the old file is still in place and the index still describes it
+            Files.deleteIfExists(temp);
+            if (!channel.isOpen()) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            }
+        }
+        index.clear();
+        index.putAll(compacted);
+        end = position;
+        liveBytes = position - HEADER_BYTES;
+    }
+
+    private boolean isExpired(Location location, long now) {
+        return now - location.fetchedAt() > maxAgeMillis;
+    }
+
+    private static void writeHeader(FileChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            out.write(header, header.position());
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long offset) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, offset + target.position()) < 0) {
+                throw new EOFException("Cache log ends inside a record");
+            }
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(from, to - from));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,122 @@
+package com.puphax.store;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Dictionary-encoded string column addressed by dense row id.
+ *
+ * Codes are kept in a {@code char[]} (unsigned 16-bit) while the dictionary has
+ * at most 65,536 entries, which covers every categorical TERMEK field (forms,
+ * routes, TTT, ATC, company ids). The column widens itself to {@code int[]}
+ * the first time a larger code is written.
+ */
+public final class DictionaryColumn {
+
+    private static final int NARROW_LIMIT = 1 << 16;
+
+    private final StringDictionary dictionary;
+    private char[] narrowCodes;
+    private int[] wideCodes;
+
+    public DictionaryColumn(int initialCapacity) {
+        this.dictionary = new StringDictionary();
+        this.narrowCodes = new char[initialCapacity];
+    }
+
+    private DictionaryColumn(StringDictionary dictionary, char[] narrowCodes, int[] wideCodes) {
+        this.dictionary = dictionary;
+        this.narrowCodes = narrowCodes;
+        this.wideCodes = wideCodes;
+    }
+
+    public StringDictionary dictionary() {
+        return dictionary;
+    }
+
+    public void set(int row, String value) {
+        setCode(row, dictionary.encode(value));
+    }
+
+    public void setCode(int row, int code) {
+        if (wideCodes == null && code >= NARROW_LIMIT) {
+            widen();
+        }
+        if (wideCodes != null) {
+            wideCodes[row] = code;
+        } else {
+            narrowCodes[row] = (char) code;
+        }
+    }
+
+    public int code(int row) {
+        return wideCodes != null ? wideCodes[row] : narrowCodes[row];
+    }
+
+    public String get(int row) {
+        return dictionary.decode(code(row));
+    }
+
+    public boolean isWide() {
+        return wideCodes != null;
+    }
+
+    void resize(int capacity) {
+        if (wideCodes != null) {
+            wideCodes = Arrays.copyOf(wideCodes, capacity);
+        } else {
+            narrowCodes = Arrays.copyOf(narrowCodes, capacity);
+        }
+    }
+
+    /**
+     * Independent copy with room for {@code capacity} rows.
+     */
+    DictionaryColumn copy(int capacity) {
+        return wideCodes != null
+            ? new DictionaryColumn(dictionary.copy(), null, Arrays.copyOf(wideCodes, capacity))
+            : new DictionaryColumn(dictionary.copy(), Arrays.copyOf(narrowCodes, capacity), null);
+    }
+
+    public long estimatedHeapBytes() {
+        long codesBytes = wideCodes != null ? 16L + 4L * wideCodes.length : 16L + 2L * narrowCodes.length;
+        return codesBytes + dictionary.estimatedHeapBytes();
+    }
+
+    void writeTo(DataOutputStream out, int rows) throws IOException {
+        dictionary.writeTo(out);
+        out.writeBoolean(wideCodes != null);
+        for (int row = 0; row < rows; row++) {
+            if (wideCodes != null) {
+                out.writeInt(wideCodes[row]);
+            } else {
+                out.writeChar(narrowCodes[row]);
+            }
+        }
+    }
+
+    static DictionaryColumn readFrom(ByteBuffer in, int rows) {
+        StringDictionary dictionary = StringDictionary.readFrom(in);
+        if (in.get() != 0) {
+            int[] codes = new int[rows];
+            in.asIntBuffer().get(codes);
+            in.position(in.position() + 4 * rows);
+            return new DictionaryColumn(dictionary, null, codes);
+        }
+        char[] codes = new char[rows];
+        in.asCharBuffer().get(codes);
+        in.position(in.position() + 2 * rows);
+        return new DictionaryColumn(dictionary, codes, null);
+    }
+
+    private void widen() {
+        int[] widened = new int[narrowCodes.length];
+        for (int i = 0; i < narrowCodes.length; i++) {
+            widened[i] = narrowCodes[i];
+        }
+        wideCodes = widened;
+        narrowCodes = null;
+    }
+}
@@ -0,0 +1,311 @@
+package com.puphax.store;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accent-insensitive, typo-tolerant product search over names and active ingredients.
+ *
+ * Two structures are built once after loading:
+ * <ul>
+ *   <li>a {@link TrigramIndex} over {@link HungarianFolding folded} texts, so
+ *       "algopirín" finds "ALGOPIRIN" as an ordinary substring match;</li>
+ *   <li>a SymSpell-style deletion dictionary over the folded words: every word
+ *       is registered under all variants of its first {@value #PREFIX_LENGTH}
+ *       characters with up to {@value #MAX_EDIT_DISTANCE} characters deleted. A
+ *       query word generates the same variants, and every word sharing one is a
+ *       candidate that is verified with a bounded edit distance. This finds
+ *       "algopirin" for "ALGOPYRIN" without comparing against the whole
+ *       vocabulary.</li>
+ * </ul>
+ *
+ * Deletion variants are stored as a sorted {@code long[]} of 39-bit hash and
+ * 24-bit word id pairs rather than as strings; hash collisions only add
+ * candidates, which the distance check then rejects.
+ *
+ * Every word of the query must match. A row's score is the mean of its best
+ * per-word scores: 1.0 for an accent-insensitive substring match, less for
+ * matches that needed edits.
+ */
+public final class FuzzyNameIndex {
+
+    public static final int MAX_EDIT_DISTANCE = 2;
+    static final int PREFIX_LENGTH = 7;
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final int WORD_ID_BITS = 24;
+    private static final long WORD_ID_MASK = (1L << WORD_ID_BITS) - 1;
+
+    // Whole-word edits score a little higher than edits against a word prefix (still typing)
+    private static final double PREFIX_MATCH_FACTOR = 0.9;
+
+    private final TrigramIndex foldedTexts;
+    private final String[] words;
+    private final int[][] rowsByWord;
+    private final long[] deletions;
+
+    private FuzzyNameIndex(TrigramIndex foldedTexts, String[] words, int[][] rowsByWord, long[] deletions) {
+        this.foldedTexts = foldedTexts;
+        this.words = words;
+        this.rowsByWord = rowsByWord;
+        this.deletions = deletions;
+    }
+
+    public static FuzzyNameIndex build(ProductColumnStore store, ProductColumn... columns) {
+        TrigramIndex foldedTexts = TrigramIndex.build(store, HungarianFolding::fold, columns);
+
+        Map<String, Integer> wordIds = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        List<RoaringBitmap> rows = new ArrayList<>();
+        for (ProductColumn column : columns) {
+            StringDictionary dictionary = store.column(column).dictionary();
+            int[][] wordsByCode = new int[dictionary.size()][];
+            for (int code = 0; code < wordsByCode.length; code++) {
+                String[] tokens = tokenize(HungarianFolding.fold(dictionary.decode(code)));
+                int[] ids = new int[tokens.length];
+                int count = 0;
+                for (String token : tokens) {
+                    if (token.length() >= MIN_WORD_LENGTH) {
+                        ids[count++] = wordIds.computeIfAbsent(token, key -> {
+                            words.add(key);
+                            rows.add(new RoaringBitmap());
+                            return words.size() - 1;
+                        });
+                    }
+                }
+                wordsByCode[code] = Arrays.copyOf(ids, count);
+            }
+            for (int row = 0; row < store.size(); row++) {
+                for (int word : wordsByCode[store.code(column, row)]) {
+                    rows.get(word).add(row);
+                }
+            }
+        }
+        if (words.size() > WORD_ID_MASK) {
+            throw new IllegalStateException("Too many distinct words for the fuzzy index: " + words.size());
+        }
+
+        int[][] rowsByWord = new int[words.size()][];
+        long[] deletions = new long[words.size() * 8];
+        int size = 0;
+        for (int word = 0; word < words.size(); word++) {
+            rowsByWord[word] = rows.get(word).toArray();
+            for (String variant : deletionVariants(words.get(word))) {
+                if (size == deletions.length) {
+                    deletions = Arrays.copyOf(deletions, size + (size >> 1));
+                }
+                deletions[size++] = (hash(variant) << WORD_ID_BITS) | word;
+            }
+        }
+        deletions = Arrays.copyOf(deletions, size);
+        Arrays.sort(deletions);
+
+        return new FuzzyNameIndex(foldedTexts, words.toArray(new String[0]), rowsByWord, deletions);
+    }
+
+    /**
+     * Matching rows with their relevance score in (0, 1].
+     */
+    public Map<Integer, Double> search(String term) {
+        String[] tokens = tokenize(HungarianFolding.fold(term));
+        Map<Integer, Double> scores = null;
+        for (String token : tokens) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            Map<Integer, Double> tokenScores = searchToken(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                // AND across query words, summing scores for the mean below
+                Map<Integer, Double> combined = new HashMap<>();
+                for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                    Double score = tokenScores.get(entry.getKey());
+                    if (score != null) {
+                        combined.put(entry.getKey(), entry.getValue() + score);
+                    }
+                }
+                scores = combined;
+            }
+            if (scores.isEmpty()) {
+                return scores;
+            }
+        }
+        if (scores == null) {
+            return new HashMap<>();
+        }
+        long tokenCount = Arrays.stream(tokens).filter(token -> !token.isEmpty()).count();
+        scores.replaceAll((row, sum) -> sum / tokenCount);
+        return scores;
+    }
+
+    public int wordCount() {
+        return words.length;
+    }
+
+    public int deletionCount() {
+        return deletions.length;
+    }
+
+    /**
+     * Allowed edits for a query word: none below four characters (too many
+     * accidental neighbours), one up to five, two beyond that.
+     */
+    static int maxDistance(String token) {
+        if (token.length() < 4) {
+            return 0;
+        }
+        return token.length() <= 5 ? 1 : MAX_EDIT_DISTANCE;
+    }
+
+    private Map<Integer, Double> searchToken(String token) {
+        Map<Integer, Double> scores = new HashMap<>();
+        IntIterator exact = foldedTexts.find(token).getIntIterator();
+        while (exact.hasNext()) {
+            scores.put(exact.next(), 1.0);
+        }
+
+        int maxDistance = maxDistance(token);
+        if (maxDistance == 0) {
+            return scores;
+        }
+        for (int word : candidateWords(token)) {
+            double score = score(token, words[word], maxDistance);
+            if (score > 0) {
+                for (int row : rowsByWord[word]) {
+                    scores.merge(row, score, Math::max);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private Set<Integer> candidateWords(String token) {
+        Set<Integer> candidates = new HashSet<>();
+        for (String variant : deletionVariants(token)) {
+            long hash = hash(variant);
+            int index = lowerBound(hash << WORD_ID_BITS);
+            while (index < deletions.length && deletions[index] >>> WORD_ID_BITS == hash) {
+                candidates.add((int) (deletions[index] & WORD_ID_MASK));
+                index++;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Score of a vocabulary word for the query word, or 0 if it is too far away.
+     * A query shorter than the word is also compared with the word's prefix, so
+     * a misspelled word still being typed matches.
+     */
+    static double score(String token, String word, int maxDistance) {
+        int distance = editDistance(token, word, maxDistance);
+        if (distance <= maxDistance) {
+            return 1.0 - (double) distance / Math.max(token.length(), word.length());
+        }
+        if (token.length() < word.length()) {
+            int prefixDistance = editDistance(token, word.substring(0, token.length()), maxDistance);
+            if (prefixDistance <= maxDistance) {
+                return PREFIX_MATCH_FACTOR * (1.0 - (double) prefixDistance / token.length());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions),
+     * abandoned once every cell of a row exceeds the bound.
+     */
+    static int editDistance(String a, String b, int bound) {
+        if (Math.abs(a.length() - b.length()) > bound) {
+            return bound + 1;
+        }
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * The word's prefix with every combination of up to MAX_EDIT_DISTANCE characters removed.
+     */
+    static Set<String> deletionVariants(String word) {
+        String prefix = word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+        Set<String> variants = new HashSet<>();
+        variants.add(prefix);
+        List<String> frontier = List.of(prefix);
+        for (int distance = 1; distance <= MAX_EDIT_DISTANCE; distance++) {
+            List<String> next = new ArrayList<>();
+            for (String variant : frontier) {
+                for (int i = 0; i < variant.length(); i++) {
+                    String deleted = variant.substring(0, i) + variant.substring(i + 1);
+                    if (variants.add(deleted)) {
+                        next.add(deleted);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return variants;
+    }
+
+    private static String[] tokenize(String folded) {
+        return folded.split("[^\\p{L}\\p{N}]+");
+    }
+
+    /**
+     * 39-bit FNV-1a hash of the variant, so packed entries stay non-negative.
+     */
+    private static long hash(String variant) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < variant.length(); i++) {
+            hash ^= variant.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash >>> (WORD_ID_BITS + 1);
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = deletions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (deletions[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
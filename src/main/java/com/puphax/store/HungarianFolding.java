@@ -0,0 +1,44 @@
+package com.puphax.store;
+
+/**
+ * Accent folding for Hungarian search keys.
+ *
+ * Lower-cases the text and maps accented vowels to their base letter
+ * (á→a, é→e, í→i, ó/ö/ő→o, ú/ü/ű→u), so "algopirín" and "algopirin" produce
+ * the same key. The Latin-1 look-alikes õ and û are folded as well, because
+ * older NEAK exports occasionally carry ő and ű decoded with the wrong charset.
+ */
+public final class HungarianFolding {
+
+    private HungarianFolding() {
+    }
+
+    /**
+     * Lower-cased, accent-free form of the text.
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        char[] folded = new char[text.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(text.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    static char fold(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        char lower = Character.toLowerCase(c);
+        return switch (lower) {
+            case 'á', 'à', 'â', 'ä', 'ã' -> 'a';
+            case 'é', 'è', 'ê', 'ë' -> 'e';
+            case 'í', 'ì', 'î', 'ï' -> 'i';
+            case 'ó', 'ò', 'ô', 'ö', 'ő', 'õ' -> 'o';
+            case 'ú', 'ù', 'û', 'ü', 'ű' -> 'u';
+            default -> lower;
+        };
+    }
+}
@@ -0,0 +1,218 @@
+package com.puphax.store;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Precomputed compressed-bitmap index over the categorical product columns.
+ *
+ * For every distinct value of an indexed column (and for every prefix of
+ * every ATC code) the index holds a {@link RoaringBitmap} of the row ids
+ * carrying that value. A search filter then becomes a handful of bitmap
+ * OR/AND operations whose cost depends on the size of the bitmaps involved,
+ * not on the total number of products.
+ *
+ * Instances are immutable once built, and value lookups use the index's own
+ * maps rather than the store's dictionaries, so an index can be queried from
+ * any number of threads. The returned bitmaps may be shared with the index
+ * itself, so callers must copy them before modifying.
+ */
+public final class ProductBitmapIndex {
+
+    /** Columns with one bitmap per dictionary value. */
+    public static final Set<ProductColumn> INDEXED_COLUMNS = EnumSet.of(
+        ProductColumn.FORG_ENGT_ID,
+        ProductColumn.GY_FORMA,
+        ProductColumn.ADAG_MOD,
+        ProductColumn.TTT,
+        ProductColumn.RENDELHET,
+        ProductColumn.EGYEDI,
+        ProductColumn.OLDAL_ISAG
+    );
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final ProductColumnStore store;
+    private final Map<ProductColumn, RoaringBitmap[]> bitmapsByCode = new EnumMap<>(ProductColumn.class);
+    private final Map<ProductColumn, Map<String, RoaringBitmap>> bitmapsByValue = new EnumMap<>(ProductColumn.class);
+    private final Map<String, RoaringBitmap> atcPrefixes = new HashMap<>();
+    private final RoaringBitmap inStock = new RoaringBitmap();
+    private final RoaringBitmap allRows;
+
+    private ProductBitmapIndex(ProductColumnStore store) {
+        this.store = store;
+        this.allRows = RoaringBitmap.bitmapOfRange(0, store.size());
+    }
+
+    /**
+     * Build the index with one pass over the store.
+     */
+    public static ProductBitmapIndex build(ProductColumnStore store) {
+        ProductBitmapIndex index = new ProductBitmapIndex(store);
+        for (ProductColumn column : INDEXED_COLUMNS) {
+            index.bitmapsByCode.put(column, new RoaringBitmap[store.column(column).dictionary().size()]);
+        }
+
+        for (int row = 0; row < store.size(); row++) {
+            for (ProductColumn column : INDEXED_COLUMNS) {
+                RoaringBitmap[] bitmaps = index.bitmapsByCode.get(column);
+                int code = store.code(column, row);
+                if (bitmaps[code] == null) {
+                    bitmaps[code] = new RoaringBitmap();
+                }
+                bitmaps[code].add(row);
+            }
+
+            // ATC hierarchy: every prefix of the code ("A", "A1", "A10", ... "A10AB01")
+            String atc = store.get(ProductColumn.ATC, row);
+            for (int length = 1; length <= atc.length(); length++) {
+                index.atcPrefixes.computeIfAbsent(atc.substring(0, length), k -> new RoaringBitmap()).add(row);
+            }
+
+            if (store.inStock(row)) {
+                index.inStock.add(row);
+            }
+        }
+
+        index.runOptimize();
+        index.indexValues();
+        return index;
+    }
+
+    public RoaringBitmap all() {
+        return allRows;
+    }
+
+    public RoaringBitmap inStock() {
+        return inStock;
+    }
+
+    /**
+     * Rows whose ATC code starts with any of the given prefixes.
+     */
+    public RoaringBitmap atcPrefixes(Collection<String> prefixes) {
+        List<RoaringBitmap> matches = new ArrayList<>(prefixes.size());
+        for (String prefix : prefixes) {
+            if (prefix == null || prefix.isEmpty()) {
+                return allRows;
+            }
+            RoaringBitmap bitmap = atcPrefixes.get(prefix);
+            if (bitmap != null) {
+                matches.add(bitmap);
+            }
+        }
+        return union(matches);
+    }
+
+    /**
+     * Rows whose column value is one of the given values.
+     */
+    public RoaringBitmap anyOf(ProductColumn column, Collection<String> values) {
+        Map<String, RoaringBitmap> byValue = bitmapsByValue.get(column);
+        if (byValue == null) {
+            throw new IllegalArgumentException("Column is not bitmap-indexed: " + column);
+        }
+        List<RoaringBitmap> matches = new ArrayList<>(values.size());
+        for (String value : values) {
+            RoaringBitmap bitmap = byValue.get(value != null ? value : "");
+            if (bitmap != null) {
+                matches.add(bitmap);
+            }
+        }
+        return union(matches);
+    }
+
+    /**
+     * Rows whose column value satisfies the predicate. The predicate is evaluated
+     * once per distinct value, never per row.
+     */
+    public RoaringBitmap matching(ProductColumn column, Predicate<String> valuePredicate) {
+        RoaringBitmap[] bitmaps = bitmaps(column);
+        StringDictionary dictionary = store.column(column).dictionary();
+        List<RoaringBitmap> matches = new ArrayList<>();
+        for (int code = 0; code < bitmaps.length; code++) {
+            if (bitmaps[code] != null && valuePredicate.test(dictionary.decode(code))) {
+                matches.add(bitmaps[code]);
+            }
+        }
+        return union(matches);
+    }
+
+    /**
+     * Approximate serialized size of all bitmaps, used for load reporting.
+     */
+    public long sizeInBytes() {
+        long bytes = inStock.getLongSizeInBytes();
+        for (RoaringBitmap[] bitmaps : bitmapsByCode.values()) {
+            for (RoaringBitmap bitmap : bitmaps) {
+                if (bitmap != null) {
+                    bytes += bitmap.getLongSizeInBytes();
+                }
+            }
+        }
+        for (RoaringBitmap bitmap : atcPrefixes.values()) {
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        return bytes;
+    }
+
+    private RoaringBitmap[] bitmaps(ProductColumn column) {
+        RoaringBitmap[] bitmaps = bitmapsByCode.get(column);
+        if (bitmaps == null) {
+            throw new IllegalArgumentException("Column is not bitmap-indexed: " + column);
+        }
+        return bitmaps;
+    }
+
+    /**
+     * Maps each indexed value to its bitmap, so that {@link #anyOf} never touches the
+     * store's dictionaries (whose reverse maps are released and rebuilt lazily).
+     */
+    private void indexValues() {
+        for (Map.Entry<ProductColumn, RoaringBitmap[]> entry : bitmapsByCode.entrySet()) {
+            StringDictionary dictionary = store.column(entry.getKey()).dictionary();
+            RoaringBitmap[] bitmaps = entry.getValue();
+            Map<String, RoaringBitmap> byValue = new HashMap<>(bitmaps.length * 2);
+            for (int code = 0; code < bitmaps.length; code++) {
+                if (bitmaps[code] != null) {
+                    byValue.put(dictionary.decode(code), bitmaps[code]);
+                }
+            }
+            bitmapsByValue.put(entry.getKey(), byValue);
+        }
+    }
+
+    private static RoaringBitmap union(List<RoaringBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) {
+            return EMPTY;
+        }
+        if (bitmaps.size() == 1) {
+            return bitmaps.get(0);
+        }
+        return FastAggregation.or(bitmaps.iterator());
+    }
+
+    private void runOptimize() {
+        inStock.runOptimize();
+        for (RoaringBitmap[] bitmaps : bitmapsByCode.values()) {
+            for (RoaringBitmap bitmap : bitmaps) {
+                if (bitmap != null) {
+                    bitmap.runOptimize();
+                }
+            }
+        }
+        for (RoaringBitmap bitmap : atcPrefixes.values()) {
+            bitmap.runOptimize();
+        }
+    }
+}
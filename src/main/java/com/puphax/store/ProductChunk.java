@@ -0,0 +1,87 @@
+package com.puphax.store;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Product rows parsed from one slice of TERMEK.csv, encoded against
+ * chunk-local dictionaries.
+ *
+ * Chunks are filled concurrently, one per worker, and then merged into the
+ * shared {@link ProductColumnStore} in file order. Hashing every field value
+ * happens here, in parallel; the serial merge only translates each distinct
+ * local value once and copies integer codes.
+ */
+final class ProductChunk {
+
+    private static final ProductColumn[] COLUMNS = ProductColumn.values();
+
+    private final StringDictionary[] dictionaries = new StringDictionary[COLUMNS.length];
+    private int[] codes;
+    private int[] validFrom;
+    private int[] validTo;
+    private int[] tkTorlesDate;
+    private final BitSet inStock = new BitSet();
+    private int size;
+
+    ProductChunk(int initialCapacity) {
+        for (int i = 0; i < dictionaries.length; i++) {
+            dictionaries[i] = new StringDictionary();
+        }
+        int capacity = Math.max(initialCapacity, 16);
+        codes = new int[capacity * COLUMNS.length];
+        validFrom = new int[capacity];
+        validTo = new int[capacity];
+        tkTorlesDate = new int[capacity];
+    }
+
+    /**
+     * Appends a row; values are indexed by {@link ProductColumn#ordinal()}.
+     */
+    void add(String[] values, int validFromDay, int validToDay, int tkTorlesDay, boolean available) {
+        if (size == validFrom.length) {
+            int capacity = size + (size >> 1);
+            codes = Arrays.copyOf(codes, capacity * COLUMNS.length);
+            validFrom = Arrays.copyOf(validFrom, capacity);
+            validTo = Arrays.copyOf(validTo, capacity);
+            tkTorlesDate = Arrays.copyOf(tkTorlesDate, capacity);
+        }
+        int base = size * COLUMNS.length;
+        for (int column = 0; column < COLUMNS.length; column++) {
+            codes[base + column] = dictionaries[column].encode(values[column]);
+        }
+        validFrom[size] = validFromDay;
+        validTo[size] = validToDay;
+        tkTorlesDate[size] = tkTorlesDay;
+        inStock.set(size, available);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    StringDictionary dictionary(ProductColumn column) {
+        return dictionaries[column.ordinal()];
+    }
+
+    int code(int row, ProductColumn column) {
+        return codes[row * COLUMNS.length + column.ordinal()];
+    }
+
+    int validFromDay(int row) {
+        return validFrom[row];
+    }
+
+    int validToDay(int row) {
+        return validTo[row];
+    }
+
+    int tkTorlesDay(int row) {
+        return tkTorlesDate[row];
+    }
+
+    boolean inStock(int row) {
+        return inStock.get(row);
+    }
+}
@@ -0,0 +1,87 @@
+package com.puphax.store;
+
+/**
+ * String columns of the NEAK TERMEK table held by {@link ProductColumnStore}.
+ *
+ * Validity dates (columns 2, 3 and 9) and the FORGALOMBAN flag (column 42)
+ * are stored as primitive columns and are therefore not listed here.
+ */
+public enum ProductColumn {
+
+    // Core identification
+    ID(0, false),
+    PARENT_ID(1, false),
+    TERMEK_KOD(4, false),
+    KOZ_HID(5, false),
+    TTT(6, true),
+    TK(7, false),
+    TK_TORLES(8, false),
+    EAN_KOD(10, false),
+    BRAND_ID(11, true),
+
+    // Names
+    NAME(12, false),
+    SHORT_NAME(13, false),
+
+    // Classification
+    ATC(14, true),
+    ISO(15, false),
+    ACTIVE_INGREDIENT(16, false),
+
+    // Administration and form
+    ADAG_MOD(17, true),
+    GY_FORMA(18, true),
+    RENDELHET(19, true),
+    EGYEN_ID(20, false),
+    HELYETTESITH(21, false),
+
+    // Strength and dosage
+    POTENCIA(22, false),
+    O_HATO_MENNY(23, false),
+    HATO_MENNY(24, false),
+    HATO_EGYS(25, true),
+    KISZ_MENNY(26, false),
+    KISZ_EGYS(27, false),
+    DDD_MENNY(28, false),
+    DDD_EGYS(29, false),
+    DDD_FAKTOR(30, false),
+    DOT(31, false),
+    ADAG_MENNY(32, false),
+    ADAG_EGYS(33, false),
+
+    // Special attributes
+    EGYEDI(34, true),
+    OLDAL_ISAG(35, true),
+    TOBBL_GAR(36, false),
+    PATIKA(37, false),
+    DOB_AZON(38, false),
+    KERESZT_JELZES(39, false),
+
+    // Distribution
+    FORG_ENGT_ID(40, true),
+    FORGAZ_ID(41, false),
+    KIHIRDETES_ID(43, false);
+
+    private final int csvIndex;
+    private final boolean filterable;
+
+    ProductColumn(int csvIndex, boolean filterable) {
+        this.csvIndex = csvIndex;
+        this.filterable = filterable;
+    }
+
+    /**
+     * Zero-based column position in TERMEK.csv.
+     */
+    public int csvIndex() {
+        return csvIndex;
+    }
+
+    /**
+     * Whether search filters look this column up by value, in which case its
+     * dictionary keeps the value-to-code map after loading.
+     */
+    public boolean isFilterable() {
+        return filterable;
+    }
+}
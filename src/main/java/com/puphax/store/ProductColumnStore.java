@@ -0,0 +1,339 @@
+package com.puphax.store;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Columnar, dictionary-encoded store for TERMEK product rows.
+ *
+ * Every product is addressed by a dense row id. String fields live in
+ * {@link DictionaryColumn}s (one 16- or 32-bit code per row plus one shared
+ * copy of each distinct value), validity dates are epoch-day {@code int[]}
+ * columns and the in-stock flag is a {@link BitSet}. Compared with one object
+ * holding ~44 String references per product this removes most per-row
+ * pointers, lets filters compare small integer codes instead of strings and
+ * keeps scans on contiguous primitive arrays.
+ *
+ * Not thread-safe for writers; readers may share a fully loaded instance.
+ * Incremental updates are applied to a {@link #copy} so published instances
+ * are never written to.
+ */
+public final class ProductColumnStore {
+
+    /** Marker for a missing or unparseable date in the epoch-day columns. */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final ProductColumn[] COLUMNS = ProductColumn.values();
+
+    private final DictionaryColumn[] columns = new DictionaryColumn[COLUMNS.length];
+    private final Map<String, Integer> rowsById = new HashMap<>();
+    private final BitSet inStock = new BitSet();
+
+    private int[] validFrom = new int[INITIAL_CAPACITY];
+    private int[] validTo = new int[INITIAL_CAPACITY];
+    private int[] tkTorlesDate = new int[INITIAL_CAPACITY];
+
+    // Numeric POTENCIA value per dictionary code (NaN when not numeric)
+    private double[] strengthByCode = new double[64];
+    private int strengthCodesParsed = 0;
+
+    private int capacity = INITIAL_CAPACITY;
+    private int size = 0;
+
+    public ProductColumnStore() {
+        for (ProductColumn column : COLUMNS) {
+            columns[column.ordinal()] = new DictionaryColumn(INITIAL_CAPACITY);
+        }
+    }
+
+    private ProductColumnStore(int size) {
+        this.size = size;
+        this.capacity = size;
+    }
+
+    /**
+     * Inserts a product, or overwrites the existing row with the same ID.
+     *
+     * @param values String values indexed by {@link ProductColumn#ordinal()}
+     * @param validFromDay ERV_KEZD as epoch day or {@link #NO_DATE}
+     * @param validToDay ERV_VEGE as epoch day or {@link #NO_DATE}
+     * @param tkTorlesDay TKTORLESDAT as epoch day or {@link #NO_DATE}
+     * @param available FORGALOMBAN flag
+     * @return the row id assigned to the product
+     */
+    public int put(String[] values, int validFromDay, int validToDay, int tkTorlesDay, boolean available) {
+        int row = rowFor(values[ProductColumn.ID.ordinal()]);
+        for (ProductColumn column : COLUMNS) {
+            columns[column.ordinal()].set(row, values[column.ordinal()]);
+        }
+        validFrom[row] = validFromDay;
+        validTo[row] = validToDay;
+        tkTorlesDate[row] = tkTorlesDay;
+        inStock.set(row, available);
+        return row;
+    }
+
+    /**
+     * Appends the rows of a parsed chunk in chunk order, with the same
+     * overwrite-by-ID behaviour as {@link #put}. Each distinct chunk-local
+     * value is translated to a store code once.
+     */
+    void putAll(ProductChunk chunk) {
+        int[][] remap = new int[COLUMNS.length][];
+        for (ProductColumn column : COLUMNS) {
+            StringDictionary local = chunk.dictionary(column);
+            StringDictionary global = columns[column.ordinal()].dictionary();
+            int[] codes = new int[local.size()];
+            for (int code = 1; code < codes.length; code++) {
+                codes[code] = global.encode(local.decode(code));
+            }
+            remap[column.ordinal()] = codes;
+        }
+
+        ensureCapacity(size + chunk.size());
+        StringDictionary ids = chunk.dictionary(ProductColumn.ID);
+        for (int chunkRow = 0; chunkRow < chunk.size(); chunkRow++) {
+            int row = rowFor(ids.decode(chunk.code(chunkRow, ProductColumn.ID)));
+            for (ProductColumn column : COLUMNS) {
+                columns[column.ordinal()].setCode(row, remap[column.ordinal()][chunk.code(chunkRow, column)]);
+            }
+            validFrom[row] = chunk.validFromDay(chunkRow);
+            validTo[row] = chunk.validToDay(chunkRow);
+            tkTorlesDate[row] = chunk.tkTorlesDay(chunkRow);
+            inStock.set(row, chunk.inStock(chunkRow));
+        }
+    }
+
+    /**
+     * Independent copy with room for {@code extraRows} more products, for
+     * building the next generation while this one keeps serving reads.
+     * Dictionary value strings are shared, everything mutable is copied.
+     */
+    public ProductColumnStore copy(int extraRows) {
+        ProductColumnStore copy = new ProductColumnStore(size);
+        copy.capacity = Math.max(size + extraRows, 1);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            copy.columns[i] = columns[i].copy(copy.capacity);
+        }
+        copy.validFrom = Arrays.copyOf(validFrom, copy.capacity);
+        copy.validTo = Arrays.copyOf(validTo, copy.capacity);
+        copy.tkTorlesDate = Arrays.copyOf(tkTorlesDate, copy.capacity);
+        copy.inStock.or(inStock);
+        copy.rowsById.putAll(rowsById);
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the row id for a product ID or -1 if unknown.
+     */
+    public int rowOf(String productId) {
+        Integer row = rowsById.get(productId);
+        return row != null ? row : -1;
+    }
+
+    public DictionaryColumn column(ProductColumn column) {
+        return columns[column.ordinal()];
+    }
+
+    public String get(ProductColumn column, int row) {
+        return columns[column.ordinal()].get(row);
+    }
+
+    public int code(ProductColumn column, int row) {
+        return columns[column.ordinal()].code(row);
+    }
+
+    public int validFromDay(int row) {
+        return validFrom[row];
+    }
+
+    public int validToDay(int row) {
+        return validTo[row];
+    }
+
+    public LocalDate validFrom(int row) {
+        return toDate(validFrom[row]);
+    }
+
+    public LocalDate validTo(int row) {
+        return toDate(validTo[row]);
+    }
+
+    public LocalDate tkTorlesDate(int row) {
+        return toDate(tkTorlesDate[row]);
+    }
+
+    public boolean inStock(int row) {
+        return inStock.get(row);
+    }
+
+    public int inStockCount() {
+        return inStock.cardinality();
+    }
+
+    /**
+     * Numeric part of POTENCIA (e.g. "100mg" -> 100.0), or NaN if it has none.
+     */
+    public double strength(int row) {
+        int code = code(ProductColumn.POTENCIA, row);
+        if (code >= strengthCodesParsed) {
+            parseNewStrengthCodes();
+        }
+        return strengthByCode[code];
+    }
+
+    /**
+     * Shrinks the column arrays to the loaded row count and drops reverse
+     * dictionary maps of columns that are never filtered by value.
+     */
+    public void trimToSize() {
+        resize(Math.max(size, 1));
+        for (ProductColumn column : COLUMNS) {
+            if (!column.isFilterable()) {
+                columns[column.ordinal()].dictionary().releaseReverseIndex();
+            }
+        }
+        parseNewStrengthCodes();
+    }
+
+    /**
+     * Rough retained-heap estimate of the store, used for load reporting.
+     */
+    public long estimatedHeapBytes() {
+        long bytes = 12L * capacity + inStock.size() / 8 + 8L * strengthByCode.length;
+        bytes += 48L * rowsById.size();
+        for (DictionaryColumn column : columns) {
+            bytes += column.estimatedHeapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the loaded rows (not the spare capacity) in snapshot format.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(COLUMNS.length);
+        for (DictionaryColumn column : columns) {
+            column.writeTo(out, size);
+        }
+        for (int[] dates : new int[][] {validFrom, validTo, tkTorlesDate}) {
+            for (int row = 0; row < size; row++) {
+                out.writeInt(dates[row]);
+            }
+        }
+        long[] stock = inStock.toLongArray();
+        out.writeInt(stock.length);
+        for (long word : stock) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Reads a store written by {@link #writeTo}, already trimmed as after a CSV load.
+     */
+    static ProductColumnStore readFrom(ByteBuffer in) throws IOException {
+        ProductColumnStore store = new ProductColumnStore(in.getInt());
+        int columnCount = in.getInt();
+        if (columnCount != COLUMNS.length) {
+            throw new IOException("Snapshot has " + columnCount + " product columns, expected " + COLUMNS.length);
+        }
+        for (int i = 0; i < COLUMNS.length; i++) {
+            store.columns[i] = DictionaryColumn.readFrom(in, store.size);
+        }
+        store.validFrom = readInts(in, store.size);
+        store.validTo = readInts(in, store.size);
+        store.tkTorlesDate = readInts(in, store.size);
+        long[] stock = new long[in.getInt()];
+        in.asLongBuffer().get(stock);
+        in.position(in.position() + 8 * stock.length);
+        store.inStock.or(BitSet.valueOf(stock));
+
+        for (int row = 0; row < store.size; row++) {
+            store.rowsById.put(store.get(ProductColumn.ID, row), row);
+        }
+        store.trimToSize();
+        return store;
+    }
+
+    private static int[] readInts(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + 4 * count);
+        return values;
+    }
+
+    public static int toEpochDay(LocalDate date) {
+        return date != null ? (int) date.toEpochDay() : NO_DATE;
+    }
+
+    public static LocalDate toDate(int epochDay) {
+        return epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+
+    private void parseNewStrengthCodes() {
+        StringDictionary dictionary = column(ProductColumn.POTENCIA).dictionary();
+        int dictionarySize = dictionary.size();
+        if (strengthByCode.length < dictionarySize) {
+            strengthByCode = Arrays.copyOf(strengthByCode, Math.max(dictionarySize, strengthByCode.length * 2));
+        }
+        for (int code = strengthCodesParsed; code < dictionarySize; code++) {
+            strengthByCode[code] = parseStrength(dictionary.decode(code));
+        }
+        strengthCodesParsed = dictionarySize;
+    }
+
+    private static double parseStrength(String potencia) {
+        if (potencia == null || potencia.trim().isEmpty()) {
+            return Double.NaN;
+        }
+        String numericPart = potencia.replaceAll("[^0-9.]", "");
+        if (numericPart.isEmpty()) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(numericPart);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private int rowFor(String id) {
+        Integer existing = rowsById.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        int row = size;
+        ensureCapacity(size + 1);
+        size++;
+        rowsById.put(id, row);
+        return row;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > capacity) {
+            resize(Math.max(required, capacity + (capacity >> 1)));
+        }
+    }
+
+    private void resize(int newCapacity) {
+        validFrom = Arrays.copyOf(validFrom, newCapacity);
+        validTo = Arrays.copyOf(validTo, newCapacity);
+        tkTorlesDate = Arrays.copyOf(tkTorlesDate, newCapacity);
+        for (DictionaryColumn column : columns) {
+            column.resize(newCapacity);
+        }
+        capacity = newCapacity;
+    }
+}
@@ -0,0 +1,113 @@
+package com.puphax.store;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * A product row received from PUPHAX (the TERMEKADAT part of a DISP_INF or
+ * DISP_DIFF response), ready to be upserted into a {@link ProductColumnStore}.
+ *
+ * PUPHAX names the TERMEK columns like the CSV export header but sends ISO
+ * dates and its own placeholders for unset values ({@code -/-}, {@code -/},
+ * {@code -}, {@code 999999999.999999}, and 2099-12-31 for TKTORLESDAT).
+ * These are translated to the blank fields and {@link ProductColumnStore#NO_DATE}
+ * the CSV loader produces, so updated rows filter and render like loaded ones.
+ *
+ * @param values String values indexed by {@link ProductColumn#ordinal()}
+ */
+public record ProductUpdate(String[] values, int validFromDay, int validToDay, int tkTorlesDay, boolean inStock) {
+
+    private static final ProductColumn[] COLUMNS = ProductColumn.values();
+    private static final String NOT_DELETED = "2099-12-31";
+
+    /**
+     * Maps the TERMEKADAT fields of one product; unknown fields are ignored, missing ones are blank.
+     */
+    public static ProductUpdate fromTermekAdat(Map<String, String> fields) {
+        String[] values = new String[COLUMNS.length];
+        for (ProductColumn column : COLUMNS) {
+            values[column.ordinal()] = value(fields.get(element(column)));
+        }
+        String tkTorles = fields.get("TKTORLESDAT");
+        return new ProductUpdate(values,
+            epochDay(fields.get("ERV_KEZD")),
+            epochDay(fields.get("ERV_VEGE")),
+            NOT_DELETED.equals(tkTorles) ? ProductColumnStore.NO_DATE : epochDay(tkTorles),
+            "1".equals(fields.get("FORGALOMBAN")));
+    }
+
+    public String id() {
+        return values[ProductColumn.ID.ordinal()];
+    }
+
+    /**
+     * Whether the row is valid on the given epoch day.
+     */
+    public boolean isValidOn(int epochDay) {
+        return (validFromDay == ProductColumnStore.NO_DATE || validFromDay <= epochDay)
+            && (validToDay == ProductColumnStore.NO_DATE || validToDay >= epochDay);
+    }
+
+    /**
+     * The row of a product deleted as of {@code epochDay}: its validity ends the day before and it is no
+     * longer marketed.
+     */
+    public ProductUpdate withdrawnOn(int epochDay) {
+        int validTo = validToDay == ProductColumnStore.NO_DATE ? epochDay - 1 : Math.min(validToDay, epochDay - 1);
+        return new ProductUpdate(values, validFromDay, validTo, tkTorlesDay, false);
+    }
+
+    /**
+     * Inserts the row, or overwrites the stored row with the same ID.
+     */
+    public int applyTo(ProductColumnStore store) {
+        return store.put(values, validFromDay, validToDay, tkTorlesDay, inStock);
+    }
+
+    /**
+     * TERMEKADAT element carrying the column; most share the CSV header name.
+     */
+    static String element(ProductColumn column) {
+        return switch (column) {
+            case TERMEK_KOD -> "TERMEKKOD";
+            case KOZ_HID -> "KOZHID";
+            case TK_TORLES -> "TKTORLES";
+            case EAN_KOD -> "EANKOD";
+            case NAME -> "NEV";
+            case SHORT_NAME -> "KISZNEV";
+            case ACTIVE_INGREDIENT -> "HATOANYAG";
+            case ADAG_MOD -> "ADAGMOD";
+            case GY_FORMA -> "GYFORMA";
+            case O_HATO_MENNY -> "OHATO_MENNY";
+            case OLDAL_ISAG -> "OLDALISAG";
+            case TOBBL_GAR -> "TOBBLGAR";
+            case DOB_AZON -> "DOBAZON";
+            case KERESZT_JELZES -> "KERESZTJELZES";
+            case FORG_ENGT_ID -> "FORGENGT_ID";
+            case FORGAZ_ID -> "FORGALMAZ_ID";
+            default -> column.name();
+        };
+    }
+
+    private static String value(String field) {
+        if (field == null) {
+            return "";
+        }
+        return switch (field) {
+            case "-/-", "-/", "-", "999999999.999999" -> "";
+            default -> field;
+        };
+    }
+
+    private static int epochDay(String date) {
+        if (date == null || date.isEmpty()) {
+            return ProductColumnStore.NO_DATE;
+        }
+        try {
+            return ProductColumnStore.toEpochDay(LocalDate.parse(date));
+        } catch (DateTimeParseException e) {
+            return ProductColumnStore.NO_DATE;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.puphax.store;
+
+/**
+ * PUPHAX code tables (TAB* operations) mirrored locally.
+ *
+ * Every table is a list of code / name / note rows; TABORVKEP uses the
+ * OBJALAP2 variant with an additional KIEGINFO column.
+ */
+public enum ReferenceTable {
+
+    ATC("COBJALAP"),          // ATC classification
+    CEGEK("COBJALAP"),        // Companies (marketing authorization holders, distributors)
+    BRAND("COBJALAP"),        // Brands
+    ISO("COBJALAP"),          // ISO codes of medical aids
+    BNO("COBJALAP"),          // BNO (ICD) diagnosis codes
+    NICHE("COBJALAP"),        // Therapeutic niches
+    KIINTOR("COBJALAP"),      // Dispensing institutions
+    ORVKEP("COBJALAP2"),      // Physician qualifications
+    OSZAKKEP("COBJALAP");     // Specialist qualifications
+
+    private final String objectType;
+
+    ReferenceTable(String objectType) {
+        this.objectType = objectType;
+    }
+
+    /** SOAP operation name, e.g. {@code TABCEGEK}. */
+    public String operation() {
+        return "TAB" + name();
+    }
+
+    /** Request element of the operation, e.g. {@code COBJALAP-TABCEGEKInput}. */
+    public String inputElement() {
+        return objectType + "-" + operation() + "Input";
+    }
+
+    /** SOAPAction header value, e.g. {@code COBJALAP.TABCEGEK}. */
+    public String soapAction() {
+        return objectType + "." + operation();
+    }
+}
@@ -0,0 +1,119 @@
+package com.puphax.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persistent copy of the mirrored code tables, so a restart serves lookups
+ * immediately instead of waiting for the first sync.
+ *
+ * Layout (big-endian, as written by {@link DataOutputStream}): magic number,
+ * {@link #FORMAT_VERSION} and table count, then per table its name, sync time
+ * (epoch millis), row count and rows (code, name, note, extra info). Strings
+ * use the length-prefixed UTF-8 encoding of {@link SnapshotFile}. Tables whose
+ * name is no longer a {@link ReferenceTable} are skipped.
+ */
+public final class ReferenceTableFile {
+
+    /** Bump whenever the layout changes. */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x50585254;  // "PXRT"
+
+    private ReferenceTableFile() {
+    }
+
+    /**
+     * Writes the tables to a temporary file next to the target and moves it into place.
+     */
+    public static void write(Path path, ReferenceTables tables) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(tables.tables().size());
+                for (Map.Entry<ReferenceTable, ReferenceTables.Table> table : tables.tables().entrySet()) {
+                    SnapshotFile.writeString(out, table.getKey().name());
+                    out.writeLong(table.getValue().syncedAt().toEpochMilli());
+                    out.writeInt(table.getValue().entries().size());
+                    for (Map.Entry<String, ReferenceTables.Entry> row : table.getValue().entries().entrySet()) {
+                        SnapshotFile.writeString(out, row.getKey());
+                        SnapshotFile.writeString(out, row.getValue().name());
+                        SnapshotFile.writeString(out, row.getValue().note());
+                        SnapshotFile.writeString(out, row.getValue().extraInfo());
+                    }
+                }
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Loads the tables if the file exists with the current format version.
+     *
+     * @throws IOException if the file cannot be read (truncated or corrupt)
+     */
+    public static Optional<ReferenceTables> read(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 12 || in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            EnumMap<ReferenceTable, ReferenceTables.Table> tables = new EnumMap<>(ReferenceTable.class);
+            int tableCount = in.getInt();
+            for (int i = 0; i < tableCount; i++) {
+                String name = SnapshotFile.readString(in);
+                Instant syncedAt = Instant.ofEpochMilli(in.getLong());
+                Map<String, ReferenceTables.Entry> entries = readRows(in);
+                try {
+                    tables.put(ReferenceTable.valueOf(name), new ReferenceTables.Table(Map.copyOf(entries), syncedAt));
+                } catch (IllegalArgumentException e) {
+                    // Table dropped since the file was written
+                }
+            }
+            return Optional.of(ReferenceTables.of(tables));
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, negative sizes and the like
+            throw new IOException("Corrupt reference table file " + path + ": " + e, e);
+        }
+    }
+
+    private static Map<String, ReferenceTables.Entry> readRows(ByteBuffer in) {
+        int size = in.getInt();
+        Map<String, ReferenceTables.Entry> rows = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            rows.put(SnapshotFile.readString(in), new ReferenceTables.Entry(
+                SnapshotFile.readString(in), SnapshotFile.readString(in), SnapshotFile.readString(in)));
+        }
+        return rows;
+    }
+}
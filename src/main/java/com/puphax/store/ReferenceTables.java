@@ -0,0 +1,89 @@
+package com.puphax.store;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable generation of the mirrored PUPHAX code tables.
+ *
+ * Lookups read one published instance without locking; a sync builds the next
+ * generation with {@link #with} (copy-on-write per table) and swaps it in.
+ */
+public final class ReferenceTables {
+
+    private static final ReferenceTables EMPTY = new ReferenceTables(new EnumMap<>(ReferenceTable.class));
+
+    /**
+     * One code table row, keyed by its KOD.
+     */
+    public record Entry(String name, String note, String extraInfo) {
+    }
+
+    /**
+     * Rows of one table and when they were pulled from PUPHAX.
+     */
+    public record Table(Map<String, Entry> entries, Instant syncedAt) {
+    }
+
+    private final EnumMap<ReferenceTable, Table> tables;
+
+    private ReferenceTables(EnumMap<ReferenceTable, Table> tables) {
+        this.tables = tables;
+    }
+
+    public static ReferenceTables empty() {
+        return EMPTY;
+    }
+
+    /**
+     * A new generation with {@code table} replaced; the other tables are shared.
+     */
+    public ReferenceTables with(ReferenceTable table, Map<String, Entry> entries, Instant syncedAt) {
+        EnumMap<ReferenceTable, Table> next = new EnumMap<>(ReferenceTable.class);
+        next.putAll(tables);
+        next.put(table, new Table(Map.copyOf(entries), syncedAt));
+        return new ReferenceTables(next);
+    }
+
+    /**
+     * The row with the given code, or null if the table is not mirrored or has no such row.
+     */
+    public Entry get(ReferenceTable table, String code) {
+        Table rows = tables.get(table);
+        return rows != null && code != null ? rows.entries().get(code) : null;
+    }
+
+    /**
+     * Name (ELNEVEZ) of the row with the given code, or null.
+     */
+    public String name(ReferenceTable table, String code) {
+        Entry entry = get(table, code);
+        return entry != null ? entry.name() : null;
+    }
+
+    /** Whether the table has been mirrored at least once. */
+    public boolean contains(ReferenceTable table) {
+        return tables.containsKey(table);
+    }
+
+    public int size(ReferenceTable table) {
+        Table rows = tables.get(table);
+        return rows != null ? rows.entries().size() : 0;
+    }
+
+    /** When the table was last pulled, or null if it never was. */
+    public Instant syncedAt(ReferenceTable table) {
+        Table rows = tables.get(table);
+        return rows != null ? rows.syncedAt() : null;
+    }
+
+    Map<ReferenceTable, Table> tables() {
+        return Collections.unmodifiableMap(tables);
+    }
+
+    static ReferenceTables of(EnumMap<ReferenceTable, Table> tables) {
+        return new ReferenceTables(tables);
+    }
+}
@@ -0,0 +1,140 @@
+package com.puphax.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Versioned binary snapshot of the loaded CSV dataset.
+ *
+ * Layout (big-endian, as written by {@link DataOutputStream}): a header with
+ * the magic number, {@link #FORMAT_VERSION}, the checksum of the source CSV
+ * files and the creation time, followed by the brand, ATC and company lookup
+ * maps and the {@link ProductColumnStore} (per column: dictionary values, then
+ * the raw 16- or 32-bit code array; then the date columns and the in-stock
+ * bitset words). Reading memory-maps the file and copies the primitive arrays
+ * out with bulk buffer views, so a start-up load is a few large copies plus
+ * one string per distinct value instead of tokenizing and date-parsing every
+ * CSV line.
+ *
+ * A snapshot is only used when both the format version and the source checksum
+ * match; anything else is reported as absent and the caller re-parses the CSVs.
+ */
+public final class SnapshotFile {
+
+    /** Bump whenever the layout or the meaning of a stored column changes. */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x50584453;  // "PXDS"
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Dataset held in a snapshot.
+     */
+    public record Contents(ProductColumnStore products, Map<String, String> brandNames,
+                           Map<String, String> atcCodes, Map<String, String> companies) {
+    }
+
+    /**
+     * Writes the dataset to a temporary file next to the target and moves it
+     * into place, so readers never see a half-written snapshot.
+     */
+    public static void write(Path path, long sourceChecksum, Contents contents) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(sourceChecksum);
+                out.writeLong(System.currentTimeMillis());
+                writeMap(out, contents.brandNames());
+                writeMap(out, contents.atcCodes());
+                writeMap(out, contents.companies());
+                contents.products().writeTo(out);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Loads the snapshot if it exists and was built from the same sources with
+     * the current format version.
+     *
+     * @throws IOException if a matching snapshot cannot be read (truncated or corrupt)
+     */
+    public static Optional<Contents> read(Path path, long expectedChecksum) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 24 || in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION
+                    || in.getLong() != expectedChecksum) {
+                return Optional.empty();
+            }
+            in.getLong();  // creation time, informational only
+            Map<String, String> brandNames = readMap(in);
+            Map<String, String> atcCodes = readMap(in);
+            Map<String, String> companies = readMap(in);
+            ProductColumnStore products = ProductColumnStore.readFrom(in);
+            return Optional.of(new Contents(products, brandNames, atcCodes, companies));
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, negative sizes and the like
+            throw new IOException("Corrupt dataset snapshot " + path + ": " + e, e);
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(ByteBuffer in) {
+        int size = in.getInt();
+        Map<String, String> map = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+}
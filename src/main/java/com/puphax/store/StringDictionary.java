@@ -0,0 +1,135 @@
+package com.puphax.store;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only dictionary mapping distinct string values to dense int codes.
+ *
+ * Code 0 is reserved for the empty string, so blank CSV fields (the majority
+ * of several TERMEK columns) never allocate a dictionary entry. The reverse
+ * value-to-code map can be released once loading is finished for columns that
+ * are never queried by value; it is rebuilt lazily if needed again.
+ */
+public final class StringDictionary {
+
+    public static final int EMPTY = 0;
+    public static final int ABSENT = -1;
+
+    private final List<String> values = new ArrayList<>();
+    private Map<String, Integer> codes = new HashMap<>();
+
+    public StringDictionary() {
+        values.add("");
+        codes.put("", EMPTY);
+    }
+
+    /**
+     * Returns the code for the value, adding it to the dictionary if needed.
+     */
+    public int encode(String value) {
+        if (value == null || value.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, Integer> index = reverseIndex();
+        Integer code = index.get(value);
+        if (code != null) {
+            return code;
+        }
+        int newCode = values.size();
+        values.add(value);
+        index.put(value, newCode);
+        return newCode;
+    }
+
+    /**
+     * Returns the code for the value or {@link #ABSENT} if it was never encoded.
+     */
+    public int lookup(String value) {
+        if (value == null || value.isEmpty()) {
+            return EMPTY;
+        }
+        Integer code = reverseIndex().get(value);
+        return code != null ? code : ABSENT;
+    }
+
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Independent copy sharing the value strings; its reverse map is built lazily.
+     */
+    StringDictionary copy() {
+        StringDictionary copy = new StringDictionary();
+        copy.values.addAll(values.subList(1, values.size()));
+        copy.codes = null;
+        return copy;
+    }
+
+    /**
+     * Drops the value-to-code map to save heap for write-once columns.
+     */
+    public void releaseReverseIndex() {
+        codes = null;
+        if (values instanceof ArrayList<String> list) {
+            list.trimToSize();
+        }
+    }
+
+    /**
+     * Rough retained-heap estimate (compact Latin-1 strings, 64-bit JVM, compressed oops).
+     */
+    public long estimatedHeapBytes() {
+        long bytes = 16L + 4L * values.size();
+        for (String value : values) {
+            bytes += 40 + value.length();
+        }
+        if (codes != null) {
+            bytes += 48L * codes.size();
+        }
+        return bytes;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(values.size());
+        for (int code = 1; code < values.size(); code++) {
+            SnapshotFile.writeString(out, values.get(code));
+        }
+    }
+
+    /**
+     * Reads a dictionary written by {@link #writeTo}; the reverse map is built lazily on first lookup.
+     */
+    static StringDictionary readFrom(ByteBuffer in) {
+        StringDictionary dictionary = new StringDictionary();
+        int size = in.getInt();
+        ArrayList<String> values = (ArrayList<String>) dictionary.values;
+        values.ensureCapacity(size);
+        for (int code = 1; code < size; code++) {
+            values.add(SnapshotFile.readString(in));
+        }
+        dictionary.codes = null;
+        return dictionary;
+    }
+
+    private Map<String, Integer> reverseIndex() {
+        if (codes == null) {
+            Map<String, Integer> rebuilt = new HashMap<>(values.size() * 2);
+            for (int i = 0; i < values.size(); i++) {
+                rebuilt.put(values.get(i), i);
+            }
+            codes = rebuilt;
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,304 @@
+package com.puphax.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable prefix trie for type-ahead suggestions with precomputed top-k lists.
+ *
+ * Entries (a display text, a small integer kind and a weight) are keyed by their
+ * {@link HungarianFolding folded} text and sorted by key, so every trie node
+ * covers a contiguous range of entries. Nodes are only expanded while more than
+ * {@link #TOP_K} entries share the prefix; each expanded node stores its best
+ * {@link #TOP_K} entries by weight. A lookup therefore walks at most one node
+ * per prefix character and either returns a stored list or ranks the handful of
+ * entries left in a leaf range. Nodes live in flat {@code int[]} arrays in
+ * breadth-first order with the children of a node stored contiguously.
+ */
+public final class SuggestionTrie {
+
+    /** Entries kept per node and the maximum number of suggestions per lookup. */
+    public static final int TOP_K = 10;
+
+    // Prefixes are expanded into nodes up to this length; longer ones filter a leaf range
+    private static final int MAX_DEPTH = 32;
+
+    private final String[] texts;
+    private final String[] keys;
+    private final int[] kinds;
+    private final int[] weights;
+    private final int[] rank;
+
+    private final char[] label;
+    private final int[] childStart;
+    private final int[] childCount;
+    private final int[] rangeStart;
+    private final int[] rangeEnd;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] topEntries;
+
+    private SuggestionTrie(Builder builder) {
+        int size = builder.texts.size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        List<String> foldedKeys = new ArrayList<>(size);
+        for (String text : builder.texts) {
+            foldedKeys.add(HungarianFolding.fold(text).trim());
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> foldedKeys.get(i))
+            .thenComparing(Comparator.comparingInt((Integer i) -> builder.weights.get(i)).reversed()));
+
+        texts = new String[size];
+        keys = new String[size];
+        kinds = new int[size];
+        weights = new int[size];
+        for (int entry = 0; entry < size; entry++) {
+            int source = order[entry];
+            texts[entry] = builder.texts.get(source);
+            keys[entry] = foldedKeys.get(source);
+            kinds[entry] = builder.kinds.get(source);
+            weights[entry] = builder.weights.get(source);
+        }
+
+        // Global rank: heavier first, then shorter, then alphabetical
+        Integer[] byRank = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            byRank[i] = i;
+        }
+        Arrays.sort(byRank, Comparator.comparingInt((Integer e) -> -weights[e])
+            .thenComparingInt(e -> keys[e].length())
+            .thenComparing(e -> keys[e]));
+        rank = new int[size];
+        for (int r = 0; r < size; r++) {
+            rank[byRank[r]] = r;
+        }
+
+        // Breadth-first node construction
+        IntList labels = new IntList();
+        IntList depths = new IntList();
+        IntList starts = new IntList();
+        IntList ends = new IntList();
+        IntList firstChild = new IntList();
+        IntList children = new IntList();
+        labels.add(0);
+        depths.add(0);
+        starts.add(0);
+        ends.add(size);
+        for (int node = 0; node < starts.size(); node++) {
+            int depth = depths.get(node);
+            int lo = starts.get(node);
+            int hi = ends.get(node);
+            firstChild.add(starts.size());
+            int count = 0;
+            if (hi - lo > TOP_K && depth < MAX_DEPTH) {
+                int i = lo;
+                while (i < hi && keys[i].length() <= depth) {
+                    i++;  // entries ending exactly at this node
+                }
+                while (i < hi) {
+                    char c = keys[i].charAt(depth);
+                    int j = i + 1;
+                    while (j < hi && keys[j].charAt(depth) == c) {
+                        j++;
+                    }
+                    labels.add(c);
+                    depths.add(depth + 1);
+                    starts.add(i);
+                    ends.add(j);
+                    count++;
+                    i = j;
+                }
+            }
+            children.add(count);
+        }
+
+        int nodes = starts.size();
+        label = new char[nodes];
+        for (int node = 0; node < nodes; node++) {
+            label[node] = (char) labels.get(node);
+        }
+        childStart = firstChild.toArray();
+        childCount = children.toArray();
+        rangeStart = starts.toArray();
+        rangeEnd = ends.toArray();
+
+        // Top-k lists bottom-up: a node's best entries come from its own range ends and its children's lists
+        topStart = new int[nodes];
+        topCount = new int[nodes];
+        int[][] lists = new int[nodes][];
+        for (int node = nodes - 1; node >= 0; node--) {
+            if (childCount[node] == 0) {
+                lists[node] = bestOf(rangeStart[node], rangeEnd[node]);
+                continue;
+            }
+            IntList candidates = new IntList();
+            for (int e = rangeStart[node]; e < rangeStart[childStart[node]]; e++) {
+                candidates.add(e);
+            }
+            for (int child = childStart[node]; child < childStart[node] + childCount[node]; child++) {
+                for (int e : lists[child]) {
+                    candidates.add(e);
+                }
+            }
+            lists[node] = best(candidates.toArray());
+        }
+        IntList flat = new IntList();
+        for (int node = 0; node < nodes; node++) {
+            topStart[node] = flat.size();
+            topCount[node] = lists[node].length;
+            for (int e : lists[node]) {
+                flat.add(e);
+            }
+        }
+        topEntries = flat.toArray();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Entry ids of the best suggestions for the prefix, heaviest first.
+     */
+    public int[] complete(String prefix, int limit) {
+        String key = HungarianFolding.fold(prefix).trim();
+        int max = Math.min(limit, TOP_K);
+        int node = 0;
+        int depth = 0;
+        while (depth < key.length() && childCount[node] > 0) {
+            node = child(node, key.charAt(depth));
+            if (node < 0) {
+                return new int[0];
+            }
+            depth++;
+        }
+        if (depth == key.length()) {
+            return Arrays.copyOfRange(topEntries, topStart[node], topStart[node] + Math.min(max, topCount[node]));
+        }
+
+        // Leaf range: only a few entries remain, filter them by the rest of the prefix
+        IntList matches = new IntList();
+        for (int e = rangeStart[node]; e < rangeEnd[node]; e++) {
+            if (keys[e].startsWith(key)) {
+                matches.add(e);
+            }
+        }
+        int[] best = best(matches.toArray());
+        return best.length > max ? Arrays.copyOf(best, max) : best;
+    }
+
+    public String text(int entry) {
+        return texts[entry];
+    }
+
+    public int kind(int entry) {
+        return kinds[entry];
+    }
+
+    public int weight(int entry) {
+        return weights[entry];
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    public int nodeCount() {
+        return label.length;
+    }
+
+    private int child(int node, char c) {
+        int lo = childStart[node];
+        int hi = lo + childCount[node] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (label[mid] < c) {
+                lo = mid + 1;
+            } else if (label[mid] > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int[] bestOf(int from, int to) {
+        int[] entries = new int[to - from];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = from + i;
+        }
+        return best(entries);
+    }
+
+    private int[] best(int[] entries) {
+        // Sort by rank through the (rank, entry) pair packed into a long
+        long[] packed = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            packed[i] = ((long) rank[entries[i]] << 32) | entries[i];
+        }
+        Arrays.sort(packed);
+        int[] best = new int[Math.min(TOP_K, packed.length)];
+        for (int i = 0; i < best.length; i++) {
+            best[i] = (int) packed[i];
+        }
+        return best;
+    }
+
+    /**
+     * Collects entries before the trie is built.
+     */
+    public static final class Builder {
+        private final List<String> texts = new ArrayList<>();
+        private final List<Integer> kinds = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder add(String text, int kind, int weight) {
+            if (text != null && !text.isBlank()) {
+                texts.add(text);
+                kinds.add(kind);
+                weights.add(weight);
+            }
+            return this;
+        }
+
+        public SuggestionTrie build() {
+            return new SuggestionTrie(this);
+        }
+    }
+
+    /**
+     * Minimal growable int array used while building.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.puphax.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel loader for the UTF-8 TERMEK.csv export.
+ *
+ * The file body is cut into byte ranges whose boundaries are moved forward to
+ * the next line break, so every line belongs to exactly one range. Ranges are
+ * parsed concurrently on a fork-join pool into {@link ProductChunk}s and
+ * merged into the target store in file order, so row ids and the
+ * later-line-wins overwrite by product ID are the same as for a sequential
+ * load.
+ *
+ * Lines are tokenized directly on the bytes: every tab separates fields (TERMEK
+ * values never contain tabs, but may contain stray quote characters such as an
+ * inch mark), fields are trimmed and their enclosing quotes
+ * stripped (except the numeric ID columns, which are only trimmed), and the
+ * three date fields are decoded from their fixed {@code yyyy.MM.dd} layout
+ * without a formatter. Strings are only created for lines that pass the date
+ * filters.
+ */
+public final class TermekCsvLoader {
+
+    /** Number of fields in a TERMEK line; shorter lines are rejected. */
+    public static final int FIELD_COUNT = 44;
+
+    private static final ProductColumn[] COLUMNS = ProductColumn.values();
+    private static final int VALID_FROM_FIELD = 2;
+    private static final int VALID_TO_FIELD = 3;
+    private static final int TK_TORLES_FIELD = 9;
+    private static final int IN_STOCK_FIELD = 42;
+
+    // Ranges smaller than this are not worth a task of their own
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+
+    private final int minValidFromDay;
+    private final int minValidToDay;
+
+    /**
+     * @param minValidFromDay lines whose ERV_KEZD is before this epoch day are skipped
+     * @param minValidToDay lines whose ERV_VEGE is before this epoch day are skipped
+     */
+    public TermekCsvLoader(int minValidFromDay, int minValidToDay) {
+        this.minValidFromDay = minValidFromDay;
+        this.minValidToDay = minValidToDay;
+    }
+
+    /**
+     * Outcome of one load.
+     *
+     * @param lines data lines read (header excluded)
+     * @param loaded lines stored as products
+     * @param skippedOld lines skipped for an ERV_KEZD before the minimum
+     * @param skippedExpired lines skipped for an ERV_VEGE before the minimum
+     * @param rejected malformed lines (too few fields)
+     */
+    public record Report(long lines, long loaded, long skippedOld, long skippedExpired, long rejected,
+                         int chunks, int threads, long elapsedMillis) {
+
+        public long rowsPerSecond() {
+            return elapsedMillis > 0 ? lines * 1000 / elapsedMillis : lines * 1000;
+        }
+    }
+
+    /**
+     * Parses the whole file (header line first) into the store.
+     */
+    public Report load(ByteBuffer data, ProductColumnStore target, int parallelism) {
+        int chunks = (int) Math.max(1, Math.min(4L * parallelism, data.limit() / MIN_CHUNK_BYTES));
+        return load(data, target, parallelism, chunks);
+    }
+
+    Report load(ByteBuffer data, ProductColumnStore target, int parallelism, int chunkCount) {
+        long start = System.currentTimeMillis();
+        int[] bounds = chunkBounds(data, nextLine(data, 0), chunkCount);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long lines = 0;
+        long loaded = 0;
+        long skippedOld = 0;
+        long skippedExpired = 0;
+        long rejected = 0;
+        try {
+            List<ForkJoinTask<ChunkParser>> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                int from = bounds[i];
+                int to = bounds[i + 1];
+                tasks.add(pool.submit(() -> new ChunkParser(data, to - from).parse(from, to)));
+            }
+            // Merge in file order while later chunks are still being parsed
+            for (ForkJoinTask<ChunkParser> task : tasks) {
+                ChunkParser parsed = task.join();
+                target.putAll(parsed.rows);
+                lines += parsed.lines;
+                loaded += parsed.rows.size();
+                skippedOld += parsed.skippedOld;
+                skippedExpired += parsed.skippedExpired;
+                rejected += parsed.rejected;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return new Report(lines, loaded, skippedOld, skippedExpired, rejected, bounds.length - 1, parallelism,
+            System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Splits [bodyStart, limit) into up to {@code count} ranges that start at line beginnings.
+     */
+    static int[] chunkBounds(ByteBuffer data, int bodyStart, int count) {
+        int limit = data.limit();
+        int[] bounds = new int[count + 1];
+        bounds[0] = bodyStart;
+        int used = 1;
+        long step = Math.max(1, (limit - bodyStart) / count);
+        for (int i = 1; i < count; i++) {
+            int bound = nextLine(data, (int) Math.min(limit, bodyStart + step * i));
+            if (bound > bounds[used - 1] && bound < limit) {
+                bounds[used++] = bound;
+            }
+        }
+        bounds[used++] = limit;
+        return used == bounds.length ? bounds : Arrays.copyOf(bounds, used);
+    }
+
+    /**
+     * Position just after the first line break at or after {@code from}, or the limit.
+     */
+    private static int nextLine(ByteBuffer data, int from) {
+        int limit = data.limit();
+        for (int i = from; i < limit; i++) {
+            if (data.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Splits the line [start, end) at every tab into at most {@code starts.length} fields.
+     *
+     * @return the number of fields found (capped at the array length)
+     */
+    static int tokenize(ByteBuffer data, int start, int end, int[] starts, int[] ends) {
+        int field = 0;
+        starts[0] = start;
+        for (int i = start; i < end; i++) {
+            if (data.get(i) == '\t') {
+                ends[field] = i;
+                if (++field == starts.length) {
+                    return field;
+                }
+                starts[field] = i + 1;
+            }
+        }
+        ends[field] = end;
+        return field + 1;
+    }
+
+    /**
+     * Epoch day of a {@code yyyy.MM.dd} value, or {@link ProductColumnStore#NO_DATE}
+     * for anything else (including NEAK's "99" placeholder). Day numbers past the
+     * end of the month are clamped, as the SMART formatter resolution did.
+     */
+    static int decodeDate(ByteBuffer data, int start, int end) {
+        if (end - start != 10 || data.get(start + 4) != '.' || data.get(start + 7) != '.') {
+            return ProductColumnStore.NO_DATE;
+        }
+        int year = digits(data, start, 4);
+        int month = digits(data, start + 5, 2);
+        int day = digits(data, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return ProductColumnStore.NO_DATE;
+        }
+        return epochDay(year, month, Math.min(day, lengthOfMonth(year, month)));
+    }
+
+    private static int digits(ByteBuffer data, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = data.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (civil-from-days inverse).
+     */
+    static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Parses one byte range; owns all scratch state so ranges can run in parallel.
+     */
+    private final class ChunkParser {
+        private final ByteBuffer data;
+        private final int[] starts = new int[FIELD_COUNT];
+        private final int[] ends = new int[FIELD_COUNT];
+        private final String[] values = new String[COLUMNS.length];
+        private byte[] scratch = new byte[256];
+        private final ProductChunk rows;
+        private long lines;
+        private long skippedOld;
+        private long skippedExpired;
+        private long rejected;
+
+        ChunkParser(ByteBuffer data, int bytes) {
+            this.data = data;
+            // TERMEK lines are a few hundred bytes long
+            this.rows = new ProductChunk(bytes / 256);
+        }
+
+        ChunkParser parse(int from, int to) {
+            int lineStart = from;
+            while (lineStart < to) {
+                int lineEnd = lineStart;
+                while (lineEnd < to && data.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && data.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+                if (contentEnd > lineStart) {
+                    lines++;
+                    parseLine(lineStart, contentEnd);
+                }
+                lineStart = lineEnd + 1;
+            }
+            return this;
+        }
+
+        private void parseLine(int start, int end) {
+            if (tokenize(data, start, end, starts, ends) < FIELD_COUNT) {
+                rejected++;
+                return;
+            }
+            int validFrom = decodeDate(VALID_FROM_FIELD);
+            if (validFrom != ProductColumnStore.NO_DATE && validFrom < minValidFromDay) {
+                skippedOld++;
+                return;
+            }
+            int validTo = decodeDate(VALID_TO_FIELD);
+            if (validTo != ProductColumnStore.NO_DATE && validTo < minValidToDay) {
+                skippedExpired++;
+                return;
+            }
+            for (ProductColumn column : COLUMNS) {
+                values[column.ordinal()] = field(column);
+            }
+            boolean inStock = ends[IN_STOCK_FIELD] - starts[IN_STOCK_FIELD] == 1
+                && data.get(starts[IN_STOCK_FIELD]) == '1';
+            rows.add(values, validFrom, validTo, decodeDate(TK_TORLES_FIELD), inStock);
+        }
+
+        private int decodeDate(int field) {
+            trim(field, true);
+            return TermekCsvLoader.decodeDate(data, starts[field], ends[field]);
+        }
+
+        private String field(ProductColumn column) {
+            int field = column.csvIndex();
+            // ID columns are plain numbers and only trimmed; text columns are unquoted
+            boolean unquote = switch (column) {
+                case ID, PARENT_ID, BRAND_ID -> false;
+                default -> true;
+            };
+            trim(field, unquote);
+            int length = ends[field] - starts[field];
+            if (length == 0) {
+                return "";
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            data.get(starts[field], scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Narrows a field's range to its trimmed (and optionally unquoted) value.
+         */
+        private void trim(int field, boolean unquote) {
+            int start = starts[field];
+            int end = ends[field];
+            while (start < end && (data.get(start) & 0xff) <= ' ') {
+                start++;
+            }
+            while (end > start && (data.get(end - 1) & 0xff) <= ' ') {
+                end--;
+            }
+            if (unquote && end - start >= 2 && data.get(start) == '"' && data.get(end - 1) == '"') {
+                start++;
+                end--;
+            }
+            starts[field] = start;
+            ends[field] = end;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.puphax.store;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Substring index over the normalized (by default lower-cased) text of
+ * selected product columns.
+ *
+ * Every distinct text ("document") is split into overlapping three-character
+ * grams and each gram keeps a posting list of the documents containing it. A
+ * query of three or more characters intersects the posting lists of its own
+ * grams and only verifies the surviving documents with {@link String#contains},
+ * so lookup cost follows the candidate count instead of the vocabulary size.
+ * Shorter queries are answered from the gram vocabulary (any gram containing
+ * the query) plus the few documents too short to have a gram.
+ *
+ * A row matches when the query is a substring of any of its indexed texts,
+ * which is the same partial-match rule the word/full-name map used before.
+ */
+public final class TrigramIndex {
+
+    private static final int GRAM = 3;
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final String[] documents;
+    private final int[][] rowsByDocument;
+    private final Map<String, RoaringBitmap> postings;
+    private final RoaringBitmap shortDocuments;
+
+    private TrigramIndex(String[] documents, int[][] rowsByDocument,
+                         Map<String, RoaringBitmap> postings, RoaringBitmap shortDocuments) {
+        this.documents = documents;
+        this.rowsByDocument = rowsByDocument;
+        this.postings = postings;
+        this.shortDocuments = shortDocuments;
+    }
+
+    /**
+     * Index the lower-cased values of the given columns for every row of the store.
+     */
+    public static TrigramIndex build(ProductColumnStore store, ProductColumn... columns) {
+        return build(store, String::toLowerCase, columns);
+    }
+
+    /**
+     * Index the values of the given columns after applying the normalizer; queries
+     * must be normalized the same way.
+     */
+    public static TrigramIndex build(ProductColumnStore store, UnaryOperator<String> normalizer,
+                                     ProductColumn... columns) {
+        Map<String, Integer> documentIds = new HashMap<>();
+        List<String> documents = new ArrayList<>();
+        List<RoaringBitmap> rows = new ArrayList<>();
+
+        for (ProductColumn column : columns) {
+            // Normalize each distinct value once, then attach rows by dictionary code
+            StringDictionary dictionary = store.column(column).dictionary();
+            int[] documentByCode = new int[dictionary.size()];
+            for (int code = 0; code < documentByCode.length; code++) {
+                String text = normalizer.apply(dictionary.decode(code));
+                if (text.isEmpty()) {
+                    documentByCode[code] = -1;
+                    continue;
+                }
+                documentByCode[code] = documentIds.computeIfAbsent(text, key -> {
+                    documents.add(key);
+                    rows.add(new RoaringBitmap());
+                    return documents.size() - 1;
+                });
+            }
+            for (int row = 0; row < store.size(); row++) {
+                int document = documentByCode[store.code(column, row)];
+                if (document >= 0) {
+                    rows.get(document).add(row);
+                }
+            }
+        }
+
+        Map<String, RoaringBitmap> postings = new HashMap<>();
+        RoaringBitmap shortDocuments = new RoaringBitmap();
+        int[][] rowsByDocument = new int[documents.size()][];
+        for (int document = 0; document < documents.size(); document++) {
+            String text = documents.get(document);
+            if (text.length() < GRAM) {
+                shortDocuments.add(document);
+            }
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                postings.computeIfAbsent(text.substring(i, i + GRAM), k -> new RoaringBitmap()).add(document);
+            }
+            rowsByDocument[document] = rows.get(document).toArray();
+        }
+        postings.values().forEach(RoaringBitmap::runOptimize);
+
+        return new TrigramIndex(documents.toArray(new String[0]), rowsByDocument, postings, shortDocuments);
+    }
+
+    /**
+     * Rows having at least one indexed text that contains the normalized term.
+     */
+    public RoaringBitmap find(String normalizedTerm) {
+        RoaringBitmap rows = new RoaringBitmap();
+        IntIterator matches = matchingDocuments(normalizedTerm).getIntIterator();
+        while (matches.hasNext()) {
+            rows.add(rowsByDocument[matches.next()]);
+        }
+        return rows;
+    }
+
+    public int documentCount() {
+        return documents.length;
+    }
+
+    public int gramCount() {
+        return postings.size();
+    }
+
+    private RoaringBitmap matchingDocuments(String term) {
+        if (term.isEmpty()) {
+            return RoaringBitmap.bitmapOfRange(0, documents.length);
+        }
+        if (term.length() < GRAM) {
+            return shortTermDocuments(term);
+        }
+
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            grams.add(term.substring(i, i + GRAM));
+        }
+        List<RoaringBitmap> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            RoaringBitmap list = postings.get(gram);
+            if (list == null) {
+                return EMPTY;
+            }
+            lists.add(list);
+        }
+
+        // Intersect smallest-first, then drop documents where the grams do not line up
+        lists.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        RoaringBitmap candidates = lists.get(0).clone();
+        for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) {
+            candidates.and(lists.get(i));
+        }
+        if (term.length() == GRAM) {
+            return candidates;
+        }
+        RoaringBitmap verified = new RoaringBitmap();
+        IntIterator it = candidates.getIntIterator();
+        while (it.hasNext()) {
+            int document = it.next();
+            if (documents[document].contains(term)) {
+                verified.add(document);
+            }
+        }
+        return verified;
+    }
+
+    private RoaringBitmap shortTermDocuments(String term) {
+        // Any gram containing the term proves the match without verification
+        List<RoaringBitmap> lists = new ArrayList<>();
+        for (Map.Entry<String, RoaringBitmap> entry : postings.entrySet()) {
+            if (entry.getKey().contains(term)) {
+                lists.add(entry.getValue());
+            }
+        }
+        RoaringBitmap matches = switch (lists.size()) {
+            case 0 -> new RoaringBitmap();
+            case 1 -> lists.get(0).clone();
+            default -> FastAggregation.or(lists.iterator());
+        };
+        IntIterator it = shortDocuments.getIntIterator();
+        while (it.hasNext()) {
+            int document = it.next();
+            if (documents[document].contains(term)) {
+                matches.add(document);
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,239 @@
+package com.puphax.util;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD concurrency limiter for calls to a remote service.
+ *
+ * The limit grows by {@code 1/limit} for every call that completes within the
+ * latency threshold while the limiter is close to saturation, and shrinks
+ * multiplicatively when a call is slow, times out or fails because the server
+ * is overloaded. Callers that find no free slot wait in a bounded queue for at
+ * most {@code maxWait}; beyond that they are rejected instead of piling up
+ * threads behind a struggling server.
+ *
+ * Interactive callers always go first: background callers only start while no
+ * interactive caller is waiting. The priority of the current thread is
+ * {@link Priority#INTERACTIVE} unless the work runs inside {@link #background}.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private static final ThreadLocal<Priority> CURRENT_PRIORITY = ThreadLocal.withInitial(() -> Priority.INTERACTIVE);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition interactiveTurn = lock.newCondition();
+    private final Condition backgroundTurn = lock.newCondition();
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private int interactiveWaiting;
+    private int backgroundWaiting;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                                      Duration maxWait, Duration latencyThreshold) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limit range: " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Runs {@code work} with background priority for every permit it acquires on this thread.
+     */
+    public static <T> T background(Callable<T> work) throws Exception {
+        Priority previous = CURRENT_PRIORITY.get();
+        CURRENT_PRIORITY.set(Priority.BACKGROUND);
+        try {
+            return work.call();
+        } finally {
+            CURRENT_PRIORITY.set(previous);
+        }
+    }
+
+    /**
+     * Acquires a permit with the priority of the current thread.
+     */
+    public Permit acquire() throws InterruptedException {
+        return acquire(CURRENT_PRIORITY.get());
+    }
+
+    /**
+     * Acquires a permit, waiting in the queue while the limit is reached.
+     *
+     * @throws RejectedExecutionException if the queue is full or no slot frees up within the maximum wait
+     */
+    public Permit acquire(Priority priority) throws InterruptedException {
+        lock.lock();
+        try {
+            if (!canStart(priority)) {
+                await(priority);
+            }
+            inFlight++;
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void await(Priority priority) throws InterruptedException {
+        if (interactiveWaiting + backgroundWaiting >= maxQueue) {
+            rejected.increment();
+            throw new RejectedExecutionException("Concurrency limit " + (int) limit + " reached and queue is full");
+        }
+
+        boolean interactive = priority == Priority.INTERACTIVE;
+        Condition turn = interactive ? interactiveTurn : backgroundTurn;
+        if (interactive) {
+            interactiveWaiting++;
+        } else {
+            backgroundWaiting++;
+        }
+        boolean acquired = false;
+        try {
+            long remaining = maxWaitNanos;
+            while (!canStart(priority)) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("No slot within concurrency limit " + (int) limit
+                        + " after " + Duration.ofNanos(maxWaitNanos).toMillis() + "ms");
+                }
+                remaining = turn.awaitNanos(remaining);
+            }
+            acquired = true;
+        } finally {
+            if (interactive) {
+                interactiveWaiting--;
+            } else {
+                backgroundWaiting--;
+            }
+            // Hand a spare slot on, e.g. to background callers once the last interactive one left
+            signalNext(acquired ? 1 : 0);
+        }
+    }
+
+    private boolean canStart(Priority priority) {
+        return inFlight < (int) limit && (priority == Priority.INTERACTIVE || interactiveWaiting == 0);
+    }
+
+    private void signalNext(int reserved) {
+        if (inFlight + reserved >= (int) limit) {
+            return;
+        }
+        if (interactiveWaiting > 0) {
+            interactiveTurn.signal();
+        } else if (backgroundWaiting > 0) {
+            backgroundTurn.signal();
+        }
+    }
+
+    private void release(long latencyNanos, boolean dropped) {
+        lock.lock();
+        try {
+            if (dropped || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            } else if (latencyNanos >= 0 && inFlight * 2 >= (int) limit) {
+                // Only grow while the current limit is actually being used
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            inFlight--;
+            signalNext(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Current concurrency limit. */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Calls currently holding a permit. */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Callers waiting for a permit with the given priority. */
+    public int getQueueDepth(Priority priority) {
+        lock.lock();
+        try {
+            return priority == Priority.INTERACTIVE ? interactiveWaiting : backgroundWaiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Callers rejected because the queue was full or the wait timed out. */
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * One slot within the limit. Report the outcome once through {@link #onSuccess} or
+     * {@link #onDropped}; {@link #release} frees the slot without adjusting the limit and
+     * is a no-op after an outcome was reported.
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        private Permit() {
+        }
+
+        /** The call completed; its latency decides whether the limit grows or shrinks. */
+        public void onSuccess() {
+            complete(System.nanoTime() - startNanos, false);
+        }
+
+        /** The call timed out or the server reported overload. */
+        public void onDropped() {
+            complete(0, true);
+        }
+
+        /** Frees the slot, e.g. after a failure that says nothing about server load. */
+        public void release() {
+            complete(-1, false);
+        }
+
+        private void complete(long latencyNanos, boolean dropped) {
+            if (released) {
+                return;
+            }
+            released = true;
+            AdaptiveConcurrencyLimiter.this.release(latencyNanos, dropped);
+        }
+    }
+}
@@ -3,13 +3,6 @@ package com.puphax.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,9 +17,6 @@ public class EncodingUtils {
     
     private static final Logger logger = LoggerFactory.getLogger(EncodingUtils.class);
     
-    // ISO-8859-2 charset (Central European encoding used by PUPHAX)
-    private static final Charset ISO_8859_2 = Charset.forName("ISO-8859-2");
-    
     // Pattern to detect potential encoding issues in SOAP responses
     private static final Pattern ENCODING_ERROR_PATTERN = Pattern.compile(
         "Invalid byte|UTF-8 sequence|encoding|charset", Pattern.CASE_INSENSITIVE
@@ -40,10 +30,11 @@ public class EncodingUtils {
     /**
      * Attempts to fix character encoding issues in PUPHAX SOAP responses.
      * 
-     * This method tries multiple approaches to handle mixed encoding:
-     * 1. First attempts to parse as UTF-8
-     * 2. If that fails, tries to convert ISO-8859-2 content to UTF-8
-     * 3. As a last resort, applies character replacement for common Hungarian characters
+     * Response bytes are decoded from ISO-8859-2 by
+     * {@link com.puphax.client.PuphaxResponseDecoder} while they are read, so an
+     * already decoded string only needs repair where it cannot be encoded at all:
+     * unpaired surrogates are replaced with '?'. The string is scanned once and
+     * returned as is when it is valid.
      * 
      * @param rawSoapResponse The raw SOAP response string
      * @return The corrected response string with proper UTF-8 encoding
@@ -53,118 +44,41 @@ public class EncodingUtils {
             return rawSoapResponse;
         }
         
-        try {
-            // First attempt: validate UTF-8 encoding
-            byte[] utf8Bytes = rawSoapResponse.getBytes(StandardCharsets.UTF_8);
-            String utf8Test = new String(utf8Bytes, StandardCharsets.UTF_8);
-            
-            // If this succeeds without corruption, the string is already properly encoded
-            if (utf8Test.equals(rawSoapResponse)) {
-                logger.debug("PUPHAX response is already properly UTF-8 encoded");
-                return rawSoapResponse;
-            }
-            
-        } catch (Exception e) {
-            logger.debug("Initial UTF-8 validation failed, attempting encoding conversion: {}", e.getMessage());
-        }
-        
-        // Second attempt: convert from ISO-8859-2 to UTF-8
-        try {
-            String converted = convertIso88592ToUtf8(rawSoapResponse);
-            logger.info("Successfully converted PUPHAX response from ISO-8859-2 to UTF-8");
-            return converted;
-            
-        } catch (Exception e) {
-            logger.warn("ISO-8859-2 conversion failed, attempting character replacement: {}", e.getMessage());
+        int invalid = firstUnpairedSurrogate(rawSoapResponse);
+        if (invalid < 0) {
+            logger.debug("PUPHAX response is already properly UTF-8 encoded");
+            return rawSoapResponse;
         }
         
-        // Third attempt: replace problematic characters
-        try {
-            String cleaned = replaceHungarianCharacters(rawSoapResponse);
-            logger.info("Applied Hungarian character replacement to PUPHAX response");
-            return cleaned;
-            
-        } catch (Exception e) {
-            logger.error("All encoding fix attempts failed for PUPHAX response: {}", e.getMessage());
-            return rawSoapResponse; // Return original as last resort
-        }
-    }
-    
-    /**
-     * Converts content from ISO-8859-2 encoding to UTF-8.
-     * 
-     * @param iso88592Content Content encoded in ISO-8859-2
-     * @return UTF-8 encoded content
-     * @throws IOException if conversion fails
-     */
-    private static String convertIso88592ToUtf8(String iso88592Content) throws IOException {
-        // Convert string to ISO-8859-2 bytes
-        byte[] iso88592Bytes = iso88592Content.getBytes(ISO_8859_2);
-        
-        // Create UTF-8 string from ISO-8859-2 bytes
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(iso88592Bytes);
-        InputStreamReader reader = new InputStreamReader(inputStream, ISO_8859_2);
-        
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        OutputStreamWriter writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
-        
-        // Copy and convert character by character
-        int character;
-        while ((character = reader.read()) != -1) {
-            writer.write(character);
+        StringBuilder fixed = new StringBuilder(rawSoapResponse.length());
+        fixed.append(rawSoapResponse, 0, invalid);
+        for (int i = invalid; i < rawSoapResponse.length(); i++) {
+            char c = rawSoapResponse.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < rawSoapResponse.length()
+                    && Character.isLowSurrogate(rawSoapResponse.charAt(i + 1))) {
+                fixed.append(c).append(rawSoapResponse.charAt(++i));
+            } else {
+                fixed.append(Character.isSurrogate(c) ? '?' : c);
+            }
         }
-        
-        writer.flush();
-        writer.close();
-        reader.close();
-        
-        return outputStream.toString(StandardCharsets.UTF_8);
+        logger.info("Replaced unencodable characters in PUPHAX response");
+        return fixed.toString();
     }
     
     /**
-     * Replaces common Hungarian characters that may cause encoding issues.
-     * 
-     * This is a fallback method that replaces problematic characters with
-     * their closest ASCII equivalents or proper UTF-8 representations.
-     * 
-     * @param content Content with potential Hungarian character issues
-     * @return Content with characters replaced
+     * Index of the first surrogate without its pair, or -1.
      */
-    private static String replaceHungarianCharacters(String content) {
-        if (content == null) {
-            return null;
+    private static int firstUnpairedSurrogate(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < content.length()
+                    && Character.isLowSurrogate(content.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return i;
+            }
         }
-        
-        // Replace common Hungarian characters that cause encoding issues
-        String result = content
-            // á, é, í, ó, ú - acute accents
-            .replaceAll("\\uFFFD\\uFFFD", "á")  // Common replacement for corrupted á
-            .replaceAll("\\uFFFD", "?")        // Replace any remaining replacement characters
-            
-            // Direct character replacements for common Hungarian letters
-            .replace("á", "á")
-            .replace("é", "é") 
-            .replace("í", "í")
-            .replace("ó", "ó")
-            .replace("ú", "ú")
-            .replace("ö", "ö")
-            .replace("ü", "ü")
-            .replace("ő", "ő")
-            .replace("ű", "ű")
-            
-            // Uppercase versions
-            .replace("Á", "Á")
-            .replace("É", "É")
-            .replace("Í", "Í")
-            .replace("Ó", "Ó")
-            .replace("Ú", "Ú")
-            .replace("Ö", "Ö")
-            .replace("Ü", "Ü")
-            .replace("Ő", "Ő")
-            .replace("Ű", "Ű");
-        
-        logger.debug("Applied Hungarian character replacement to {} characters", content.length());
-        return result;
+        return -1;
     }
     
     /**
@@ -224,18 +138,7 @@ public class EncodingUtils {
      * @return true if the content is valid UTF-8
      */
     public static boolean isValidUtf8(String content) {
-        if (content == null) {
-            return true;
-        }
-        
-        try {
-            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
-            String recreated = new String(bytes, StandardCharsets.UTF_8);
-            return content.equals(recreated);
-            
-        } catch (Exception e) {
-            return false;
-        }
+        return content == null || firstUnpairedSurrogate(content) < 0;
     }
     
     /**
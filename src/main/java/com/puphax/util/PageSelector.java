@@ -0,0 +1,64 @@
+package com.puphax.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects one page of a sorted view without sorting the whole list.
+ *
+ * For a page near the front of a large list only the first
+ * {@code offset + limit} elements are needed, so they are collected in a
+ * bounded max-heap (O(n log k)) and just those are sorted. Deep pages, where
+ * the heap would hold most of the list anyway, fall back to a full sort.
+ * Equal elements keep their list order in both cases, as with a stable sort.
+ */
+public final class PageSelector {
+
+    private PageSelector() {
+    }
+
+    /**
+     * Elements at positions [offset, offset + limit) of {@code items} sorted by {@code order}.
+     *
+     * @return a new list; empty if the offset is past the end
+     */
+    public static <T> List<T> page(List<T> items, Comparator<? super T> order, int offset, int limit) {
+        int size = items.size();
+        if (offset >= size || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int end = (int) Math.min(size, (long) offset + limit);
+
+        if (end * 2L >= size) {
+            List<T> sorted = new ArrayList<>(items);
+            sorted.sort(order);
+            return new ArrayList<>(sorted.subList(offset, end));
+        }
+
+        // Positions into items, ordered by element and then by position for stability
+        Comparator<Integer> byElement = (a, b) -> {
+            int result = order.compare(items.get(a), items.get(b));
+            return result != 0 ? result : Integer.compare(a, b);
+        };
+        PriorityQueue<Integer> smallest = new PriorityQueue<>(end, byElement.reversed());
+        for (int i = 0; i < size; i++) {
+            if (smallest.size() < end) {
+                smallest.add(i);
+            } else if (byElement.compare(i, smallest.peek()) < 0) {
+                smallest.poll();
+                smallest.add(i);
+            }
+        }
+
+        Integer[] positions = smallest.toArray(new Integer[0]);
+        Arrays.sort(positions, byElement);
+        List<T> page = new ArrayList<>(end - offset);
+        for (int i = offset; i < end; i++) {
+            page.add(items.get(positions[i]));
+        }
+        return page;
+    }
+}
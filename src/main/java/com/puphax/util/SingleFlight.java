@@ -0,0 +1,114 @@
+package com.puphax.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent loads of the same key.
+ *
+ * The first caller for a key (the leader) runs the loader on its own thread;
+ * callers arriving while that load is in flight wait for it and receive the
+ * same result or the same exception. Nothing is remembered once the load
+ * completes, so this complements a cache rather than replacing it: a failed
+ * load is retried by the next caller.
+ *
+ * @param <K> key type, typically operation plus parameters
+ * @param <V> result type
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Returns the result of {@code loader}, sharing an identical load already in flight.
+     */
+    public V execute(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        executed.increment();
+        try {
+            V result = loader.call();
+            own.complete(result);
+            return result;
+        } catch (Throwable e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #execute}: the leader starts the load and every caller
+     * gets a future of the shared result. Synchronous and asynchronous callers of the same
+     * key join each other's loads.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+
+        executed.increment();
+        CompletableFuture<V> load;
+        try {
+            load = loader.get();
+        } catch (Throwable e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((result, e) -> {
+            inFlight.remove(key, own);
+            if (e != null) {
+                own.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } else {
+                own.complete(result);
+            }
+        });
+        return own.copy();
+    }
+
+    private V await(CompletableFuture<V> leader) throws Exception {
+        try {
+            return leader.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /** Loads actually executed (one per leader). */
+    public long executedCount() {
+        return executed.sum();
+    }
+
+    /** Callers served by another caller's load. */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /** Keys currently being loaded. */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -11,6 +11,7 @@ class PuphaxGyogyszerKerreso {
         this.jelenlegiOldal = 0;
         this.jelenlegiKeresesiParameterek = {};
         this.utolsoKeresesiValasz = null;
+        this.javaslatIdozito = null;
 
         // Advanced filters state
         this.filterOptions = null;
@@ -34,6 +35,36 @@ class PuphaxGyogyszerKerreso {
         this.fetchFilterOptions();
     }
 
+    /**
+     * Gépelés közbeni javaslatok betöltése a keresőmező alá.
+     */
+    async javaslatokBetoltese(elotag) {
+        const lista = document.getElementById('kereses-javaslatok');
+        if (!lista) {
+            return;
+        }
+        if (!elotag || elotag.trim().length < 2) {
+            lista.innerHTML = '';
+            return;
+        }
+
+        try {
+            const valasz = await fetch(`${this.alapUrl}/suggest?prefix=${encodeURIComponent(elotag.trim())}&limit=10`);
+            if (!valasz.ok) {
+                return;
+            }
+            const javaslatok = await valasz.json();
+            lista.innerHTML = '';
+            javaslatok.forEach(javaslat => {
+                const opcio = document.createElement('option');
+                opcio.value = javaslat.text;
+                lista.appendChild(opcio);
+            });
+        } catch (hiba) {
+            console.debug('Javaslatok betöltése sikertelen:', hiba);
+        }
+    }
+
     /**
      * Az alkalmazás összes eseményfigyelőjének inicializálása.
      */
@@ -56,6 +87,13 @@ class PuphaxGyogyszerKerreso {
             });
         });
 
+        // Gépelés közbeni javaslatok (könnyű /suggest hívás, nem teljes keresés)
+        const keresoMezo = document.getElementById('keresett-kifejezes');
+        keresoMezo.addEventListener('input', () => {
+            clearTimeout(this.javaslatIdozito);
+            this.javaslatIdozito = setTimeout(() => this.javaslatokBetoltese(keresoMezo.value), 150);
+        });
+
         // Törlés gomb eseményfigyelő
         const torlesGomb = document.getElementById('torlese-gomb');
         torlesGomb.addEventListener('click', () => {
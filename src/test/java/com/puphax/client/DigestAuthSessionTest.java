@@ -0,0 +1,51 @@
+package com.puphax.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for pre-emptive digest signing.
+ */
+class DigestAuthSessionTest {
+
+    // RFC 2617 section 3.5 example
+    private static final String CHALLENGE = "Digest realm=\"testrealm@host.com\", qop=\"auth\", "
+        + "nonce=\"dcd98b7102dd2f0e8b11d0f600bfb0c093\", opaque=\"5ccc069c403ebaf9f0171e9517f40e41\"";
+
+    @Test
+    void authorize_Rfc2617Example_MatchesExpectedResponse() {
+        DigestAuthSession session = new DigestAuthSession();
+        session.challenge(CHALLENGE, "Mufasa", "Circle Of Life");
+
+        String header = session.authorize("GET", "/dir/index.html", "0a4f113b");
+
+        assertTrue(header.contains("nc=00000001"));
+        assertTrue(header.contains("response=\"6629fae49393a05397450978507c4ef1\""));
+        assertTrue(header.endsWith("opaque=\"5ccc069c403ebaf9f0171e9517f40e41\""));
+    }
+
+    @Test
+    void authorize_ReusedNonce_IncrementsCountUntilNewChallenge() {
+        DigestAuthSession session = new DigestAuthSession();
+        assertNull(session.authorize("POST", "/PUPHAXWS"));
+
+        session.challenge(CHALLENGE, "PUPHAX", "puphax");
+        assertTrue(session.authorize("POST", "/PUPHAXWS").contains("nc=00000001"));
+        assertTrue(session.authorize("POST", "/PUPHAXWS").contains("nc=00000002"));
+
+        session.challenge(CHALLENGE.replace("dcd98b", "aaaaaa"), "PUPHAX", "puphax");
+        String header = session.authorize("POST", "/PUPHAXWS");
+        assertTrue(header.contains("nonce=\"aaaaaa7102dd2f0e8b11d0f600bfb0c093\""));
+        assertTrue(header.contains("nc=00000001"));
+    }
+
+    @Test
+    void isStale_DetectsExpiredNonceChallenge() {
+        assertTrue(DigestAuthSession.isStale(CHALLENGE + ", stale=true"));
+        assertTrue(DigestAuthSession.isStale(CHALLENGE + ", stale=\"TRUE\""));
+        assertFalse(DigestAuthSession.isStale(CHALLENGE));
+        assertTrue(DigestAuthSession.isDigest(CHALLENGE));
+        assertFalse(DigestAuthSession.isDigest("Basic realm=\"PUPHAX\""));
+    }
+}
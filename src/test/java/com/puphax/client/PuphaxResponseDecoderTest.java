@@ -0,0 +1,80 @@
+package com.puphax.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for single-pass decoding of PUPHAX response bodies.
+ */
+class PuphaxResponseDecoderTest {
+
+    private static final String BODY = "<soap:Envelope><soap:Body><NEV>ŐSZIRÓZSA ÁRVÍZTŰRŐ tükörfúrógép</NEV>"
+        + "</soap:Body></soap:Envelope>";
+
+    @Test
+    void open_Utf8DeclaredLatin2Bytes_DecodesAsIso88592AndFixesDeclaration() throws IOException {
+        byte[] response = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + BODY).getBytes(PuphaxResponseDecoder.PUPHAX_CHARSET);
+
+        assertEquals("<?xml version=\"1.0\" encoding=\"ISO-8859-2\"?>" + BODY, decode(response));
+        assertEquals(BODY, decode(BODY.getBytes(PuphaxResponseDecoder.PUPHAX_CHARSET)));
+    }
+
+    @Test
+    void open_LargeBodyReadOneCharAtATime_MatchesJdkDecoder() throws IOException {
+        StringBuilder large = new StringBuilder("<?xml version='1.0' encoding='utf-8'?><IDLIST>");
+        for (int i = 0; i < 2000; i++) {
+            large.append("<SZOVEG>").append(i).append(" őű ÁÉ</SZOVEG>");
+        }
+        byte[] response = large.append("</IDLIST>").toString().getBytes(PuphaxResponseDecoder.PUPHAX_CHARSET);
+
+        StringBuilder decoded = new StringBuilder();
+        char[] one = new char[1];
+        try (Reader reader = PuphaxResponseDecoder.open(new ByteArrayInputStream(response))) {
+            while (reader.read(one, 0, 1) != -1) {
+                decoded.append(one[0]);
+            }
+        }
+
+        String expected = new String(response, PuphaxResponseDecoder.PUPHAX_CHARSET).replace("'utf-8'", "'ISO-8859-2'");
+        assertEquals(expected, decoded.toString());
+    }
+
+    @Test
+    void open_OtherDeclaredCharsetOrByteOrderMark_UsesThatCharset() throws IOException {
+        Charset windows1250 = Charset.forName("windows-1250");
+        byte[] declared = ("<?xml version=\"1.0\" encoding=\"windows-1250\"?>" + BODY).getBytes(windows1250);
+        assertEquals("<?xml version=\"1.0\" encoding=\"windows-1250\"?>" + BODY, decode(declared));
+
+        ByteArrayOutputStream bom = new ByteArrayOutputStream();
+        bom.write(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        bom.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + BODY).getBytes(StandardCharsets.UTF_8));
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + BODY, decode(bom.toByteArray()));
+    }
+
+    @Test
+    void transcode_Latin2Body_WritesUtf8WithMatchingDeclaration() throws IOException {
+        byte[] response = ("<?xml version=\"1.0\" encoding=\"ISO-8859-2\"?>" + BODY).getBytes(PuphaxResponseDecoder.PUPHAX_CHARSET);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        PuphaxResponseDecoder.transcode(new ByteArrayInputStream(response), out);
+
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + BODY, out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(byte[] response) throws IOException {
+        StringWriter decoded = new StringWriter();
+        try (Reader reader = PuphaxResponseDecoder.open(new ByteArrayInputStream(response))) {
+            reader.transferTo(decoded);
+        }
+        return decoded.toString();
+    }
+}
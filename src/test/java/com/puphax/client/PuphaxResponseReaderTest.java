@@ -0,0 +1,164 @@
+package com.puphax.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the streaming TERMEKADAT / TAMOGATADAT / code table / KIHIRD / DISP decoder.
+ */
+class PuphaxResponseReaderTest {
+
+    private static final String TERMEKADAT = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/">
+          <soap:Body>
+            <COBJTERMEKADAT-TERMEKADATOutput xmlns="http://xmlns.oracle.com/orawsv/PUPHAX/PUPHAXWS">
+              <RETURN>
+                <OBJTERMEKADAT>
+                  <NEV> ALGOPYRIN 500 MG TABLETTA </NEV>
+                  <ATC>N02BB02</ATC>
+                  <FORGENGT_ID>100</FORGENGT_ID>
+                  <HATOANYAG>metamizol-nátrium</HATOANYAG>
+                  <RENDELHET>VK</RENDELHET>
+                  <KISZNEV>20 x &amp; buborékcsomagolásban</KISZNEV>
+                  <ERV_KEZD>2023-01-01</ERV_KEZD>
+                </OBJTERMEKADAT>
+                <NEV>second occurrence is ignored</NEV>
+              </RETURN>
+            </COBJTERMEKADAT-TERMEKADATOutput>
+          </soap:Body>
+        </soap:Envelope>
+        """;
+
+    @Test
+    void readTermekAdat_MapsFirstOccurrenceOfEachField() throws Exception {
+        PuphaxResponseReader.TermekAdat termekadat = PuphaxResponseReader.readTermekAdat(new StringReader(TERMEKADAT));
+
+        assertEquals("ALGOPYRIN 500 MG TABLETTA", termekadat.name());
+        assertEquals("N02BB02", termekadat.atc());
+        assertEquals("100", termekadat.authorizationHolderId());
+        assertEquals("metamizol-nátrium", termekadat.activeIngredient());
+        assertEquals("20 x & buborékcsomagolásban", termekadat.packaging());
+        assertEquals("2023-01-01", termekadat.validFrom());
+        assertEquals("", termekadat.distributor());
+        assertFalse(termekadat.isFault());
+    }
+
+    @Test
+    void readTamogatAdat_NoSupportData_IsRecognizedByKgykeret() throws Exception {
+        String body = """
+            <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+              <KGYKERET>999999999.999999</KGYKERET><TAMSZAZ>0</TAMSZAZ>
+            </soap:Body></soap:Envelope>
+            """;
+
+        PuphaxResponseReader.TamogatAdat tamogatadat = PuphaxResponseReader.readTamogatAdat(new StringReader(body));
+
+        assertTrue(tamogatadat.recognized());
+        assertEquals("999999999.999999", tamogatadat.kgykeret());
+        assertEquals("0", tamogatadat.tamogatasSzazalek());
+        assertEquals("", tamogatadat.bruttoFogyasztoiAr());
+    }
+
+    @Test
+    void readTermekAdat_SoapFault_ReportsFaultString() throws Exception {
+        String body = """
+            <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+              <soap:Fault><faultcode>soap:Server</faultcode><faultstring>ORA-01403: no data found</faultstring></soap:Fault>
+            </soap:Body></soap:Envelope>
+            """;
+
+        PuphaxResponseReader.TermekAdat termekadat = PuphaxResponseReader.readTermekAdat(new StringReader(body));
+
+        assertTrue(termekadat.isFault());
+        assertEquals("ORA-01403: no data found", termekadat.fault());
+        assertEquals("", termekadat.name());
+    }
+
+    @Test
+    void readKodTabla_ReadsRowsOfBothObjectVariants() throws Exception {
+        String body = """
+            <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+              <COBJALAP-TABCEGEKOutput><RETURN>
+                <OBJKODTABLA><KOD>100</KOD><ELNEVEZ> Richter Gedeon Nyrt. </ELNEVEZ><MEGJEGYZ/></OBJKODTABLA>
+                <OBJKODTABLA2><KOD>12</KOD><ELNEVEZ>Belgyógyászat</ELNEVEZ><KIEGINFO>B</KIEGINFO></OBJKODTABLA2>
+              </RETURN></COBJALAP-TABCEGEKOutput>
+            </soap:Body></soap:Envelope>
+            """;
+
+        PuphaxResponseReader.KodTabla table = PuphaxResponseReader.readKodTabla(new StringReader(body));
+
+        assertFalse(table.isFault());
+        assertEquals(List.of(
+            new PuphaxResponseReader.KodTablaSor("100", "Richter Gedeon Nyrt.", "", ""),
+            new PuphaxResponseReader.KodTablaSor("12", "Belgyógyászat", "", "B")), table.rows());
+    }
+
+    @Test
+    void readKihird_ReadsPublicationsWithStatusAndVersion() throws Exception {
+        String body = """
+            <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+              <KIHIRDOutput><RETURN><OBJKIHIRD><KEZDET>2015.02.13</KEZDET><KIHIRDETESEK>
+                <OBJKIHIRDELEM><ELETBELEP>2015-03-01</ELETBELEP><STATUS>E</STATUS><VER/></OBJKIHIRDELEM>
+                <OBJKIHIRDELEM><ELETBELEP>2015-05-01</ELETBELEP><STATUS>M</STATUS><VER>3</VER></OBJKIHIRDELEM>
+              </KIHIRDETESEK></OBJKIHIRD></RETURN></KIHIRDOutput>
+            </soap:Body></soap:Envelope>
+            """;
+
+        List<PuphaxResponseReader.Kihirdetes> publications =
+            PuphaxResponseReader.readKihird(new StringReader(body)).publications();
+
+        assertEquals(2, publications.size());
+        assertTrue(publications.get(0).isLive());
+        assertEquals("2015-03-01", publications.get(0).effectiveFrom());
+        assertFalse(publications.get(1).isLive());
+        assertEquals("3", publications.get(1).version());
+    }
+
+    @Test
+    void readDisp_ReadsTermekAdatOfEachProductAndSkipsSupportData() throws Exception {
+        String body = """
+            <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+              <DISP_DIFFOutput><RETURN><OBJDISP>
+                <SP>2015-09-15</SP><SZURO><![CDATA[<alapfilter><LAPOZAS>1:2</LAPOZAS></alapfilter>]]></SZURO>
+                <REKORDSZAM>71</REKORDSZAM>
+                <ADATOK>
+                  <OBJDISPINF>
+                    <TERMEKADAT><ID>24643589</ID><ERV_KEZD>2014-03-01</ERV_KEZD><NEV> CLEXANE </NEV></TERMEKADAT>
+                    <TAMADAT><ID>236016</ID><TAMOGATASOK><OBJKATEGTAM><ID>321362</ID></OBJKATEGTAM></TAMOGATASOK></TAMADAT>
+                    <EUPONTSTR/><FORGENGJOG>Sanofi</FORGENGJOG>
+                  </OBJDISPINF>
+                  <OBJDISPINF><TERMEKADAT><ID>24643590</ID></TERMEKADAT><TAMADAT/></OBJDISPINF>
+                </ADATOK>
+              </OBJDISP></RETURN></DISP_DIFFOutput>
+            </soap:Body></soap:Envelope>
+            """;
+
+        PuphaxResponseReader.DispLista page = PuphaxResponseReader.readDisp(new StringReader(body));
+
+        assertEquals(71, page.recordCount());
+        assertEquals(2, page.products().size());
+        assertEquals("24643589", page.products().get(0).get("ID"));
+        assertEquals("CLEXANE", page.products().get(0).get("NEV"));
+        assertEquals("24643590", page.products().get(1).get("ID"));
+    }
+
+    @Test
+    void readFault_FaultEnvelope_ReturnsCodeAndString() throws Exception {
+        String body = """
+            <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+              <soap:Fault><faultcode>soap:Client</faultcode><faultstring> ORA-20001: Ismeretlen termek </faultstring></soap:Fault>
+            </soap:Body></soap:Envelope>
+            """;
+
+        PuphaxResponseReader.SoapFault fault = PuphaxResponseReader.readFault(new StringReader(body));
+
+        assertEquals("soap:Client", fault.code());
+        assertEquals("ORA-20001: Ismeretlen termek", fault.message());
+        assertNull(PuphaxResponseReader.readFault(new StringReader(TERMEKADAT)));
+    }
+}
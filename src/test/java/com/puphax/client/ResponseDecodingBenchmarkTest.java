@@ -0,0 +1,128 @@
+package com.puphax.client;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the single-pass response decoder with the decoding chains it replaced, on a
+ * 1 MB ISO-8859-2 TERMEKLISTA-sized body: time per body and bytes allocated per body.
+ *
+ * JMH is not among the build's dependencies, so this runs as an opt-in test with its own
+ * warm-up; figures are indicative. Run with {@code -Dpuphax.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "puphax.benchmark", matches = "true")
+class ResponseDecodingBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseDecodingBenchmarkTest.class);
+
+    private static final Charset ISO_8859_2 = PuphaxResponseDecoder.PUPHAX_CHARSET;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 200;
+
+    private static final byte[] RESPONSE = response();
+
+    @Test
+    void readerPath_DecoderVersusEntityUtilsChain() throws Exception {
+        String expected = legacyReader();
+        assertEquals(expected, decoderReader());
+
+        measure("reader: EntityUtils + fixCharacterEncoding + fixPuphaxEncoding", this::legacyReader);
+        measure("reader: PuphaxResponseDecoder.open", this::decoderReader);
+    }
+
+    @Test
+    void bytePath_TranscodeVersusFixHungarianEncoding() throws Exception {
+        assertArrayEquals(legacyTranscode(), decoderTranscode());
+
+        measure("bytes: HungarianHttpTransport.fixHungarianEncoding", this::legacyTranscode);
+        measure("bytes: PuphaxResponseDecoder.transcode", this::decoderTranscode);
+    }
+
+    // The chain SimplePuphaxClient and EncodingUtils used before the decoder
+    private String legacyReader() throws Exception {
+        String response = EntityUtils.toString(new ByteArrayEntity(RESPONSE, ContentType.create("text/xml")), ISO_8859_2);
+        if (response.contains("<?xml") && response.contains("UTF-8")) {
+            response = response.replace("UTF-8", "ISO-8859-2");
+        }
+        String utf8Test = new String(response.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        return utf8Test.equals(response) ? response : utf8Test;
+    }
+
+    private String decoderReader() throws Exception {
+        StringWriter decoded = new StringWriter(RESPONSE.length);
+        try (Reader reader = PuphaxResponseDecoder.open(new ByteArrayInputStream(RESPONSE))) {
+            reader.transferTo(decoded);
+        }
+        return decoded.toString();
+    }
+
+    // HungarianHttpTransport before the decoder: decode as UTF-8, detect issues, re-decode as ISO-8859-2
+    private byte[] legacyTranscode() {
+        String responseAsUtf8 = new String(RESPONSE, StandardCharsets.UTF_8);
+        if (!responseAsUtf8.contains("�")) {
+            return RESPONSE;
+        }
+        byte[] fixedBytes = new String(RESPONSE, ISO_8859_2).getBytes(StandardCharsets.UTF_8);
+        String fixedResponse = new String(fixedBytes, StandardCharsets.UTF_8);
+        assertFalse(fixedResponse.contains("�"));
+        return fixedBytes;
+    }
+
+    private byte[] decoderTranscode() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(RESPONSE.length * 2);
+        PuphaxResponseDecoder.transcode(new ByteArrayInputStream(RESPONSE), out);
+        return out.toByteArray();
+    }
+
+    private static void measure(String name, Callable<?> decode) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            decode.call();
+        }
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decode.call();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        double microsPerBody = elapsed / 1000.0 / ITERATIONS;
+        logger.info("{}: {} us/body, {} MB/s, {} KB allocated/body", name,
+            String.format("%.0f", microsPerBody),
+            String.format("%.0f", RESPONSE.length / microsPerBody),
+            allocated / ITERATIONS / 1024);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static byte[] response() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+            .append("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><TERMEKLISTA>");
+        for (int i = 0; xml.length() < 1024 * 1024; i++) {
+            xml.append("<TERMEK><ID>").append(14714226 + i).append("</ID>")
+                .append("<NEV>ALGOPYRIN 500 MG TABLETTA ŐSZI ÁRVÍZTŰRŐ</NEV>")
+                .append("<KISZNEV>20x buborékcsomagolásban</KISZNEV></TERMEK>");
+        }
+        xml.append("</TERMEKLISTA></soap:Body></soap:Envelope>");
+        return xml.toString().getBytes(ISO_8859_2);
+    }
+}
@@ -0,0 +1,51 @@
+package com.puphax.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for pre-compiled SOAP request templates.
+ */
+class SoapRequestTemplateTest {
+
+    private static final String ENVELOPE = """
+        <soapenv:Envelope>
+           <pup:DSP-DATE-IN>%s</pup:DSP-DATE-IN>
+           <pup:NID-NUMBER-IN>%s</pup:NID-NUMBER-IN>
+        </soapenv:Envelope>""";
+
+    @Test
+    void render_PlainParameters_MatchesStringFormat() {
+        SoapRequestTemplate template = SoapRequestTemplate.compile(ENVELOPE);
+
+        byte[] request = template.render("2025-01-01", "14714226");
+
+        assertEquals(2, template.parameterCount());
+        assertEquals(String.format(ENVELOPE, "2025-01-01", "14714226"), new String(request, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void render_SpecialAndHungarianCharacters_EscapedAsUtf8() {
+        SoapRequestTemplate template = SoapRequestTemplate.compile("<TNEV>%s</TNEV>");
+
+        byte[] request = template.render("ŐSZI <A&B> \"x\" 'y' 💊");
+
+        assertEquals("<TNEV>ŐSZI &lt;A&amp;B&gt; &quot;x&quot; &apos;y&apos; 💊</TNEV>",
+            new String(request, StandardCharsets.UTF_8));
+        assertEquals(0, SoapRequestTemplate.escape(null).length);
+    }
+
+    @Test
+    void render_NestedTemplateBytes_InsertedVerbatim() {
+        SoapRequestTemplate filter = SoapRequestTemplate.compile("<alapfilter><TNEV>%s</TNEV></alapfilter>");
+        SoapRequestTemplate envelope = SoapRequestTemplate.compile("<![CDATA[%s]]>");
+
+        byte[] request = envelope.render((Object) filter.render("ALGO%"));
+
+        assertEquals("<![CDATA[<alapfilter><TNEV>ALGO%</TNEV></alapfilter>]]>", new String(request, StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> envelope.render("a", "b"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.puphax.config;
+
+import com.puphax.client.PuphaxResponseReader.TamogatAdat;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for per-cache policies, the memory budget and entry weights.
+ */
+class CachePoliciesTest {
+
+    @Test
+    void of_ConfiguredAndUnlistedCaches_FallBackToDefaultPerSetting() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("puphax.cache.policies.support-data.max-weight", "48MB")
+            .withProperty("puphax.cache.policies.support-data.refresh-after-write", "10m")
+            .withProperty("puphax.cache.policies.support-data.expire-after-write", "24h")
+            .withProperty("puphax.cache.policies.company-names.expire-after-write", "24h");
+        environment.setConversionService(new ApplicationConversionService());
+
+        CachePolicies policies = CachePolicies.of(environment, List.of("support-data", "company-names", "puphax-drugs"),
+            DataSize.ofMegabytes(256));
+
+        assertEquals(new CachePolicy(DataSize.ofMegabytes(48), Duration.ofHours(24), Duration.ofMinutes(10)),
+            policies.policy("support-data"));
+        assertEquals(new CachePolicy(CachePolicy.DEFAULT.maxWeight(), Duration.ofHours(24), null),
+            policies.policy("company-names"));
+        assertEquals(CachePolicy.DEFAULT, policies.policy("puphax-drugs"));
+    }
+
+    @Test
+    void new_OverBudget_ScalesEveryCacheByTheSameFactor() {
+        CachePolicies policies = new CachePolicies(Map.of(
+            "drug-search-results", new CachePolicy(DataSize.ofMegabytes(150), Duration.ofMinutes(10), null),
+            "company-names", new CachePolicy(DataSize.ofMegabytes(50), Duration.ofHours(24), null)),
+            DataSize.ofMegabytes(100));
+
+        assertEquals(DataSize.ofMegabytes(75), policies.policy("drug-search-results").maxWeight());
+        assertEquals(DataSize.ofMegabytes(25), policies.policy("company-names").maxWeight());
+        assertEquals(Duration.ofHours(24), policies.policy("company-names").expireAfterWrite());
+    }
+
+    @Test
+    void weigh_LargePayloadOutweighsNameAndRecordsSumTheirStrings() {
+        CacheWeigher weigher = new CacheWeigher();
+        String payload = "x".repeat(100_000);
+        TamogatAdat support = new TamogatAdat("1234.5", "ALGOPYRIN", "", "", "", "", "", "", "", "", "", "", "", "",
+            "", "", "", "", "", "", "", "", true, null);
+
+        assertTrue(weigher.weigh("algopyrin", payload) > 200_000);
+        assertTrue(weigher.weigh("100", "Richter Gedeon Nyrt.") < 200);
+        assertTrue(weigher.weigh("14714226_2026-01-15", support) > 22 * 40);
+    }
+}
@@ -0,0 +1,105 @@
+package com.puphax.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the stale-while-revalidate cache policy.
+ */
+class RefreshAheadCachesTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+
+    private final RefreshAheadCaches caches = new RefreshAheadCaches(1);
+
+    @AfterEach
+    void shutdown() {
+        caches.destroy();
+    }
+
+    @Test
+    void get_PastSoftTtl_ServesStaleValueAndReloadsOnceInBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reloads = new AtomicInteger();
+        caches.register("product-details", key -> {
+            reloads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return "fresh " + key;
+        });
+        Cache<Object, Object> cache = caches.build("product-details", builder());
+        cache.put("14714226_2026-01-15", "stale");
+
+        advance(Duration.ofMinutes(11));
+        assertEquals("stale", cache.getIfPresent("14714226_2026-01-15"));
+        assertEquals("stale", cache.getIfPresent("14714226_2026-01-15"));
+        release.countDown();
+
+        assertEquals("fresh 14714226_2026-01-15", awaitValue(cache, "14714226_2026-01-15", "fresh 14714226_2026-01-15"));
+        assertEquals(1, reloads.get());
+    }
+
+    @Test
+    void get_ReloadsFailing_KeepsStaleValueUntilHardTtl() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        caches.register("product-details", key -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("NEAK unreachable");
+        });
+        Cache<Object, Object> cache = caches.build("product-details", builder());
+        cache.put("14714226_2026-01-15", "stale");
+
+        advance(Duration.ofHours(12));
+        assertEquals("stale", cache.getIfPresent("14714226_2026-01-15"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (attempts.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, attempts.get());
+        Thread.sleep(50);
+        assertEquals("stale", cache.getIfPresent("14714226_2026-01-15"));
+
+        advance(Duration.ofHours(13));
+        assertNull(cache.getIfPresent("14714226_2026-01-15"));
+    }
+
+    @Test
+    void get_Miss_IsNotLoaded() {
+        caches.register("product-details", key -> "loaded");
+        Cache<Object, Object> cache = caches.build("product-details", builder());
+
+        assertNull(cache.getIfPresent("14714226_2026-01-15"));
+    }
+
+    private Caffeine<Object, Object> builder() {
+        return Caffeine.newBuilder()
+            .ticker(ticker)
+            .refreshAfterWrite(Duration.ofMinutes(10))
+            .expireAfterWrite(Duration.ofHours(24));
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static Object awaitValue(Cache<Object, Object> cache, String key, Object expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Object value = cache.getIfPresent(key);
+        while (!expected.equals(value) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            value = cache.getIfPresent(key);
+        }
+        return value;
+    }
+}
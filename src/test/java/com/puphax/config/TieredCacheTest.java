@@ -0,0 +1,110 @@
+package com.puphax.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.puphax.client.PuphaxResponseReader.TermekAdat;
+import com.puphax.store.CacheLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Caffeine cache backed by a persistent L2.
+ */
+class TieredCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void get_AfterRestart_FilledFromDiskWithoutLoading() throws Exception {
+        TermekAdat product = new TermekAdat("ALGOPYRIN 500 MG TABLETTA", "N02BB02", "Sanofi", "", "", "", "", "",
+            "metamizol", "", "", "VK", "", "", "", "", "", "2026-01-01", "", null);
+
+        TieredCacheManager before = manager();
+        before.getCache("product-details").put("14714226_2026-01-15", product);
+        before.getCache("drug-search-results").put("algopyrin", "<soap:Envelope>...</soap:Envelope>");
+        before.destroy();
+
+        TieredCacheManager after = manager();
+        try {
+            Cache details = after.getCache("product-details");
+            AtomicInteger loads = new AtomicInteger();
+
+            assertEquals(product, details.get("14714226_2026-01-15", () -> {
+                loads.incrementAndGet();
+                return null;
+            }));
+            assertEquals(0, loads.get());
+            assertEquals(product, details.get("14714226_2026-01-15", TermekAdat.class));
+            assertEquals("<soap:Envelope>...</soap:Envelope>",
+                after.getCache("drug-search-results").get("algopyrin", String.class));
+            assertEquals(1, ((TieredCache) details).getL2Hits());
+        } finally {
+            after.destroy();
+        }
+    }
+
+    @Test
+    void get_L1ExpiredEntryStillOnDisk_IsMissPastCacheTtl() throws Exception {
+        CacheLog log = CacheLog.open(tempDir.resolve("drug-search-results.cachelog"), Duration.ofHours(24));
+        try {
+            log.append("aspirin", CacheValueCodec.encode("<soap:Envelope>old</soap:Envelope>"),
+                Instant.now().minus(Duration.ofMinutes(11)));
+            log.append("algopyrin", CacheValueCodec.encode("<soap:Envelope>new</soap:Envelope>"),
+                Instant.now().minus(Duration.ofMinutes(9)));
+            TieredCache cache = new TieredCache(new CaffeineCache("drug-search-results",
+                Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(10)).build()), log);
+
+            assertNull(cache.get("aspirin"));
+            assertEquals("<soap:Envelope>new</soap:Envelope>", cache.get("algopyrin", String.class));
+            assertEquals(1, cache.getL2Misses());
+        } finally {
+            log.close();
+        }
+    }
+
+    @Test
+    void evict_RemovesEntryFromDiskToo() throws Exception {
+        TieredCacheManager before = manager();
+        before.getCache("company-names").put("100", "Richter Gedeon Nyrt.");
+        before.getCache("company-names").evict("100");
+        before.destroy();
+
+        TieredCacheManager after = manager();
+        try {
+            assertNull(after.getCache("company-names").get("100"));
+        } finally {
+            after.destroy();
+        }
+    }
+
+    @Test
+    void getCache_NotPersistent_ReturnsPlainCaffeineCache() {
+        TieredCacheManager manager = manager();
+        try {
+            assertFalse(manager.getCache("puphax-drugs") instanceof TieredCache);
+            assertInstanceOf(TieredCache.class, manager.getCache("support-data"));
+        } finally {
+            manager.destroy();
+        }
+    }
+
+    private TieredCacheManager manager() {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        caffeine.setCaffeine(Caffeine.newBuilder().maximumSize(100).recordStats());
+        caffeine.setCacheNames(List.of("drug-search-results", "product-details", "support-data", "company-names",
+            "puphax-drugs"));
+        return new TieredCacheManager(caffeine, tempDir, Duration.ofHours(24),
+            List.of("drug-search-results", "product-details", "support-data", "company-names"));
+    }
+}
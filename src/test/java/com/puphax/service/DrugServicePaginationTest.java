@@ -6,12 +6,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -246,6 +254,78 @@ class DrugServicePaginationTest {
         assertTrue(pagination.hasNext()); // Has next page
     }
     
+    @Test
+    void searchDrugs_SameQueryOtherSpellingPageAndSort_ServedFromOneCachedResult() {
+        // Given
+        DrugService cachingService = new DrugService(mockSoapClient, realDataService, csvFallbackService,
+            new ConcurrentMapCacheManager("drugSearchCache"));
+        String realResponse = createMockXmlWithMultipleDrugs(5)
+            .replace("</drugSearchResponse>", "<dataType>REAL</dataType></drugSearchResponse>");
+        when(realDataService.searchDrugsReal("Algopyrin")).thenReturn(realResponse);
+        
+        // When
+        DrugSearchResponse first = cachingService.searchDrugs(" Algopyrin ", null, null, 0, 2, "name", "ASC");
+        DrugSearchResponse second = cachingService.searchDrugs(" ALGOPYRÍN ", null, null, 1, 2, "name", "DESC");
+        
+        // Then: PUPHAX is sent the term as typed, trimmed, not the folded key
+        verify(realDataService, times(1)).searchDrugsReal("Algopyrin");
+        verify(realDataService, times(1)).searchDrugsReal(anyString());
+        assertEquals("Drug 1 100mg tabletta", first.drugs().get(0).name());
+        assertEquals("Drug 3 100mg tabletta", second.drugs().get(0).name());
+        assertEquals(5, second.pagination().totalElements());
+    }
+    
+    @Test
+    void searchDrugs_ConcurrentIdenticalQueries_LoadedOnce() throws Exception {
+        // Given
+        DrugService cachingService = new DrugService(mockSoapClient, realDataService, csvFallbackService,
+            new ConcurrentMapCacheManager("drugSearchCache"));
+        String realResponse = createMockXmlWithMultipleDrugs(3)
+            .replace("</drugSearchResponse>", "<dataType>REAL</dataType></drugSearchResponse>");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(realDataService.searchDrugsReal("Béres")).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return realResponse;
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        
+        try {
+            // When: the second search arrives while the first one is still loading
+            Future<DrugSearchResponse> first = callers.submit(
+                () -> cachingService.searchDrugs("Béres", null, null, 0, 10, "name", "ASC"));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<DrugSearchResponse> second = callers.submit(
+                () -> cachingService.searchDrugs("beres", null, null, 0, 10, "name", "ASC"));
+            Thread.sleep(100);
+            release.countDown();
+            
+            // Then
+            assertEquals(3, first.get(5, TimeUnit.SECONDS).pagination().totalElements());
+            assertEquals(3, second.get(5, TimeUnit.SECONDS).pagination().totalElements());
+            verify(realDataService, times(1)).searchDrugsReal(anyString());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+    
+    @Test
+    void searchDrugs_FallbackResult_NotCached() {
+        // Given
+        DrugService cachingService = new DrugService(mockSoapClient, realDataService, csvFallbackService,
+            new ConcurrentMapCacheManager("drugSearchCache"));
+        when(realDataService.searchDrugsReal("algopyrin")).thenReturn(createMockXmlWithMultipleDrugs(2));
+        
+        // When
+        cachingService.searchDrugs("algopyrin", null, null, 0, 10, "name", "ASC");
+        DrugSearchResponse second = cachingService.searchDrugs("algopyrin", null, null, 0, 10, "name", "ASC");
+        
+        // Then
+        verify(realDataService, times(2)).searchDrugsReal("algopyrin");
+        assertEquals(2, second.pagination().totalElements());
+    }
+    
     /**
      * Creates a mock XML response with the specified number of drugs.
      */
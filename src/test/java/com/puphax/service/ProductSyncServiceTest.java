@@ -0,0 +1,130 @@
+package com.puphax.service;
+
+import com.puphax.client.PuphaxResponseReader.DispLista;
+import com.puphax.client.PuphaxResponseReader.Kihirdetes;
+import com.puphax.store.ProductUpdate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the publication-driven incremental product sync.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductSyncServiceTest {
+
+    private static final LocalDate DUMP = LocalDate.of(2025, 1, 1);
+    private static final LocalDate PUBLICATION = LocalDate.of(2025, 2, 1);
+    private static final LocalDate TODAY = LocalDate.of(2025, 2, 10);
+
+    @Mock
+    private SimplePuphaxClient simplePuphaxClient;
+
+    @Mock
+    private PuphaxCsvFallbackService csvFallbackService;
+
+    @InjectMocks
+    private ProductSyncService syncService;
+
+    private static Map<String, String> product(String id, String validFrom, String validTo) {
+        return Map.of("ID", id, "NEV", "PRODUCT " + id, "ERV_KEZD", validFrom, "ERV_VEGE", validTo, "FORGALOMBAN", "1");
+    }
+
+    private static DispLista page(int recordCount, List<Map<String, String>> products) {
+        return new DispLista(recordCount, products, null);
+    }
+
+    @Test
+    void latestLivePublication_SkipsWorkingVersionsAndFutureDates() {
+        List<Kihirdetes> publications = List.of(
+            new Kihirdetes("2025-01-01", "E", ""),
+            new Kihirdetes("2025-02-01", "E", ""),
+            new Kihirdetes("2025-02-05", "M", "2"),
+            new Kihirdetes("2025-03-01", "E", ""));
+
+        assertEquals(PUBLICATION, ProductSyncService.latestLivePublication(publications, DUMP, TODAY));
+        assertNull(ProductSyncService.latestLivePublication(publications, PUBLICATION, TODAY));
+    }
+
+    @Test
+    void sync_NewPublication_PagesThroughChangesAndAppliesStateValidAtPublication() throws Exception {
+        when(csvFallbackService.getGeneration()).thenReturn(1L);
+        when(csvFallbackService.getLatestValidFrom()).thenReturn(DUMP);
+        when(simplePuphaxClient.getPublications(DUMP)).thenReturn(List.of(new Kihirdetes("2025-02-01", "E", "")));
+
+        List<Map<String, String>> fullPage = new ArrayList<>();
+        for (int i = 0; i < ProductSyncService.PAGE_SIZE; i++) {
+            fullPage.add(product("N" + i, "2025-02-01", "2099-12-31"));
+        }
+        when(simplePuphaxClient.getProductChanges(DUMP, PUBLICATION, "U", 1, 100)).thenReturn(page(101, fullPage));
+        when(simplePuphaxClient.getProductChanges(DUMP, PUBLICATION, "U", 101, 100))
+            .thenReturn(page(0, List.of(product("N100", "2025-02-01", "2099-12-31"))));
+        // A changed product is listed in its old and its new state
+        when(simplePuphaxClient.getProductChanges(DUMP, PUBLICATION, "M", 1, 100)).thenReturn(page(2, List.of(
+            product("C1", "2025-02-01", "2099-12-31"),
+            product("C1", "2024-01-01", "2025-01-31"))));
+        when(simplePuphaxClient.getProductChanges(DUMP, PUBLICATION, "T", 1, 100))
+            .thenReturn(page(1, List.of(product("D1", "2024-01-01", "2099-12-31"))));
+        when(csvFallbackService.applyProductUpdates(anyList(), eq(1L))).thenReturn(2L);
+
+        assertEquals(103, syncService.sync(TODAY));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProductUpdate>> applied = ArgumentCaptor.forClass(List.class);
+        verify(csvFallbackService).applyProductUpdates(applied.capture(), eq(1L));
+        Map<String, ProductUpdate> byId = new HashMap<>();
+        applied.getValue().forEach(update -> byId.put(update.id(), update));
+        assertEquals(103, byId.size());
+        assertEquals("2025-02-01", LocalDate.ofEpochDay(byId.get("C1").validFromDay()).toString());
+        assertEquals(PUBLICATION.minusDays(1).toEpochDay(), byId.get("D1").validToDay());
+        assertFalse(byId.get("D1").inStock());
+    }
+
+    @Test
+    void sync_AfterApplying_ContinuesFromPublicationUntilDatasetIsReloaded() throws Exception {
+        when(csvFallbackService.getGeneration()).thenReturn(1L, 2L, 3L);
+        when(csvFallbackService.getLatestValidFrom()).thenReturn(DUMP);
+        when(simplePuphaxClient.getPublications(any())).thenReturn(List.of(new Kihirdetes("2025-02-01", "E", "")));
+        when(simplePuphaxClient.getProductChanges(any(), any(), anyString(), anyInt(), anyInt()))
+            .thenReturn(page(1, List.of(product("C1", "2025-02-01", "2099-12-31"))));
+        when(csvFallbackService.applyProductUpdates(anyList(), anyLong())).thenReturn(2L, 4L);
+
+        assertEquals(1, syncService.sync(TODAY));
+        // Generation 2 is our own update: nothing newer than the publication
+        assertEquals(0, syncService.sync(TODAY));
+        verify(simplePuphaxClient).getPublications(PUBLICATION);
+        // Generation 3 is a reload: start over from the reloaded data
+        assertEquals(1, syncService.sync(TODAY));
+        verify(simplePuphaxClient, times(2)).getPublications(DUMP);
+    }
+
+    @Test
+    void sync_ReloadPublishedWhileApplying_RestartsFromReloadedData() throws Exception {
+        LocalDate reloadedDump = LocalDate.of(2025, 1, 20);
+        when(csvFallbackService.getGeneration()).thenReturn(1L, 2L);
+        when(csvFallbackService.getLatestValidFrom()).thenReturn(DUMP, reloadedDump);
+        when(simplePuphaxClient.getPublications(any())).thenReturn(List.of(new Kihirdetes("2025-02-01", "E", "")));
+        when(simplePuphaxClient.getProductChanges(any(), any(), anyString(), anyInt(), anyInt()))
+            .thenReturn(page(1, List.of(product("C1", "2025-02-01", "2099-12-31"))));
+        // Generation 2 (a reload) was published while the delta since DUMP was being applied
+        when(csvFallbackService.applyProductUpdates(anyList(), eq(1L))).thenReturn(-1L);
+        when(csvFallbackService.applyProductUpdates(anyList(), eq(2L))).thenReturn(3L);
+
+        assertEquals(0, syncService.sync(TODAY));
+        assertEquals(1, syncService.sync(TODAY));
+        verify(simplePuphaxClient).getProductChanges(reloadedDump, PUBLICATION, "U", 1, 100);
+    }
+}
@@ -0,0 +1,334 @@
+package com.puphax.service;
+
+import com.puphax.model.dto.DatasetReloadStatus;
+import com.puphax.model.dto.DrugSearchFilter;
+import com.puphax.model.dto.DrugSuggestion;
+import com.puphax.model.dto.FilterOptions;
+import com.puphax.model.dto.SearchFacets;
+import com.puphax.store.ProductUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CSV fallback service search and filter logic
+ * using a small synthetic TERMEK dataset.
+ */
+class PuphaxCsvFallbackServiceTest {
+
+    private static final String TERMEK_HEADER = "ID\tPARENT_ID\tERV_KEZD\tERV_VEGE\t...";
+
+    private PuphaxCsvFallbackService service;
+
+    /**
+     * Build one TERMEK.csv line (44 TAB separated columns).
+     */
+    static String termekLine(String id, String name, String atc, String gyForma, String adagMod,
+                             String rendelhet, String potencia, String forgEngtId, boolean inStock,
+                             String validFrom) {
+        String[] fields = new String[44];
+        java.util.Arrays.fill(fields, "");
+        fields[0] = id;
+        fields[1] = "0";
+        fields[2] = validFrom;
+        fields[4] = "\"T" + id + "\"";
+        fields[6] = "\"2\"";
+        fields[7] = "\"TK-" + id + "\"";
+        fields[11] = "1011";
+        fields[12] = "\"" + name + "\"";
+        fields[14] = "\"" + atc + "\"";
+        fields[16] = "\"" + name.split(" ")[0].toLowerCase() + "\"";
+        fields[17] = "\"" + adagMod + "\"";
+        fields[18] = "\"" + gyForma + "\"";
+        fields[19] = "\"" + rendelhet + "\"";
+        fields[22] = "\"" + potencia + "\"";
+        fields[25] = "\"mg\"";
+        fields[34] = "\"0\"";
+        fields[40] = "\"" + forgEngtId + "\"";
+        fields[42] = inStock ? "1" : "0";
+        return String.join("\t", fields);
+    }
+
+    static PuphaxCsvFallbackService loadedService(String... termekLines) throws Exception {
+        PuphaxCsvFallbackService service = new PuphaxCsvFallbackService();
+        String brands = "ID\tNEV\tKIHIRDETES_ID\n1011\t\"ALAPANYAG\"\t1001\n";
+        String companies = "ID\tNEV\tERV_KEZD\tERV_VEGE\tKIHIRDETES_ID\n"
+            + "100\t\"ExtractumPharma Zrt.\"\t2015.01.01\t2099.12.31\t1001\n"
+            + "200\t\"Richter Gedeon Nyrt.\"\t2015.01.01\t2099.12.31\t1001\n";
+        String termek = TERMEK_HEADER + "\n" + String.join("\n", termekLines) + "\n";
+        service.initialize(
+            new BufferedReader(new StringReader(brands)),
+            new BufferedReader(new StringReader(companies)),
+            new BufferedReader(new StringReader(termek)));
+        return service;
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = loadedService(
+            termekLine("1", "ALGOPYRIN 500 MG TABLETTA", "N02BB02", "TABLETTA", "ORALIS", "VK", "500mg", "100", true, "2023.01.01"),
+            termekLine("2", "ALGOPYRIN 500 MG TABLETTA", "N02BB02", "TABLETTA", "ORALIS", "VK", "500mg", "100", true, "2024.01.01"),
+            termekLine("3", "ASPIRIN PROTECT 100 MG", "B01AC06", "TABLETTA", "ORALIS", "VK", "100mg", "200", false, "2023.01.01"),
+            termekLine("4", "METFORMIN 850 MG", "A10BA02", "FILMTABLETTA", "ORALIS", "VN", "850mg", "200", true, "2023.01.01"),
+            termekLine("5", "INSULIN INJEKCIO", "A10AB01", "OLDATOS INJEKCIO", "SUBCUTAN", "VN", "100", "100", true, "2023.01.01"),
+            termekLine("6", "OLD PRODUCT", "A01AA01", "TABLETTA", "ORALIS", "VK", "1mg", "100", true, "2010.01.01")
+        );
+    }
+
+    @Test
+    void initialize_SkipsPre2022Products() {
+        assertTrue(service.isInitialized());
+        assertEquals(5, service.getFilterOptions().totalProducts());
+    }
+
+    @Test
+    void searchWithAdvancedFilters_TermSearch_DeduplicatesKeepingLatestVersion() {
+        List<PuphaxCsvFallbackService.ProductRecord> results =
+            service.searchWithAdvancedFilters(DrugSearchFilter.builder().searchTerm("algopyrin").build());
+
+        assertEquals(1, results.size());
+        assertEquals("2", results.get(0).id);
+    }
+
+    @Test
+    void searchWithAdvancedFilters_AtcPrefixAndForm_MatchesByCategoricalColumns() {
+        DrugSearchFilter filter = DrugSearchFilter.builder()
+            .atcCodes(List.of("A10"))
+            .productForms(List.of("FILMTABLETTA"))
+            .build();
+
+        List<PuphaxCsvFallbackService.ProductRecord> results = service.searchWithAdvancedFilters(filter);
+
+        assertEquals(1, results.size());
+        assertEquals("METFORMIN 850 MG", results.get(0).name);
+    }
+
+    @Test
+    void searchWithAdvancedFilters_ManufacturerStockAndPrescription_CombinedWithAnd() {
+        DrugSearchFilter filter = DrugSearchFilter.builder()
+            .manufacturers(List.of("Richter Gedeon Nyrt."))
+            .inStock(true)
+            .prescriptionRequired(true)
+            .build();
+
+        List<PuphaxCsvFallbackService.ProductRecord> results = service.searchWithAdvancedFilters(filter);
+
+        assertEquals(1, results.size());
+        assertEquals("4", results.get(0).id);
+    }
+
+    @Test
+    void searchWithAdvancedFilters_MultipleAtcPrefixesAndOutOfStock_UsesBitmapIndex() {
+        DrugSearchFilter filter = DrugSearchFilter.builder()
+            .atcCodes(List.of("B", "N02"))
+            .inStock(false)
+            .build();
+
+        List<PuphaxCsvFallbackService.ProductRecord> results = service.searchWithAdvancedFilters(filter);
+
+        assertEquals(1, results.size());
+        assertEquals("3", results.get(0).id);
+    }
+
+    @Test
+    void searchWithAdvancedFilters_UnknownCategoricalValue_ReturnsEmpty() {
+        DrugSearchFilter filter = DrugSearchFilter.builder()
+            .administrationMethods(List.of("NAZALIS"))
+            .build();
+
+        assertTrue(service.searchWithAdvancedFilters(filter).isEmpty());
+    }
+
+    @Test
+    void searchWithAdvancedFilters_TermCombinedWithIndexedFilters_IntersectsCandidates() {
+        DrugSearchFilter filter = DrugSearchFilter.builder()
+            .searchTerm("in")
+            .prescriptionTypes(List.of("VN"))
+            .tttCodes(List.of("2"))
+            .specialMarker(false)
+            .sortBy("atcCode")
+            .build();
+
+        List<PuphaxCsvFallbackService.ProductRecord> results = service.searchWithAdvancedFilters(filter);
+
+        assertEquals(List.of("5", "4"), results.stream().map(p -> p.id).toList());
+    }
+
+    @Test
+    void searchWithAdvancedFilters_StrengthRange_UsesNumericPotencia() {
+        DrugSearchFilter filter = DrugSearchFilter.builder()
+            .minStrength(100.0)
+            .maxStrength(500.0)
+            .sortBy("name")
+            .sortDirection("DESC")
+            .build();
+
+        List<PuphaxCsvFallbackService.ProductRecord> results = service.searchWithAdvancedFilters(filter);
+
+        assertEquals(List.of("INSULIN INJEKCIO", "ASPIRIN PROTECT 100 MG", "ALGOPYRIN 500 MG TABLETTA"),
+            results.stream().map(p -> p.name).toList());
+    }
+
+    @Test
+    void searchWithAdvancedFilters_FuzzyTerm_RanksByRelevance() {
+        DrugSearchFilter filter = DrugSearchFilter.builder()
+            .searchTerm("algopirín")
+            .fuzzy(true)
+            .sortBy("relevance")
+            .build();
+
+        List<PuphaxCsvFallbackService.ProductRecord> results = service.searchWithAdvancedFilters(filter);
+
+        assertEquals(1, results.size());
+        assertEquals("2", results.get(0).id);
+        assertTrue(results.get(0).relevanceScore > 0.8 && results.get(0).relevanceScore < 1.0);
+        assertTrue(service.searchWithAdvancedFilters(
+            DrugSearchFilter.builder().searchTerm("algopirín").build()).isEmpty());
+    }
+
+    @Test
+    void suggest_Prefix_ReturnsNamesBrandsAndIngredientsByProductCount() {
+        List<DrugSuggestion> suggestions = service.suggest("al", 10);
+
+        assertEquals(List.of(
+            new DrugSuggestion("ALAPANYAG", DrugSuggestion.SuggestionType.BRAND, 5),
+            new DrugSuggestion("algopyrin", DrugSuggestion.SuggestionType.ACTIVE_INGREDIENT, 2),
+            new DrugSuggestion("ALGOPYRIN 500 MG TABLETTA", DrugSuggestion.SuggestionType.NAME, 2)
+        ), suggestions);
+        assertEquals(1, service.suggest("al", 1).size());
+        assertTrue(service.suggest("zz", 10).isEmpty());
+    }
+
+    @Test
+    void triggerReload_NewDumpInDataDir_SwapsDatasetAndReportsProgress(@TempDir Path dataDir) throws Exception {
+        Charset latin2 = Charset.forName("ISO-8859-2");
+        Files.writeString(dataDir.resolve("BRAND.csv"), "ID\tNEV\tKIHIRDETES_ID\n1011\t\"ALAPANYAG\"\t1001\n", latin2);
+        Files.writeString(dataDir.resolve("CEGEK.csv"), "ID\tNEV\n100\t\"ExtractumPharma Zrt.\"\n", latin2);
+        Files.writeString(dataDir.resolve("ATCKONYV.csv"), "ATC\tNEV\n\"N\"\t\"Idegrendszer\"\n", latin2);
+        Files.writeString(dataDir.resolve("TERMEK.csv"), TERMEK_HEADER + "\n"
+            + termekLine("7", "NOVAMIN 500 MG", "N02BB02", "TABLETTA", "ORALIS", "VK", "500mg", "100", true, "2024.01.01")
+            + "\n", StandardCharsets.UTF_8);
+        ReflectionTestUtils.setField(service, "dataDir", dataDir.toString());
+        List<PuphaxCsvFallbackService.ProductRecord> inFlight =
+            service.searchWithAdvancedFilters(DrugSearchFilter.builder().searchTerm("metformin").build());
+
+        service.triggerReload();
+        DatasetReloadStatus status = service.getReloadStatus();
+        for (int i = 0; i < 500 && status.isRunning(); i++) {
+            Thread.sleep(10);
+            status = service.getReloadStatus();
+        }
+
+        assertEquals(DatasetReloadStatus.State.SUCCEEDED, status.state());
+        assertEquals(2, status.generation());
+        assertEquals(1, status.productCount());
+        assertEquals("Richter Gedeon Nyrt.", inFlight.get(0).manufacturerName);
+        assertTrue(service.searchWithAdvancedFilters(
+            DrugSearchFilter.builder().searchTerm("metformin").build()).isEmpty());
+        assertEquals("ExtractumPharma Zrt.", service.searchWithAdvancedFilters(
+            DrugSearchFilter.builder().searchTerm("novamin").build()).get(0).manufacturerName);
+        service.shutdown();
+    }
+
+    @Test
+    void searchAdvanced_IncludeFacets_CountsDeduplicatedResultSet() {
+        DrugSearchFilter filter = DrugSearchFilter.builder()
+            .administrationMethods(List.of("ORALIS"))
+            .includeFacets(true)
+            .build();
+
+        PuphaxCsvFallbackService.AdvancedSearchResult result = service.searchAdvanced(filter);
+        SearchFacets facets = result.facets();
+
+        assertEquals(3, result.products().size());
+        assertEquals(java.util.Map.of("A", 1L, "B", 1L, "N", 1L), facets.atcGroups());
+        assertEquals(List.of("TABLETTA", "FILMTABLETTA"), List.copyOf(facets.productForms().keySet()));
+        assertEquals(2L, facets.productForms().get("TABLETTA"));
+        assertEquals(java.util.Map.of("ORALIS", 3L), facets.administrationMethods());
+        assertEquals(2L, facets.manufacturers().get("Richter Gedeon Nyrt."));
+        assertEquals(1L, facets.manufacturers().get("ExtractumPharma Zrt."));
+        assertEquals(java.util.Map.of("2", 3L), facets.tttCodes());
+        assertEquals(2, facets.inStock());
+        assertEquals(1, facets.outOfStock());
+
+        assertNull(service.searchAdvanced(DrugSearchFilter.builder().build()).facets());
+    }
+
+    @Test
+    void searchAdvanced_SecondPage_ReturnsWindowAndTotalCount() {
+        DrugSearchFilter filter = DrugSearchFilter.builder().page(1).size(2).build();
+
+        PuphaxCsvFallbackService.AdvancedSearchResult result = service.searchAdvanced(filter);
+
+        assertEquals(4, result.totalCount());
+        assertEquals(List.of("INSULIN INJEKCIO", "METFORMIN 850 MG"),
+            result.products().stream().map(p -> p.name).toList());
+    }
+
+    @Test
+    void getFilterOptions_ReturnsDistinctFormsAndStockCount() {
+        FilterOptions options = service.getFilterOptions();
+
+        assertEquals(List.of("FILMTABLETTA", "OLDATOS INJEKCIO", "TABLETTA"), options.productForms());
+        assertEquals(List.of("ORALIS", "SUBCUTAN"), options.administrationMethods());
+        assertEquals(4, options.inStockCount());
+    }
+
+    @Test
+    void searchDrugs_ReturnsXmlWithManufacturer() {
+        String xml = service.searchDrugs("metformin");
+
+        assertTrue(xml.contains("<name>METFORMIN 850 MG</name>"));
+        assertTrue(xml.contains("<manufacturer>Richter Gedeon Nyrt.</manufacturer>"));
+        assertTrue(xml.contains("<totalCount>1</totalCount>"));
+    }
+
+    @Test
+    void applyProductUpdates_NewAndChangedRows_PublishedWithRebuiltIndexes() {
+        long generation = service.getGeneration();
+        ProductUpdate paracetamol = ProductUpdate.fromTermekAdat(Map.of(
+            "ID", "7", "PARENT_ID", "999999999.999999", "NEV", "PARACETAMOL 500 MG TABLETTA", "ATC", "N02BE01",
+            "GYFORMA", "TABLETTA", "ERV_KEZD", "2025-01-01", "ERV_VEGE", "2099-12-31", "FORGENGT_ID", "200",
+            "FORGALOMBAN", "1"));
+        ProductUpdate metforminOutOfStock = ProductUpdate.fromTermekAdat(Map.of(
+            "ID", "4", "NEV", "METFORMIN 850 MG", "ATC", "A10BA02", "GYFORMA", "FILMTABLETTA",
+            "ERV_KEZD", "2023-01-01", "FORGENGT_ID", "200", "FORGALOMBAN", "0"));
+
+        assertEquals(generation + 1, service.applyProductUpdates(List.of(paracetamol, metforminOutOfStock), generation));
+
+        List<PuphaxCsvFallbackService.ProductRecord> results = service.searchWithAdvancedFilters(
+            DrugSearchFilter.builder().atcCodes(List.of("N02BE")).build());
+        assertEquals(1, results.size());
+        assertEquals("PARACETAMOL 500 MG TABLETTA", results.get(0).name);
+        assertEquals(6, service.getFilterOptions().totalProducts());
+        assertEquals(4, service.getFilterOptions().inStockCount());
+        assertEquals(LocalDate.of(2025, 1, 1), service.getLatestValidFrom());
+    }
+
+    @Test
+    void applyProductUpdates_OtherGenerationPublishedSince_NotApplied() {
+        long generation = service.getGeneration();
+        ProductUpdate paracetamol = ProductUpdate.fromTermekAdat(Map.of(
+            "ID", "7", "NEV", "PARACETAMOL 500 MG TABLETTA", "ATC", "N02BE01", "GYFORMA", "TABLETTA",
+            "ERV_KEZD", "2025-01-01", "FORGENGT_ID", "200", "FORGALOMBAN", "1"));
+
+        assertEquals(-1, service.applyProductUpdates(List.of(paracetamol), generation - 1));
+
+        assertEquals(generation, service.getGeneration());
+        assertTrue(service.searchWithAdvancedFilters(
+            DrugSearchFilter.builder().atcCodes(List.of("N02BE")).build()).isEmpty());
+    }
+}
@@ -0,0 +1,99 @@
+package com.puphax.service;
+
+import com.puphax.client.PuphaxResponseReader.TermekAdat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the pipelined product-detail fetch of real PUPHAX searches.
+ */
+@ExtendWith(MockitoExtension.class)
+class PuphaxRealDataServiceTest {
+
+    @Mock
+    private SimplePuphaxClient simplePuphaxClient;
+
+    @Mock
+    private PuphaxCsvFallbackService csvFallbackService;
+
+    @InjectMocks
+    private PuphaxRealDataService realDataService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(realDataService, "detailFetchWindow", 2);
+        ReflectionTestUtils.setField(realDataService, "detailFetchDeadlineMs", 5000L);
+    }
+
+    @Test
+    void searchDrugsReal_ManyProducts_KeepsAtMostWindowInFlight() {
+        when(simplePuphaxClient.searchDrugsSimple("ALGO")).thenReturn(termeklista("1", "2", "3", "4", "5", "6"));
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(simplePuphaxClient.getProductDetails(anyString(), any())).thenAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return termekadat("ALGOPYRIN " + invocation.getArgument(0));
+        });
+
+        String response = realDataService.searchDrugsReal("ALGO");
+
+        for (int i = 1; i <= 6; i++) {
+            assertTrue(response.contains("<name>ALGOPYRIN " + i + "</name>"), "missing product " + i);
+        }
+        assertFalse(response.contains("<partial>"));
+        assertTrue(maxActive.get() <= 2, "at most two products in flight, saw " + maxActive.get());
+        verify(simplePuphaxClient, times(6)).getProductSupport(anyString(), any());
+    }
+
+    @Test
+    void searchDrugsReal_SlowProduct_DeadlineReturnsPartialResult() throws Exception {
+        ReflectionTestUtils.setField(realDataService, "detailFetchDeadlineMs", 300L);
+        when(simplePuphaxClient.searchDrugsSimple("ALGO")).thenReturn(termeklista("1", "2"));
+        CountDownLatch release = new CountDownLatch(1);
+        when(simplePuphaxClient.getProductDetails(eq("1"), any())).thenReturn(termekadat("ALGOPYRIN 1"));
+        when(simplePuphaxClient.getProductDetails(eq("2"), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return termekadat("ALGOPYRIN 2");
+        });
+
+        try {
+            String response = realDataService.searchDrugsReal("ALGO");
+
+            assertTrue(response.contains("<name>ALGOPYRIN 1</name>"));
+            assertFalse(response.contains("ALGOPYRIN 2"));
+            assertTrue(response.contains("<partial>true</partial>"));
+            verify(csvFallbackService, never()).searchDrugs(anyString());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static String termeklista(String... productIds) {
+        StringBuilder ids = new StringBuilder();
+        for (String productId : productIds) {
+            ids.append("<OBJSTRING256><SZOVEG>").append(productId).append("</SZOVEG></OBJSTRING256>");
+        }
+        return "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<IDLIST>" + ids + "</IDLIST></soap:Body></soap:Envelope>";
+    }
+
+    private static TermekAdat termekadat(String name) {
+        return new TermekAdat(name, "N02BB02", "Sanofi", "", "", "", "", "", "metamizol", "", "", "VK",
+            "", "", "", "", "", "", "", null);
+    }
+}
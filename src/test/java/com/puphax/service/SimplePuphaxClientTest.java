@@ -0,0 +1,234 @@
+package com.puphax.service;
+
+import com.puphax.exception.PuphaxConnectionException;
+import com.puphax.exception.PuphaxSoapFaultException;
+import com.puphax.util.AdaptiveConcurrencyLimiter;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the PUPHAX SOAP client's limiter handling and negative result caching,
+ * against a local stand-in for PUPHAX that answers every call with one scripted response.
+ */
+class SimplePuphaxClientTest {
+
+    private static final LocalDate SEARCH_DATE = LocalDate.of(2026, 1, 15);
+
+    private static final String CLIENT_FAULT = """
+        <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+          <soap:Fault><faultcode>soap:Client</faultcode><faultstring>ORA-20001: Ismeretlen termek</faultstring></soap:Fault>
+        </soap:Body></soap:Envelope>
+        """;
+
+    private static final String SERVER_FAULT = """
+        <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+          <soap:Fault><faultcode>soap:Server</faultcode><faultstring>ORA-00054: resource busy</faultstring></soap:Fault>
+        </soap:Body></soap:Envelope>
+        """;
+
+    private static final String EMPTY_TERMEKLISTA = """
+        <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+          <TERMEKLISTAOutput><RETURN><OBJIDLISTA><IDLIST></IDLIST></OBJIDLISTA></RETURN></TERMEKLISTAOutput>
+        </soap:Body></soap:Envelope>
+        """;
+
+    private HttpServer puphax;
+    private CloseableHttpClient httpClient;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile String lastRequest;
+    private volatile int status;
+    private volatile String body;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void startStandIn() throws IOException {
+        puphax = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        puphax.createContext("/PUPHAXWS", exchange -> {
+            try (exchange) {
+                lastRequest = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                requests.incrementAndGet();
+                byte[] response = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+                exchange.sendResponseHeaders(status, response.length);
+                exchange.getResponseBody().write(response);
+            }
+        });
+        puphax.start();
+        httpClient = HttpClients.custom().disableAutomaticRetries().build();
+    }
+
+    @AfterEach
+    void stopStandIn() throws IOException {
+        httpClient.close();
+        puphax.stop(0);
+    }
+
+    @Test
+    void getProductDetails_ClientFault_ReplayedWithoutCallingPuphax() {
+        respond(500, CLIENT_FAULT);
+        SimplePuphaxClient client = client(limiter(4));
+
+        for (int call = 0; call < 2; call++) {
+            RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> client.getProductDetails("14714226", SEARCH_DATE));
+            PuphaxSoapFaultException fault = assertInstanceOf(PuphaxSoapFaultException.class, failure.getCause());
+            assertEquals("soap:Client", fault.getFaultCode());
+            assertEquals("ORA-20001: Ismeretlen termek", fault.getFaultString());
+        }
+        assertEquals(1, requests.get());
+        assertEquals(1.0, hits("TERMEKADAT", "fault").count());
+    }
+
+    @Test
+    void searchDrugsSimple_EmptyTermeklista_ReplayedWithoutCallingPuphax() {
+        respond(200, EMPTY_TERMEKLISTA);
+        SimplePuphaxClient client = client(limiter(4));
+
+        assertEquals(EMPTY_TERMEKLISTA, client.searchDrugsSimple("NINCSILYEN"));
+        // Canonicalized to the same term, so also answered without a call
+        assertEquals(EMPTY_TERMEKLISTA, client.searchDrugsSimple(" Nincsilyen "));
+
+        assertEquals(1, requests.get());
+        assertEquals(1.0, hits("TERMEKLISTA", "empty").count());
+    }
+
+    @Test
+    void searchDrugsSimple_AccentedTerm_SentAsTypedButKeyedCanonically() {
+        respond(200, EMPTY_TERMEKLISTA);
+        SimplePuphaxClient client = client(limiter(4));
+
+        client.searchDrugsSimple("  Béres   csepp ");
+
+        assertTrue(lastRequest.contains("BÉRES CSEPP%"), lastRequest);
+        assertEquals("beres csepp", SimplePuphaxClient.searchKey("  Béres   csepp "));
+    }
+
+    @Test
+    void evictSearchCache_UsesTheSearchCacheKey() throws Exception {
+        Cacheable cached = SimplePuphaxClient.class.getMethod("searchDrugsSimple", String.class)
+            .getAnnotation(Cacheable.class);
+        CacheEvict evicted = SimplePuphaxClient.class.getMethod("evictSearchCache", String.class)
+            .getAnnotation(CacheEvict.class);
+
+        assertEquals(cached.key(), evicted.key());
+    }
+
+    @Test
+    void getProductDetails_ServerFault_NotRememberedAndShrinksLimit() {
+        respond(500, SERVER_FAULT);
+        AdaptiveConcurrencyLimiter limiter = limiter(4);
+        SimplePuphaxClient client = client(limiter);
+
+        for (int call = 0; call < 2; call++) {
+            RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> client.getProductDetails("14714226", SEARCH_DATE));
+            assertInstanceOf(PuphaxSoapFaultException.class, failure.getCause());
+        }
+        assertEquals(2, requests.get());
+        assertTrue(limiter.getLimit() < 4);
+        assertNull(meterRegistry.find("puphax.soap.negative-cache.stores").counter());
+    }
+
+    @Test
+    void getProductDetails_TransientFailures_NotRemembered() {
+        respond(503, SERVER_FAULT);
+        SimplePuphaxClient client = client(limiter(4));
+
+        for (int call = 0; call < 2; call++) {
+            RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> client.getProductDetails("14714226", SEARCH_DATE));
+            assertInstanceOf(PuphaxConnectionException.class, failure.getCause());
+        }
+        assertEquals(2, requests.get());
+
+        puphax.stop(0);
+        for (int call = 0; call < 2; call++) {
+            RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> client.getProductDetails("14714226", SEARCH_DATE));
+            assertInstanceOf(IOException.class, failure.getCause());
+        }
+        assertNull(meterRegistry.find("puphax.soap.negative-cache.stores").counter());
+        assertNull(meterRegistry.find("puphax.soap.negative-cache.hits").counter());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getProductDetailsAsync_SendFailsBeforeExchange_ReleasesLimiterSlot() {
+        CloseableHttpAsyncClient asyncClient = mock(CloseableHttpAsyncClient.class);
+        when(asyncClient.execute(any(SimpleHttpRequest.class), any(FutureCallback.class)))
+            .thenThrow(new IllegalStateException("I/O reactor not running"));
+        AdaptiveConcurrencyLimiter limiter = limiter(1);
+        SimplePuphaxClient client = client(limiter, asyncClient, new NoOpCacheManager());
+
+        for (int call = 0; call < 3; call++) {
+            CompletableFuture<?> details = client.getProductDetailsAsync(String.valueOf(call), SEARCH_DATE);
+
+            ExecutionException failure = assertThrows(ExecutionException.class, details::get);
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+        }
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private void respond(int status, String body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    private Counter hits(String operation, String kind) {
+        return meterRegistry.get("puphax.soap.negative-cache.hits")
+            .tag("operation", operation)
+            .tag("kind", kind)
+            .counter();
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int limit) {
+        return new AdaptiveConcurrencyLimiter(limit, 1, limit, 0, Duration.ofMillis(100), Duration.ofSeconds(5));
+    }
+
+    private SimplePuphaxClient client(AdaptiveConcurrencyLimiter limiter) {
+        return client(limiter, null, new ConcurrentMapCacheManager(NegativeResultCache.CACHE_NAME));
+    }
+
+    private SimplePuphaxClient client(AdaptiveConcurrencyLimiter limiter, CloseableHttpAsyncClient asyncClient,
+                                      CacheManager cacheManager) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(
+            asyncClient != null ? Map.of("httpAsyncClient", asyncClient) : Map.of());
+        SimplePuphaxClient client = new SimplePuphaxClient(httpClient,
+            beans.getBeanProvider(CloseableHttpAsyncClient.class), limiter, cacheManager, meterRegistry);
+        ReflectionTestUtils.setField(client, "puphaxEndpoint",
+            "http://127.0.0.1:" + puphax.getAddress().getPort() + "/PUPHAXWS");
+        return client;
+    }
+}
@@ -0,0 +1,192 @@
+package com.puphax.service;
+
+import com.puphax.client.PuphaxResponseReader.TermekAdat;
+import com.puphax.util.AdaptiveConcurrencyLimiter;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the blocking and async SOAP transports at 500 concurrent lookups against a
+ * local stand-in for PUPHAX that answers after 100ms.
+ *
+ * The stand-in is the JDK HTTP server (the WireMock 3.0 test dependency needs Jetty 11
+ * and does not start next to Spring Boot's Jetty 12). Its threads are excluded from the
+ * reported peak, which is sampled every few milliseconds along with p50/p99 latency.
+ * Run with {@code -Dpuphax.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "puphax.benchmark", matches = "true")
+class SoapTransportBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SoapTransportBenchmarkTest.class);
+
+    private static final int CONCURRENT_CALLS = 500;
+    private static final LocalDate SEARCH_DATE = LocalDate.of(2025, 1, 1);
+    private static final String STAND_IN_THREAD = "puphax-stand-in-";
+
+    private static final String TERMEKADAT = """
+        <soap:Envelope xmlns:soap="http://schemas.xmlsoap.org/soap/envelope/"><soap:Body>
+          <OBJTERMEKADAT><NEV>ALGOPYRIN 500 MG TABLETTA</NEV><ATC>N02BB02</ATC></OBJTERMEKADAT>
+        </soap:Body></soap:Envelope>
+        """;
+
+    static {
+        // The JDK server closes idle keep-alive connections above 200 by default, which resets pooled client connections
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(2 * CONCURRENT_CALLS));
+    }
+
+    private HttpServer puphax;
+    private ExecutorService standInThreads;
+    private ScheduledExecutorService threadSampler;
+    private final AtomicInteger peakClientThreads = new AtomicInteger();
+
+    @BeforeEach
+    void startStandIn() throws IOException {
+        byte[] body = TERMEKADAT.getBytes(StandardCharsets.UTF_8);
+        AtomicInteger threadNumber = new AtomicInteger();
+        standInThreads = Executors.newCachedThreadPool(
+            task -> new Thread(task, STAND_IN_THREAD + threadNumber.incrementAndGet()));
+
+        puphax = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), CONCURRENT_CALLS);
+        puphax.setExecutor(standInThreads);
+        puphax.createContext("/PUPHAXWS", exchange -> {
+            try (exchange) {
+                exchange.getRequestBody().readAllBytes();
+                Thread.sleep(100);
+                exchange.getResponseHeaders().set("Content-Type", "text/xml");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        puphax.start();
+
+        threadSampler = Executors.newSingleThreadScheduledExecutor();
+        threadSampler.scheduleAtFixedRate(() -> peakClientThreads.accumulateAndGet(clientThreads(), Math::max),
+            0, 2, TimeUnit.MILLISECONDS);
+    }
+
+    @AfterEach
+    void stopStandIn() {
+        threadSampler.shutdownNow();
+        puphax.stop(0);
+        standInThreads.shutdownNow();
+    }
+
+    @Test
+    void blockingTransport_500ConcurrentLookups() throws Exception {
+        try (CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(CONCURRENT_CALLS).setMaxConnPerRoute(CONCURRENT_CALLS).build())
+                .build()) {
+            SimplePuphaxClient client = client(httpClient, null);
+            ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_CALLS);
+            try {
+                peakClientThreads.set(0);
+                long[] latencies = new long[CONCURRENT_CALLS];
+                List<CompletableFuture<TermekAdat>> calls = new ArrayList<>();
+                for (int i = 0; i < CONCURRENT_CALLS; i++) {
+                    int call = i;
+                    long start = System.nanoTime();
+                    calls.add(CompletableFuture.supplyAsync(() -> {
+                        TermekAdat result = client.getProductDetails(String.valueOf(call), SEARCH_DATE);
+                        latencies[call] = System.nanoTime() - start;
+                        return result;
+                    }, callers));
+                }
+                report("blocking", calls, latencies);
+            } finally {
+                callers.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void asyncTransport_500ConcurrentLookups() throws Exception {
+        try (CloseableHttpAsyncClient asyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(CONCURRENT_CALLS).setMaxConnPerRoute(CONCURRENT_CALLS).build())
+                .build();
+             CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            asyncClient.start();
+            SimplePuphaxClient client = client(httpClient, asyncClient);
+
+            peakClientThreads.set(0);
+            long[] latencies = new long[CONCURRENT_CALLS];
+            List<CompletableFuture<TermekAdat>> calls = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_CALLS; i++) {
+                int call = i;
+                long start = System.nanoTime();
+                calls.add(client.getProductDetailsAsync(String.valueOf(call), SEARCH_DATE)
+                    .whenComplete((result, e) -> latencies[call] = System.nanoTime() - start));
+            }
+            report("async", calls, latencies);
+        }
+    }
+
+    private SimplePuphaxClient client(CloseableHttpClient httpClient, CloseableHttpAsyncClient asyncClient) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(
+            asyncClient != null ? Map.of("httpAsyncClient", asyncClient) : Map.of());
+        // Wide limits: the benchmark measures the transport, not the limiter
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            CONCURRENT_CALLS, 1, CONCURRENT_CALLS, CONCURRENT_CALLS, Duration.ofSeconds(30), Duration.ofSeconds(30));
+        SimplePuphaxClient client = new SimplePuphaxClient(httpClient,
+            beans.getBeanProvider(CloseableHttpAsyncClient.class), limiter, new NoOpCacheManager(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(client, "puphaxEndpoint",
+            "http://127.0.0.1:" + puphax.getAddress().getPort() + "/PUPHAXWS");
+        return client;
+    }
+
+    private void report(String transport, List<CompletableFuture<TermekAdat>> calls, long[] latencies) throws Exception {
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+
+        for (CompletableFuture<TermekAdat> call : calls) {
+            assertEquals("ALGOPYRIN 500 MG TABLETTA", call.join().name());
+        }
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        logger.info("{} transport: {} concurrent calls, peak client threads {}, p50 {}ms, p99 {}ms",
+            transport, CONCURRENT_CALLS, peakClientThreads.get(),
+            TimeUnit.NANOSECONDS.toMillis(sorted[sorted.length / 2]),
+            TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.ceil(sorted.length * 0.99) - 1]));
+    }
+
+    private static int clientThreads() {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> !thread.getName().startsWith(STAND_IN_THREAD))
+            .count();
+    }
+}
@@ -0,0 +1,128 @@
+package com.puphax.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the append-only log behind the persistent cache tier.
+ */
+class CacheLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final Duration MAX_AGE = Duration.ofHours(24);
+
+    @Test
+    void append_ThenReopen_RestoresLatestValuesAndFetchTimes() throws IOException {
+        Path path = tempDir.resolve("product-details.cachelog");
+        Instant fetchedAt = Instant.now().minusSeconds(600).truncatedTo(ChronoUnit.MILLIS);
+
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            log.append("14714226_2026-01-15", bytes("first"), fetchedAt);
+            log.append("14714226_2026-01-15", bytes("second"), fetchedAt);
+            log.append("14714227_2026-01-15", bytes("other"), fetchedAt);
+            log.remove("14714227_2026-01-15");
+        }
+
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            CacheLog.Entry entry = log.read("14714226_2026-01-15");
+            assertEquals("second", new String(entry.value(), StandardCharsets.UTF_8));
+            assertEquals(fetchedAt, entry.fetchedAt());
+            assertNull(log.read("14714227_2026-01-15"));
+            assertEquals(1, log.size());
+        }
+    }
+
+    @Test
+    void open_TornTail_KeepsCompleteRecordsAndAppendsAfterThem() throws IOException {
+        Path path = tempDir.resolve("support-data.cachelog");
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            log.append("a", bytes("kept"), Instant.now());
+            log.append("b", bytes("torn"), Instant.now());
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            assertEquals("kept", new String(log.read("a").value(), StandardCharsets.UTF_8));
+            assertNull(log.read("b"));
+            log.append("c", bytes("after"), Instant.now());
+        }
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            assertEquals("after", new String(log.read("c").value(), StandardCharsets.UTF_8));
+            assertEquals(2, log.size());
+        }
+    }
+
+    @Test
+    void read_EntryOlderThanMaxAge_IsMissAndDroppedOnReopen() throws IOException {
+        Path path = tempDir.resolve("company-names.cachelog");
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            log.append("old", bytes("stale"), Instant.now().minus(Duration.ofHours(25)));
+            log.append("new", bytes("fresh"), Instant.now());
+            assertNull(log.read("old"));
+        }
+
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            assertEquals(1, log.size());
+            assertNotNull(log.read("new"));
+        }
+    }
+
+    @Test
+    void compactIfNeeded_MostlySupersededRecords_ShrinksFileAndKeepsLiveEntries() throws IOException {
+        Path path = tempDir.resolve("drug-search-results.cachelog");
+        byte[] payload = new byte[64 * 1024];
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            log.append("kept", bytes("value"), Instant.now());
+            for (int i = 0; i < 80; i++) {
+                payload[0] = (byte) i;
+                log.append("rewritten", payload, Instant.now());
+            }
+            long before = log.fileBytes();
+
+            assertTrue(log.compactIfNeeded());
+
+            assertTrue(log.fileBytes() < before / 10);
+            assertEquals(log.fileBytes(), Files.size(path));
+            assertEquals(79, log.read("rewritten").value()[0]);
+            assertEquals("value", new String(log.read("kept").value(), StandardCharsets.UTF_8));
+            assertFalse(log.compactIfNeeded());
+        }
+
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            assertEquals(2, log.size());
+            assertEquals(79, log.read("rewritten").value()[0]);
+        }
+    }
+
+    @Test
+    void open_ForeignFile_StartsEmpty() throws IOException {
+        Path path = tempDir.resolve("foreign.cachelog");
+        Files.write(path, bytes("not a cache log at all"));
+
+        try (CacheLog log = CacheLog.open(path, MAX_AGE)) {
+            assertEquals(0, log.size());
+            log.append("a", bytes("value"), Instant.now());
+            assertNotNull(log.read("a"));
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.puphax.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for accent folding and the typo-tolerant name index.
+ */
+class FuzzyNameIndexTest {
+
+    private FuzzyNameIndex index;
+
+    private static void put(ProductColumnStore store, String id, String name, String ingredient) {
+        String[] values = new String[ProductColumn.values().length];
+        java.util.Arrays.fill(values, "");
+        values[ProductColumn.ID.ordinal()] = id;
+        values[ProductColumn.NAME.ordinal()] = name;
+        values[ProductColumn.ACTIVE_INGREDIENT.ordinal()] = ingredient;
+        store.put(values, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ProductColumnStore store = new ProductColumnStore();
+        put(store, "1", "ALGOPYRIN 500 MG TABLETTA", "metamizol");
+        put(store, "2", "ALGOPIRIN RETARD", "metamizol");
+        put(store, "3", "ASPIRIN PROTECT 100 MG", "acetilszalicilsav");
+        put(store, "4", "NO-SPA FORTE", "drotaverin");
+        index = FuzzyNameIndex.build(store, ProductColumn.NAME, ProductColumn.ACTIVE_INGREDIENT);
+    }
+
+    @Test
+    void fold_HungarianAccents_MapToBaseLetters() {
+        assertEquals("arvizturo tukorfurogep", HungarianFolding.fold("ÁRVÍZTŰRŐ TÜKÖRFÚRÓGÉP"));
+    }
+
+    @Test
+    void search_AccentedTerm_MatchesUnaccentedNameExactly() {
+        Map<Integer, Double> scores = index.search("algopirín");
+
+        assertEquals(1.0, scores.get(1));
+        // "algopyrin" is one substitution away
+        assertTrue(scores.get(0) < 1.0 && scores.get(0) > 0.8);
+        assertFalse(scores.containsKey(2));
+    }
+
+    @Test
+    void search_MultipleWords_RequireEveryWordAndAverageScores() {
+        Map<Integer, Double> scores = index.search("algopirin 500");
+
+        assertEquals(Map.of(0, scores.get(0)), scores);
+        assertTrue(scores.get(0) > 0.9 && scores.get(0) < 1.0);
+    }
+
+    @Test
+    void search_TransposedLettersInPartialWord_MatchesPrefix() {
+        Map<Integer, Double> scores = index.search("drotarev");
+
+        assertTrue(scores.containsKey(3));
+        assertTrue(scores.get(3) < 0.9);
+    }
+
+    @Test
+    void search_ShortWord_IsNotFuzzyMatched() {
+        assertTrue(index.search("mgx").isEmpty());
+    }
+
+    @Test
+    void editDistance_CountsTranspositionAsOneEdit() {
+        assertEquals(1, FuzzyNameIndex.editDistance("aspirni", "aspirin", 2));
+        assertEquals(3, FuzzyNameIndex.editDistance("abc", "xyzabc", 2));
+    }
+}
@@ -0,0 +1,135 @@
+package com.puphax.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the columnar product store and its dictionary encoding.
+ */
+class ProductColumnStoreTest {
+
+    private static String[] row(String id, String name, String form, String potencia) {
+        String[] values = new String[ProductColumn.values().length];
+        java.util.Arrays.fill(values, "");
+        values[ProductColumn.ID.ordinal()] = id;
+        values[ProductColumn.NAME.ordinal()] = name;
+        values[ProductColumn.GY_FORMA.ordinal()] = form;
+        values[ProductColumn.POTENCIA.ordinal()] = potencia;
+        return values;
+    }
+
+    @Test
+    void put_SharedCategoricalValues_EncodedOnce() {
+        ProductColumnStore store = new ProductColumnStore();
+        store.put(row("1", "ALGOPYRIN", "TABLETTA", "500mg"), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, true);
+        store.put(row("2", "ASPIRIN", "TABLETTA", "100mg"), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+
+        assertEquals(2, store.size());
+        assertEquals(store.code(ProductColumn.GY_FORMA, 0), store.code(ProductColumn.GY_FORMA, 1));
+        // Empty string plus one distinct form
+        assertEquals(2, store.column(ProductColumn.GY_FORMA).dictionary().size());
+        assertEquals("TABLETTA", store.get(ProductColumn.GY_FORMA, 1));
+        assertEquals(1, store.inStockCount());
+    }
+
+    @Test
+    void put_ExistingId_OverwritesRowInPlace() {
+        ProductColumnStore store = new ProductColumnStore();
+        store.put(row("1", "OLD NAME", "", ""), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+        store.put(row("1", "NEW NAME", "", ""), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, true);
+
+        assertEquals(1, store.size());
+        assertEquals(0, store.rowOf("1"));
+        assertEquals("NEW NAME", store.get(ProductColumn.NAME, 0));
+        assertTrue(store.inStock(0));
+        assertEquals(-1, store.rowOf("2"));
+    }
+
+    @Test
+    void dates_RoundTripThroughEpochDays() {
+        ProductColumnStore store = new ProductColumnStore();
+        LocalDate from = LocalDate.of(2023, 3, 1);
+        store.put(row("1", "X", "", ""), ProductColumnStore.toEpochDay(from), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+
+        assertEquals(from, store.validFrom(0));
+        assertNull(store.validTo(0));
+        assertNull(store.tkTorlesDate(0));
+    }
+
+    @Test
+    void strength_ParsesNumericPartOfPotencia() {
+        ProductColumnStore store = new ProductColumnStore();
+        store.put(row("1", "A", "", "100mg"), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+        store.put(row("2", "B", "", "mite"), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+        store.put(row("3", "C", "", ""), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+
+        assertEquals(100.0, store.strength(0));
+        assertTrue(Double.isNaN(store.strength(1)));
+        assertTrue(Double.isNaN(store.strength(2)));
+    }
+
+    @Test
+    void dictionaryColumn_ManyDistinctValues_WidensCodes() {
+        DictionaryColumn column = new DictionaryColumn(70_000);
+        for (int i = 0; i < 70_000; i++) {
+            column.set(i, "value-" + i);
+        }
+
+        assertTrue(column.isWide());
+        assertEquals("value-0", column.get(0));
+        assertEquals("value-69999", column.get(69_999));
+    }
+
+    @Test
+    void trimToSize_ReleasedReverseIndex_IsRebuiltOnLookup() {
+        ProductColumnStore store = new ProductColumnStore();
+        store.put(row("1", "ALGOPYRIN", "TABLETTA", ""), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+        store.trimToSize();
+
+        StringDictionary names = store.column(ProductColumn.NAME).dictionary();
+        assertEquals(store.code(ProductColumn.NAME, 0), names.lookup("ALGOPYRIN"));
+        assertEquals(StringDictionary.ABSENT, names.lookup("MISSING"));
+        assertTrue(store.estimatedHeapBytes() > 0);
+    }
+
+    @Test
+    void copy_WritesToCopy_LeaveOriginalUntouched() {
+        ProductColumnStore store = new ProductColumnStore();
+        store.put(row("1", "ALGOPYRIN", "TABLETTA", "500mg"), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, true);
+        store.trimToSize();
+
+        ProductColumnStore copy = store.copy(1);
+        copy.put(row("1", "ALGOPYRIN", "KENŐCS", "500mg"), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+        copy.put(row("2", "ASPIRIN", "TABLETTA", "100mg"), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, true);
+
+        assertEquals(1, store.size());
+        assertEquals("TABLETTA", store.get(ProductColumn.GY_FORMA, 0));
+        assertEquals(2, store.column(ProductColumn.GY_FORMA).dictionary().size());
+        assertTrue(store.inStock(0));
+        assertEquals(-1, store.rowOf("2"));
+
+        assertEquals(2, copy.size());
+        assertEquals("KENŐCS", copy.get(ProductColumn.GY_FORMA, 0));
+        assertFalse(copy.inStock(0));
+        assertEquals(1, copy.rowOf("2"));
+        assertEquals(100.0, copy.strength(1));
+    }
+
+    @Test
+    void bitmapIndex_AnyOfOnTrimmedStore_LeavesDictionaryReverseMapUnbuilt() {
+        ProductColumnStore store = new ProductColumnStore();
+        store.put(row("1", "ALGOPYRIN", "TABLETTA", "500mg"), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, true);
+        store.put(row("2", "ASPIRIN", "KENŐCS", "100mg"), ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, true);
+        store.trimToSize();
+        ProductBitmapIndex index = ProductBitmapIndex.build(store);
+        StringDictionary forms = store.column(ProductColumn.GY_FORMA).dictionary();
+        long heapBefore = forms.estimatedHeapBytes();
+
+        assertEquals(1, index.anyOf(ProductColumn.GY_FORMA, java.util.List.of("KENŐCS")).first());
+        assertEquals(2, index.anyOf(ProductColumn.GY_FORMA, java.util.List.of("TABLETTA", "KENŐCS", "MISSING")).getCardinality());
+        assertEquals(heapBefore, forms.estimatedHeapBytes());
+    }
+}
@@ -0,0 +1,61 @@
+package com.puphax.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the mirrored code table file and its generations.
+ */
+class ReferenceTableFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final Instant SYNCED_AT = Instant.parse("2026-01-15T03:00:00Z");
+
+    @Test
+    void write_ThenRead_RestoresTablesAndSyncTimes() throws IOException {
+        ReferenceTables tables = ReferenceTables.empty()
+            .with(ReferenceTable.CEGEK, Map.of("100", new ReferenceTables.Entry("Richter Gedeon Nyrt.", "", "")), SYNCED_AT)
+            .with(ReferenceTable.ORVKEP, Map.of("12", new ReferenceTables.Entry("Belgyógyászat", "", "B")), SYNCED_AT.plusSeconds(60));
+        Path path = tempDir.resolve("reference.tables");
+
+        ReferenceTableFile.write(path, tables);
+        ReferenceTables loaded = ReferenceTableFile.read(path).orElseThrow();
+
+        assertEquals("Richter Gedeon Nyrt.", loaded.name(ReferenceTable.CEGEK, "100"));
+        assertEquals("B", loaded.get(ReferenceTable.ORVKEP, "12").extraInfo());
+        assertEquals(SYNCED_AT, loaded.syncedAt(ReferenceTable.CEGEK));
+        assertFalse(loaded.contains(ReferenceTable.ATC));
+        assertNull(loaded.name(ReferenceTable.CEGEK, "999"));
+    }
+
+    @Test
+    void read_MissingOrForeignFile_IsEmpty() throws IOException {
+        Path path = tempDir.resolve("reference.tables");
+        assertTrue(ReferenceTableFile.read(path).isEmpty());
+
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        assertTrue(ReferenceTableFile.read(path).isEmpty());
+    }
+
+    @Test
+    void with_ReplacesOneTableAndSharesTheOthers() {
+        ReferenceTables first = ReferenceTables.empty()
+            .with(ReferenceTable.ATC, Map.of("N02BB02", new ReferenceTables.Entry("metamizol", "", "")), SYNCED_AT);
+        ReferenceTables second = first
+            .with(ReferenceTable.CEGEK, Map.of("100", new ReferenceTables.Entry("Richter", "", "")), SYNCED_AT);
+
+        assertFalse(first.contains(ReferenceTable.CEGEK));
+        assertSame(first.tables().get(ReferenceTable.ATC), second.tables().get(ReferenceTable.ATC));
+        assertEquals(1, second.size(ReferenceTable.CEGEK));
+    }
+}
@@ -0,0 +1,86 @@
+package com.puphax.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary dataset snapshot format.
+ */
+class SnapshotFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String[] row(String id, String name, String form) {
+        String[] values = new String[ProductColumn.values().length];
+        java.util.Arrays.fill(values, "");
+        values[ProductColumn.ID.ordinal()] = id;
+        values[ProductColumn.NAME.ordinal()] = name;
+        values[ProductColumn.GY_FORMA.ordinal()] = form;
+        values[ProductColumn.POTENCIA.ordinal()] = "500mg";
+        return values;
+    }
+
+    private static SnapshotFile.Contents sampleContents() {
+        ProductColumnStore store = new ProductColumnStore();
+        store.put(row("1", "ALGOPYRIN", "TABLETTA"), ProductColumnStore.toEpochDay(LocalDate.of(2023, 1, 1)),
+            ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, true);
+        store.put(row("2", "ÁRPÁD ŐSZI", "KENŐCS"), ProductColumnStore.NO_DATE,
+            ProductColumnStore.toEpochDay(LocalDate.of(2030, 6, 30)), ProductColumnStore.NO_DATE, false);
+        store.trimToSize();
+        return new SnapshotFile.Contents(store, Map.of("1011", "ALAPANYAG"), Map.of("N02BB02", "metamizol"),
+            Map.of("100", "Richter Gedeon Nyrt."));
+    }
+
+    @Test
+    void write_ThenRead_RestoresStoreAndLookupMaps() throws IOException {
+        Path path = tempDir.resolve("dataset.snapshot");
+        SnapshotFile.write(path, 42L, sampleContents());
+
+        SnapshotFile.Contents loaded = SnapshotFile.read(path, 42L).orElseThrow();
+        ProductColumnStore store = loaded.products();
+
+        assertEquals(2, store.size());
+        assertEquals(1, store.rowOf("2"));
+        assertEquals("ÁRPÁD ŐSZI", store.get(ProductColumn.NAME, 1));
+        assertEquals(store.code(ProductColumn.POTENCIA, 0), store.code(ProductColumn.POTENCIA, 1));
+        assertEquals(1, store.column(ProductColumn.GY_FORMA).dictionary().lookup("TABLETTA"));
+        assertEquals(LocalDate.of(2023, 1, 1), store.validFrom(0));
+        assertEquals(LocalDate.of(2030, 6, 30), store.validTo(1));
+        assertNull(store.tkTorlesDate(0));
+        assertTrue(store.inStock(0));
+        assertFalse(store.inStock(1));
+        assertEquals(500.0, store.strength(1));
+        assertEquals("ALAPANYAG", loaded.brandNames().get("1011"));
+        assertEquals("metamizol", loaded.atcCodes().get("N02BB02"));
+        assertEquals("Richter Gedeon Nyrt.", loaded.companies().get("100"));
+    }
+
+    @Test
+    void read_ChecksumMismatchOrMissingFile_ReturnsEmpty() throws IOException {
+        Path path = tempDir.resolve("dataset.snapshot");
+        assertEquals(Optional.empty(), SnapshotFile.read(path, 42L));
+
+        SnapshotFile.write(path, 42L, sampleContents());
+        assertEquals(Optional.empty(), SnapshotFile.read(path, 43L));
+    }
+
+    @Test
+    void read_TruncatedFile_ThrowsIOException() throws IOException {
+        Path path = tempDir.resolve("dataset.snapshot");
+        SnapshotFile.write(path, 42L, sampleContents());
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, java.util.Arrays.copyOf(bytes, bytes.length - 20));
+
+        assertThrows(IOException.class, () -> SnapshotFile.read(path, 42L));
+    }
+}
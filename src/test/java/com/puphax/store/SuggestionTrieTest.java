@@ -0,0 +1,62 @@
+package com.puphax.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the prefix trie behind the suggest endpoint.
+ */
+class SuggestionTrieTest {
+
+    private static List<String> texts(SuggestionTrie trie, int[] entries) {
+        List<String> texts = new ArrayList<>();
+        for (int entry : entries) {
+            texts.add(trie.text(entry));
+        }
+        return texts;
+    }
+
+    @Test
+    void complete_ManyEntriesSharingPrefix_ReturnsHeaviestFirst() {
+        SuggestionTrie.Builder builder = SuggestionTrie.builder();
+        for (int i = 0; i < 40; i++) {
+            builder.add("ALGOPYRIN " + i + " MG", 0, i);
+        }
+        builder.add("ASPIRIN", 1, 100);
+        SuggestionTrie trie = builder.build();
+
+        assertTrue(trie.nodeCount() > 1);
+        assertEquals(List.of("ASPIRIN", "ALGOPYRIN 39 MG", "ALGOPYRIN 38 MG"), texts(trie, trie.complete("a", 3)));
+        assertEquals(List.of("ALGOPYRIN 39 MG", "ALGOPYRIN 38 MG"), texts(trie, trie.complete("algo", 2)));
+        assertEquals(SuggestionTrie.TOP_K, trie.complete("alg", 50).length);
+    }
+
+    @Test
+    void complete_PrefixBeyondExpandedNodes_FiltersLeafRange() {
+        SuggestionTrie.Builder builder = SuggestionTrie.builder();
+        for (int i = 0; i < 40; i++) {
+            builder.add("ALGOPYRIN " + i + " MG", 0, i);
+        }
+        SuggestionTrie trie = builder.build();
+
+        assertEquals(List.of("ALGOPYRIN 17 MG"), texts(trie, trie.complete("algopyrin 17", 10)));
+        assertEquals(0, trie.complete("algopyrin 99", 10).length);
+        assertEquals(0, trie.complete("x", 10).length);
+    }
+
+    @Test
+    void complete_IgnoresCaseAndAccents() {
+        SuggestionTrie trie = SuggestionTrie.builder()
+            .add("Nátrium-klorid", 2, 5)
+            .add("NO-SPA", 0, 3)
+            .build();
+
+        assertEquals(List.of("Nátrium-klorid"), texts(trie, trie.complete("NATR", 10)));
+        assertEquals(2, trie.kind(trie.complete("natr", 10)[0]));
+        assertEquals(List.of("Nátrium-klorid", "NO-SPA"), texts(trie, trie.complete("n", 10)));
+    }
+}
@@ -0,0 +1,131 @@
+package com.puphax.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the chunked TERMEK.csv loader, its tokenizer and date decoder.
+ */
+class TermekCsvLoaderTest {
+
+    private static final int MIN_VALID_FROM = ProductColumnStore.toEpochDay(LocalDate.of(2022, 1, 1));
+    private static final int MIN_VALID_TO = ProductColumnStore.toEpochDay(LocalDate.of(2024, 1, 1));
+
+    private static String line(String id, String name, String validFrom, String validTo, boolean inStock) {
+        String[] fields = new String[TermekCsvLoader.FIELD_COUNT];
+        java.util.Arrays.fill(fields, "");
+        fields[0] = id;
+        fields[2] = validFrom;
+        fields[3] = validTo;
+        fields[12] = "\"" + name + "\"";
+        fields[18] = "\"TABLETTA\"";
+        fields[42] = inStock ? "1" : "0";
+        return String.join("\t", fields);
+    }
+
+    private static ByteBuffer file(String... lines) {
+        return ByteBuffer.wrap(("HEADER\n" + String.join("\r\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> names(ProductColumnStore store) {
+        List<String> names = new ArrayList<>();
+        for (int row = 0; row < store.size(); row++) {
+            names.add(store.get(ProductColumn.ID, row) + ":" + store.get(ProductColumn.NAME, row));
+        }
+        return names;
+    }
+
+    @Test
+    void tokenize_UnbalancedQuote_StillSplitsOnEveryTab() {
+        ByteBuffer data = ByteBuffer.wrap("1\t\"A 1/2\" B\t\tx".getBytes(StandardCharsets.UTF_8));
+        int[] starts = new int[8];
+        int[] ends = new int[8];
+
+        assertEquals(4, TermekCsvLoader.tokenize(data, 0, data.limit(), starts, ends));
+        assertEquals(2, starts[1]);
+        assertEquals(11, ends[1]);
+        assertEquals(ends[2], starts[2]);
+    }
+
+    @Test
+    void decodeDate_MatchesLocalDateAndRejectsOtherFormats() {
+        for (String date : List.of("2023.01.01", "1970.01.01", "2024.02.29", "1999.12.31", "2099.12.31")) {
+            ByteBuffer data = ByteBuffer.wrap(date.getBytes(StandardCharsets.US_ASCII));
+            LocalDate expected = LocalDate.of(Integer.parseInt(date.substring(0, 4)),
+                Integer.parseInt(date.substring(5, 7)), Integer.parseInt(date.substring(8)));
+            assertEquals(expected.toEpochDay(), TermekCsvLoader.decodeDate(data, 0, data.limit()), date);
+        }
+        for (String invalid : List.of("99", "2023-01-01", "2023.13.01", "2023.1a.01", "")) {
+            ByteBuffer data = ByteBuffer.wrap(invalid.getBytes(StandardCharsets.US_ASCII));
+            assertEquals(ProductColumnStore.NO_DATE, TermekCsvLoader.decodeDate(data, 0, data.limit()), invalid);
+        }
+        ByteBuffer clamped = ByteBuffer.wrap("2023.02.30".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(LocalDate.of(2023, 2, 28).toEpochDay(), TermekCsvLoader.decodeDate(clamped, 0, clamped.limit()));
+    }
+
+    @Test
+    void load_ManyChunks_SameRowsAndOrderAsSingleChunk() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // Every tenth ID repeats an earlier one, which must overwrite it in file order
+            String id = i % 10 == 9 ? String.valueOf(i - 5) : String.valueOf(i);
+            lines.add(line(id, "NÉV " + i, "2023.01.01", "", i % 2 == 0));
+        }
+        TermekCsvLoader loader = new TermekCsvLoader(MIN_VALID_FROM, MIN_VALID_TO);
+        ProductColumnStore sequential = new ProductColumnStore();
+        ProductColumnStore parallel = new ProductColumnStore();
+
+        loader.load(file(lines.toArray(new String[0])), sequential, 1, 1);
+        TermekCsvLoader.Report report = loader.load(file(lines.toArray(new String[0])), parallel, 4, 7);
+
+        assertEquals(7, report.chunks());
+        assertEquals(180, parallel.size());
+        assertEquals(names(sequential), names(parallel));
+        assertEquals("NÉV 9", parallel.get(ProductColumn.NAME, parallel.rowOf("4")));
+        assertEquals(sequential.inStockCount(), parallel.inStockCount());
+    }
+
+    @Test
+    void load_Report_CountsSkippedAndRejectedLines() {
+        ByteBuffer data = file(
+            line("1", "KEEP", "2023.01.01", "2099.12.31", true),
+            line("2", "OLD", "2010.01.01", "", true),
+            line("3", "EXPIRED", "2022.06.01", "2023.06.01", true),
+            "4\t\"TOO SHORT\"",
+            line("5", "NO DATES", "99", "", false));
+        ProductColumnStore store = new ProductColumnStore();
+
+        TermekCsvLoader.Report report = new TermekCsvLoader(MIN_VALID_FROM, MIN_VALID_TO).load(data, store, 2);
+
+        assertEquals(5, report.lines());
+        assertEquals(2, report.loaded());
+        assertEquals(1, report.skippedOld());
+        assertEquals(1, report.skippedExpired());
+        assertEquals(1, report.rejected());
+        assertEquals(List.of("1:KEEP", "5:NO DATES"), names(store));
+        assertEquals(LocalDate.of(2099, 12, 31), store.validTo(0));
+        assertNull(store.validFrom(1));
+        assertTrue(store.inStock(0));
+    }
+
+    @Test
+    void load_UnbalancedQuoteInName_KeepsTheRow() {
+        ByteBuffer data = file(
+            line("1", "ALGOPYRIN 1/2\" TABLETTA", "2023.01.01", "", true),
+            line("2", "ASPIRIN", "2023.01.01", "", true));
+        ProductColumnStore store = new ProductColumnStore();
+
+        TermekCsvLoader.Report report = new TermekCsvLoader(MIN_VALID_FROM, MIN_VALID_TO).load(data, store, 1);
+
+        assertEquals(0, report.rejected());
+        assertEquals(List.of("1:ALGOPYRIN 1/2\" TABLETTA", "2:ASPIRIN"), names(store));
+        assertEquals("TABLETTA", store.get(ProductColumn.GY_FORMA, 0));
+    }
+}
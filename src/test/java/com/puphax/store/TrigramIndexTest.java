@@ -0,0 +1,62 @@
+package com.puphax.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the trigram substring index over names and active ingredients.
+ */
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    private static void put(ProductColumnStore store, String id, String name, String ingredient) {
+        String[] values = new String[ProductColumn.values().length];
+        java.util.Arrays.fill(values, "");
+        values[ProductColumn.ID.ordinal()] = id;
+        values[ProductColumn.NAME.ordinal()] = name;
+        values[ProductColumn.ACTIVE_INGREDIENT.ordinal()] = ingredient;
+        store.put(values, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, ProductColumnStore.NO_DATE, false);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ProductColumnStore store = new ProductColumnStore();
+        put(store, "1", "ALGOPYRIN 500 MG TABLETTA", "metamizol");
+        put(store, "2", "ASPIRIN PROTECT 100 MG", "acetilszalicilsav");
+        put(store, "3", "B6", "piridoxin");
+        put(store, "4", "ALGOFLEX", "");
+        index = TrigramIndex.build(store, ProductColumn.NAME, ProductColumn.ACTIVE_INGREDIENT);
+    }
+
+    @Test
+    void find_SubstringAcrossWords_MatchesFullName() {
+        assertArrayEquals(new int[] {0}, index.find("500 mg tab").toArray());
+        assertArrayEquals(new int[] {0, 1}, index.find("in ").toArray());
+    }
+
+    @Test
+    void find_GramsPresentButNotAdjacent_IsRejectedByVerification() {
+        // "algo" + "lgop" grams exist, but no text contains "algoflexpyrin"
+        assertTrue(index.find("algoflexpyrin").isEmpty());
+        assertArrayEquals(new int[] {0, 3}, index.find("algo").toArray());
+    }
+
+    @Test
+    void find_ActiveIngredient_MatchesRow() {
+        assertArrayEquals(new int[] {1}, index.find("szalicil").toArray());
+    }
+
+    @Test
+    void find_ShortTerm_IncludesTextsWithoutTrigrams() {
+        assertArrayEquals(new int[] {2}, index.find("b6").toArray());
+        assertArrayEquals(new int[] {1, 2}, index.find("pi").toArray());
+    }
+
+    @Test
+    void find_UnknownGram_ReturnsEmpty() {
+        assertTrue(index.find("xyz").isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package com.puphax.util;
+
+import com.puphax.util.AdaptiveConcurrencyLimiter.Permit;
+import com.puphax.util.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the AIMD outbound concurrency limiter.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void release_FastSuccessesGrowLimit_DropsShrinkIt() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            2, 1, 4, 10, Duration.ofSeconds(1), Duration.ofSeconds(5));
+
+        for (int i = 0; i < 20; i++) {
+            Permit first = limiter.acquire();
+            Permit second = limiter.acquire();
+            first.onSuccess();
+            second.onSuccess();
+        }
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire().onDropped();
+        }
+        assertEquals(1, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void acquire_QueueFull_RejectsImmediately() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            1, 1, 1, 0, Duration.ofSeconds(5), Duration.ofSeconds(5));
+
+        Permit held = limiter.acquire();
+        assertThrows(RejectedExecutionException.class, limiter::acquire);
+        assertEquals(1, limiter.rejectedCount());
+
+        held.release();
+        limiter.acquire().release();
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void acquire_InteractiveWaiting_RunsBeforeEarlierBackground() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            1, 1, 1, 10, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        List<Priority> order = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Permit held = limiter.acquire();
+
+            Future<?> background = executor.submit(() -> AdaptiveConcurrencyLimiter.background(() -> {
+                limiter.acquire().release();
+                synchronized (order) {
+                    order.add(Priority.BACKGROUND);
+                }
+                return null;
+            }));
+            awaitQueueDepth(limiter, Priority.BACKGROUND);
+
+            Future<?> interactive = executor.submit(() -> {
+                Permit permit = limiter.acquire();
+                synchronized (order) {
+                    order.add(Priority.INTERACTIVE);
+                }
+                permit.release();
+                return null;
+            });
+            awaitQueueDepth(limiter, Priority.INTERACTIVE);
+
+            held.release();
+            interactive.get(5, TimeUnit.SECONDS);
+            background.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(Priority.INTERACTIVE, Priority.BACKGROUND), order);
+    }
+
+    private static void awaitQueueDepth(AdaptiveConcurrencyLimiter limiter, Priority priority) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getQueueDepth(priority) == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
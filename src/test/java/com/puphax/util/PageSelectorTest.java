@@ -0,0 +1,46 @@
+package com.puphax.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for heap-based page selection.
+ */
+class PageSelectorTest {
+
+    @Test
+    void page_FrontPageOfLargeList_MatchesFullSort() {
+        Random random = new Random(42);
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(random.nextInt(100));
+        }
+        List<Integer> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.naturalOrder());
+
+        assertEquals(sorted.subList(0, 20), PageSelector.page(items, Comparator.naturalOrder(), 0, 20));
+        assertEquals(sorted.subList(40, 60), PageSelector.page(items, Comparator.naturalOrder(), 40, 20));
+        assertEquals(sorted.subList(980, 1000), PageSelector.page(items, Comparator.naturalOrder(), 980, 20));
+    }
+
+    @Test
+    void page_EqualKeys_KeepListOrderLikeStableSort() {
+        List<String> items = List.of("b1", "a1", "b2", "a2", "b3", "a3", "c1", "c2", "c3", "c4");
+        Comparator<String> byLetter = Comparator.comparing(item -> item.charAt(0));
+
+        assertEquals(List.of("a1", "a2", "a3", "b1"), PageSelector.page(items, byLetter, 0, 4));
+        assertEquals(List.of("c1", "c2"), PageSelector.page(items, byLetter.reversed(), 0, 2));
+    }
+
+    @Test
+    void page_OffsetPastEnd_ReturnsEmpty() {
+        assertTrue(PageSelector.page(List.of(3, 1, 2), Comparator.<Integer>naturalOrder(), 3, 10).isEmpty());
+        assertEquals(List.of(3), PageSelector.page(List.of(3, 1, 2), Comparator.<Integer>naturalOrder(), 2, 10));
+    }
+}